@@ -0,0 +1,141 @@
+package org.example.authclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caches the auth service's Ed25519 public keys. Keys are refetched every {@code refreshInterval},
+ * and early when a token names an unknown key id (at most once per {@code minRefreshInterval}, so
+ * forged key ids cannot be used to hammer the auth service). If a refresh fails the last known keys
+ * keep being used; if no fetch has succeeded yet, lookups fail without going to the network until
+ * {@code minRefreshInterval} has passed since the failed attempt.
+ */
+public class JwksKeyCache {
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyCache.class);
+
+    // DER prefix of an X.509 SubjectPublicKeyInfo for Ed25519 (OID 1.3.101.112)
+    private static final byte[] ED25519_X509_PREFIX = {
+            0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00
+    };
+
+    private final URI jwksUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long refreshIntervalNanos;
+    private final long minRefreshIntervalNanos;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    // Time of the last fetch attempt, successful or not
+    private volatile long lastFetchNanos;
+    private volatile boolean attempted;
+    private volatile boolean fetched;
+
+    public JwksKeyCache(URI jwksUri) {
+        this(jwksUri, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    public JwksKeyCache(URI jwksUri, Duration refreshInterval, Duration minRefreshInterval) {
+        this.jwksUri = jwksUri;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public PublicKey getKey(String keyId) throws TokenVerificationException {
+        if (keyId == null || keyId.isEmpty()) {
+            throw new TokenVerificationException("Token does not name a signing key");
+        }
+        if (!fetched) {
+            refresh(minRefreshIntervalNanos);
+        } else if (System.nanoTime() - lastFetchNanos > refreshIntervalNanos) {
+            refresh(refreshIntervalNanos);
+        }
+
+        PublicKey key = keys.get(keyId);
+        if (key == null) {
+            // Possibly a key rotated in since our last fetch
+            refresh(minRefreshIntervalNanos);
+            key = keys.get(keyId);
+        }
+        if (key == null) {
+            throw new TokenVerificationException("Unknown signing key: " + keyId);
+        }
+        return key;
+    }
+
+    // Single flight: concurrent callers wait for one fetch instead of all going to the network
+    private void refresh(long maxAgeNanos) throws TokenVerificationException {
+        refreshLock.lock();
+        try {
+            if (attempted && System.nanoTime() - lastFetchNanos <= maxAgeNanos) {
+                if (!fetched) {
+                    // The last attempt failed too recently to try again
+                    throw new TokenVerificationException("Signing keys from " + jwksUri + " are unavailable");
+                }
+                return;
+            }
+            attempted = true;
+            try {
+                keys = fetch();
+                fetched = true;
+            } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+                if (!fetched) {
+                    throw new TokenVerificationException("Unable to load signing keys from " + jwksUri, e);
+                }
+                logger.warn("Refreshing signing keys from {} failed, keeping cached keys", jwksUri, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TokenVerificationException("Interrupted while loading signing keys", e);
+            } finally {
+                lastFetchNanos = System.nanoTime();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Map<String, PublicKey> fetch() throws IOException, InterruptedException, GeneralSecurityException {
+        HttpRequest request = HttpRequest.newBuilder(jwksUri)
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode());
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance("Ed25519");
+        Map<String, PublicKey> loaded = new HashMap<>();
+        for (JsonNode jwk : objectMapper.readTree(response.body()).path("keys")) {
+            if (!"OKP".equals(jwk.path("kty").asText()) || !"Ed25519".equals(jwk.path("crv").asText())) {
+                continue;
+            }
+            byte[] raw = Base64.getUrlDecoder().decode(jwk.path("x").asText());
+            byte[] encoded = new byte[ED25519_X509_PREFIX.length + raw.length];
+            System.arraycopy(ED25519_X509_PREFIX, 0, encoded, 0, ED25519_X509_PREFIX.length);
+            System.arraycopy(raw, 0, encoded, ED25519_X509_PREFIX.length, raw.length);
+            loaded.put(jwk.path("kid").asText(), keyFactory.generatePublic(new X509EncodedKeySpec(encoded)));
+        }
+        return Map.copyOf(loaded);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.authclient;
+
+public class TokenVerificationException extends Exception {
+
+    public TokenVerificationException(String message) {
+        super(message);
+    }
+
+    public TokenVerificationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.authclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Verifies EdDSA-signed access tokens in-process, so a service only needs the auth service for login
+ * and refresh. Usage:
+ * <pre>
+ * TokenVerifier verifier = new TokenVerifier(URI.create("https://auth.internal/.well-known/jwks.json"));
+ * VerifiedToken token = verifier.verify(bearerToken);
+ * </pre>
+ * Instances are thread-safe and meant to be shared.
+ */
+public class TokenVerifier {
+    private final JwksKeyCache keyCache;
+    private final long clockSkewSeconds;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public TokenVerifier(URI jwksUri) {
+        this(new JwksKeyCache(jwksUri), Duration.ofSeconds(30));
+    }
+
+    public TokenVerifier(JwksKeyCache keyCache, Duration clockSkew) {
+        this.keyCache = keyCache;
+        this.clockSkewSeconds = clockSkew.toSeconds();
+    }
+
+    public VerifiedToken verify(String token) throws TokenVerificationException {
+        if (token == null || token.isEmpty()) {
+            throw new TokenVerificationException("No token provided");
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new TokenVerificationException("Malformed token");
+        }
+
+        try {
+            JsonNode header = objectMapper.readTree(decode(token.substring(0, firstDot)));
+            // Never let the token pick a weaker algorithm than the one we expect
+            if (!"EdDSA".equals(header.path("alg").asText())) {
+                throw new TokenVerificationException("Unsupported token algorithm");
+            }
+
+            Signature signature = Signature.getInstance("Ed25519");
+            signature.initVerify(keyCache.getKey(header.path("kid").asText(null)));
+            signature.update(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(decode(token.substring(secondDot + 1)))) {
+                throw new TokenVerificationException("Invalid token signature");
+            }
+
+            JsonNode claims = objectMapper.readTree(decode(token.substring(firstDot + 1, secondDot)));
+            long now = System.currentTimeMillis() / 1000;
+            long expiresAt = claims.path("exp").asLong(0);
+            if (expiresAt == 0 || now - clockSkewSeconds > expiresAt) {
+                throw new TokenVerificationException("Token has expired");
+            }
+            long notBefore = claims.path("nbf").asLong(0);
+            if (notBefore != 0 && now + clockSkewSeconds < notBefore) {
+                throw new TokenVerificationException("Token is not yet valid");
+            }
+
+            List<String> roles = new ArrayList<>();
+            for (JsonNode role : claims.path("roles")) {
+                roles.add(role.asText());
+            }
+            JsonNode userId = claims.path("userId");
+            return new VerifiedToken(
+                    claims.path("sub").asText(null),
+                    userId.isNumber() ? userId.asLong() : null,
+                    List.copyOf(roles),
+                    claims.path("iat").asLong(0),
+                    expiresAt);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new TokenVerificationException("Malformed token", e);
+        } catch (GeneralSecurityException e) {
+            throw new TokenVerificationException("Invalid token signature", e);
+        }
+    }
+
+    private static byte[] decode(String segment) {
+        return Base64.getUrlDecoder().decode(segment);
+    }
+}
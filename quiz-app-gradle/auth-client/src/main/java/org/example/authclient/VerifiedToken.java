@@ -0,0 +1,46 @@
+package org.example.authclient;
+
+import java.util.List;
+
+// Claims of a token whose signature and lifetime have been checked
+public class VerifiedToken {
+    private final String subject;
+    private final Long userId;
+    private final List<String> roles;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    public VerifiedToken(String subject, Long userId, List<String> roles, long issuedAt, long expiresAt) {
+        this.subject = subject;
+        this.userId = userId;
+        this.roles = roles;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    // Epoch seconds
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    // Epoch seconds
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+}
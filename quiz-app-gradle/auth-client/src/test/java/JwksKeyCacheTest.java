@@ -0,0 +1,183 @@
+import com.sun.net.httpserver.HttpServer;
+import org.example.authclient.JwksKeyCache;
+import org.example.authclient.TokenVerificationException;
+import org.example.authclient.TokenVerifier;
+import org.example.authclient.VerifiedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksKeyCacheTest {
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private HttpServer server;
+    private URI jwksUri;
+    private final AtomicInteger requests = new AtomicInteger();
+    // What the fake auth service serves; null answers 503
+    private volatile String jwks;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/.well-known/jwks.json", exchange -> {
+            requests.incrementAndGet();
+            String body = jwks;
+            if (body == null) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            }
+            exchange.close();
+        });
+        server.start();
+        jwksUri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/.well-known/jwks.json");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static KeyPair newKey() throws Exception {
+        return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    }
+
+    private static String jwk(String kid, KeyPair key) {
+        byte[] encoded = key.getPublic().getEncoded();
+        // Raw key after the 12-byte X.509 prefix
+        String x = base64Url(Arrays.copyOfRange(encoded, 12, encoded.length));
+        return "{\"kty\":\"OKP\",\"crv\":\"Ed25519\",\"use\":\"sig\",\"alg\":\"EdDSA\",\"kid\":\"" + kid +
+                "\",\"x\":\"" + x + "\"}";
+    }
+
+    private static String jwkSet(String... jwks) {
+        return "{\"keys\":[" + String.join(",", jwks) + "]}";
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String sign(String kid, KeyPair key, long expiresAt) throws Exception {
+        String header = base64Url(("{\"alg\":\"EdDSA\",\"kid\":\"" + kid + "\"}").getBytes(StandardCharsets.UTF_8));
+        String claims = base64Url(("{\"sub\":\"alice\",\"roles\":[\"ROLE_USER\"],\"userId\":7,\"iat\":" +
+                (expiresAt - 900) + ",\"exp\":" + expiresAt + "}").getBytes(StandardCharsets.UTF_8));
+        Signature signature = Signature.getInstance("Ed25519");
+        signature.initSign(key.getPrivate());
+        signature.update((header + "." + claims).getBytes(StandardCharsets.US_ASCII));
+        return header + "." + claims + "." + base64Url(signature.sign());
+    }
+
+    @Test
+    void keysAreFetchedOnceAndCached() throws Exception {
+        KeyPair key = newKey();
+        jwks = jwkSet(jwk("k1", key));
+        JwksKeyCache cache = new JwksKeyCache(jwksUri, HOUR, HOUR);
+
+        assertEquals(key.getPublic(), cache.getKey("k1"));
+        assertEquals(key.getPublic(), cache.getKey("k1"));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void unknownKeyIdTriggersARefetch() throws Exception {
+        KeyPair oldKey = newKey();
+        KeyPair newKey = newKey();
+        jwks = jwkSet(jwk("old", oldKey));
+        JwksKeyCache cache = new JwksKeyCache(jwksUri, HOUR, Duration.ZERO);
+        assertEquals(oldKey.getPublic(), cache.getKey("old"));
+
+        // The auth service rotates: tokens now name a key the cache has not seen
+        jwks = jwkSet(jwk("new", newKey), jwk("old", oldKey));
+
+        assertEquals(newKey.getPublic(), cache.getKey("new"));
+        assertEquals(oldKey.getPublic(), cache.getKey("old"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void unknownKeyIdsAreRateLimited() throws Exception {
+        jwks = jwkSet(jwk("k1", newKey()));
+        JwksKeyCache cache = new JwksKeyCache(jwksUri, HOUR, HOUR);
+        cache.getKey("k1");
+
+        for (int i = 0; i < 20; i++) {
+            String forged = "forged-" + i;
+            TokenVerificationException e = assertThrows(TokenVerificationException.class, () -> cache.getKey(forged));
+            assertTrue(e.getMessage().contains(forged));
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void failedFirstFetchBacksOff() throws Exception {
+        jwks = null;
+        JwksKeyCache cache = new JwksKeyCache(jwksUri, HOUR, Duration.ofMillis(300));
+
+        assertThrows(TokenVerificationException.class, () -> cache.getKey("k1"));
+        // Within the back-off every lookup fails fast instead of going back to the network
+        for (int i = 0; i < 20; i++) {
+            assertThrows(TokenVerificationException.class, () -> cache.getKey("k1"));
+        }
+        assertEquals(1, requests.get());
+
+        KeyPair key = newKey();
+        jwks = jwkSet(jwk("k1", key));
+        Thread.sleep(400);
+
+        assertEquals(key.getPublic(), cache.getKey("k1"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void failedRefreshKeepsCachedKeys() throws Exception {
+        KeyPair key = newKey();
+        jwks = jwkSet(jwk("k1", key));
+        // Every lookup is due a scheduled refresh
+        JwksKeyCache cache = new JwksKeyCache(jwksUri, Duration.ZERO, HOUR);
+        cache.getKey("k1");
+
+        jwks = null;
+
+        assertEquals(key.getPublic(), cache.getKey("k1"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void verifierAcceptsTokensSignedWithARotatedInKey() throws Exception {
+        KeyPair oldKey = newKey();
+        KeyPair newKey = newKey();
+        jwks = jwkSet(jwk("old", oldKey));
+        TokenVerifier verifier = new TokenVerifier(new JwksKeyCache(jwksUri, HOUR, Duration.ZERO), Duration.ZERO);
+        long expiresAt = System.currentTimeMillis() / 1000 + 900;
+        verifier.verify(sign("old", oldKey, expiresAt));
+
+        jwks = jwkSet(jwk("new", newKey), jwk("old", oldKey));
+        VerifiedToken token = verifier.verify(sign("new", newKey, expiresAt));
+
+        assertEquals("alice", token.getSubject());
+        assertEquals(7L, token.getUserId());
+        assertEquals(List.of("ROLE_USER"), token.getRoles());
+        // A key id the auth service does not publish is rejected, whatever the token claims
+        assertThrows(TokenVerificationException.class, () -> verifier.verify(sign("other", newKey(), expiresAt)));
+        // Signed with a published id but the wrong key
+        assertThrows(TokenVerificationException.class, () -> verifier.verify(sign("old", newKey, expiresAt)));
+    }
+}
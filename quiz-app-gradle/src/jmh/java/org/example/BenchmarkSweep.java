@@ -0,0 +1,59 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.example.config.Json;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the selected benchmarks once per thread count, since JMH takes a single count per run, and writes
+ * JMH's JSON results per count (results-threads-N.json) and merged into results.json. Every entry carries
+ * its "threads" field, so one file compares the counts. Run through ./gradlew jmhSweep, e.g.
+ * -Pjmh.threads=1,4,16 -Pjmh.include=JwtUtilBenchmark.
+ */
+public final class BenchmarkSweep {
+
+    private BenchmarkSweep() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("jmh.include", "");
+        String threads = System.getProperty("jmh.threads",
+                "1," + Runtime.getRuntime().availableProcessors());
+        File resultsDir = new File(System.getProperty("jmh.resultsDir", "build/results/jmh-sweep"));
+        if (!resultsDir.isDirectory() && !resultsDir.mkdirs()) {
+            throw new IOException("Cannot create " + resultsDir);
+        }
+
+        ArrayNode merged = Json.mapper().createArrayNode();
+        for (String count : threads.split(",")) {
+            int threadCount = Integer.parseInt(count.trim());
+            File result = new File(resultsDir, "results-threads-" + threadCount + ".json");
+
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .threads(threadCount)
+                    .addProfiler("gc")
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(result.getPath());
+            if (!include.isBlank()) {
+                options.include(include);
+            }
+            new Runner(options.build()).run();
+
+            for (JsonNode entry : Json.mapper().readTree(result)) {
+                merged.add(entry);
+            }
+        }
+
+        File mergedFile = new File(resultsDir, "results.json");
+        Json.mapper().writerWithDefaultPrettyPrinter().writeValue(mergedFile, merged);
+        System.out.println("Results for threads " + threads + " written to " + mergedFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Construction cost of the entities every login builds: the repositories map rows through the no-arg
+// constructor and setters, tokens are issued from users carrying their role set, and clone() copies it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = mappedUser();
+    }
+
+    @Benchmark
+    public Role roleFromRow() {
+        return new Role(1L, "ROLE_USER");
+    }
+
+    @Benchmark
+    public Role roleFromType() {
+        return Role.user();
+    }
+
+    @Benchmark
+    public User userFromRow() {
+        return mappedUser();
+    }
+
+    @Benchmark
+    public User userFromBuilder() {
+        return User.builder()
+                .id(42L)
+                .username("benchmark_user")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z0GxHq0H0eKpq0u5wTzUe5yS")
+                .email("benchmark.user@mail.example.com")
+                .roles(new HashSet<>(Set.of(Role.user(), Role.moderator())))
+                .build();
+    }
+
+    @Benchmark
+    public User userClone() throws CloneNotSupportedException {
+        return user.clone();
+    }
+
+    // As JdbcUserRepository.mapUser plus findUserRoles
+    private static User mappedUser() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark_user");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z0GxHq0H0eKpq0u5wTzUe5yS");
+        user.setEmail("benchmark.user@mail.example.com");
+        user.setEnabled(true);
+        user.setAccountNonExpired(true);
+        user.setCredentialsNonExpired(true);
+        user.setAccountNonLocked(true);
+        Set<Role> roles = new HashSet<>();
+        roles.add(new Role(1L, "ROLE_USER"));
+        roles.add(new Role(3L, "ROLE_MODERATOR"));
+        user.setRoles(roles);
+        return user;
+    }
+}
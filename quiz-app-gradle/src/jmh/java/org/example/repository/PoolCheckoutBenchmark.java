@@ -0,0 +1,180 @@
+package org.example.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.pool.InstrumentedDataSource;
+import org.example.pool.PoolMonitor;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// What the pool instrumentation costs a repository per checkout, on an in-memory H2 database so the pool and
+// wrapper dominate: the bare Hikari pool, the PoolMonitor tracking it replaced (a stack walk on every checkout
+// and a reflective Proxy around the connection), and the current TrackedConnection with and without a leak
+// threshold (only with one is the call site walked). Lives in the repository package, not org.example.pool,
+// so the call-site walk stops at the benchmark method as it stops at the repository in production.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PoolCheckoutBenchmark {
+
+    @Param({"hikari", "proxy", "tracked", "trackedNoLeakCheck"})
+    public String instrumentation;
+
+    private HikariDataSource pool;
+    private DataSource dataSource;
+    private PoolMonitor monitor;
+    private ProxyTracking proxyTracking;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:pool-checkout-" + instrumentation + ";DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        config.setPoolName("benchmark-" + instrumentation);
+        pool = new HikariDataSource(config);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS t (id BIGINT PRIMARY KEY, v BIGINT)");
+            statement.execute("MERGE INTO t KEY (id) VALUES (1, 42)");
+        }
+
+        switch (instrumentation) {
+            case "hikari" -> dataSource = pool;
+            case "proxy" -> {
+                dataSource = new InstrumentedDataSource(pool);
+                proxyTracking = new ProxyTracking();
+            }
+            // The leak threshold application.properties ships with
+            case "tracked" -> monitor = new PoolMonitor(pool, 2000, -1, 0);
+            case "trackedNoLeakCheck" -> monitor = new PoolMonitor(pool, 0, -1, 0);
+            default -> throw new IllegalArgumentException(instrumentation);
+        }
+        if (monitor != null) {
+            dataSource = new InstrumentedDataSource(pool, monitor);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    private Connection connection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        return proxyTracking != null ? proxyTracking.track(connection) : connection;
+    }
+
+    // Borrow and return only
+    @Benchmark
+    public boolean checkout() throws SQLException {
+        try (Connection connection = connection()) {
+            return connection.getAutoCommit();
+        }
+    }
+
+    // A findById-shaped call: one prepared query on the borrowed connection
+    @Benchmark
+    public long query() throws SQLException {
+        try (Connection connection = connection();
+             PreparedStatement statement = connection.prepareStatement("SELECT v FROM t WHERE id = ?")) {
+            statement.setLong(1, 1);
+            try (ResultSet rows = statement.executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
+    }
+
+    // A save-shaped call: several calls on the connection itself, each of which went through the proxy
+    @Benchmark
+    public int transaction() throws SQLException {
+        try (Connection connection = connection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE t SET v = v WHERE id = ?")) {
+                statement.setLong(1, 1);
+                int updated = statement.executeUpdate();
+                connection.commit();
+                return updated;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    // PoolMonitor's checkout path before TrackedConnection, kept as the baseline
+    private static final class ProxyTracking {
+        private static final StackWalker WALKER = StackWalker.getInstance();
+
+        private final Set<Holder> holders = ConcurrentHashMap.newKeySet();
+
+        Connection track(Connection connection) {
+            Holder holder = new Holder(Thread.currentThread(), System.nanoTime(), callSite());
+            holders.add(holder);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Handler(connection, holder));
+        }
+
+        private static StackWalker.StackFrame callSite() {
+            return WALKER.walk(frames -> frames
+                    .filter(frame -> !isPoolInfrastructure(frame.getClassName()))
+                    .findFirst()
+                    .orElse(null));
+        }
+
+        private static boolean isPoolInfrastructure(String className) {
+            return className.startsWith("org.example.pool.") || className.startsWith("org.example.jfr.")
+                    || className.startsWith("org.example.repository.PoolCheckoutBenchmark$")
+                    || className.startsWith("com.zaxxer.") || className.startsWith("java.")
+                    || className.startsWith("javax.") || className.startsWith("jdk.");
+        }
+
+        private static final class Holder {
+            final Thread thread;
+            final long borrowedNanos;
+            final StackWalker.StackFrame callSite;
+
+            Holder(Thread thread, long borrowedNanos, StackWalker.StackFrame callSite) {
+                this.thread = thread;
+                this.borrowedNanos = borrowedNanos;
+                this.callSite = callSite;
+            }
+        }
+
+        private final class Handler implements InvocationHandler {
+            private final Connection delegate;
+            private final Holder holder;
+
+            Handler(Connection delegate, Holder holder) {
+                this.delegate = delegate;
+                this.holder = holder;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("close")) {
+                    holders.remove(holder);
+                }
+                try {
+                    return method.invoke(delegate, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
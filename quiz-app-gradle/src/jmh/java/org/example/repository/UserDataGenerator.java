@@ -0,0 +1,114 @@
+package org.example.repository;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Bulk-loads synthetic users into an H2 file database (MySQL mode, db/reactive-h2-schema.sql) for the
+ * repository benchmarks. Rows are generated set-based from SYSTEM_RANGE in chunks, so 10M users take minutes
+ * rather than hours of single inserts. Every user has ROLE_USER, 2% also ROLE_MODERATOR and 0.1% ROLE_ADMIN;
+ * 1% are disabled and 0.5% locked; emails spread over a few domains and sign-ups over three years.
+ * <p>
+ * A database is generated once per size under benchmark.dataDir (default build/benchmark-data) and reused;
+ * ./gradlew generateUsers -Pusers=10000000 builds one ahead of a benchmark run.
+ */
+public final class UserDataGenerator {
+    private static final int CHUNK = 500_000;
+    // Bumped when the users schema changes, so datasets built against the old one are rebuilt
+    // (2: version, 3: search indexes)
+    private static final int SCHEMA = 3;
+    public static final String PASSWORD = "Benchmark#Passw0rd";
+
+    private UserDataGenerator() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int users = Integer.parseInt(args.length > 0 ? args[0] : "1000000");
+        ensureGenerated(users);
+    }
+
+    public static String jdbcUrl(int users) {
+        File dir = new File(System.getProperty("benchmark.dataDir", "build/benchmark-data"));
+        return "jdbc:h2:file:" + new File(dir, "users-" + users).getAbsolutePath()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+    }
+
+    public static void ensureGenerated(int users) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(jdbcUrl(users), "sa", "")) {
+            if (generatedUsers(conn) == users) {
+                return;
+            }
+            long start = System.nanoTime();
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM 'classpath:/db/reactive-h2-schema.sql'");
+                statement.execute("CREATE TABLE dataset_info (users BIGINT NOT NULL, schema_version INT NOT NULL)");
+            }
+            conn.setAutoCommit(false);
+            String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+            for (long from = 1; from <= users; from += CHUNK) {
+                long to = Math.min(users, from + CHUNK - 1);
+                insertChunk(conn, hash, from, to);
+                conn.commit();
+                System.err.printf("Generated %,d of %,d users%n", to, users);
+            }
+            try (Statement statement = conn.createStatement()) {
+                // Row counts and selectivity for the planner, as a production database would have
+                statement.execute("ANALYZE");
+                statement.executeUpdate("INSERT INTO dataset_info (users, schema_version) VALUES (" + users + ", " + SCHEMA + ")");
+            }
+            conn.commit();
+            System.err.printf("Generated %,d users in %d s%n", users, (System.nanoTime() - start) / 1_000_000_000L);
+        }
+    }
+
+    private static long generatedUsers(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT users FROM dataset_info WHERE schema_version = " + SCHEMA)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        } catch (SQLException e) {
+            // No dataset_info table yet, or one from before schema_version
+            return -1;
+        }
+    }
+
+    // Ids on a fresh table run 1..N in chunk order, so a chunk's users are exactly ids from..to
+    private static void insertChunk(Connection conn, String hash, long from, long to) throws SQLException {
+        String users = "INSERT INTO users (username, password, email, enabled, account_non_expired, " +
+                "credentials_non_expired, account_non_locked, created_at, updated_at) " +
+                "SELECT 'user_' || X, ?, 'user_' || X || '@' || CASE MOD(X, 10) " +
+                "WHEN 0 THEN 'yahoo.com' WHEN 1 THEN 'outlook.com' WHEN 2 THEN 'example.org' " +
+                "WHEN 3 THEN 'mail.example.com' ELSE 'gmail.com' END, " +
+                "MOD(X, 100) <> 0, TRUE, TRUE, MOD(X, 200) <> 7, " +
+                "DATEADD('SECOND', -MOD(X * 7919, 94608000), CURRENT_TIMESTAMP), CURRENT_TIMESTAMP " +
+                "FROM SYSTEM_RANGE(?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(users)) {
+            ps.setString(1, hash);
+            ps.setLong(2, from);
+            ps.setLong(3, to);
+            ps.executeUpdate();
+        }
+        insertRoles(conn, "ROLE_USER", "TRUE", from, to);
+        insertRoles(conn, "ROLE_MODERATOR", "MOD(u.id, 50) = 0", from, to);
+        insertRoles(conn, "ROLE_ADMIN", "MOD(u.id, 1000) = 1", from, to);
+    }
+
+    private static void insertRoles(Connection conn, String role, String condition, long from, long to)
+            throws SQLException {
+        String sql = "INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u " +
+                "JOIN roles r ON r.name = ? WHERE u.id BETWEEN ? AND ? AND " + condition;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, role);
+            ps.setLong(2, from);
+            ps.setLong(3, to);
+            ps.executeUpdate();
+        }
+    }
+}
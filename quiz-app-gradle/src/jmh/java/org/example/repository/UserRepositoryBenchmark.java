@@ -0,0 +1,204 @@
+package org.example.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.impl.JdbcUserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// JdbcUserRepository against generated tables of 1M and 10M users (see UserDataGenerator; the first run at a
+// size generates its database). Before measuring, every call is profiled once (UserRepositoryProfile): its
+// round trips and query plans go to build/results/jmh/user-repository-N.json, and the trial fails if a plan
+// scans users or user_roles. Lookups pick random rows across the table, so caches only help as they would in
+// production; searches read a page far into the table. findAll is left out: one call would materialize the
+// whole table with a role query per row.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRepositoryBenchmark {
+    private static final int BATCH = 100;
+    private static final int PAGE = 50;
+    // Rare matches, so a page has to seek rather than filter its way there (see UserDataGenerator)
+    private static final UserCriteria LOCKED = UserCriteria.builder().locked(true).build();
+    private static final UserCriteria ADMINS = UserCriteria.builder().role("ROLE_ADMIN").build();
+    private static final UserCriteria PREFIX = UserCriteria.builder().usernamePrefix("user_9").build();
+
+    @Param({"1000000", "10000000"})
+    public int users;
+
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updatedRows = new AtomicLong();
+
+    private HikariDataSource pool;
+    private UserRepository repository;
+    private User existing;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        UserDataGenerator.ensureGenerated(users);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(UserDataGenerator.jdbcUrl(users));
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        config.setPoolName("benchmark-" + users);
+        pool = new HikariDataSource(config);
+        repository = new JdbcUserRepository(pool);
+        existing = repository.findById((long) users / 2).orElseThrow();
+
+        UserRepositoryProfile profile = new UserRepositoryProfile();
+        UserRepository recorded = new JdbcUserRepository(profile.wrap(pool));
+        profile.check(pool, users, calls(recorded));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    // The same calls the benchmarks make, for the profile
+    private Map<String, Callable<?>> calls(UserRepository repo) {
+        Map<String, Callable<?>> calls = new LinkedHashMap<>();
+        calls.put("findById", () -> repo.findById(randomId()));
+        calls.put("findByUsername", () -> repo.findByUsername(randomUsername()));
+        calls.put("findByUsernameMissing", () -> repo.findByUsername("missing_" + randomId()));
+        calls.put("findAllById", () -> repo.findAllById(randomIds()));
+        calls.put("existsById", () -> repo.existsById(randomId()));
+        calls.put("existsByUsername", () -> repo.existsByUsername(randomUsername()));
+        calls.put("existsByEmail", () -> repo.existsByEmail("missing_" + randomId() + "@gmail.com"));
+        calls.put("searchFirstPage", () -> repo.search(LOCKED, UserSort.ID, null, PAGE));
+        calls.put("searchDeepPage", () -> repo.search(LOCKED, UserSort.ID, deepId(), PAGE));
+        calls.put("searchByRoleDeepPage", () -> repo.search(ADMINS, UserSort.ID, deepId(), PAGE));
+        calls.put("searchByPrefixDeepPage", () -> repo.search(PREFIX, UserSort.USERNAME, "user_99", PAGE));
+        calls.put("update", () -> repo.save(existing));
+        calls.put("insertAndDelete", () -> insertAndDelete(repo));
+        return calls;
+    }
+
+    @Benchmark
+    public Object findById() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    public Object findByUsername() {
+        return repository.findByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public Object findByUsernameMissing() {
+        return repository.findByUsername("missing_" + randomId());
+    }
+
+    @Benchmark
+    public List<User> findAllById() {
+        return repository.findAllById(randomIds());
+    }
+
+    @Benchmark
+    public boolean existsById() {
+        return repository.existsById(randomId());
+    }
+
+    @Benchmark
+    public boolean existsByUsername() {
+        return repository.existsByUsername(randomUsername());
+    }
+
+    // Registration checks emails that are not taken yet
+    @Benchmark
+    public boolean existsByEmail() {
+        return repository.existsByEmail("missing_" + randomId() + "@gmail.com");
+    }
+
+    // Each thread updates its own row: on a shared one, threads would fail each other's version check
+    @State(Scope.Thread)
+    public static class UpdatedRow {
+        User user;
+
+        @Setup(Level.Trial)
+        public void setUp(UserRepositoryBenchmark benchmark) {
+            long id = benchmark.users / 2 + benchmark.updatedRows.incrementAndGet();
+            user = benchmark.repository.findById(id).orElseThrow();
+        }
+    }
+
+    // Keyset pages: a page 90% of the way through should cost what the first one does
+    @Benchmark
+    public List<UserSummary> searchFirstPage() {
+        return repository.search(LOCKED, UserSort.ID, null, PAGE);
+    }
+
+    @Benchmark
+    public List<UserSummary> searchDeepPage() {
+        return repository.search(LOCKED, UserSort.ID, deepId(), PAGE);
+    }
+
+    @Benchmark
+    public List<UserSummary> searchByRoleDeepPage() {
+        return repository.search(ADMINS, UserSort.ID, deepId(), PAGE);
+    }
+
+    @Benchmark
+    public List<UserSummary> searchByPrefixDeepPage() {
+        return repository.search(PREFIX, UserSort.USERNAME, "user_99", PAGE);
+    }
+
+    @Benchmark
+    public User update(UpdatedRow row) {
+        return repository.save(row.user);
+    }
+
+    // Insert (with roles) and delete together, so the table keeps its size across iterations
+    @Benchmark
+    public long insertAndDelete() {
+        return insertAndDelete(repository);
+    }
+
+    private long insertAndDelete(UserRepository repo) {
+        String username = "bench_" + inserted.incrementAndGet();
+        User user = User.builder()
+                .username(username)
+                .password(existing.getPassword())
+                .email(username + "@benchmark.example")
+                .build();
+        user.addRole(Role.user());
+        repo.save(user);
+        repo.deleteById(user.getId());
+        return user.getId();
+    }
+
+    private String deepId() {
+        return String.valueOf(users / 10L * 9);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, users + 1L);
+    }
+
+    private String randomUsername() {
+        return "user_" + randomId();
+    }
+
+    private List<Long> randomIds() {
+        List<Long> ids = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            ids.add(randomId());
+        }
+        return ids;
+    }
+}
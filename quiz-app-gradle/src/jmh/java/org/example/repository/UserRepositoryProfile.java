@@ -0,0 +1,186 @@
+package org.example.repository;
+
+import org.example.config.Json;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * What each repository call does to the database at a given size: the statements it issues, its round
+ * trips (one per execute, a batch counting once) and the plan of every SELECT, UPDATE and DELETE, taken with
+ * EXPLAIN and the same bound parameters. A plan that scans users or user_roles fails the check, so an index
+ * a query depends on cannot go missing unnoticed. Written to user-repository-N.json next to the JMH results.
+ */
+final class UserRepositoryProfile {
+    private static final String[] LARGE_TABLES = {"users", "user_roles", "refresh_tokens"};
+
+    private final List<Recorded> recording = new ArrayList<>();
+    private boolean active;
+
+    // Statements are recorded from the thread running check(); the benchmarks use the bare pool
+    DataSource wrap(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return result instanceof Connection ? wrap((Connection) result) : result;
+                });
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (active && result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                        Recorded recorded = new Recorded((String) args[0]);
+                        recording.add(recorded);
+                        return wrap((PreparedStatement) result, recorded);
+                    }
+                    return result;
+                });
+    }
+
+    private static PreparedStatement wrap(PreparedStatement statement, Recorded recorded) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("execute")) {
+                        recorded.executions++;
+                    } else if (name.startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer && recorded.executions == 0) {
+                        // The first execution's parameters, replayed onto EXPLAIN
+                        recorded.parameters.add(new Parameter(method, args));
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Runs each call once against the recording DataSource, explains what it issued and writes the report.
+     * Throws if any plan scans a large table.
+     */
+    Map<String, Object> check(DataSource dataSource, int users, Map<String, Callable<?>> calls) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", users);
+        List<String> scans = new ArrayList<>();
+        Map<String, Object> methods = new LinkedHashMap<>();
+        for (Map.Entry<String, Callable<?>> call : calls.entrySet()) {
+            recording.clear();
+            active = true;
+            try {
+                call.getValue().call();
+            } finally {
+                active = false;
+            }
+
+            int roundTrips = 0;
+            List<Map<String, Object>> statements = new ArrayList<>();
+            for (Recorded recorded : new ArrayList<>(recording)) {
+                roundTrips += recorded.executions;
+                Map<String, Object> statement = new LinkedHashMap<>();
+                statement.put("sql", recorded.sql);
+                statement.put("executions", recorded.executions);
+                if (recorded.explainable()) {
+                    String plan = explain(dataSource, recorded);
+                    statement.put("plan", plan);
+                    for (String table : scannedTables(plan)) {
+                        scans.add(call.getKey() + " scans " + table + ": " + recorded.sql);
+                    }
+                }
+                statements.add(statement);
+            }
+            Map<String, Object> method = new LinkedHashMap<>();
+            method.put("roundTrips", roundTrips);
+            method.put("statements", statements);
+            methods.put(call.getKey(), method);
+        }
+        report.put("methods", methods);
+        report.put("fullScans", scans);
+        write(report, users);
+
+        if (!scans.isEmpty()) {
+            throw new IllegalStateException("Queries lost their index at " + users + " users: " + scans);
+        }
+        return report;
+    }
+
+    private static String explain(DataSource dataSource, Recorded recorded) throws Exception {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("EXPLAIN " + recorded.sql)) {
+            for (Parameter parameter : recorded.parameters) {
+                invoke(ps, parameter.setter, parameter.args);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        } catch (Throwable e) {
+            if (e instanceof SQLException) {
+                return "EXPLAIN failed: " + e.getMessage();
+            }
+            throw e instanceof Exception ? (Exception) e : new IllegalStateException(e);
+        }
+    }
+
+    // H2 marks a scan as /* public.<table>.tableScan */
+    private static List<String> scannedTables(String plan) {
+        String lower = plan.toLowerCase(Locale.ROOT);
+        List<String> scanned = new ArrayList<>();
+        for (String table : LARGE_TABLES) {
+            if (lower.contains("." + table + ".tablescan")) {
+                scanned.add(table);
+            }
+        }
+        return scanned;
+    }
+
+    private static void write(Map<String, Object> report, int users) throws IOException {
+        File dir = new File(System.getProperty("benchmark.resultsDir", "build/results/jmh"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        Json.mapper().writerWithDefaultPrettyPrinter().writeValue(new File(dir, "user-repository-" + users + ".json"), report);
+    }
+
+    private static final class Recorded {
+        final String sql;
+        final List<Parameter> parameters = new ArrayList<>();
+        int executions;
+
+        Recorded(String sql) {
+            this.sql = sql;
+        }
+
+        boolean explainable() {
+            String verb = sql.stripLeading().toUpperCase(Locale.ROOT);
+            return verb.startsWith("SELECT") || verb.startsWith("UPDATE") || verb.startsWith("DELETE");
+        }
+    }
+
+    private record Parameter(Method setter, Object[] args) {
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.security;
+
+import io.jsonwebtoken.security.Keys;
+import org.example.exception.AuthException;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Token validation under a credential-stuffing style mix: 95% of tokens fail (forged signatures and expired
+// tokens), 5% are valid. "cached" is the production path, throwing the shared stackless AuthFailures;
+// "fresh" rethrows a newly allocated AuthException from the same frame, which is what every failure cost
+// before. Failures are thrown stackDepth frames below the catch, since fillInStackTrace walks the whole
+// stack and a servlet container puts ~100 frames under a request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthFailureBenchmark {
+    private static final int TOKENS = 100;
+    private static final int VALID = 5;
+    private static final int EXPIRED = 35;
+
+    @Param({"20", "120"})
+    public int stackDepth;
+
+    private JwtUtil jwtUtil;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        String secret = "benchmark-secret-benchmark-secret-0123456789";
+        jwtUtil = new JwtUtil(secret, 900);
+        HmacJwtCodec codec = new HmacJwtCodec(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
+
+        long now = System.currentTimeMillis();
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            if (i < VALID) {
+                tokens[i] = codec.encode("user" + i, List.of("ROLE_USER"), (long) i, now, now + 900_000);
+            } else if (i < VALID + EXPIRED) {
+                tokens[i] = codec.encode("user" + i, List.of("ROLE_USER"), (long) i, now - 7_200_000, now - 3_600_000);
+            } else {
+                // Valid structure, forged signature
+                String token = codec.encode("user" + i, List.of("ROLE_ADMIN"), (long) i, now, now + 900_000);
+                tokens[i] = token.substring(0, token.length() - 4) + "AAAA";
+            }
+        }
+        // Spread failure kinds instead of running them in blocks
+        Collections.shuffle(Arrays.asList(tokens), new Random(7));
+    }
+
+    @Benchmark
+    public int cached() {
+        try {
+            return validateAt(stackDepth, nextToken(), false);
+        } catch (AuthException e) {
+            return e.getMessage().length();
+        }
+    }
+
+    @Benchmark
+    public int fresh() {
+        try {
+            return validateAt(stackDepth, nextToken(), true);
+        } catch (AuthException e) {
+            return e.getMessage().length();
+        }
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) % TOKENS;
+        return token;
+    }
+
+    private int validateAt(int depth, String token, boolean freshException) throws AuthException {
+        if (depth > 0) {
+            return validateAt(depth - 1, token, freshException) + 1;
+        }
+        try {
+            return jwtUtil.parseToken(token).getSubject().length();
+        } catch (AuthException.TokenExpiredException e) {
+            throw freshException ? new AuthException.TokenExpiredException() : e;
+        } catch (AuthException e) {
+            throw freshException ? new AuthException.InvalidTokenException() : e;
+        }
+    }
+}
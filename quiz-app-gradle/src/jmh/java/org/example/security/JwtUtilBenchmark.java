@@ -0,0 +1,62 @@
+package org.example.security;
+
+import org.example.exception.AuthException;
+import org.example.model.Role;
+import org.example.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// The token operations on the request path, through JwtUtil as the services call them (metrics, JFR event
+// and trace span included), for both signing modes. Token state is shared, so running with more threads
+// (see BenchmarkSweep) shows whether anything on these paths contends.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    @Param({"hmac", "eddsa"})
+    public String algorithm;
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        if ("eddsa".equals(algorithm)) {
+            EdDsaKeySet keys = new EdDsaKeySet(KeyPairGenerator.getInstance("Ed25519").generateKeyPair(), List.of());
+            jwtUtil = new JwtUtil(null, 900, keys);
+        } else {
+            jwtUtil = new JwtUtil("benchmark-secret-benchmark-secret-0123456789", 900);
+        }
+        user = User.builder()
+                .id(42L)
+                .username("benchmark_user")
+                .roles(Set.of(Role.user(), Role.moderator()))
+                .build();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() throws AuthException {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Object getAllClaimsFromToken() throws AuthException {
+        return jwtUtil.getAllClaimsFromToken(token);
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.security;
+
+import org.example.metrics.TimedPasswordEncoder;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Hashing cost per login/register at each work factor: Spring's BCryptPasswordEncoder, jBCrypt (also on the
+// classpath), and the production TimedPasswordEncoder wrapper, whose overhead should vanish next to the hash.
+// Hashing is CPU-bound, so runs at 1 thread and at the core count (see BenchmarkSweep) give the throughput
+// ceiling the auth-cpu pool can reach.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+    private static final String PASSWORD = "Benchmark#Passw0rd";
+
+    @Param({"spring", "jbcrypt", "timed"})
+    public String encoder;
+
+    @Param({"4", "10", "12"})
+    public int cost;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        switch (encoder) {
+            case "spring" -> passwordEncoder = new BCryptPasswordEncoder(cost);
+            case "jbcrypt" -> passwordEncoder = new JBCryptEncoder(cost);
+            case "timed" -> passwordEncoder = new TimedPasswordEncoder(new BCryptPasswordEncoder(cost));
+            default -> throw new IllegalArgumentException("Unknown encoder: " + encoder);
+        }
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+
+    private static final class JBCryptEncoder implements PasswordEncoder {
+        private final int logRounds;
+
+        JBCryptEncoder(int logRounds) {
+            this.logRounds = logRounds;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return BCrypt.hashpw(rawPassword.toString(), BCrypt.gensalt(logRounds));
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return BCrypt.checkpw(rawPassword.toString(), encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.service;
+
+import org.example.dto.SignupRequest;
+import org.example.exception.AuthException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Input validation on register and change-password: SignupRequest.validate on its own, and the AuthService
+// validators that wrap it and translate failures to AuthException. "invalid" fails on the password, after
+// the username and email rules have run, so it measures the full walk plus the exception.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestValidationBenchmark {
+
+    @Param({"valid", "invalid"})
+    public String input;
+
+    private SignupRequest request;
+    private String newPassword;
+
+    @Setup
+    public void setUp() {
+        boolean valid = "valid".equals(input);
+        String password = valid ? "Benchmark#Passw0rd" : "BenchmarkPassw0rd";
+        request = new SignupRequest("benchmark_user_42", password, "benchmark.user@mail.example.com", password);
+        newPassword = password;
+    }
+
+    @Benchmark
+    public int signupRequestValidate() {
+        try {
+            request.validate();
+            return 0;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage().length();
+        }
+    }
+
+    @Benchmark
+    public int validateSignupRequest() {
+        try {
+            AuthService.validateSignupRequest(request);
+            return 0;
+        } catch (AuthException e) {
+            return e.getMessage().length();
+        }
+    }
+
+    @Benchmark
+    public int validatePassword() {
+        try {
+            AuthService.validatePassword(newPassword);
+            return 0;
+        } catch (AuthException e) {
+            return e.getMessage().length();
+        }
+    }
+}
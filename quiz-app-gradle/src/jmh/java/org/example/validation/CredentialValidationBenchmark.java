@@ -0,0 +1,75 @@
+package org.example.validation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Credential checks before and after the policies: String.matches per rule, which compiles a Pattern on
+// every call, against one pass over the characters. "valid" walks every rule; "weak" fails the last one.
+// With the gc profiler, gc.alloc.rate.norm should read ~0 bytes/op for the policy benchmarks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CredentialValidationBenchmark {
+    private static final String EMAIL_REGEX =
+            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$";
+
+    @Param({"valid", "weak"})
+    public String input;
+
+    private final PasswordPolicy passwordPolicy = PasswordPolicy.builder().build();
+    private final EmailPolicy emailPolicy = EmailPolicy.builder().build();
+    private final UsernamePolicy usernamePolicy = UsernamePolicy.builder()
+            .maxLength(30)
+            .wordCharactersOnly(true)
+            .build();
+
+    private String password;
+    private String email;
+    private String username;
+
+    @Setup
+    public void setUp() {
+        boolean valid = "valid".equals(input);
+        password = valid ? "Benchmark#Passw0rd" : "BenchmarkPassw0rd";
+        email = valid ? "benchmark.user@mail.example.com" : "benchmark.user@mail.example.c0m";
+        username = valid ? "benchmark_user_42" : "benchmark_user-42";
+    }
+
+    @Benchmark
+    public boolean passwordRegex() {
+        return password.length() >= 8
+                && password.matches(".*[A-Z].*")
+                && password.matches(".*[a-z].*")
+                && password.matches(".*\\d.*")
+                && password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*");
+    }
+
+    @Benchmark
+    public boolean passwordPolicy() {
+        return passwordPolicy.check(password) == 0;
+    }
+
+    @Benchmark
+    public boolean emailRegex() {
+        return email.matches(EMAIL_REGEX);
+    }
+
+    @Benchmark
+    public boolean emailPolicy() {
+        return emailPolicy.check(email) == 0;
+    }
+
+    @Benchmark
+    public boolean usernameRegex() {
+        return username.matches("^[a-zA-Z0-9_]{3,30}$");
+    }
+
+    @Benchmark
+    public boolean usernamePolicy() {
+        return usernamePolicy.check(username) == 0;
+    }
+}
@@ -0,0 +1,415 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.example.Application;
+import org.example.config.Json;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load against the whole app without a shared environment: starts the servlet app in-process
+ * on the embedded container over in-memory H2 in MySQL mode (db/reactive-h2-schema.sql), seeds synthetic
+ * users, waits for /health/ready (so the startup warm-up has finished), and drives open-model load at each
+ * configured rate with a mix of /login, /validate, /register and /refresh. Requests are issued on a fixed schedule whatever the server's response times, and latency is
+ * measured from each request's scheduled start, so a stalled server is charged for the requests it held
+ * back (coordinated omission). Service time, measured from the actual send, is reported next to it.
+ * Prints one JSON object per rate.
+ * <p>
+ * System properties: loadtest.users (seeded), loadtest.sessions (seeded users logged in up front to supply
+ * access and refresh tokens), loadtest.rates (requests/s, e.g. 100,200,400), loadtest.mix (e.g.
+ * login=10,validate=75,register=5,refresh=10), loadtest.warmupSeconds, loadtest.durationSeconds,
+ * loadtest.port (0 = any free port), loadtest.label, loadtest.output (also write the results as a JSON array).
+ * JWT_SECRET must be set in the environment, as for the app; the authLoad task sets one.
+ */
+public class AuthLoadHarness {
+    private static final String DB_URL = "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String PASSWORD = "LoadTest#Passw0rd";
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long READY_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
+
+    enum Operation {
+        LOGIN("login"), VALIDATE("validate"), REGISTER("register"), REFRESH("refresh");
+
+        final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getenv("JWT_SECRET") == null) {
+            throw new IllegalStateException("JWT_SECRET must be set (./gradlew authLoad sets one)");
+        }
+        int users = Integer.parseInt(System.getProperty("loadtest.users", "1000"));
+        int sessions = Math.min(users, Integer.parseInt(System.getProperty("loadtest.sessions", "100")));
+        if (sessions < 1) {
+            throw new IllegalArgumentException("loadtest.users and loadtest.sessions must be at least 1");
+        }
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", "login=10,validate=75,register=5,refresh=10"));
+        long warmupSeconds = Long.parseLong(System.getProperty("loadtest.warmupSeconds", "10"));
+        long durationSeconds = Long.parseLong(System.getProperty("loadtest.durationSeconds", "30"));
+        String label = System.getProperty("loadtest.label", "embedded-h2");
+        String output = System.getProperty("loadtest.output", "");
+
+        // Read by PropertyLoader when DatabaseConfig initialises during startup
+        System.setProperty("db.url", DB_URL);
+        System.setProperty("db.username", "sa");
+        System.setProperty("db.password", "");
+        System.setProperty("db.driver-class-name", "org.h2.Driver");
+        seed(users);
+
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=" + System.getProperty("loadtest.port", "0"))
+                .run();
+        ExecutorService callbacks = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(callbacks)
+                    .build();
+            // StartupWarmup runs auth cycles on every core until the app reports ready; measuring before that
+            // would have the load compete with it
+            awaitReady(client, "http://localhost:" + port + "/health/ready");
+            Driver driver = new Driver(client, "http://localhost:" + port + "/api/auth", users, sessions);
+            driver.logInSessions();
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            String[] rates = System.getProperty("loadtest.rates", "100,200,400").split(",");
+            driver.run(mix, Double.parseDouble(rates[0].trim()), warmupSeconds);
+            for (String rate : rates) {
+                Map<String, Object> result = driver.run(mix, Double.parseDouble(rate.trim()), durationSeconds);
+                result.put("label", label);
+                results.add(result);
+                System.out.println(Json.mapper().writeValueAsString(result));
+            }
+            if (!output.isEmpty()) {
+                File file = new File(output);
+                if (file.getParentFile() != null) {
+                    file.getParentFile().mkdirs();
+                }
+                Json.mapper().writerWithDefaultPrettyPrinter().writeValue(file, results);
+            }
+        } finally {
+            callbacks.shutdownNow();
+            app.close();
+        }
+    }
+
+    private static void awaitReady(HttpClient client, String url) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + READY_TIMEOUT_NANOS;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).GET().build();
+        while (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("App not ready within "
+                        + TimeUnit.NANOSECONDS.toSeconds(READY_TIMEOUT_NANOS) + " s (" + url + ")");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no operation with a positive weight: " + mix);
+        }
+        return weights;
+    }
+
+    // Schema and users go in before the app starts; one hash serves every user, since they share a password
+    private static void seed(int users) throws SQLException {
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection conn = DriverManager.getConnection(DB_URL, "sa", "")) {
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("RUNSCRIPT FROM 'classpath:/db/reactive-h2-schema.sql'");
+            }
+            String sql = "INSERT INTO users (username, password, email, created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < users; i++) {
+                    ps.setString(1, seededUsername(i));
+                    ps.setString(2, hash);
+                    ps.setString(3, seededUsername(i) + "@loadtest.example");
+                    ps.setTimestamp(4, now);
+                    ps.setTimestamp(5, now);
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            try (Statement statement = conn.createStatement()) {
+                statement.executeUpdate("INSERT INTO user_roles (user_id, role_id) " +
+                        "SELECT u.id, r.id FROM users u, roles r WHERE r.name = 'ROLE_USER'");
+            }
+        }
+        System.err.println("Seeded " + users + " users");
+    }
+
+    private static String seededUsername(int index) {
+        return "load_user_" + index;
+    }
+
+    private static final class Driver {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final int users;
+        // Tokens from logins and refreshes; refresh tokens are single-use, so each is handed out once
+        private final AtomicReferenceArray<String> accessTokens;
+        private final ConcurrentLinkedQueue<String> refreshTokens = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger refreshTokenCount = new AtomicInteger();
+        private final int maxRefreshTokens;
+        private final AtomicLong registrations = new AtomicLong();
+        private final String runId = Long.toString(System.currentTimeMillis() % 1_000_000, 36);
+
+        Driver(HttpClient client, String baseUrl, int users, int sessions) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.users = users;
+            this.accessTokens = new AtomicReferenceArray<>(sessions);
+            this.maxRefreshTokens = sessions * 2;
+        }
+
+        void logInSessions() throws IOException, InterruptedException {
+            for (int i = 0; i < accessTokens.length(); i++) {
+                HttpResponse<byte[]> response = client.send(login(i), HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Login of " + seededUsername(i) + " failed with "
+                            + response.statusCode() + ": " + new String(response.body()));
+                }
+                keepTokens(response.body(), i);
+            }
+        }
+
+        Map<String, Object> run(Map<Operation, Integer> mix, double rate, long seconds) throws InterruptedException {
+            Operation[] operations = mix.keySet().toArray(new Operation[0]);
+            int[] cumulative = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += mix.get(operations[i]);
+                cumulative[i] = total;
+            }
+
+            Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+            for (Operation operation : operations) {
+                stats.put(operation, new Stats());
+            }
+            AtomicInteger inFlight = new AtomicInteger();
+            SplittableRandom random = new SplittableRandom(42);
+
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            double intervalNanos = 1e9 / rate;
+            for (long i = 0; ; i++) {
+                long intended = start + (long) (i * intervalNanos);
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                int pick = random.nextInt(total);
+                int index = 0;
+                while (cumulative[index] <= pick) {
+                    index++;
+                }
+                dispatch(operations[index], intended, stats.get(operations[index]), inFlight);
+            }
+            long drainDeadline = System.nanoTime() + MAX_LATENCY_NANOS;
+            while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(10);
+            }
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("targetRate", rate);
+            result.put("durationSeconds", seconds);
+            Histogram all = new Histogram(MAX_LATENCY_NANOS, 3);
+            long errors = 0;
+            Map<String, Object> byOperation = new LinkedHashMap<>();
+            for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+                Stats operationStats = entry.getValue();
+                Histogram response = operationStats.response.getIntervalHistogram();
+                all.add(response);
+                errors += operationStats.errors.sum();
+                byOperation.put(entry.getKey().label, operationStats.toMap(response, elapsedSeconds));
+            }
+            result.put("requests", all.getTotalCount());
+            result.put("throughput", all.getTotalCount() / elapsedSeconds);
+            result.put("errors", errors);
+            result.put("errorRate", all.getTotalCount() == 0 ? 0.0 : (double) errors / all.getTotalCount());
+            putLatencies(result, all);
+            result.put("inFlightAtEnd", inFlight.get());
+            result.put("operations", byOperation);
+            return result;
+        }
+
+        private void dispatch(Operation operation, long intended, Stats stats, AtomicInteger inFlight) {
+            HttpRequest request = request(operation);
+            if (request == null) {
+                stats.skipped.increment();
+                return;
+            }
+            inFlight.incrementAndGet();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, failure) -> {
+                long now = System.nanoTime();
+                stats.response.recordValue(Math.min(now - intended, MAX_LATENCY_NANOS));
+                stats.service.recordValue(Math.min(now - sent, MAX_LATENCY_NANOS));
+                if (failure != null || response.statusCode() / 100 != 2) {
+                    stats.errors.increment();
+                } else if (operation == Operation.LOGIN || operation == Operation.REFRESH) {
+                    keepTokens(response.body(), ThreadLocalRandom.current().nextInt(accessTokens.length()));
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        // Null when there is no token to use; counted as skipped rather than sent without one
+        private HttpRequest request(Operation operation) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (operation) {
+                case LOGIN:
+                    return login(random.nextInt(users));
+                case VALIDATE: {
+                    String token = accessTokens.get(random.nextInt(accessTokens.length()));
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/validate"))
+                            .header("Authorization", "Bearer " + token)
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                }
+                case REGISTER: {
+                    String username = "lt_" + runId + "_" + registrations.incrementAndGet();
+                    return post("/register", Map.of("username", username, "email", username + "@loadtest.example",
+                            "password", PASSWORD, "confirmPassword", PASSWORD), null);
+                }
+                case REFRESH: {
+                    String refreshToken = refreshTokens.poll();
+                    if (refreshToken == null) {
+                        return null;
+                    }
+                    refreshTokenCount.decrementAndGet();
+                    return post("/refresh", Map.of(), refreshToken);
+                }
+                default:
+                    throw new IllegalArgumentException(operation.name());
+            }
+        }
+
+        private HttpRequest login(int user) {
+            return post("/login", Map.of("username", seededUsername(user), "password", PASSWORD), null);
+        }
+
+        private HttpRequest post(String path, Map<String, String> body, String bearer) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30));
+            if (bearer != null) {
+                builder.header("Authorization", "Bearer " + bearer);
+            }
+            try {
+                return builder.POST(HttpRequest.BodyPublishers.ofByteArray(Json.toBytes(body))).build();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void keepTokens(byte[] body, int slot) {
+            try {
+                JsonNode tokens = Json.mapper().readTree(body);
+                JsonNode accessToken = tokens.get("token");
+                if (accessToken != null) {
+                    accessTokens.set(slot, accessToken.asText());
+                }
+                JsonNode refreshToken = tokens.get("refreshToken");
+                if (refreshToken != null && refreshTokenCount.incrementAndGet() <= maxRefreshTokens) {
+                    refreshTokens.add(refreshToken.asText());
+                } else if (refreshToken != null) {
+                    refreshTokenCount.decrementAndGet();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unreadable token response", e);
+            }
+        }
+    }
+
+    private static final class Stats {
+        final Recorder response = new Recorder(MAX_LATENCY_NANOS, 3);
+        final Recorder service = new Recorder(MAX_LATENCY_NANOS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+
+        Map<String, Object> toMap(Histogram responseTimes, double elapsedSeconds) {
+            Histogram serviceTimes = service.getIntervalHistogram();
+            long requests = responseTimes.getTotalCount();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", requests);
+            map.put("throughput", requests / elapsedSeconds);
+            map.put("errors", errors.sum());
+            map.put("errorRate", requests == 0 ? 0.0 : (double) errors.sum() / requests);
+            map.put("skipped", skipped.sum());
+            putLatencies(map, responseTimes);
+            map.put("serviceP50Ms", millis(serviceTimes, 50));
+            map.put("serviceP99Ms", millis(serviceTimes, 99));
+            map.put("serviceP999Ms", millis(serviceTimes, 99.9));
+            return map;
+        }
+    }
+
+    private static void putLatencies(Map<String, Object> map, Histogram histogram) {
+        map.put("p50Ms", millis(histogram, 50));
+        map.put("p99Ms", millis(histogram, 99));
+        map.put("p999Ms", millis(histogram, 99.9));
+        map.put("maxMs", histogram.getMaxValue() / 1e6);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.loadtest;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarises a Flight Recorder file into one latency table per event type: the application's own events
+ * (org.example.*: logins, token checks, hashing, repository queries, pool checkouts) next to the JVM's
+ * GC pauses, monitor contention and parking, so a profiling session shows which operations waited on what.
+ * Rows are grouped by the event's operation (or outcome, pool, monitor class...) and sorted by total time.
+ * <p>
+ * Usage: JfrSummary recording.jfr, e.g. ./gradlew jfrSummary -Pjfr.file=recording.jfr
+ */
+public class JfrSummary {
+    private static final List<String> JVM_EVENTS = List.of(
+            "jdk.GarbageCollection", "jdk.JavaMonitorEnter", "jdk.ThreadPark");
+
+    public static void main(String[] args) throws IOException {
+        String file = args.length > 0 ? args[0] : System.getProperty("jfr.file");
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Pass the recording to summarise (jfr.file)");
+        }
+
+        // event type -> group -> durations
+        Map<String, Map<String, Histogram>> tables = new TreeMap<>();
+        try (RecordingFile recording = new RecordingFile(Path.of(file))) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String type = event.getEventType().getName();
+                if (!type.startsWith("org.example.") && !JVM_EVENTS.contains(type)) {
+                    continue;
+                }
+                tables.computeIfAbsent(type, t -> new TreeMap<>())
+                        .computeIfAbsent(group(event), g -> new Histogram(3))
+                        .recordValue(Math.max(0L, event.getDuration().toNanos()));
+            }
+        }
+
+        if (tables.isEmpty()) {
+            System.out.println("No application or contention events in " + file
+                    + " (were the org.example events enabled in the recording settings?)");
+        }
+        tables.forEach(JfrSummary::print);
+    }
+
+    private static String group(RecordedEvent event) {
+        for (String field : List.of("operation", "outcome", "pool", "name")) {
+            if (event.hasField(field)) {
+                String value = event.getString(field);
+                if (field.equals("outcome") && event.hasField("async")) {
+                    return value + (event.getBoolean("async") ? " (async)" : "");
+                }
+                return value;
+            }
+        }
+        if (event.hasField("algorithm")) {
+            return event.getString("algorithm") + (event.getBoolean("valid") ? " valid" : " invalid");
+        }
+        for (String field : List.of("monitorClass", "parkedClass")) {
+            if (event.hasField(field)) {
+                RecordedClass recordedClass = event.getClass(field);
+                return recordedClass != null ? recordedClass.getName() : "(none)";
+            }
+        }
+        return "(all)";
+    }
+
+    private static void print(String type, Map<String, Histogram> groups) {
+        List<Map.Entry<String, Histogram>> rows = new ArrayList<>(groups.entrySet());
+        rows.sort(Comparator.comparingDouble((Map.Entry<String, Histogram> row) -> total(row.getValue())).reversed());
+
+        int width = Math.max(10, rows.stream().mapToInt(row -> row.getKey().length()).max().orElse(0));
+        String format = "%-" + width + "s %9s %10s %10s %10s %10s %12s%n";
+        System.out.println();
+        System.out.println(type);
+        System.out.printf(Locale.ROOT, format, "group", "count", "p50 ms", "p90 ms", "p99 ms", "max ms", "total ms");
+        for (Map.Entry<String, Histogram> row : rows) {
+            Histogram histogram = row.getValue();
+            System.out.printf(Locale.ROOT, format, row.getKey(), histogram.getTotalCount(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getMaxValue()),
+                    String.format(Locale.ROOT, "%.1f", total(histogram) / 1e6));
+        }
+    }
+
+    private static double total(Histogram histogram) {
+        return histogram.getMean() * histogram.getTotalCount();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,285 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.config.Json;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from JVM launch to the first successful login, per startup mode. Each run starts the servlet app in
+ * a fresh JVM over an H2 file database (MySQL mode, seeded once with one user) and retries POST /login until
+ * it returns a token; the time to the first accepted connection is reported next to it. A mode is a
+ * startup.mode, optionally with -cds to start from the class-data archive (e.g. standard,fast,fast-cds).
+ * <p>
+ * With startup.train=true it instead makes that archive: one fast-mode run with -XX:ArchiveClassesAtExit
+ * that logs in and validates a few times, so the request path is archived along with startup, then stops.
+ * <p>
+ * System properties: startup.modes, startup.runs (per mode), startup.classpath (the app's; jars only for
+ * CDS, and the same for training and timed runs), startup.archive, startup.dir (databases, child logs and
+ * startup.json), startup.train, startup.warmup (run the app's startup warm-up; off by default). JWT_SECRET
+ * is passed on to the app; the startupTime and cdsArchive tasks set one.
+ */
+public class StartupTimer {
+    private static final String USERNAME = "startup_user";
+    private static final String PASSWORD = "Startup#Passw0rd";
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
+    private static final int TRAINING_REQUESTS = 50;
+
+    public static void main(String[] args) throws Exception {
+        if (System.getenv("JWT_SECRET") == null) {
+            throw new IllegalStateException("JWT_SECRET must be set (./gradlew startupTime sets one)");
+        }
+        File dir = new File(System.getProperty("startup.dir", "build/results/startup"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        String classpath = System.getProperty("startup.classpath", System.getProperty("java.class.path"));
+        File archive = new File(System.getProperty("startup.archive", "build/cds/app.jsa"));
+        String dbUrl = "jdbc:h2:file:" + new File(dir, "startup").getAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        seed(dbUrl);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        StartupTimer timer = new StartupTimer(client, classpath, dbUrl, dir);
+
+        if (Boolean.getBoolean("startup.train")) {
+            timer.train(archive);
+            return;
+        }
+
+        int runs = Integer.parseInt(System.getProperty("startup.runs", "5"));
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String mode : System.getProperty("startup.modes", "standard,fast,fast-cds").split(",")) {
+            mode = mode.trim();
+            boolean cds = mode.endsWith("-cds");
+            if (cds && !archive.isFile()) {
+                System.err.println("Skipping " + mode + ": no archive at " + archive + " (./gradlew cdsArchive)");
+                continue;
+            }
+            Map<String, Object> result = timer.measure(mode, cds ? archive : null, runs);
+            results.add(result);
+            System.out.println(Json.mapper().writeValueAsString(result));
+        }
+        Json.mapper().writerWithDefaultPrettyPrinter().writeValue(new File(dir, "startup.json"), results);
+    }
+
+    private final HttpClient client;
+    private final String classpath;
+    private final String dbUrl;
+    private final File dir;
+
+    private StartupTimer(HttpClient client, String classpath, String dbUrl, File dir) {
+        this.client = client;
+        this.classpath = classpath;
+        this.dbUrl = dbUrl;
+        this.dir = dir;
+    }
+
+    private Map<String, Object> measure(String mode, File archive, int runs) throws Exception {
+        long[] listenMillis = new long[runs];
+        long[] loginMillis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            List<String> jvmArgs = archive != null ? List.of("-XX:SharedArchiveFile=" + archive.getAbsolutePath()) : List.of();
+            Launch launch = start(mode.replace("-cds", ""), jvmArgs, new File(dir, mode + "-" + run + ".log"));
+            try {
+                launch.awaitLogin();
+                listenMillis[run] = launch.listenMillis;
+                loginMillis[run] = launch.loginMillis;
+            } finally {
+                launch.stop();
+            }
+            System.err.printf("%s run %d: listening after %d ms, first login after %d ms%n",
+                    mode, run + 1, launch.listenMillis, launch.loginMillis);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        result.put("runs", runs);
+        result.put("firstLoginMs", summary(loginMillis));
+        result.put("listeningMs", summary(listenMillis));
+        return result;
+    }
+
+    private void train(File archive) throws Exception {
+        File parent = archive.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        Files.deleteIfExists(archive.toPath());
+        Launch launch = start("fast", List.of("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath()),
+                new File(dir, "training.log"));
+        try {
+            String token = launch.awaitLogin();
+            for (int i = 0; i < TRAINING_REQUESTS; i++) {
+                launch.login();
+                launch.validate(token);
+            }
+        } finally {
+            // The archive is written as the JVM exits
+            launch.stop();
+        }
+        if (!archive.isFile()) {
+            throw new IllegalStateException("No archive written; see " + new File(dir, "training.log"));
+        }
+        System.err.printf("Wrote %s (%,d KB) after first login at %d ms%n",
+                archive, archive.length() / 1024, launch.loginMillis);
+    }
+
+    private Launch start(String startupMode, List<String> jvmArgs, File log) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(jvmArgs);
+        command.addAll(Arrays.asList(
+                "-cp", classpath,
+                "-Dstartup.mode=" + startupMode,
+                "-Ddb.url=" + dbUrl,
+                "-Ddb.username=sa",
+                "-Ddb.password=",
+                "-Ddb.driver-class-name=org.h2.Driver",
+                "-Dserver.port=" + port,
+                // The startup warm-up would compete with the first login for CPU; off unless startup.warmup=true
+                "-Dwarmup.enabled=" + Boolean.getBoolean("startup.warmup"),
+                "org.example.Application"));
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log);
+        long started = System.nanoTime();
+        return new Launch(builder.start(), started, "http://localhost:" + port + "/api/auth", log);
+    }
+
+    private final class Launch {
+        final Process process;
+        final long started;
+        final String baseUrl;
+        final File log;
+        long listenMillis = -1;
+        long loginMillis = -1;
+
+        Launch(Process process, long started, String baseUrl, File log) {
+            this.process = process;
+            this.started = started;
+            this.baseUrl = baseUrl;
+            this.log = log;
+        }
+
+        // Polls /login until it returns a token
+        String awaitLogin() throws Exception {
+            while (System.nanoTime() - started < TIMEOUT_NANOS) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("App exited with " + process.exitValue() + "; see " + log);
+                }
+                try {
+                    HttpResponse<byte[]> response = login();
+                    if (listenMillis < 0) {
+                        listenMillis = elapsedMillis();
+                    }
+                    if (response.statusCode() == 200) {
+                        loginMillis = elapsedMillis();
+                        return Json.mapper().readTree(response.body()).get("token").asText();
+                    }
+                } catch (ConnectException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("No successful login within " + TimeUnit.NANOSECONDS.toSeconds(TIMEOUT_NANOS)
+                    + " s; see " + log);
+        }
+
+        HttpResponse<byte[]> login() throws Exception {
+            byte[] body = Json.toBytes(Map.of("username", USERNAME, "password", PASSWORD));
+            return client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+        }
+
+        void validate(String token) throws Exception {
+            HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/validate"))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+            JsonNode result = Json.mapper().readTree(response.body());
+            if (response.statusCode() != 200 || !result.path("valid").asBoolean()) {
+                throw new IllegalStateException("Validation failed with " + response.statusCode());
+            }
+        }
+
+        // SIGTERM, so shutdown hooks run and an archive being recorded is written
+        void stop() throws InterruptedException {
+            process.destroy();
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        }
+    }
+
+    private static Map<String, Object> summary(long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("min", sorted[0]);
+        summary.put("median", sorted[sorted.length / 2]);
+        summary.put("max", sorted[sorted.length - 1]);
+        summary.put("all", millis);
+        return summary;
+    }
+
+    // Recreated on every invocation, so a run never sees tokens or logins left by an earlier one
+    private static void seed(String dbUrl) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection conn = DriverManager.getConnection(dbUrl, "sa", "")) {
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM 'classpath:/db/reactive-h2-schema.sql'");
+            }
+            String sql = "INSERT INTO users (username, password, email, created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, USERNAME);
+                ps.setString(2, new BCryptPasswordEncoder().encode(PASSWORD));
+                ps.setString(3, USERNAME + "@startup.example");
+                ps.setTimestamp(4, now);
+                ps.setTimestamp(5, now);
+                ps.executeUpdate();
+            }
+            try (Statement statement = conn.createStatement()) {
+                statement.executeUpdate("INSERT INTO user_roles (user_id, role_id) " +
+                        "SELECT u.id, r.id FROM users u, roles r WHERE r.name = 'ROLE_USER'");
+            }
+        }
+    }
+}
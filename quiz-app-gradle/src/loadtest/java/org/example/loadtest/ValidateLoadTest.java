@@ -0,0 +1,136 @@
+package org.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-model load against GET /validate: each simulated client sends its next request as soon as
+ * the previous one completes. Requests are asynchronous, so 10k clients need 10k connections but not
+ * 10k driver threads. Prints one JSON line per client count.
+ * <p>
+ * System properties: loadtest.baseUrl, loadtest.token (required), loadtest.clients (e.g. 1000,10000),
+ * loadtest.warmupSeconds, loadtest.durationSeconds, loadtest.label (e.g. platform / virtual / reactive).
+ * With loadtest.serverPid (Linux, server on the same host) the server's resident memory is sampled
+ * before and during each run and reported as rssPerClientKb.
+ */
+public class ValidateLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8080");
+        String token = System.getProperty("loadtest.token");
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.token is required (log in first and pass the access token)");
+        }
+        String label = System.getProperty("loadtest.label", "unlabelled");
+        String serverPid = System.getProperty("loadtest.serverPid");
+        long warmupSeconds = Long.parseLong(System.getProperty("loadtest.warmupSeconds", "10"));
+        long durationSeconds = Long.parseLong(System.getProperty("loadtest.durationSeconds", "30"));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/validate"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        ExecutorService callbacks = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(callbacks)
+                .build();
+        try {
+            // Taken before any connection is open, so each run is charged for its connections and buffers
+            long baselineRssKb = serverPid != null ? residentKb(serverPid) : -1;
+            for (String clients : System.getProperty("loadtest.clients", "1000,10000").split(",")) {
+                int count = Integer.parseInt(clients.trim());
+                run(client, callbacks, request, count, warmupSeconds, null, -1);
+                Result result = run(client, callbacks, request, count, durationSeconds, serverPid, baselineRssKb);
+                System.out.println(result.toJson(label, count));
+            }
+        } finally {
+            callbacks.shutdownNow();
+        }
+    }
+
+    private static Result run(HttpClient client, Executor callbacks, HttpRequest request, int clients, long seconds,
+                              String serverPid, long baselineRssKb) throws InterruptedException, IOException {
+        Recorder recorder = new Recorder(TimeUnit.SECONDS.toNanos(60), 3);
+        LongAdder errors = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int i = 0; i < clients; i++) {
+            sendNext(client, callbacks, request, deadline, recorder, errors, finished);
+        }
+
+        long peakRssKb = baselineRssKb;
+        while (!finished.await(1, TimeUnit.SECONDS)) {
+            if (serverPid != null) {
+                peakRssKb = Math.max(peakRssKb, residentKb(serverPid));
+            }
+        }
+
+        Histogram histogram = recorder.getIntervalHistogram();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        double rssPerClientKb = serverPid != null ? (double) (peakRssKb - baselineRssKb) / clients : -1;
+        return new Result(histogram, errors.sum(), elapsedSeconds, rssPerClientKb);
+    }
+
+    private static long residentKb(String pid) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc", pid, "status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        throw new IOException("VmRSS not reported for pid " + pid);
+    }
+
+    private static void sendNext(HttpClient client, Executor callbacks, HttpRequest request, long deadline,
+                                 Recorder recorder, LongAdder errors, CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        long sent = System.nanoTime();
+        // Async continuation: a request that fails immediately must not recurse on the caller's stack
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenCompleteAsync((response, failure) -> {
+            recorder.recordValue(Math.min(System.nanoTime() - sent, TimeUnit.SECONDS.toNanos(60)));
+            if (failure != null || response.statusCode() != 200) {
+                errors.increment();
+            }
+            sendNext(client, callbacks, request, deadline, recorder, errors, finished);
+        }, callbacks);
+    }
+
+    private record Result(Histogram histogram, long errors, double elapsedSeconds, double rssPerClientKb) {
+
+        String toJson(String label, int clients) {
+            return String.format(Locale.ROOT,
+                    "{\"label\":\"%s\",\"clients\":%d,\"requests\":%d,\"errors\":%d,\"throughput\":%.1f," +
+                            "\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f,\"rssPerClientKb\":%.1f}",
+                    label, clients, histogram.getTotalCount(), errors,
+                    histogram.getTotalCount() / elapsedSeconds,
+                    millis(50), millis(99), millis(99.9), histogram.getMaxValue() / 1e6, rssPerClientKb);
+        }
+
+        private double millis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package org.example;
 
 
+import org.example.config.StartupMode;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.web.servlet.ServletComponentScan;
 
-@SpringBootApplication
+// Registers the @WebServlet/@WebListener components with the embedded container.
+// org.example.filter is left out: its GlobalExceptionHandler duplicates the /error mapping.
+// No component scan: the servlet app has no Spring beans of its own (org.example.reactive belongs to
+// ReactiveApplication), so scanning all of org.example only added startup time.
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ServletComponentScan(basePackages = {"org.example.config", "org.example.controller", "org.example.exception"})
 public class Application {
 
     public static void main(String[] args) {
-        SpringApplication.run(Application.class, args);
+        SpringApplication application = new SpringApplication(Application.class);
+        // startup.mode=fast: auto-configured beans are created on first use (see StartupMode)
+        application.setLazyInitialization(StartupMode.current().isFast());
+        application.run(args);
 
     }
 
@@ -27,4 +39,4 @@ public class Application {
 //        };
 //    }
 
-}
\ No newline at end of file
+}
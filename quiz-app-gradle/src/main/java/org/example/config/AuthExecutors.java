@@ -0,0 +1,75 @@
+package org.example.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the async request pipeline: a CPU pool for password hashing sized to the cores, and an
+ * I/O pool for JDBC sized to the connection pool (more threads would only queue on Hikari). Both queues
+ * are bounded; when they fill up submissions are rejected and the request is answered with 503.
+ */
+public class AuthExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(AuthExecutors.class);
+
+    private final ThreadPoolExecutor cpuExecutor;
+    private final ThreadPoolExecutor ioExecutor;
+    private final long requestTimeoutMillis;
+
+    public AuthExecutors(int cpuThreads, int ioThreads, int queueCapacity, long requestTimeoutMillis) {
+        this.cpuExecutor = newPool("auth-cpu", cpuThreads, queueCapacity);
+        this.ioExecutor = newPool("auth-io", ioThreads, queueCapacity);
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    public static AuthExecutors fromConfiguration() {
+        int cpuThreads = Integer.parseInt(PropertyLoader.getProperty("auth.async.cpu-threads", "0"));
+        if (cpuThreads <= 0) {
+            cpuThreads = Runtime.getRuntime().availableProcessors();
+        }
+        int ioThreads = Integer.parseInt(PropertyLoader.getProperty("auth.async.io-threads",
+                PropertyLoader.getProperty("db.hikari.maximum-pool-size", "10")));
+        int queueCapacity = Integer.parseInt(PropertyLoader.getProperty("auth.async.queue-capacity", "1000"));
+        long timeout = Long.parseLong(PropertyLoader.getProperty("auth.async.request-timeout-ms", "5000"));
+
+        logger.info("Async auth pipeline: {} CPU threads, {} I/O threads, queue {} each, timeout {}ms",
+                cpuThreads, ioThreads, queueCapacity, timeout);
+        return new AuthExecutors(cpuThreads, ioThreads, queueCapacity, timeout);
+    }
+
+    public Executor cpu() {
+        return cpuExecutor;
+    }
+
+    public Executor io() {
+        return ioExecutor;
+    }
+
+    // Hashing tasks waiting for a CPU thread
+    public int getCpuQueueDepth() {
+        return cpuExecutor.getQueue().size();
+    }
+
+    public long getRequestTimeoutMillis() {
+        return requestTimeoutMillis;
+    }
+
+    public void shutdown() {
+        cpuExecutor.shutdown();
+        ioExecutor.shutdown();
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.exception.RequestBodyException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reads a flat JSON object of string fields (the auth request DTOs) straight off the request stream.
+ * Limits are enforced while tokenizing: total body size, per-field length, known fields only, each at
+ * most once, string or null values only. Parsing stops at the first violation, so a hostile body costs
+ * no more than the bytes read up to that point. The DTO's validate() runs on the result before it is
+ * returned, and the body is never buffered or read twice.
+ */
+public final class BoundedBodyReader<T> {
+    private static final int DEFAULT_MAX_BODY_BYTES =
+            Integer.parseInt(PropertyLoader.getProperty("http.max-body-bytes", "4096"));
+
+    private final Supplier<T> factory;
+    private final Consumer<T> validator;
+    private final String[] names;
+    private final int[] maxLengths;
+    private final List<BiConsumer<T, String>> setters;
+    private final int maxBodyBytes;
+    private final JsonFactory jsonFactory;
+
+    private BoundedBodyReader(Builder<T> builder) {
+        this.factory = builder.factory;
+        this.validator = builder.validator;
+        this.names = builder.names.toArray(new String[0]);
+        this.maxLengths = builder.maxLengths.stream().mapToInt(Integer::intValue).toArray();
+        this.setters = List.copyOf(builder.setters);
+        this.maxBodyBytes = builder.maxBodyBytes;
+        // Backstop in case a field limit is ever set above the body limit
+        this.jsonFactory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxStringLength(maxBodyBytes)
+                        .maxNestingDepth(1)
+                        .build())
+                .build();
+    }
+
+    public static <T> Builder<T> builder(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    public T read(HttpServletRequest req) throws IOException {
+        // Reject on the declared size before reading anything
+        if (req.getContentLengthLong() > maxBodyBytes) {
+            throw new RequestBodyException(413, "Request body exceeds " + maxBodyBytes + " bytes");
+        }
+        return read(req.getInputStream());
+    }
+
+    public T read(InputStream in) throws IOException {
+        T target = factory.get();
+        int seen = 0;
+
+        try (JsonParser parser = jsonFactory.createParser(new LimitedInputStream(in, maxBodyBytes))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RequestBodyException(400, "Request body must be a JSON object");
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                int index = indexOf(parser.currentName());
+                if (index < 0) {
+                    throw new RequestBodyException(400, "Unknown field in request body");
+                }
+                if ((seen & (1 << index)) != 0) {
+                    throw new RequestBodyException(400, "Duplicate field: " + names[index]);
+                }
+                seen |= 1 << index;
+
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if (value != JsonToken.VALUE_STRING) {
+                    throw new RequestBodyException(400, "Field " + names[index] + " must be a string");
+                }
+                // Length is known from the token buffer, before any String is created
+                if (parser.getTextLength() > maxLengths[index]) {
+                    throw new RequestBodyException(400,
+                            "Field " + names[index] + " must not exceed " + maxLengths[index] + " characters");
+                }
+                setters.get(index).accept(target, parser.getText());
+            }
+
+            if (token != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new RequestBodyException(400, "Malformed request body");
+            }
+        } catch (JsonProcessingException e) {
+            throw new RequestBodyException(400, "Malformed request body");
+        }
+
+        validator.accept(target);
+        return target;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static final class Builder<T> {
+        private final Supplier<T> factory;
+        private final List<String> names = new ArrayList<>();
+        private final List<Integer> maxLengths = new ArrayList<>();
+        private final List<BiConsumer<T, String>> setters = new ArrayList<>();
+        private Consumer<T> validator = target -> { };
+        private int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+
+        private Builder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        public Builder<T> field(String name, int maxLength, BiConsumer<T, String> setter) {
+            if (names.size() == Integer.SIZE) {
+                throw new IllegalStateException("At most " + Integer.SIZE + " fields are supported");
+            }
+            names.add(name);
+            maxLengths.add(maxLength);
+            setters.add(setter);
+            return this;
+        }
+
+        public Builder<T> validator(Consumer<T> validator) {
+            this.validator = validator;
+            return this;
+        }
+
+        public Builder<T> maxBodyBytes(int maxBodyBytes) {
+            this.maxBodyBytes = maxBodyBytes;
+            return this;
+        }
+
+        public BoundedBodyReader<T> build() {
+            return new BoundedBodyReader<>(this);
+        }
+    }
+}
@@ -2,12 +2,17 @@ package org.example.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.example.metrics.PoolMetricsTrackerFactory;
+import org.example.pool.InstrumentedDataSource;
+import org.example.pool.PoolMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 
@@ -18,22 +23,55 @@ public class DatabaseConfig {
     private static final String URL =  PropertyLoader.getProperty("db.url");
     private static final String USER = PropertyLoader.getProperty("db.username");
     private static final String PASSWORD = PropertyLoader.getProperty("db.password");
+    private static final String DRIVER = PropertyLoader.getProperty("db.driver-class-name", "com.mysql.cj.jdbc.Driver");
 
     private static final int MAX_POOL_SIZE = Integer.parseInt(PropertyLoader.getProperty("db.hikari.maximum-pool-size"));
     private static final int MIN_IDLE = Integer.parseInt(PropertyLoader.getProperty("db.hikari.minimum-idle"));
     private static final int IDLE_TIMEOUT = Integer.parseInt(PropertyLoader.getProperty("db.hikari.idle-timeout"));
     private static final int CONNECTION_TIMEOUT = Integer.parseInt(PropertyLoader.getProperty("db.hikari.connection-timeout"));
-    private static final int LEAK_DETECTION_THRESHOLD = Integer.parseInt(PropertyLoader.getProperty("db.hikari.leak-detection-threshold"));
 
 
-    private static final HikariDataSource dataSource;
+    // Fast start (startup.mode=fast) does not wait for the first connection; the pool fills in the background
+    private static final boolean FAST_START = StartupMode.current().isFast();
+
+    // Created on first use rather than at class load, once, whichever thread gets there first. A lock
+    // rather than a class monitor, so a virtual thread waiting for the first connection does not pin its carrier
+    private static final ReentrantLock initLock = new ReentrantLock();
+    // What the repositories use: the pool, with checkouts recorded as JFR events and tracked by the monitor.
+    // Only set once both are built, so a failed start leaves nothing half-initialized behind
+    private static volatile InstrumentedDataSource instrumentedDataSource;
+
+    private static InstrumentedDataSource instrumented() {
+        InstrumentedDataSource instrumented = instrumentedDataSource;
+        if (instrumented == null) {
+            initLock.lock();
+            try {
+                instrumented = instrumentedDataSource;
+                if (instrumented == null) {
+                    instrumented = initialize();
+                    instrumentedDataSource = instrumented;
+                }
+            } finally {
+                initLock.unlock();
+            }
+        }
+        return instrumented;
+    }
 
-    static {
+    private static InstrumentedDataSource initialize() {
+        long start = System.nanoTime();
+        HikariDataSource pool = null;
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            dataSource = initializeDataSource();
-            logger.info("Database connection pool initialized successfully");
+            pool = initializeDataSource();
+            InstrumentedDataSource instrumented = new InstrumentedDataSource(pool, PoolMonitor.fromConfiguration(pool));
+            logger.info("Database connection pool initialized in {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return instrumented;
         } catch (Exception e) {
+            if (pool != null) {
+                // Otherwise the next attempt would open a second pool next to this one
+                pool.close();
+            }
             logger.error("Failed to initialize database connection pool", e);
             throw new RuntimeException("Failed to initialize database connection pool", e);
         }
@@ -45,25 +83,35 @@ public class DatabaseConfig {
         config.setJdbcUrl(URL);
         config.setUsername(USER);
         config.setPassword(PASSWORD);
-        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setDriverClassName(DRIVER);
 
         // Connection pool settings
         config.setMaximumPoolSize(MAX_POOL_SIZE);
         config.setMinimumIdle(MIN_IDLE);
         config.setIdleTimeout(IDLE_TIMEOUT);
         config.setConnectionTimeout(CONNECTION_TIMEOUT);
+        if (FAST_START) {
+            // An unreachable database then shows up in /health/ready instead of failing startup
+            config.setInitializationFailTimeout(-1);
+        }
+
+        config.setMetricsTrackerFactory(new PoolMetricsTrackerFactory());
 
-        if (LEAK_DETECTION_THRESHOLD > 0) {
-            config.setLeakDetectionThreshold(LEAK_DETECTION_THRESHOLD);
+        if (DRIVER.startsWith("com.mysql")) {
+            // Server-side statements cached per connection, so a statement is parsed once per connection
+            // rather than on every call; the startup warm-up prepares them all up front
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", "250");
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
         }
 
+        // Leak detection is done by PoolMonitor (see getPoolMonitor), which aggregates by call site and
+        // does not capture a stack trace on every checkout as Hikari's does
+
         return new HikariDataSource(config);
 //
 //        // MySQL specific settings
-//        config.addDataSourceProperty("cachePrepStmts", "true");
-//        config.addDataSourceProperty("prepStmtCacheSize", "250");
-//        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-//        config.addDataSourceProperty("useServerPrepStmts", "true");
 //        config.addDataSourceProperty("useLocalSessionState", "true");
 //        config.addDataSourceProperty("rewriteBatchedStatements", "true");
 //        config.addDataSourceProperty("cacheResultSetMetadata", "true");
@@ -74,9 +122,10 @@ public class DatabaseConfig {
 //        config.addDataSourceProperty("allowPublicKeyRetrieval", "true");
     }
 
+    // Through the instrumented data source, so these checkouts are tracked like the repositories' own
     public static Connection getConnection() throws SQLException {
         try {
-            Connection connection = dataSource.getConnection();
+            Connection connection = getDataSource().getConnection();
             logger.debug("Database connection acquired successfully");
             return connection;
         } catch (SQLException e) {
@@ -86,7 +135,16 @@ public class DatabaseConfig {
     }
 
     public static DataSource getDataSource() {
-        return dataSource;
+        return instrumented();
+    }
+
+    // The bare pool, for checks that must not show up as application checkouts (see HealthMonitor)
+    public static HikariDataSource getPool() {
+        return instrumented().getPool();
+    }
+
+    public static PoolMonitor getPoolMonitor() {
+        return instrumented().getMonitor();
     }
 
     public static boolean testConnection() {
@@ -104,10 +162,19 @@ public class DatabaseConfig {
         }
     }
 
+    // Does not create the pool if nothing used it
     public static void closeDataSource() {
-        if (dataSource != null) {
-            dataSource.close();
-            logger.info("Database connection pool shut down");
+        initLock.lock();
+        try {
+            InstrumentedDataSource instrumented = instrumentedDataSource;
+            if (instrumented != null) {
+                instrumentedDataSource = null;
+                instrumented.getMonitor().stop();
+                instrumented.getPool().close();
+                logger.info("Database connection pool shut down");
+            }
+        } finally {
+            initLock.unlock();
         }
     }
 
@@ -0,0 +1,114 @@
+package org.example.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.dto.BatchValidateRequest;
+import org.example.dto.BulkUserRequest;
+import org.example.dto.ChangePasswordRequest;
+import org.example.dto.LoginRequest;
+import org.example.dto.SignupRequest;
+import org.example.exception.RequestBodyException;
+
+import java.io.IOException;
+
+/**
+ * The application's single Jackson configuration. Readers and writers are bound to their type once,
+ * so a request skips the type and (de)serializer lookups of {@code mapper.readValue(..., Class)}, and
+ * Blackbird replaces reflective getter/setter calls with generated accessors. Bodies are read from and
+ * written to the raw byte streams; Jackson does the UTF-8 coding itself instead of going through a
+ * Reader or Writer. The auth request DTOs are read with size and field limits (see BoundedBodyReader).
+ */
+public final class Json {
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new BlackbirdModule())
+            // The container owns the response stream
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+
+    // Field limits sit just above what validate() accepts, so a valid request is never cut off
+    public static final BoundedBodyReader<LoginRequest> LOGIN_REQUEST = BoundedBodyReader.builder(LoginRequest::new)
+            .field("username", 50, LoginRequest::setUsername)
+            .field("password", 128, LoginRequest::setPassword)
+            .validator(LoginRequest::validate)
+            .build();
+    public static final BoundedBodyReader<SignupRequest> SIGNUP_REQUEST = BoundedBodyReader.builder(SignupRequest::new)
+            .field("username", 50, SignupRequest::setUsername)
+            .field("password", 128, SignupRequest::setPassword)
+            .field("email", 254, SignupRequest::setEmail)
+            .field("confirmPassword", 128, SignupRequest::setConfirmPassword)
+            .validator(SignupRequest::validate)
+            .build();
+    public static final BoundedBodyReader<ChangePasswordRequest> CHANGE_PASSWORD_REQUEST =
+            BoundedBodyReader.builder(ChangePasswordRequest::new)
+                    .field("oldPassword", 128, ChangePasswordRequest::setOldPassword)
+                    .field("newPassword", 128, ChangePasswordRequest::setNewPassword)
+                    .validator(ChangePasswordRequest::validate)
+                    .build();
+
+    // Not a flat string object, so read by Jackson, but still through a size limit
+    public static final ObjectReader BATCH_VALIDATE_REQUEST = MAPPER.readerFor(BatchValidateRequest.class);
+    public static final ObjectReader BULK_USER_REQUEST = MAPPER.readerFor(BulkUserRequest.class);
+    private static final int MAX_BATCH_BODY_BYTES =
+            Integer.parseInt(PropertyLoader.getProperty("http.max-batch-body-bytes", "1048576"));
+
+    // Response types are few and fixed (DTOs and the Map.of(...) implementations), so one writer per class
+    private static final ClassValue<ObjectWriter> WRITERS = new ClassValue<>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> type) {
+            return MAPPER.writerFor(type);
+        }
+    };
+
+    private Json() {
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectWriter writerFor(Class<?> type) {
+        return WRITERS.get(type);
+    }
+
+    public static BatchValidateRequest readBatch(HttpServletRequest req) throws IOException {
+        return readLimited(req, BATCH_VALIDATE_REQUEST);
+    }
+
+    public static BulkUserRequest readBulkUsers(HttpServletRequest req) throws IOException {
+        return readLimited(req, BULK_USER_REQUEST);
+    }
+
+    private static <T> T readLimited(HttpServletRequest req, ObjectReader reader) throws IOException {
+        if (req.getContentLengthLong() > MAX_BATCH_BODY_BYTES) {
+            throw new RequestBodyException(413, "Request body exceeds " + MAX_BATCH_BODY_BYTES + " bytes");
+        }
+        try {
+            return reader.readValue(new LimitedInputStream(req.getInputStream(), MAX_BATCH_BODY_BYTES));
+        } catch (JsonProcessingException e) {
+            // Databinding wraps what the stream throws, so a chunked body over the limit arrives here
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof RequestBodyException tooLarge) {
+                    throw tooLarge;
+                }
+            }
+            throw new RequestBodyException(400, "Malformed request body");
+        }
+    }
+
+    public static byte[] toBytes(Object value) throws IOException {
+        return writerFor(value.getClass()).writeValueAsBytes(value);
+    }
+
+    public static void write(HttpServletResponse resp, int status, Object value) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        writerFor(value.getClass()).writeValue(resp.getOutputStream(), value);
+    }
+}
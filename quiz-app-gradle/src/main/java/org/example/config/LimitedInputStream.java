@@ -0,0 +1,57 @@
+package org.example.config;
+
+import org.example.exception.RequestBodyException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Fails with 413 as soon as more than maxBytes are read, whatever Content-Length claimed
+class LimitedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long remaining;
+
+    LimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+        this.remaining = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            consumed(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        // Ask for at most one byte past the limit, so an oversized body is never buffered
+        int n = super.read(buffer, offset, (int) Math.min(length, remaining + 1));
+        if (n > 0) {
+            consumed(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, remaining + 1));
+        consumed(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void consumed(long n) {
+        remaining -= n;
+        if (remaining < 0) {
+            throw new RequestBodyException(413, "Request body exceeds " + maxBytes + " bytes");
+        }
+    }
+}
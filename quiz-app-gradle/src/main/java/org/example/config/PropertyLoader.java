@@ -18,7 +18,12 @@ public class PropertyLoader {
         }
     }
 
+    // -Dkey=value overrides the file, e.g. to point db.url at another database for a run
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
+    }
+
+    public static String getProperty(String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
     }
 }
@@ -0,0 +1,27 @@
+package org.example.config;
+
+import java.util.Locale;
+
+/**
+ * How the servlet app starts (startup.mode). STANDARD builds everything in order before the server accepts
+ * requests. FAST creates Spring beans on first use, builds the pool, JWT keys and executors in parallel and
+ * does not wait for the first database connection; a bad database then shows in /health/ready rather than
+ * failing startup.
+ */
+public enum StartupMode {
+    STANDARD,
+    FAST;
+
+    public static StartupMode current() {
+        String mode = PropertyLoader.getProperty("startup.mode", "standard");
+        try {
+            return valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown startup.mode: " + mode, e);
+        }
+    }
+
+    public boolean isFast() {
+        return this == FAST;
+    }
+}
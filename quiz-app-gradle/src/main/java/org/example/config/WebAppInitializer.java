@@ -1,50 +1,39 @@
 package org.example.config;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
-import org.example.repository.UserRepository;
+import org.example.health.HealthMonitor;
+import org.example.health.StartupWarmup;
+import org.example.metrics.TimedPasswordEncoder;
+import org.example.repository.impl.JdbcRefreshTokenRepository;
 import org.example.repository.impl.JdbcUserRepository;
 import org.example.security.JwtUtil;
 import org.example.service.AuthService;
+import org.example.service.RefreshTokenService;
+import org.example.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.sql.DataSource;
+import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @WebListener
 public class WebAppInitializer implements ServletContextListener {
     private static final Logger logger = LoggerFactory.getLogger(WebAppInitializer.class);
 
-    // Database configuration
-    private static final String URL = System.getenv("DB_URL");
-    private static final String USER = System.getenv("DB_USERNAME");
-    private static final String PASSWORD = System.getenv("DB_PASSWORD");
-
-    // Connection pool settings
-    private static final int MAX_POOL_SIZE = 10;
-    private static final int MIN_IDLE = 5;
-    private static final int IDLE_TIMEOUT = 300000; // 5 minutes
-    private static final int CONNECTION_TIMEOUT = 20000; // 20 seconds
-    private static final int VALIDATION_TIMEOUT = 5000; // 5 seconds
-
     static {
-        try {
-            // Set default timezone
-            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
-
-            // Load MySQL driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            logger.info("MySQL JDBC Driver loaded successfully");
-        } catch (ClassNotFoundException e) {
-            logger.error("Failed to load MySQL JDBC Driver", e);
-            throw new RuntimeException("MySQL JDBC Driver not found", e);
-        }
+        // Set default timezone (the JDBC driver is loaded once, by DatabaseConfig's pool)
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
     }
 
     @Override
@@ -53,17 +42,59 @@ public class WebAppInitializer implements ServletContextListener {
             validateConfigurations();
 
             // Initialize components
-            DataSource dataSource = createDataSource();
-            PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-            JwtUtil jwtUtil = new JwtUtil(); // Using default constructor
-            UserRepository userRepository = new JdbcUserRepository();
-            AuthService authService = new AuthService(userRepository, passwordEncoder, jwtUtil);
+            // In fast mode the expensive ones (pool, JWT keys, executors) are built in parallel; otherwise
+            // each runs on this thread in turn
+            StartupMode mode = StartupMode.current();
+            long start = System.nanoTime();
+            ExecutorService startup = mode.isFast() ? Executors.newFixedThreadPool(3, runnable -> {
+                Thread thread = new Thread(runnable, "startup-init");
+                thread.setDaemon(true);
+                return thread;
+            }) : null;
+            Executor executor = startup != null ? startup : Runnable::run;
+
+            CompletableFuture<DataSource> pool = CompletableFuture.supplyAsync(DatabaseConfig::getDataSource, executor);
+            CompletableFuture<JwtUtil> keys = CompletableFuture.supplyAsync(JwtUtil::new, executor);
+            CompletableFuture<AuthExecutors> executors = CompletableFuture.supplyAsync(AuthExecutors::fromConfiguration, executor);
+            PasswordEncoder passwordEncoder = new TimedPasswordEncoder(new BCryptPasswordEncoder());
+
+            // The pool the repositories use, see DatabaseConfig
+            DataSource dataSource;
+            JwtUtil jwtUtil;
+            AuthExecutors authExecutors;
+            try {
+                dataSource = pool.join();
+                jwtUtil = keys.join();
+                authExecutors = executors.join();
+            } finally {
+                if (startup != null) {
+                    startup.shutdown();
+                }
+            }
+            JdbcUserRepository userRepository = new JdbcUserRepository(dataSource);
+            RefreshTokenService refreshTokenService = new RefreshTokenService(new JdbcRefreshTokenRepository());
+            AuthService authService = new AuthService(userRepository, passwordEncoder, jwtUtil, refreshTokenService);
+            UserService userService = new UserService(userRepository);
+            ScheduledExecutorService refreshTokenCleanup = scheduleRefreshTokenCleanup(refreshTokenService);
+            HealthMonitor healthMonitor = HealthMonitor.fromConfiguration(DatabaseConfig.getPool(), jwtUtil, authExecutors);
+            if (Boolean.parseBoolean(PropertyLoader.getProperty("warmup.enabled", "true"))) {
+                // Not ready until the pool, statements and auth path are warm, see StartupWarmup
+                StartupWarmup warmup = StartupWarmup.fromConfiguration(DatabaseConfig.getPool(), userRepository, jwtUtil);
+                healthMonitor.setWarmup(warmup);
+                warmup.start(healthMonitor::refreshSoon);
+            }
+            logger.info("Components initialized in {} ms ({} startup)",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), mode.name().toLowerCase(Locale.ROOT));
 
             // Store in servlet context
             sce.getServletContext().setAttribute("dataSource", dataSource);
             sce.getServletContext().setAttribute("authService", authService);
+            sce.getServletContext().setAttribute("userService", userService);
             sce.getServletContext().setAttribute("jwtUtil", jwtUtil);
             sce.getServletContext().setAttribute("passwordEncoder", passwordEncoder);
+            sce.getServletContext().setAttribute("refreshTokenCleanup", refreshTokenCleanup);
+            sce.getServletContext().setAttribute("authExecutors", authExecutors);
+            sce.getServletContext().setAttribute("healthMonitor", healthMonitor);
 
             logger.info("Application initialized successfully");
         } catch (Exception e) {
@@ -73,21 +104,14 @@ public class WebAppInitializer implements ServletContextListener {
     }
 
     private void validateConfigurations() {
-        validateDatabaseConfig();
         validateJwtConfig();
     }
 
-    private void validateDatabaseConfig() {
-        String jwtSecret = System.getenv("JWT_SECRET");
-        if (jwtSecret == null || jwtSecret.trim().isEmpty()) {
-            throw new RuntimeException("JWT_SECRET environment variable is not set");
-        }
-        if (jwtSecret.length() < 32) {
-            throw new RuntimeException("JWT_SECRET must be at least 32 characters long");
-        }
-    }
-
     private void validateJwtConfig() {
+        // Asymmetric signing does not use the shared secret; EdDsaKeySet.fromConfiguration checks its keys
+        if ("eddsa".equalsIgnoreCase(PropertyLoader.getProperty("jwt.signing-algorithm", "hmac"))) {
+            return;
+        }
         String jwtSecret = System.getenv("JWT_SECRET");
         if (jwtSecret == null || jwtSecret.trim().isEmpty()) {
             throw new RuntimeException("JWT_SECRET environment variable is not set");
@@ -97,56 +121,43 @@ public class WebAppInitializer implements ServletContextListener {
         }
     }
 
-    private DataSource createDataSource() {
-        HikariConfig config = getHikariConfig();
-
-        // MySQL specific optimizations
-        config.addDataSourceProperty("cachePrepStmts", "true");
-        config.addDataSourceProperty("prepStmtCacheSize", "250");
-        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        config.addDataSourceProperty("useServerPrepStmts", "true");
-        config.addDataSourceProperty("useLocalSessionState", "true");
-        config.addDataSourceProperty("rewriteBatchedStatements", "true");
-        config.addDataSourceProperty("cacheResultSetMetadata", "true");
-        config.addDataSourceProperty("cacheServerConfiguration", "true");
-        config.addDataSourceProperty("elideSetAutoCommits", "true");
-        config.addDataSourceProperty("maintainTimeStats", "false");
-
-        // MySQL specific settings
-        config.addDataSourceProperty("useSSL", "false");
-        config.addDataSourceProperty("serverTimezone", "UTC");
-        config.addDataSourceProperty("allowPublicKeyRetrieval", "true");
-
-        return new HikariDataSource(config);
-    }
-
-    private static HikariConfig getHikariConfig() {
-        HikariConfig config = new HikariConfig();
-
-        // Basic configuration
-        config.setJdbcUrl(URL);
-        config.setUsername(USER);
-        config.setPassword(PASSWORD);
-        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
-
-        // Connection pool settings
-        config.setMaximumPoolSize(MAX_POOL_SIZE);
-        config.setMinimumIdle(MIN_IDLE);
-        config.setIdleTimeout(IDLE_TIMEOUT);
-        config.setConnectionTimeout(CONNECTION_TIMEOUT);
-        config.setValidationTimeout(VALIDATION_TIMEOUT);
-        config.setPoolName("QuizAppPool");
-        return config;
+    private ScheduledExecutorService scheduleRefreshTokenCleanup(RefreshTokenService refreshTokenService) {
+        long intervalMinutes = Long.parseLong(
+                PropertyLoader.getProperty("jwt.refresh-token-cleanup-interval-minutes", "60"));
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "refresh-token-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                refreshTokenService.purgeExpired();
+            } catch (Exception e) {
+                logger.error("Refresh token cleanup failed", e);
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        return executor;
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        HealthMonitor healthMonitor = (HealthMonitor) sce.getServletContext().getAttribute("healthMonitor");
+        if (healthMonitor != null) {
+            healthMonitor.stop();
+        }
+        ScheduledExecutorService refreshTokenCleanup =
+                (ScheduledExecutorService) sce.getServletContext().getAttribute("refreshTokenCleanup");
+        if (refreshTokenCleanup != null) {
+            refreshTokenCleanup.shutdownNow();
+        }
+        AuthExecutors authExecutors = (AuthExecutors) sce.getServletContext().getAttribute("authExecutors");
+        if (authExecutors != null) {
+            authExecutors.shutdown();
+        }
+
         try {
-            DataSource dataSource = (DataSource) sce.getServletContext().getAttribute("dataSource");
-            if (dataSource instanceof HikariDataSource) {
-                ((HikariDataSource) dataSource).close();
-                logger.info("Database connection pool closed successfully");
-            }
+            DatabaseConfig.closeDataSource();
         } catch (Exception e) {
             logger.error("Error closing database connection pool", e);
         }
@@ -0,0 +1,41 @@
+package org.example.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.Json;
+import org.example.dto.ErrorResponse;
+import org.example.exception.AuthException;
+import org.example.model.Role;
+import org.example.security.JwtUtil;
+import org.example.security.TokenClaims;
+
+import java.io.IOException;
+
+// The /admin endpoints take an access token with the admin role
+final class AdminAccess {
+    private AdminAccess() {
+    }
+
+    // The caller's claims, or null once a 401/403 has been written
+    static TokenClaims require(JwtUtil jwtUtil, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String header = req.getHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            Json.write(resp, HttpServletResponse.SC_UNAUTHORIZED,
+                    new ErrorResponse("No token provided", req.getRequestURI(), HttpServletResponse.SC_UNAUTHORIZED));
+            return null;
+        }
+        try {
+            TokenClaims claims = jwtUtil.parseToken(header.substring(7));
+            if (!claims.getRoles().contains(Role.RoleType.ADMIN.getValue())) {
+                Json.write(resp, HttpServletResponse.SC_FORBIDDEN,
+                        new ErrorResponse("Admin role required", req.getRequestURI(), HttpServletResponse.SC_FORBIDDEN));
+                return null;
+            }
+            return claims;
+        } catch (AuthException e) {
+            Json.write(resp, HttpServletResponse.SC_UNAUTHORIZED,
+                    new ErrorResponse(e.getMessage(), req.getRequestURI(), HttpServletResponse.SC_UNAUTHORIZED));
+            return null;
+        }
+    }
+}
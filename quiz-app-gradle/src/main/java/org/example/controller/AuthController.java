@@ -1,98 +1,183 @@
 package org.example.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.AuthExecutors;
+import org.example.config.Json;
 import org.example.dto.*;
 import org.example.model.User;
+import org.example.security.AuthTokens;
+import org.example.service.AsyncAuthService;
 import org.example.service.AuthService;
 import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.exception.OptimisticLockException;
+import org.example.exception.RequestBodyException;
+import org.example.metrics.AuthOperation;
+import org.example.tracing.RequestTrace;
+import org.example.tracing.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+@WebServlet(urlPatterns = "/api/auth/*", asyncSupported = true)
 public class AuthController extends HttpServlet {
-    private final AuthService authService;
-    private final ObjectMapper objectMapper;
+    private AuthService authService;
+    // Set when WebAppInitializer provides executors; login, register and change-password then run async
+    private AsyncAuthService asyncAuthService;
+    private long requestTimeoutMillis;
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     public AuthController(){
-        this.authService = new AuthService();
-        this.objectMapper = new ObjectMapper();
     }
 
     public AuthController(AuthService authService) {
         this.authService = authService;
-        this.objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    public void init() {
+        // Created by the container: use the service WebAppInitializer wired up
+        if (authService == null) {
+            AuthService configured = (AuthService) getServletContext().getAttribute("authService");
+            authService = configured != null ? configured : new AuthService();
+        }
+
+        AuthExecutors executors = (AuthExecutors) getServletContext().getAttribute("authExecutors");
+        if (executors != null) {
+            asyncAuthService = new AsyncAuthService(authService, executors);
+            requestTimeoutMillis = executors.getRequestTimeoutMillis();
+        }
     }
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
+        long start = System.nanoTime();
         resp.setContentType("application/json");
         String path = req.getPathInfo();
+        AuthOperation operation = AuthOperation.forPath(path);
+        RequestTrace trace = operation != null ? Tracing.start(operation.label()) : null;
 
         try {
             switch (path) {
                 case "/login":
-                    handleLogin(req, resp);
+                    handleLogin(req, resp, start);
                     break;
                 case "/register":
-                    handleRegister(req, resp);
+                    handleRegister(req, resp, start);
                     break;
                 case "/refresh":
                     handleRefreshToken(req, resp);
                     break;
                 case "/change-password":
-                    handleChangePassword(req, resp);
+                    handleChangePassword(req, resp, start);
+                    break;
+                case "/validate-batch":
+                    handleValidateBatch(req, resp);
                     break;
                 default:
                     sendError(req, resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
             }
         } catch (Exception e) {
             handleException(req, resp, e);
+        } finally {
+            recordIfCompleted(req, resp, operation, start, trace);
         }
     }
 
-    private void handleLogin(HttpServletRequest req, HttpServletResponse resp)
+    // Async requests are recorded and traced by their AsyncResponder once the response has been handed over
+    private static void recordIfCompleted(HttpServletRequest req, HttpServletResponse resp, AuthOperation operation,
+                                          long start, RequestTrace trace) {
+        if (operation != null && !req.isAsyncStarted()) {
+            operation.record(resp.getStatus(), start);
+            Tracing.finish(trace, resp.getStatus());
+        }
+        // The container thread goes back to its pool; the trace must not stick to it
+        Tracing.detach(null);
+    }
+
+    private void handleLogin(HttpServletRequest req, HttpServletResponse resp, long start)
             throws IOException {
         try {
-            LoginRequest loginRequest = objectMapper.readValue(req.getReader(), LoginRequest.class);
-
-            // Validate request
+            // Parsed with size and field limits and validated in the same pass
+            LoginRequest loginRequest;
             try {
-                loginRequest.validate();
+                loginRequest = Json.LOGIN_REQUEST.read(req);
             } catch (IllegalArgumentException e) {
                 LoginResponse errorResponse = LoginResponse.error(e.getMessage());
-                sendResponse(resp, HttpServletResponse.SC_BAD_REQUEST, errorResponse);
+                sendResponse(resp, badRequestStatus(e), errorResponse);
                 return;
             }
 
-            String token = authService.login(loginRequest);
-            LoginResponse response = new LoginResponse(token, loginRequest.getUsername());
+            if (isAsync(req)) {
+                AsyncResponder responder = startAsync(req, AuthOperation.LOGIN, start);
+                responder.track(asyncAuthService.login(loginRequest, responder.deadlineNanos)).whenComplete((tokens, failure) -> {
+                    if (failure == null) {
+                        responder.send(HttpServletResponse.SC_OK, new LoginResponse(tokens.getAccessToken(),
+                                tokens.getRefreshToken(), loginRequest.getUsername(), tokens.getExpiresIn()));
+                    } else if (unwrap(failure) instanceof AuthException) {
+                        responder.sendLoginFailure(unwrap(failure).getMessage());
+                    } else {
+                        responder.fail(failure);
+                    }
+                });
+                return;
+            }
+
+            AuthTokens tokens = authService.login(loginRequest);
+            LoginResponse response = new LoginResponse(tokens.getAccessToken(), tokens.getRefreshToken(),
+                    loginRequest.getUsername(), tokens.getExpiresIn());
 
             sendResponse(resp, HttpServletResponse.SC_OK, response);
         } catch (AuthException e) {
-            LoginResponse errorResponse = LoginResponse.error(e.getMessage());
-            sendResponse(resp, HttpServletResponse.SC_UNAUTHORIZED, errorResponse);
+            byte[] canned = CannedResponses.loginFailure(e.getMessage());
+            if (canned != null) {
+                sendBytes(resp, HttpServletResponse.SC_UNAUTHORIZED, canned);
+            } else {
+                sendResponse(resp, HttpServletResponse.SC_UNAUTHORIZED, LoginResponse.error(e.getMessage()));
+            }
         }
     }
 
-    private void handleRegister(HttpServletRequest req, HttpServletResponse resp)
+    private void handleRegister(HttpServletRequest req, HttpServletResponse resp, long start)
             throws IOException {
         try {
-            SignupRequest registerRequest = objectMapper.readValue(req.getReader(), SignupRequest.class);
-
+            SignupRequest registerRequest;
             try{
-                registerRequest.validate();
+                registerRequest = Json.SIGNUP_REQUEST.read(req);
             } catch (IllegalArgumentException e) {
                 SignupResponse errorResponse = SignupResponse.error(e.getMessage());
-                sendResponse(resp, HttpServletResponse.SC_BAD_REQUEST, errorResponse);
+                sendResponse(resp, badRequestStatus(e), errorResponse);
                 return;
             }
+            if (isAsync(req)) {
+                AsyncResponder responder = startAsync(req, AuthOperation.REGISTER, start);
+                responder.track(asyncAuthService.register(registerRequest, responder.deadlineNanos)).whenComplete((ignored, failure) -> {
+                    if (failure == null) {
+                        responder.send(HttpServletResponse.SC_OK, SignupResponse.success(registerRequest.getUsername()));
+                    } else if (unwrap(failure) instanceof AuthException) {
+                        responder.sendError(HttpServletResponse.SC_BAD_REQUEST, unwrap(failure).getMessage());
+                    } else {
+                        responder.fail(failure);
+                    }
+                });
+                return;
+            }
+
             //Daca validarea a trecut, se procedeaza inregistrarea
             authService.register(registerRequest);
             SignupResponse successResponse = SignupResponse.success(registerRequest.getUsername());
@@ -102,21 +187,36 @@ public class AuthController extends HttpServlet {
         }
     }
 
-    private void handleChangePassword(HttpServletRequest req, HttpServletResponse resp)
+    private void handleChangePassword(HttpServletRequest req, HttpServletResponse resp, long start)
             throws IOException {
         try {
             String token = extractToken(req);
 
-            ChangePasswordRequest changePasswordRequest = objectMapper.readValue(req.getReader(), ChangePasswordRequest.class);
+            ChangePasswordRequest changePasswordRequest;
             try {
-                changePasswordRequest.validate();
+                changePasswordRequest = Json.CHANGE_PASSWORD_REQUEST.read(req);
             } catch (IllegalArgumentException e){
-                sendError(req, resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                sendError(req, resp, badRequestStatus(e), e.getMessage());
                 return;
             }
 
             Long userId = authService.validateToken(token).getId();
 
+            if (isAsync(req)) {
+                AsyncResponder responder = startAsync(req, AuthOperation.CHANGE_PASSWORD, start);
+                responder.track(asyncAuthService.changePassword(userId, changePasswordRequest.getOldPassword(),
+                        changePasswordRequest.getNewPassword(), responder.deadlineNanos)).whenComplete((ignored, failure) -> {
+                    if (failure == null) {
+                        responder.send(HttpServletResponse.SC_OK, Map.of("message", "Password changed successfully"));
+                    } else if (unwrap(failure) instanceof AuthException) {
+                        responder.sendError(HttpServletResponse.SC_UNAUTHORIZED, unwrap(failure).getMessage());
+                    } else {
+                        responder.fail(failure);
+                    }
+                });
+                return;
+            }
+
             //change password
             authService.changePassword(
                     userId,
@@ -136,12 +236,15 @@ public class AuthController extends HttpServlet {
         try {
             String token = extractToken(req);
             if (token == null) {
-                throw new AuthException("No token provided");
+                throw AuthFailures.NO_TOKEN;
             }
 
-            String newToken = authService.refreshToken(token);
+            // The bearer here is the opaque refresh token; it is single-use and replaced by the one returned
+            AuthTokens tokens = authService.refreshToken(token);
             sendResponse(resp, HttpServletResponse.SC_OK,
-                    Map.of("token", newToken));
+                    Map.of("token", tokens.getAccessToken(),
+                            "refreshToken", tokens.getRefreshToken(),
+                            "expiresIn", tokens.getExpiresIn()));
 
         } catch (AuthException e) {
             sendError(req, resp, HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
@@ -159,8 +262,11 @@ public class AuthController extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
+        long start = System.nanoTime();
         resp.setContentType("application/json");
         String path = req.getPathInfo();
+        AuthOperation operation = AuthOperation.forPath(path);
+        RequestTrace trace = operation != null ? Tracing.start(operation.label()) : null;
 
         try {
             if (path.equals("/validate")) {
@@ -170,6 +276,8 @@ public class AuthController extends HttpServlet {
             }
         } catch (Exception e) {
             handleException(req, resp, e);
+        } finally {
+            recordIfCompleted(req, resp, operation, start, trace);
         }
     }
 
@@ -178,30 +286,231 @@ public class AuthController extends HttpServlet {
         try {
             String token = extractToken(req);
             if (token == null) {
-                throw new AuthException("No token provided");
+                throw AuthFailures.NO_TOKEN;
             }
 
             User user = authService.authenticateToken(token);
             sendResponse(resp, HttpServletResponse.SC_OK,
                     Map.of("valid", true,
-                            "username", user.getEmail(),
+                            "username", user.getUsername(),
                             "userId", user.getId()));
         } catch (AuthException e) {
             sendError(req, resp, HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
         }
     }
 
+    private void handleValidateBatch(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        BatchValidateRequest batchRequest;
+        try {
+            batchRequest = Json.readBatch(req);
+            batchRequest.validate();
+        } catch (IllegalArgumentException e) {
+            sendError(req, resp, badRequestStatus(e), e.getMessage());
+            return;
+        }
+
+        // Per-token failures are reported in the results; the call itself succeeds
+        sendResponse(resp, HttpServletResponse.SC_OK,
+                Map.of("results", authService.validateTokens(batchRequest.getTokens())));
+    }
+
+    // 413 for oversized bodies, 400 for everything else the parser or validate() rejects
+    private static int badRequestStatus(IllegalArgumentException e) {
+        return e instanceof RequestBodyException ? ((RequestBodyException) e).getStatus()
+                : HttpServletResponse.SC_BAD_REQUEST;
+    }
+
+    private boolean isAsync(HttpServletRequest req) {
+        return asyncAuthService != null && req.isAsyncSupported();
+    }
+
+    private AsyncResponder startAsync(HttpServletRequest req, AuthOperation operation, long start) {
+        AsyncContext asyncContext = req.startAsync();
+        AsyncResponder responder = new AsyncResponder(asyncContext, req.getRequestURI(),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMillis), operation, start,
+                Tracing.current());
+        // Backstop only: the pipeline times itself out at the deadline and answers first
+        asyncContext.setTimeout(requestTimeoutMillis + 1000L);
+        asyncContext.addListener(responder);
+        return responder;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    /**
+     * Writes the single response of an async request with a WriteListener, so no thread blocks on a slow
+     * client. Whichever of the pipeline and the container timeout gets here first wins.
+     */
+    private class AsyncResponder implements AsyncListener {
+        private final AsyncContext asyncContext;
+        private final String path;
+        private final long deadlineNanos;
+        private final AuthOperation operation;
+        private final long startNanos;
+        private final RequestTrace trace;
+        private final AtomicBoolean responded = new AtomicBoolean();
+        // The pipeline's future, cancelled when the container gives up on the request so queued stages are skipped
+        private volatile Future<?> work;
+
+        AsyncResponder(AsyncContext asyncContext, String path, long deadlineNanos, AuthOperation operation,
+                       long startNanos, RequestTrace trace) {
+            this.asyncContext = asyncContext;
+            this.path = path;
+            this.deadlineNanos = deadlineNanos;
+            this.operation = operation;
+            this.startNanos = startNanos;
+            this.trace = trace;
+        }
+
+        <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+            work = future;
+            return future;
+        }
+
+        private void cancelWork() {
+            Future<?> pending = work;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        void sendError(int status, String message) {
+            byte[] canned = CannedResponses.error(status, message, path);
+            if (canned != null) {
+                sendBytes(status, canned);
+            } else {
+                send(status, new ErrorResponse(message, path, status));
+            }
+        }
+
+        void sendLoginFailure(String message) {
+            byte[] canned = CannedResponses.loginFailure(message);
+            if (canned != null) {
+                sendBytes(HttpServletResponse.SC_UNAUTHORIZED, canned);
+            } else {
+                send(HttpServletResponse.SC_UNAUTHORIZED, LoginResponse.error(message));
+            }
+        }
+
+        void fail(Throwable failure) {
+            Throwable cause = unwrap(failure);
+            if (cause instanceof TimeoutException) {
+                sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+            } else if (cause instanceof RejectedExecutionException) {
+                sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy, please retry");
+            } else if (cause instanceof CancellationException) {
+                // Cancelled from onTimeout or onError, which have already answered
+                return;
+            } else if (cause instanceof OptimisticLockException) {
+                sendError(HttpServletResponse.SC_CONFLICT, "The account was modified concurrently, please retry");
+            } else {
+                logger.error("Unexpected error in AuthController", cause);
+                sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An unexpected error occurred");
+            }
+        }
+
+        void send(int status, Object body) {
+            byte[] bytes;
+            try {
+                bytes = Json.toBytes(body);
+            } catch (IOException e) {
+                logger.error("Failed to serialize async response", e);
+                bytes = CannedResponses.error(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                        "An unexpected error occurred", path);
+                status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            }
+            sendBytes(status, bytes);
+        }
+
+        void sendBytes(int status, byte[] bytes) {
+            if (!responded.compareAndSet(false, true)) {
+                return;
+            }
+            operation.record(status, startNanos);
+            Tracing.finish(trace, status);
+            try {
+                HttpServletResponse resp = (HttpServletResponse) asyncContext.getResponse();
+                resp.setStatus(status);
+                resp.setContentType("application/json");
+                resp.setContentLength(bytes.length);
+
+                ServletOutputStream out = resp.getOutputStream();
+                out.setWriteListener(new WriteListener() {
+                    private boolean written;
+
+                    @Override
+                    public void onWritePossible() throws IOException {
+                        while (out.isReady()) {
+                            if (written) {
+                                asyncContext.complete();
+                                return;
+                            }
+                            out.write(bytes);
+                            written = true;
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        logger.debug("Client went away before the response was written", t);
+                        asyncContext.complete();
+                    }
+                });
+            } catch (IOException | IllegalStateException e) {
+                logger.warn("Failed to write async response", e);
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+            cancelWork();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (responded.compareAndSet(false, true)) {
+                asyncContext.complete();
+            }
+            cancelWork();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
     private void sendResponse(HttpServletResponse resp, int status, Object data)
             throws IOException {
-        resp.setStatus(status);
-        objectMapper.writeValue(resp.getWriter(), data);
+        Json.write(resp, status, data);
     }
 
     private void sendError(HttpServletRequest req, HttpServletResponse resp, int status, String message)
             throws IOException {
-        ErrorResponse error = new ErrorResponse(message, req.getRequestURI(), status);
+        byte[] canned = CannedResponses.error(status, message, req.getRequestURI());
+        if (canned != null) {
+            sendBytes(resp, status, canned);
+        } else {
+            Json.write(resp, status, new ErrorResponse(message, req.getRequestURI(), status));
+        }
+    }
+
+    private void sendBytes(HttpServletResponse resp, int status, byte[] body) throws IOException {
         resp.setStatus(status);
-        objectMapper.writeValue(resp.getWriter(), error);
+        resp.setContentType("application/json");
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
     }
 
     private void handleException(HttpServletRequest req, HttpServletResponse resp, Exception e)
@@ -209,6 +518,10 @@ public class AuthController extends HttpServlet {
         if (e instanceof AuthException) {
             logger.warn("Authentication error: {}", e.getMessage());
             sendError(req, resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } else if (e instanceof OptimisticLockException) {
+            // Still conflicting after UserService/AuthService ran out of retries
+            logger.warn("Update conflict: {}", e.getMessage());
+            sendError(req, resp, HttpServletResponse.SC_CONFLICT, "The account was modified concurrently, please retry");
         } else {
             logger.error("Unexpected error in AuthController", e);
             sendError(req, resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
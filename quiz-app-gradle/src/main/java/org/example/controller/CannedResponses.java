@@ -0,0 +1,144 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.Json;
+import org.example.dto.LoginResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-encoded bodies for the error answers that make up most failed traffic (bad tokens, unknown
+ * endpoints, failed logins). An ErrorResponse is stored as the bytes around its two dynamic fields, and
+ * only the timestamp and path are spliced in per request. The output is byte-for-byte what Jackson would
+ * write for the same ErrorResponse. Messages that are not registered return null and go through Jackson.
+ */
+public final class CannedResponses {
+    private static final byte[] PATH_FIELD = bytes(",\"path\":");
+    private static final byte[] NULL = bytes("null");
+
+    private static final Map<String, CannedError> ERRORS = new HashMap<>();
+    private static final Map<String, byte[]> LOGIN_FAILURES = new HashMap<>();
+
+    static {
+        registerError(HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
+        registerError(HttpServletResponse.SC_UNAUTHORIZED, "No token provided");
+        registerError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid authentication token");
+        registerError(HttpServletResponse.SC_UNAUTHORIZED, "Authentication token has expired");
+        registerError(HttpServletResponse.SC_UNAUTHORIZED, "Token-ul nu poate fi gol");
+        registerError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+        registerError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy, please retry");
+        registerError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An unexpected error occurred");
+
+        // LoginResponse.error has no dynamic fields, so these are complete bodies
+        registerLoginFailure("Invalid username or password");
+        registerLoginFailure("Account is disabled");
+        registerLoginFailure("Account is locked");
+    }
+
+    private CannedResponses() {
+    }
+
+    // Body of new ErrorResponse(message, path, status), or null if that message/status is not canned
+    public static byte[] error(int status, String message, String path) {
+        CannedError canned = ERRORS.get(message);
+        if (canned == null || canned.status != status) {
+            return null;
+        }
+        return canned.render(System.currentTimeMillis(), path);
+    }
+
+    // Body of LoginResponse.error(message), or null if the message is not canned
+    public static byte[] loginFailure(String message) {
+        return LOGIN_FAILURES.get(message);
+    }
+
+    private static void registerError(int status, String message) {
+        ERRORS.put(message, new CannedError(status, message));
+    }
+
+    private static void registerLoginFailure(String message) {
+        try {
+            LOGIN_FAILURES.put(message, Json.toBytes(LoginResponse.error(message)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] bytes(String ascii) {
+        return ascii.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // {"message":"...","timestamp":<millis>,"path":<string or null>,"status":<status>}
+    private static final class CannedError {
+        final int status;
+        final byte[] head;
+        final byte[] tail;
+
+        CannedError(int status, String message) {
+            this.status = status;
+            byte[] encodedMessage = JsonStringEncoder.getInstance().quoteAsUTF8(message);
+            byte[] open = bytes("{\"message\":\"");
+            byte[] close = bytes("\",\"timestamp\":");
+            this.head = new byte[open.length + encodedMessage.length + close.length];
+            System.arraycopy(open, 0, head, 0, open.length);
+            System.arraycopy(encodedMessage, 0, head, open.length, encodedMessage.length);
+            System.arraycopy(close, 0, head, open.length + encodedMessage.length, close.length);
+            this.tail = bytes(",\"status\":" + status + "}");
+        }
+
+        byte[] render(long timestamp, String path) {
+            byte[] encodedPath = path == null ? NULL : quote(path);
+            int timestampLength = digits(timestamp);
+            byte[] body = new byte[head.length + timestampLength + PATH_FIELD.length + encodedPath.length + tail.length];
+
+            System.arraycopy(head, 0, body, 0, head.length);
+            int offset = head.length + timestampLength;
+            for (int i = offset - 1; i >= head.length; i--) {
+                body[i] = (byte) ('0' + timestamp % 10);
+                timestamp /= 10;
+            }
+            System.arraycopy(PATH_FIELD, 0, body, offset, PATH_FIELD.length);
+            offset += PATH_FIELD.length;
+            System.arraycopy(encodedPath, 0, body, offset, encodedPath.length);
+            offset += encodedPath.length;
+            System.arraycopy(tail, 0, body, offset, tail.length);
+            return body;
+        }
+
+        // Request paths are almost always plain ASCII; anything else goes through Jackson's escaper
+        private static byte[] quote(String path) {
+            int length = path.length();
+            byte[] quoted = new byte[length + 2];
+            quoted[0] = '"';
+            for (int i = 0; i < length; i++) {
+                char c = path.charAt(i);
+                if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                    byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(path);
+                    byte[] slow = new byte[escaped.length + 2];
+                    slow[0] = '"';
+                    System.arraycopy(escaped, 0, slow, 1, escaped.length);
+                    slow[slow.length - 1] = '"';
+                    return slow;
+                }
+                quoted[i + 1] = (byte) c;
+            }
+            quoted[length + 1] = '"';
+            return quoted;
+        }
+
+        // Timestamps are epoch millis, never negative
+        private static int digits(long value) {
+            int count = 1;
+            while (value >= 10) {
+                value /= 10;
+                count++;
+            }
+            return count;
+        }
+    }
+}
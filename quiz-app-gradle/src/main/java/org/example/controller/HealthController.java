@@ -0,0 +1,37 @@
+package org.example.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.health.HealthMonitor;
+
+import java.io.IOException;
+
+// Kubernetes probes; answered from HealthMonitor's last snapshot, never from the database
+@WebServlet({"/health/live", "/health/ready"})
+public class HealthController extends HttpServlet {
+    private HealthMonitor healthMonitor;
+
+    @Override
+    public void init() throws ServletException {
+        healthMonitor = (HealthMonitor) getServletContext().getAttribute("healthMonitor");
+        if (healthMonitor == null) {
+            throw new ServletException("healthMonitor is not initialised");
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        boolean ready = req.getServletPath().endsWith("/ready");
+        boolean up = ready ? healthMonitor.isReady() : healthMonitor.isLive();
+        byte[] body = ready ? healthMonitor.readyBody() : healthMonitor.liveBody();
+
+        resp.setStatus(up ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.Json;
+import org.example.security.JwtUtil;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Publishes the token verification keys so downstream services can verify tokens themselves
+@WebServlet("/.well-known/jwks.json")
+public class JwksController extends HttpServlet {
+    private byte[] body;
+
+    @Override
+    public void init() throws ServletException {
+        JwtUtil jwtUtil = (JwtUtil) getServletContext().getAttribute("jwtUtil");
+        if (jwtUtil == null) {
+            throw new ServletException("jwtUtil is not initialised");
+        }
+        try {
+            // Keys only change on redeploy, so the document is rendered once
+            body = Json.toBytes(Map.of("keys", jwtUtil.getPublicJwks()));
+        } catch (IOException e) {
+            throw new ServletException("Failed to render JWK set", e);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "public, max-age=300");
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+}
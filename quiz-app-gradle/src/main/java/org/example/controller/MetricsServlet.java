@@ -0,0 +1,24 @@
+package org.example.controller;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Prometheus scrape target; see org.example.metrics.Metrics for what is exported
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+        resp.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.DatabaseConfig;
+import org.example.config.Json;
+import org.example.pool.PoolMonitor;
+import org.example.security.JwtUtil;
+
+import java.io.IOException;
+
+// Connection pool state for operators (see PoolMonitor.report); needs an admin access token
+@WebServlet("/admin/pool")
+public class PoolAdminController extends HttpServlet {
+    private JwtUtil jwtUtil;
+
+    @Override
+    public void init() throws ServletException {
+        jwtUtil = (JwtUtil) getServletContext().getAttribute("jwtUtil");
+        if (jwtUtil == null) {
+            throw new ServletException("jwtUtil is not initialised");
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (AdminAccess.require(jwtUtil, req, resp) == null) {
+            return;
+        }
+
+        PoolMonitor monitor = DatabaseConfig.getPoolMonitor();
+        resp.setHeader("Cache-Control", "no-store");
+        Json.write(resp, HttpServletResponse.SC_OK, monitor.report());
+    }
+}
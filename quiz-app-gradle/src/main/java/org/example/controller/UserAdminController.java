@@ -0,0 +1,163 @@
+package org.example.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.Json;
+import org.example.dto.BulkUserRequest;
+import org.example.dto.ErrorResponse;
+import org.example.exception.RequestBodyException;
+import org.example.model.Role;
+import org.example.repository.UserCriteria;
+import org.example.repository.UserSort;
+import org.example.security.JwtUtil;
+import org.example.security.TokenClaims;
+import org.example.service.BulkOperation;
+import org.example.service.UserPage;
+import org.example.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Account administration; needs an admin access token.
+ * <p>
+ * GET /admin/users lists users a page at a time with keyset pagination. Filters: usernamePrefix, emailPrefix,
+ * role, enabled, locked; sort is id, username or email (by default the column of the prefix filter, else id);
+ * limit is 1-200 (50). The response has users and a nextCursor to pass as cursor for the next page.
+ * <p>
+ * POST /admin/users/bulk applies one operation (lock, unlock, enable, disable, add-role, remove-role, delete)
+ * to a list of ids or to every user matching a filter, e.g. {"operation":"lock","filter":{"emailPrefix":"x"}}.
+ * The response is application/x-ndjson with one BulkResult line per chunk as it commits, so a long run shows
+ * its progress; the last line has done=true, or is {"error":...} if a chunk failed (earlier chunks stay applied).
+ */
+@WebServlet("/admin/users/*")
+public class UserAdminController extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(UserAdminController.class);
+    private static final byte[] NEWLINE = {'\n'};
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private JwtUtil jwtUtil;
+    private UserService userService;
+
+    @Override
+    public void init() throws ServletException {
+        jwtUtil = (JwtUtil) getServletContext().getAttribute("jwtUtil");
+        userService = (UserService) getServletContext().getAttribute("userService");
+        if (jwtUtil == null || userService == null) {
+            throw new ServletException("jwtUtil or userService is not initialised");
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (AdminAccess.require(jwtUtil, req, resp) == null) {
+            return;
+        }
+        if (req.getPathInfo() != null && !"/".equals(req.getPathInfo())) {
+            sendError(req, resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
+            return;
+        }
+
+        UserPage page;
+        try {
+            String role = req.getParameter("role");
+            UserCriteria criteria = UserCriteria.builder()
+                    .usernamePrefix(req.getParameter("usernamePrefix"))
+                    .emailPrefix(req.getParameter("emailPrefix"))
+                    .role(role != null ? Role.RoleType.parse(role).getValue() : null)
+                    .enabled(booleanParameter(req, "enabled"))
+                    .locked(booleanParameter(req, "locked"))
+                    .build();
+            String sort = req.getParameter("sort");
+            String limit = req.getParameter("limit");
+            page = userService.searchUsers(criteria,
+                    sort != null ? UserSort.parse(sort) : UserSort.defaultFor(criteria),
+                    req.getParameter("cursor"),
+                    limit != null ? Integer.parseInt(limit) : DEFAULT_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included
+            sendError(req, resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        resp.setHeader("Cache-Control", "no-store");
+        Json.write(resp, HttpServletResponse.SC_OK, page);
+    }
+
+    private static Boolean booleanParameter(HttpServletRequest req, String name) {
+        String value = req.getParameter(name);
+        if (value == null) {
+            return null;
+        }
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new IllegalArgumentException(name + " must be true or false");
+        }
+        return Boolean.valueOf(value);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        TokenClaims admin = AdminAccess.require(jwtUtil, req, resp);
+        if (admin == null) {
+            return;
+        }
+        if (!"/bulk".equals(req.getPathInfo())) {
+            sendError(req, resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
+            return;
+        }
+
+        BulkUserRequest request;
+        BulkOperation operation;
+        try {
+            request = Json.readBulkUsers(req);
+            request.validate();
+            operation = BulkOperation.parse(request.getOperation(), request.getRole());
+        } catch (IllegalArgumentException e) {
+            int status = e instanceof RequestBodyException ? ((RequestBodyException) e).getStatus()
+                    : HttpServletResponse.SC_BAD_REQUEST;
+            sendError(req, resp, status, e.getMessage());
+            return;
+        }
+        logger.info("Bulk {} requested by {} for {}", operation, admin.getSubject(),
+                request.getIds() != null ? request.getIds().size() + " ids" : request.getFilter());
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/x-ndjson");
+        resp.setHeader("Cache-Control", "no-store");
+        ServletOutputStream out = resp.getOutputStream();
+        try {
+            if (request.getIds() != null) {
+                userService.bulk(operation, request.getIds(), result -> writeLine(out, result));
+            } else {
+                userService.bulk(operation, request.getFilter().toCriteria(), result -> writeLine(out, result));
+            }
+        } catch (UncheckedIOException e) {
+            // The client went away; chunks already applied stay applied and the run stops here
+            logger.warn("Bulk {} stopped: client disconnected", operation);
+        } catch (RuntimeException e) {
+            // Logged by UserService; the status line is already out
+            writeLine(out, Map.of("error", "Bulk operation failed: " + e.getMessage()));
+        }
+    }
+
+    private static void writeLine(ServletOutputStream out, Object line) {
+        try {
+            out.write(Json.toBytes(line));
+            out.write(NEWLINE);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sendError(HttpServletRequest req, HttpServletResponse resp, int status, String message)
+            throws IOException {
+        Json.write(resp, status, new ErrorResponse(message, req.getRequestURI(), status));
+    }
+}
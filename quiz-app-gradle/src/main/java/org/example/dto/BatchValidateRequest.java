@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchValidateRequest {
+    public static final int MAX_TOKENS = 500;
+
+    private List<String> tokens;
+
+    public void validate() throws IllegalArgumentException {
+        if (tokens == null || tokens.isEmpty()) {
+            throw new IllegalArgumentException("At least one token is required");
+        }
+        if (tokens.size() > MAX_TOKENS) {
+            throw new IllegalArgumentException("At most " + MAX_TOKENS + " tokens can be validated per request");
+        }
+    }
+}
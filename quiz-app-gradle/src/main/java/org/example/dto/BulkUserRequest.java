@@ -0,0 +1,63 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.model.Role;
+import org.example.repository.UserCriteria;
+
+import java.util.List;
+
+// POST /admin/users/bulk: an operation applied to the listed ids, or to every user matching the filter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUserRequest {
+    public static final int MAX_IDS = 100_000;
+
+    private String operation;
+    // For add-role and remove-role
+    private String role;
+    private List<Long> ids;
+    private Filter filter;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private String usernamePrefix;
+        private String emailPrefix;
+        private String role;
+        private Boolean enabled;
+        private Boolean locked;
+
+        public UserCriteria toCriteria() {
+            return UserCriteria.builder()
+                    .usernamePrefix(usernamePrefix)
+                    .emailPrefix(emailPrefix)
+                    .role(role != null ? Role.RoleType.parse(role).getValue() : null)
+                    .enabled(enabled)
+                    .locked(locked)
+                    .build();
+        }
+    }
+
+    public void validate() throws IllegalArgumentException {
+        if (operation == null || operation.isBlank()) {
+            throw new IllegalArgumentException("Operation is required");
+        }
+        if ((ids == null) == (filter == null)) {
+            throw new IllegalArgumentException("Exactly one of ids and filter is required");
+        }
+        if (ids != null && (ids.isEmpty() || ids.size() > MAX_IDS)) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_IDS + " ids are required");
+        }
+        if (ids != null && ids.contains(null)) {
+            throw new IllegalArgumentException("Ids cannot be null");
+        }
+        // An empty filter would select every account
+        if (filter != null && filter.toCriteria().isEmpty()) {
+            throw new IllegalArgumentException("Filter must set at least one field");
+        }
+    }
+}
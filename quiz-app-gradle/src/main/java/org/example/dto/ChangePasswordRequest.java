@@ -2,10 +2,20 @@ package org.example.dto;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.example.validation.PasswordPolicy;
+import org.example.validation.Rule;
 
 @Setter
 @Getter
 public class ChangePasswordRequest {
+    private static final PasswordPolicy NEW_PASSWORD_POLICY = PasswordPolicy.builder()
+            .message(Rule.TOO_SHORT, "New password must be at least 8 characters long")
+            .message(Rule.MISSING_UPPERCASE, "New password must contain at least one uppercase letter")
+            .message(Rule.MISSING_LOWERCASE, "New password must contain at least one lowercase letter")
+            .message(Rule.MISSING_DIGIT, "New password must contain at least one number")
+            .message(Rule.MISSING_SPECIAL, "New password must contain at least one special character")
+            .build();
+
     // Getters and setters
     private String oldPassword;
     private String newPassword;
@@ -21,28 +31,9 @@ public class ChangePasswordRequest {
         }
 
         // Validate new password requirements
-        if (newPassword.length() < 8) {
-            throw new IllegalArgumentException("New password must be at least 8 characters long");
-        }
-
-        // Check for at least one uppercase letter
-        if (!newPassword.matches(".*[A-Z].*")) {
-            throw new IllegalArgumentException("New password must contain at least one uppercase letter");
-        }
-
-        // Check for at least one lowercase letter
-        if (!newPassword.matches(".*[a-z].*")) {
-            throw new IllegalArgumentException("New password must contain at least one lowercase letter");
-        }
-
-        // Check for at least one digit
-        if (!newPassword.matches(".*\\d.*")) {
-            throw new IllegalArgumentException("New password must contain at least one number");
-        }
-
-        // Check for at least one special character
-        if (!newPassword.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*")) {
-            throw new IllegalArgumentException("New password must contain at least one special character");
+        String error = NEW_PASSWORD_POLICY.firstMessage(newPassword);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
         }
 
         // Check if old and new passwords are different
@@ -3,11 +3,14 @@ package org.example.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.validation.UsernamePolicy;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class LoginRequest {
+    private static final UsernamePolicy USERNAME_POLICY = UsernamePolicy.builder().build();
+
     private String username;
     private String password;
 
@@ -19,7 +22,7 @@ public class LoginRequest {
         if (password == null || password.trim().isEmpty()) {
             throw new IllegalArgumentException("Password cannot be empty");
         }
-        if (username.length() < 3 || username.length() > 50) {
+        if (!USERNAME_POLICY.isValid(username)) {
             throw new IllegalArgumentException("Username must be between 3 and 50 characters");
         }
         if (password.length() < 6) {
@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class LoginResponse {
     private String token;
+    private String refreshToken;
     private String username;
     private String message;
     private long expiresIn;  // Token expiration time in seconds
@@ -23,11 +24,22 @@ public class LoginResponse {
         this.success = true;
     }
 
+    // Constructor for successful login with a refresh token
+    public LoginResponse(String token, String refreshToken, String username, long expiresIn) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.username = username;
+        this.message = "Login successful";
+        this.expiresIn = expiresIn;
+        this.success = true;
+    }
+
     // Static factory method for error response
     public static LoginResponse error(String message) {
         LoginResponse response = new LoginResponse();
         response.setMessage(message);
         response.setToken("");
+        response.setRefreshToken("");
         response.setUsername("");
         response.setExpiresIn(3600);
         response.setSuccess(false);
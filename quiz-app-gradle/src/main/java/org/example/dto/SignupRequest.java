@@ -3,8 +3,11 @@ package org.example.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-
-import java.util.regex.Pattern;
+import org.example.validation.EmailPolicy;
+import org.example.validation.FieldPolicy;
+import org.example.validation.PasswordPolicy;
+import org.example.validation.Rule;
+import org.example.validation.UsernamePolicy;
 
 @Data
 @NoArgsConstructor
@@ -15,20 +18,34 @@ public class SignupRequest {
     private String email;
     private String confirmPassword;
 
-    // Email regex pattern
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(
-            "^[A-Za-z0-9+_.-]+@(.+)$"
-    );
+    // Local part of letters, digits and +_.- followed by '@' and a non-empty domain
+    private static final EmailPolicy EMAIL_POLICY = EmailPolicy.builder()
+            .syntax(EmailPolicy.Syntax.LENIENT)
+            .build();
 
-    // Username regex pattern (alphanumeric and underscore, 3-30 characters)
-    private static final Pattern USERNAME_PATTERN = Pattern.compile(
-            "^[a-zA-Z0-9_]{3,30}$"
-    );
+    // Alphanumeric and underscore, 3-30 characters
+    private static final UsernamePolicy USERNAME_POLICY = UsernamePolicy.builder()
+            .minLength(3)
+            .maxLength(30)
+            .wordCharactersOnly(true)
+            .message("Username must be 3-30 characters long and contain only letters, numbers, and underscores",
+                    Rule.TOO_SHORT, Rule.TOO_LONG, Rule.INVALID_CHARACTER)
+            .build();
 
     // Password requirements
     private static final int MIN_PASSWORD_LENGTH = 8;
     private static final int MAX_PASSWORD_LENGTH = 100;
 
+    private static final PasswordPolicy PASSWORD_POLICY = PasswordPolicy.builder()
+            .minLength(MIN_PASSWORD_LENGTH)
+            .maxLength(MAX_PASSWORD_LENGTH)
+            .classes(PasswordPolicy.Classes.UNICODE)
+            .message(Rule.TOO_LONG, "Password must not exceed " + MAX_PASSWORD_LENGTH + " characters")
+            .message("Password must contain at least one uppercase letter, " +
+                            "one lowercase letter, one number, and one special character",
+                    Rule.MISSING_UPPERCASE, Rule.MISSING_LOWERCASE, Rule.MISSING_DIGIT, Rule.MISSING_SPECIAL)
+            .build();
+
     public void validate() throws IllegalArgumentException {
         validateUsername();
         validateEmail();
@@ -37,65 +54,22 @@ public class SignupRequest {
     }
 
     private void validateUsername() {
-        if (username == null || username.trim().isEmpty()) {
-            throw new IllegalArgumentException("Username is required");
-        }
-        if (!USERNAME_PATTERN.matcher(username).matches()) {
-            throw new IllegalArgumentException(
-                    "Username must be 3-30 characters long and contain only letters, numbers, and underscores"
-            );
-        }
+        rejectIfInvalid(USERNAME_POLICY, username);
     }
 
     private void validateEmail() {
-        if (email == null || email.trim().isEmpty()) {
-            throw new IllegalArgumentException("Email is required");
-        }
-        if (!EMAIL_PATTERN.matcher(email).matches()) {
-            throw new IllegalArgumentException("Invalid email format");
-        }
+        rejectIfInvalid(EMAIL_POLICY, email);
     }
 
     private void validatePassword() {
-        if (password == null || password.trim().isEmpty()) {
-            throw new IllegalArgumentException("Password is required");
-        }
-        if (password.length() < MIN_PASSWORD_LENGTH) {
-            throw new IllegalArgumentException(
-                    "Password must be at least " + MIN_PASSWORD_LENGTH + " characters long"
-            );
-        }
-        if (password.length() > MAX_PASSWORD_LENGTH) {
-            throw new IllegalArgumentException(
-                    "Password must not exceed " + MAX_PASSWORD_LENGTH + " characters"
-            );
-        }
-
-        // Check for password complexity
-        boolean hasUpper = false;
-        boolean hasLower = false;
-        boolean hasDigit = false;
-        boolean hasSpecial = false;
-
-        for (char c : password.toCharArray()) {
-            if (Character.isUpperCase(c)) hasUpper = true;
-            else if (Character.isLowerCase(c)) hasLower = true;
-            else if (Character.isDigit(c)) hasDigit = true;
-            else hasSpecial = true;
-        }
+        rejectIfInvalid(PASSWORD_POLICY, password);
+    }
 
-        //Validarea complexitatii parolei
-        if (!hasUpper || !hasLower || !hasDigit || !hasSpecial) {
-            throw new IllegalArgumentException(
-                    "Password must contain at least one uppercase letter, " +
-                            "one lowercase letter, one number, and one special character"
-            );
+    private static void rejectIfInvalid(FieldPolicy policy, String value) {
+        String error = policy.firstMessage(value);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
         }
-
-        throw new IllegalArgumentException(
-                "Password must contain at least one uppercase letter, " +
-                        "one lowercase letter, one number, and one special character"
-        );
     }
 
     private void validatePasswordMatch() {
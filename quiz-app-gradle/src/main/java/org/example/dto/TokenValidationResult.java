@@ -0,0 +1,28 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenValidationResult {
+    private boolean valid;
+    private String username;
+    private Long userId;
+    private List<String> roles;
+    private String message;
+
+    public static TokenValidationResult valid(String username, Long userId, List<String> roles) {
+        return new TokenValidationResult(true, username, userId, roles, null);
+    }
+
+    public static TokenValidationResult invalid(String message) {
+        return new TokenValidationResult(false, null, null, null, message);
+    }
+}
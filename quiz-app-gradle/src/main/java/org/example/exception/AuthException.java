@@ -10,11 +10,20 @@ public class AuthException extends Exception {
         super(message, cause);
     }
 
+    // For the shared instances in AuthFailures: no stack trace, no suppressed exceptions, no cause
+    protected AuthException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
     // Common authentication error types
     public static class InvalidCredentialsException extends AuthException {
         public InvalidCredentialsException() {
             super("Invalid username or password");
         }
+
+        InvalidCredentialsException(boolean writableStackTrace) {
+            super("Invalid username or password", writableStackTrace);
+        }
     }
 
     public static class UserNotFoundException extends AuthException {
@@ -33,17 +42,29 @@ public class AuthException extends Exception {
         public TokenExpiredException() {
             super("Authentication token has expired");
         }
+
+        TokenExpiredException(boolean writableStackTrace) {
+            super("Authentication token has expired", writableStackTrace);
+        }
     }
 
     public static class InvalidTokenException extends AuthException {
         public InvalidTokenException() {
             super("Invalid authentication token");
         }
+
+        InvalidTokenException(boolean writableStackTrace) {
+            super("Invalid authentication token", writableStackTrace);
+        }
     }
 
     public static class UnauthorizedException extends AuthException {
         public UnauthorizedException(String message) {
             super(message);
         }
+
+        UnauthorizedException(String message, boolean writableStackTrace) {
+            super(message, writableStackTrace);
+        }
     }
 }
@@ -0,0 +1,33 @@
+package org.example.exception;
+
+/**
+ * Shared, stackless exceptions for the expected authentication outcomes: wrong password, bad or expired
+ * token, disabled or locked account. Their rate is set by whoever is sending requests (credential
+ * stuffing, expired sessions), so capturing a stack trace for each one is wasted work; they also carry
+ * nothing a trace would explain. Throw these instead of allocating new ones, and keep
+ * {@code new AuthException(message, cause)} for genuinely unexpected failures, which need their trace.
+ * <p>
+ * The instances are immutable: the stack trace is never filled in, suppression is disabled and the
+ * cause is fixed at null, so sharing them between threads is safe.
+ * <p>
+ * Kept out of AuthException itself so that initialising AuthException never initialises its subclasses.
+ */
+public final class AuthFailures {
+    public static final AuthException.InvalidCredentialsException INVALID_CREDENTIALS =
+            new AuthException.InvalidCredentialsException(false);
+    public static final AuthException.InvalidTokenException INVALID_TOKEN =
+            new AuthException.InvalidTokenException(false);
+    public static final AuthException.TokenExpiredException TOKEN_EXPIRED =
+            new AuthException.TokenExpiredException(false);
+    public static final AuthException.UnauthorizedException ACCOUNT_DISABLED =
+            new AuthException.UnauthorizedException("Account is disabled", false);
+    public static final AuthException.UnauthorizedException ACCOUNT_LOCKED =
+            new AuthException.UnauthorizedException("Account is locked", false);
+    public static final AuthException.UnauthorizedException EMPTY_TOKEN =
+            new AuthException.UnauthorizedException("Token-ul nu poate fi gol", false);
+    public static final AuthException.UnauthorizedException NO_TOKEN =
+            new AuthException.UnauthorizedException("No token provided", false);
+
+    private AuthFailures() {
+    }
+}
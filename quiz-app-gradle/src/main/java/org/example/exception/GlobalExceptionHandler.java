@@ -1,10 +1,10 @@
 package org.example.exception;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.Json;
 import org.example.dto.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,7 +14,6 @@ import java.io.IOException;
 @WebServlet("/error")
 public class GlobalExceptionHandler extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp)
@@ -26,8 +25,6 @@ public class GlobalExceptionHandler extends HttpServlet {
         logger.error("Error occurred: {}", message, throwable);
 
         ErrorResponse errorResponse = new ErrorResponse(message);
-        resp.setStatus(statusCode != null ? statusCode : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        resp.setContentType("application/json");
-        objectMapper.writeValue(resp.getOutputStream(), errorResponse);
+        Json.write(resp, statusCode != null ? statusCode : HttpServletResponse.SC_INTERNAL_SERVER_ERROR, errorResponse);
     }
 }
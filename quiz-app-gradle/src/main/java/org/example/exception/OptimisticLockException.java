@@ -0,0 +1,22 @@
+package org.example.exception;
+
+// A compare-and-set update found the row at another version than the one read: someone else updated it
+// in between. Unchecked, like the repositories' other failures; UserService retries it with a fresh read.
+public class OptimisticLockException extends RuntimeException {
+    private final Long id;
+    private final long expectedVersion;
+
+    public OptimisticLockException(String entity, Long id, long expectedVersion) {
+        super(entity + " " + id + " was modified concurrently (expected version " + expectedVersion + ")");
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.exception;
+
+// A request body rejected before it reached the service: malformed, oversized or breaking a field limit.
+// Extends IllegalArgumentException so it is answered like a failed DTO validate().
+public class RequestBodyException extends IllegalArgumentException {
+    private final int status;
+
+    public RequestBodyException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
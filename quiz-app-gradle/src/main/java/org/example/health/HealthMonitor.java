@@ -0,0 +1,274 @@
+package org.example.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.example.config.AuthExecutors;
+import org.example.config.Json;
+import org.example.config.PropertyLoader;
+import org.example.security.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Background health checks behind /health/live and /health/ready. A single thread refreshes a snapshot
+ * of database reachability, pool headroom, the JWT signing key and the hashing queue depth, and renders
+ * it once; probes only read the latest snapshot, so they never borrow a connection or wait on the database.
+ * With a StartupWarmup attached, readiness also waits for it. Liveness fails only when the refresh itself
+ * has stalled. The database check borrows on a thread of its own and is given up on after
+ * health.db-timeout-seconds, so a pool stuck waiting out its connection timeout (say, the database is down)
+ * makes the app unready but never holds the refresh past the liveness window.
+ */
+public class HealthMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(HealthMonitor.class);
+
+    private static final String UP = "UP";
+    private static final String DOWN = "DOWN";
+    private static final byte[] LIVE = render(Map.of("status", UP));
+    private static final byte[] STALLED = render(Map.of("status", DOWN, "reason", "health checks stalled"));
+
+    private final HikariDataSource pool;
+    private final JwtUtil jwtUtil;
+    private final AuthExecutors authExecutors;
+    private final int dbTimeoutSeconds;
+    private final int maxPoolPending;
+    private final int maxHashingQueue;
+    private final ExecutorService databaseChecker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "health-db-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+    private volatile long staleAfterNanos = Long.MAX_VALUE;
+    private volatile StartupWarmup warmup;
+    private ScheduledExecutorService refresher;
+
+    // Refresh thread only. Carried over when the pool has no free connection to check with
+    private boolean databaseUp;
+    // Refresh thread only: the last database check, which may still be waiting on the pool
+    private Future<Boolean> databaseCheck;
+
+    public HealthMonitor(HikariDataSource pool, JwtUtil jwtUtil, AuthExecutors authExecutors,
+                         int dbTimeoutSeconds, int maxPoolPending, int maxHashingQueue) {
+        this.pool = pool;
+        this.jwtUtil = jwtUtil;
+        this.authExecutors = authExecutors;
+        this.dbTimeoutSeconds = dbTimeoutSeconds;
+        this.maxPoolPending = maxPoolPending;
+        this.maxHashingQueue = maxHashingQueue;
+
+        Map<String, Object> starting = new LinkedHashMap<>();
+        starting.put("status", DOWN);
+        starting.put("reason", "starting");
+        this.snapshot = new Snapshot(false, System.nanoTime(), render(starting));
+    }
+
+    public static HealthMonitor fromConfiguration(HikariDataSource pool, JwtUtil jwtUtil, AuthExecutors authExecutors) {
+        HealthMonitor monitor = new HealthMonitor(pool, jwtUtil, authExecutors,
+                Integer.parseInt(PropertyLoader.getProperty("health.db-timeout-seconds", "2")),
+                Integer.parseInt(PropertyLoader.getProperty("health.ready.max-pool-pending",
+                        PropertyLoader.getProperty("db.pool.alarm.pending-threshold", "5"))),
+                Integer.parseInt(PropertyLoader.getProperty("health.ready.max-hashing-queue", "500")));
+        monitor.start(Long.parseLong(PropertyLoader.getProperty("health.refresh-interval-ms", "2000")));
+        return monitor;
+    }
+
+    public void start(long intervalMillis) {
+        // A refresh waits at most the database timeout (see checkDatabase); anything well past that is a hang
+        staleAfterNanos = TimeUnit.MILLISECONDS.toNanos(3 * intervalMillis) + TimeUnit.SECONDS.toNanos(dbTimeoutSeconds);
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setWarmup(StartupWarmup warmup) {
+        this.warmup = warmup;
+    }
+
+    // An out-of-turn refresh on the refresh thread, e.g. as soon as the warm-up is done
+    public void refreshSoon() {
+        if (refresher != null) {
+            refresher.execute(this::refreshSafely);
+        } else {
+            refresh();
+        }
+    }
+
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        databaseChecker.shutdownNow();
+    }
+
+    public boolean isLive() {
+        return System.nanoTime() - snapshot.refreshedNanos < staleAfterNanos;
+    }
+
+    public byte[] liveBody() {
+        return isLive() ? LIVE : STALLED;
+    }
+
+    public boolean isReady() {
+        return isLive() && snapshot.ready;
+    }
+
+    public byte[] readyBody() {
+        return isLive() ? snapshot.body : STALLED;
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Health refresh failed", e);
+        }
+    }
+
+    // One refresh on the calling thread; the scheduler runs the same
+    public void refresh() {
+        HikariPoolMXBean stats = pool.getHikariPoolMXBean();
+        int headroom = stats == null ? 0
+                : stats.getIdleConnections() + Math.max(0, pool.getMaximumPoolSize() - stats.getTotalConnections());
+
+        Map<String, Object> checks = new LinkedHashMap<>();
+        boolean ready = checkPool(checks, stats, headroom);
+        ready &= checkDatabase(checks, ready && headroom > 0);
+        ready &= checkSigningKey(checks);
+        ready &= checkHashingQueue(checks);
+        ready &= checkWarmup(checks);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", ready ? UP : DOWN);
+        body.put("checkedAt", Instant.now().toString());
+        body.put("checks", checks);
+
+        boolean wasReady = snapshot.ready;
+        snapshot = new Snapshot(ready, System.nanoTime(), render(body));
+        if (wasReady != ready) {
+            logger.info("Readiness changed to {}: {}", ready ? UP : DOWN, checks);
+        }
+    }
+
+    private boolean checkPool(Map<String, Object> checks, HikariPoolMXBean stats, int headroom) {
+        Map<String, Object> check = new LinkedHashMap<>();
+        boolean up = stats != null && stats.getThreadsAwaitingConnection() <= maxPoolPending;
+        check.put("status", up ? UP : DOWN);
+        if (stats != null) {
+            check.put("headroom", headroom);
+            check.put("active", stats.getActiveConnections());
+            check.put("idle", stats.getIdleConnections());
+            check.put("pending", stats.getThreadsAwaitingConnection());
+        }
+        check.put("max", pool.getMaximumPoolSize());
+        checks.put("pool", check);
+        return up;
+    }
+
+    private boolean checkDatabase(Map<String, Object> checks, boolean canBorrow) {
+        Map<String, Object> check = new LinkedHashMap<>();
+        // With every connection busy or requests already queueing, a check would only join the queue
+        if (!canBorrow) {
+            check.put("skipped", "no free connection");
+        } else if (databaseCheck != null && !databaseCheck.isDone()) {
+            // One borrower at a time: the previous check is still waiting out the pool's connection timeout
+            databaseUp = false;
+            check.put("error", "previous check still waiting for a connection");
+        } else {
+            long start = System.nanoTime();
+            databaseCheck = databaseChecker.submit(this::pingDatabase);
+            try {
+                databaseUp = databaseCheck.get(dbTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                databaseUp = false;
+                check.put("error", "no connection within " + dbTimeoutSeconds + " s");
+            } catch (ExecutionException e) {
+                databaseUp = false;
+                check.put("error", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                databaseUp = false;
+            }
+            check.put("latencyMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        check.put("status", databaseUp ? UP : DOWN);
+        checks.put("database", check);
+        return databaseUp;
+    }
+
+    private boolean pingDatabase() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            return connection.isValid(dbTimeoutSeconds);
+        }
+    }
+
+    private boolean checkSigningKey(Map<String, Object> checks) {
+        boolean up = jwtUtil != null && jwtUtil.hasSigningKey();
+        checks.put("jwtKey", Map.of("status", up ? UP : DOWN));
+        return up;
+    }
+
+    private boolean checkHashingQueue(Map<String, Object> checks) {
+        int depth = authExecutors != null ? authExecutors.getCpuQueueDepth() : 0;
+        boolean up = depth <= maxHashingQueue;
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("status", up ? UP : DOWN);
+        check.put("depth", depth);
+        check.put("limit", maxHashingQueue);
+        checks.put("hashingQueue", check);
+        return up;
+    }
+
+    private boolean checkWarmup(Map<String, Object> checks) {
+        StartupWarmup current = warmup;
+        if (current == null) {
+            return true;
+        }
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("status", current.isDone() ? UP : DOWN);
+        check.put("phase", current.getPhase());
+        if (current.isDone()) {
+            check.put("report", current.getReport());
+        }
+        checks.put("warmup", check);
+        return current.isDone();
+    }
+
+    private static byte[] render(Map<String, Object> body) {
+        try {
+            return Json.toBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Snapshot {
+        final boolean ready;
+        final long refreshedNanos;
+        final byte[] body;
+
+        Snapshot(boolean ready, long refreshedNanos, byte[] body) {
+            this.ready = ready;
+            this.refreshedNanos = refreshedNanos;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package org.example.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.config.Json;
+import org.example.config.PropertyLoader;
+import org.example.dto.LoginRequest;
+import org.example.dto.LoginResponse;
+import org.example.exception.AuthException;
+import org.example.model.RefreshToken;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.RefreshTokenRepository;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.security.AuthTokens;
+import org.example.security.JwtUtil;
+import org.example.service.AuthService;
+import org.example.service.RefreshTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warm-up between startup and the first real request; HealthMonitor reports not ready until it is done.
+ * It opens the pool up to its target and prepares every JdbcUserRepository statement on each connection,
+ * then runs login/validate cycles (JSON in, BCrypt, JWT, JSON out) for throwaway users kept in memory until
+ * at least min-cycles have run and the cycle time has stopped improving, i.e. the JIT has compiled the path.
+ * The users' passwords are hashed at the lowest BCrypt cost: the same code runs, just fewer rounds.
+ * Everything is bounded by the time budget; when it runs out, the warm-up stops where it is and the app
+ * becomes ready anyway. The report (per-phase times, cycle times, JIT time) goes to the log and /health/ready.
+ */
+public class StartupWarmup {
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private static final long SAMPLE_MILLIS = 250;
+    // Cycle time counts as settled once a sample is within this fraction of the previous one
+    private static final double SETTLED = 0.1;
+
+    private final HikariDataSource pool;
+    private final JdbcUserRepository repository;
+    private final JwtUtil jwtUtil;
+    private final int connections;
+    private final int threads;
+    private final long minCycles;
+    private final long budgetMillis;
+
+    private volatile boolean done;
+    private volatile String phase = "pending";
+    private volatile Map<String, Object> report = Map.of();
+
+    public StartupWarmup(HikariDataSource pool, JdbcUserRepository repository, JwtUtil jwtUtil,
+                         int connections, int threads, long minCycles, long budgetMillis) {
+        this.pool = pool;
+        this.repository = repository;
+        // Not the app's instance as is: its samples would end up in jwt_seconds
+        this.jwtUtil = jwtUtil.forWarmup();
+        this.connections = connections;
+        this.threads = threads;
+        this.minCycles = minCycles;
+        this.budgetMillis = budgetMillis;
+    }
+
+    public static StartupWarmup fromConfiguration(HikariDataSource pool, JdbcUserRepository repository, JwtUtil jwtUtil) {
+        int connections = Integer.parseInt(PropertyLoader.getProperty("warmup.connections", "0"));
+        int threads = Integer.parseInt(PropertyLoader.getProperty("warmup.threads", "0"));
+        return new StartupWarmup(pool, repository, jwtUtil,
+                connections > 0 ? connections : pool.getMaximumPoolSize(),
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                Long.parseLong(PropertyLoader.getProperty("warmup.min-cycles", "15000")),
+                Long.parseLong(PropertyLoader.getProperty("warmup.budget-ms", "30000")));
+    }
+
+    // Runs on its own thread; onDone is called when it finishes, whether or not it completed
+    public void start(Runnable onDone) {
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } finally {
+                onDone.run();
+            }
+        }, "startup-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public Map<String, Object> getReport() {
+        return report;
+    }
+
+    public void run() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            phase = "pool";
+            result.put("pool", warmPool(deadline));
+            phase = "jit";
+            result.put("jit", warmAuthPath(deadline));
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up failed in phase {}", phase, e);
+            result.put("error", phase + ": " + e);
+        } finally {
+            result.put("totalMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            result.put("budgetMs", budgetMillis);
+            result.put("budgetExceeded", System.nanoTime() - deadline > 0);
+            report = result;
+            phase = "done";
+            done = true;
+            logger.info("Warm-up finished: {}", result);
+        }
+    }
+
+    // All connections are held at once, so the pool has to open every one of them
+    private Map<String, Object> warmPool(long deadline) {
+        long start = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Connection> held = new ArrayList<>();
+        int prepared = 0;
+        try {
+            while (held.size() < connections && System.nanoTime() - deadline < 0) {
+                Connection connection = pool.getConnection();
+                held.add(connection);
+                prepared += repository.prepareStatements(connection);
+            }
+        } catch (SQLException e) {
+            // The database check in HealthMonitor keeps the app unready if this persists
+            result.put("error", e.getMessage());
+        } finally {
+            for (Connection connection : held) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.debug("Closing a warm-up connection failed", e);
+                }
+            }
+        }
+        result.put("connections", held.size());
+        result.put("target", connections);
+        result.put("statementsPrepared", prepared);
+        result.put("ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    private Map<String, Object> warmAuthPath(long deadline) {
+        long start = System.nanoTime();
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        long jitStart = jitMillis(jit);
+
+        InMemoryUsers users = new InMemoryUsers();
+        // Not the app's encoder: its timings would end up in the login metrics
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        AuthService authService = new AuthService(users, encoder, jwtUtil, new RefreshTokenService(new DiscardedTokens()));
+
+        LongAdder cycles = new LongAdder();
+        LongAdder cycleNanos = new LongAdder();
+        AtomicLong failures = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String username = "warmup-" + UUID.randomUUID();
+            String password = UUID.randomUUID().toString();
+            users.add(username, encoder.encode(password));
+            byte[] body = toBytes(Map.of("username", username, "password", password));
+            Thread worker = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    long cycleStart = System.nanoTime();
+                    try {
+                        cycle(authService, body);
+                    } catch (AuthException | IOException | RuntimeException e) {
+                        if (failures.getAndIncrement() == 0) {
+                            logger.warn("Warm-up cycle failed", e);
+                        }
+                    }
+                    cycleNanos.add(System.nanoTime() - cycleStart);
+                    cycles.increment();
+                }
+            }, "startup-warmup-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+
+        // Sampled until enough cycles have run and the cycle time has levelled off
+        double firstMicros = -1;
+        double lastMicros = -1;
+        boolean settled = false;
+        long lastCycles = 0;
+        long lastNanos = 0;
+        try {
+            while (System.nanoTime() - deadline < 0 && !settled) {
+                Thread.sleep(SAMPLE_MILLIS);
+                long sampleCycles = cycles.sum() - lastCycles;
+                long sampleNanos = cycleNanos.sum() - lastNanos;
+                lastCycles += sampleCycles;
+                lastNanos += sampleNanos;
+                if (sampleCycles == 0) {
+                    continue;
+                }
+                double micros = sampleNanos / 1000.0 / sampleCycles;
+                if (firstMicros < 0) {
+                    firstMicros = micros;
+                }
+                settled = lastCycles >= minCycles && lastMicros > 0 && micros >= lastMicros * (1 - SETTLED);
+                lastMicros = micros;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.forEach(Thread::interrupt);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cycles", cycles.sum());
+        result.put("failures", failures.get());
+        result.put("threads", threads);
+        result.put("settled", settled);
+        result.put("firstCycleMicros", Math.round(firstMicros));
+        result.put("lastCycleMicros", Math.round(lastMicros));
+        if (jitStart >= 0) {
+            result.put("jitCompileMs", jitMillis(jit) - jitStart);
+        }
+        result.put("ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    // What AuthController does for POST /login and GET /validate, minus HTTP and the database
+    private void cycle(AuthService authService, byte[] body) throws AuthException, IOException {
+        LoginRequest request = Json.LOGIN_REQUEST.read(new ByteArrayInputStream(body));
+        AuthTokens tokens = authService.login(request);
+        Json.toBytes(new LoginResponse(tokens.getAccessToken(), tokens.getRefreshToken(),
+                request.getUsername(), tokens.getExpiresIn()));
+
+        User user = authService.authenticateToken(tokens.getAccessToken());
+        Json.toBytes(Map.of("valid", true, "username", user.getUsername(), "userId", user.getId()));
+    }
+
+    private static long jitMillis(CompilationMXBean jit) {
+        return jit != null && jit.isCompilationTimeMonitoringSupported() ? jit.getTotalCompilationTime() : -1;
+    }
+
+    private static byte[] toBytes(Object value) {
+        try {
+            return Json.toBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The throwaway users; nothing reaches the database
+    private static final class InMemoryUsers implements UserRepository {
+        private final Map<String, User> byUsername = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong(-1);
+
+        void add(String username, String hash) {
+            User user = User.builder()
+                    .id(ids.getAndDecrement())
+                    .username(username)
+                    .password(hash)
+                    .build();
+            user.addRole(Role.user());
+            byUsername.put(username, user);
+        }
+
+        @Override
+        public User save(User user) {
+            return user;
+        }
+
+        @Override
+        public Optional<User> findById(Long id) {
+            return byUsername.values().stream().filter(user -> user.getId().equals(id)).findFirst();
+        }
+
+        @Override
+        public Optional<User> findByUsername(String username) {
+            return Optional.ofNullable(byUsername.get(username));
+        }
+
+        @Override
+        public List<User> findAll() {
+            return new ArrayList<>(byUsername.values());
+        }
+
+        @Override
+        public List<User> findAllById(Collection<Long> ids) {
+            return byUsername.values().stream().filter(user -> ids.contains(user.getId())).toList();
+        }
+
+        @Override
+        public boolean existsById(Long id) {
+            return findById(id).isPresent();
+        }
+
+        @Override
+        public boolean existsByUsername(String username) {
+            return byUsername.containsKey(username);
+        }
+
+        @Override
+        public boolean existsByEmail(String email) {
+            return false;
+        }
+
+        @Override
+        public void deleteById(Long id) {
+            byUsername.values().removeIf(user -> user.getId().equals(id));
+        }
+
+        @Override
+        public void delete(User user) {
+            byUsername.remove(user.getUsername());
+        }
+    }
+
+    // Refresh tokens issued to the throwaway users are dropped
+    private static final class DiscardedTokens implements RefreshTokenRepository {
+        @Override
+        public RefreshToken save(RefreshToken token) {
+            return token;
+        }
+
+        @Override
+        public Optional<RefreshToken> findByTokenHash(String tokenHash) {
+            return Optional.empty();
+        }
+
+        @Override
+        public boolean markUsed(Long id, LocalDateTime usedAt) {
+            return false;
+        }
+
+        @Override
+        public int revokeFamily(String familyId) {
+            return 0;
+        }
+
+        @Override
+        public int revokeAllForUser(Long userId) {
+            return 0;
+        }
+
+        @Override
+        public int deleteExpired(LocalDateTime cutoff, int batchSize) {
+            return 0;
+        }
+    }
+}
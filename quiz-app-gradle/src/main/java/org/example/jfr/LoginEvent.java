@@ -0,0 +1,85 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One login attempt, from the first lookup to the issued tokens or the failure. With the async pipeline
+ * the event begins on the request thread and is committed by whichever pool thread finishes the login.
+ */
+@Name("org.example.auth.Login")
+@Label("Login")
+@Category({"Quiz App", "Auth"})
+@Description("Login attempt through AuthService, including queueing, password check and token issue")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class LoginEvent extends Event {
+    @Label("Username")
+    private String username;
+
+    @Label("Outcome")
+    @Description("success, invalid_credentials, account_disabled, account_locked, rejected, timeout, busy or error")
+    private String outcome;
+
+    @Label("Async")
+    private boolean async;
+
+    @Label("Warm-up")
+    @Description("Synthetic login from StartupWarmup")
+    private boolean warmup;
+
+    public static LoginEvent start(String username, boolean async) {
+        return start(username, async, false);
+    }
+
+    public static LoginEvent start(String username, boolean async, boolean warmup) {
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        event.username = username;
+        event.async = async;
+        event.warmup = warmup;
+        return event;
+    }
+
+    // failure is null for a successful login
+    public void finish(Throwable failure) {
+        end();
+        if (shouldCommit()) {
+            outcome = outcome(failure);
+            commit();
+        }
+    }
+
+    static String outcome(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure == null) {
+            return "success";
+        } else if (failure == AuthFailures.INVALID_CREDENTIALS) {
+            return "invalid_credentials";
+        } else if (failure == AuthFailures.ACCOUNT_DISABLED) {
+            return "account_disabled";
+        } else if (failure == AuthFailures.ACCOUNT_LOCKED) {
+            return "account_locked";
+        } else if (failure instanceof AuthException) {
+            return "rejected";
+        } else if (failure instanceof TimeoutException) {
+            return "timeout";
+        } else if (failure instanceof RejectedExecutionException) {
+            return "busy";
+        }
+        return "error";
+    }
+}
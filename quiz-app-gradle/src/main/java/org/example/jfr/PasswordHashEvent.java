@@ -0,0 +1,56 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.example.auth.PasswordHash")
+@Label("Password Hash")
+@Category({"Quiz App", "Auth"})
+@Description("One BCrypt encode or match")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class PasswordHashEvent extends Event {
+    @Label("Operation")
+    private String operation;
+
+    @Label("Cost")
+    @Description("BCrypt log2 rounds of the stored or produced hash, -1 if it is not a BCrypt hash")
+    private int cost;
+
+    @Label("Matched")
+    private boolean matched;
+
+    public static PasswordHashEvent start(String operation) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        event.operation = operation;
+        return event;
+    }
+
+    public void finish(String hash, boolean matched) {
+        end();
+        if (shouldCommit()) {
+            this.cost = cost(hash);
+            this.matched = matched;
+            commit();
+        }
+    }
+
+    // $2a$10$... : the two digits after the version are the cost
+    static int cost(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$') {
+            return -1;
+        }
+        char tens = hash.charAt(4);
+        char ones = hash.charAt(5);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.jfr;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Time a thread spent getting a connection out of the pool, with the pool's occupancy right after.
+ * Records the stack trace, so long checkouts can be traced back to their caller.
+ */
+@Name("org.example.db.PoolCheckout")
+@Label("Connection Pool Checkout")
+@Category({"Quiz App", "Database"})
+@Description("DataSource.getConnection() on the application's connection pool")
+@StackTrace(true)
+@Threshold("0 ms")
+public final class PoolCheckoutEvent extends Event {
+    @Label("Pool")
+    private String pool;
+
+    @Label("Succeeded")
+    @Description("False when the checkout timed out or the pool could not open a connection")
+    private boolean succeeded;
+
+    @Label("Active Connections")
+    private int active;
+
+    @Label("Idle Connections")
+    private int idle;
+
+    @Label("Pending Threads")
+    private int pending;
+
+    public static PoolCheckoutEvent start(String pool) {
+        PoolCheckoutEvent event = new PoolCheckoutEvent();
+        event.begin();
+        event.pool = pool;
+        return event;
+    }
+
+    // Occupancy is only read when the event is recorded; the pool MXBean counts by walking the pool
+    public void finish(boolean succeeded, HikariPoolMXBean poolBean) {
+        end();
+        if (shouldCommit()) {
+            this.succeeded = succeeded;
+            if (poolBean != null) {
+                this.active = poolBean.getActiveConnections();
+                this.idle = poolBean.getIdleConnections();
+                this.pending = poolBean.getThreadsAwaitingConnection();
+            }
+            commit();
+        }
+    }
+}
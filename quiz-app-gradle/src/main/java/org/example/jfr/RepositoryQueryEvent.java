@@ -0,0 +1,59 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.example.tracing.Tracing;
+
+/**
+ * One repository call: connection checkout, statement and result mapping. Also opens the request trace
+ * span of the same name, so a repository method brackets itself once for both.
+ * <pre>
+ * RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findById", sql);
+ * try (...) { ... query.rows(n) ... } finally { query.finish(); }
+ * </pre>
+ */
+@Name("org.example.db.RepositoryQuery")
+@Label("Repository Query")
+@Category({"Quiz App", "Database"})
+@Description("JDBC repository call with its SQL template and the rows it read or changed")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class RepositoryQueryEvent extends Event {
+    @Label("Operation")
+    private String operation;
+
+    @Label("SQL")
+    private String sql;
+
+    @Label("Row Count")
+    private int rowCount;
+
+    // Not recorded: JFR skips transient fields
+    private transient int span;
+
+    public static RepositoryQueryEvent start(String operation, String sql) {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        event.span = Tracing.begin(operation);
+        event.begin();
+        event.operation = operation;
+        event.sql = sql;
+        return event;
+    }
+
+    // Returns count, so an update can be wrapped in place: return query.rows(ps.executeUpdate());
+    public int rows(int count) {
+        rowCount = count;
+        return count;
+    }
+
+    public void finish() {
+        end();
+        commit();
+        Tracing.end(span);
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.example.auth.TokenVerification")
+@Label("Token Verification")
+@Category({"Quiz App", "Auth"})
+@Description("Signature and expiry check of one access token")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class TokenVerificationEvent extends Event {
+    @Label("Algorithm")
+    private String algorithm;
+
+    @Label("Valid")
+    private boolean valid;
+
+    @Label("Failure")
+    private String failure;
+
+    @Label("Warm-up")
+    @Description("Synthetic traffic from StartupWarmup")
+    private boolean warmup;
+
+    public static TokenVerificationEvent start(String algorithm) {
+        return start(algorithm, false);
+    }
+
+    public static TokenVerificationEvent start(String algorithm, boolean warmup) {
+        TokenVerificationEvent event = new TokenVerificationEvent();
+        event.begin();
+        event.algorithm = algorithm;
+        event.warmup = warmup;
+        return event;
+    }
+
+    // failure is null when the token verified
+    public void finish(Exception failure) {
+        end();
+        if (shouldCommit()) {
+            valid = failure == null;
+            this.failure = failure != null ? failure.getMessage() : null;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.metrics;
+
+// The timed endpoints, each with one pre-created timer per outcome so recording never allocates
+public enum AuthOperation {
+    LOGIN("login"),
+    REGISTER("register"),
+    REFRESH("refresh"),
+    VALIDATE("validate"),
+    VALIDATE_BATCH("validate_batch"),
+    CHANGE_PASSWORD("change_password");
+
+    private final String label;
+    private final Timer[] timers;
+
+    AuthOperation(String label) {
+        this.label = label;
+        Outcome[] outcomes = Outcome.values();
+        timers = new Timer[outcomes.length];
+        for (Outcome outcome : outcomes) {
+            timers[outcome.ordinal()] = Metrics.timer("auth_request_seconds",
+                    "operation=\"" + label + "\",outcome=\"" + outcome.label() + "\"");
+        }
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public void record(int status, long startNanos) {
+        timers[Outcome.of(status).ordinal()].recordSince(startNanos);
+    }
+
+    // Endpoint for a path under /api/auth, or null if the path is not one we time
+    public static AuthOperation forPath(String path) {
+        if (path == null) {
+            return null;
+        }
+        return switch (path) {
+            case "/login" -> LOGIN;
+            case "/register" -> REGISTER;
+            case "/refresh" -> REFRESH;
+            case "/validate" -> VALIDATE;
+            case "/validate-batch" -> VALIDATE_BATCH;
+            case "/change-password" -> CHANGE_PASSWORD;
+            default -> null;
+        };
+    }
+}
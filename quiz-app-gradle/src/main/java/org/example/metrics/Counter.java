@@ -0,0 +1,30 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter {
+    private final String name;
+    private final String labels;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, String labels) {
+        this.name = name;
+        this.labels = labels;
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getLabels() {
+        return labels;
+    }
+
+    public long get() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.metrics;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide metrics, rendered in the Prometheus text format by {@link #scrape()}. Instruments are
+ * created once and held in static fields (or enum constants, see {@link AuthOperation}); recording is a
+ * LongAdder increment or an HdrHistogram Recorder write, neither of which allocates or locks.
+ */
+public final class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final List<Timer> TIMERS = new CopyOnWriteArrayList<>();
+    private static final List<Counter> COUNTERS = new CopyOnWriteArrayList<>();
+    private static final Map<String, PoolStats> POOLS = new ConcurrentHashMap<>();
+    private static final Map<String, String> HELP = Map.ofEntries(
+            Map.entry("auth_request_seconds", "Auth API request latency by operation and outcome"),
+            Map.entry("password_hash_seconds", "BCrypt time per password encode or match"),
+            Map.entry("jwt_seconds", "Access token signing and verification time"),
+            Map.entry("db_pool_acquire_seconds", "Time to borrow a connection from the pool"),
+            Map.entry("db_pool_usage_seconds", "Time a connection was held before being returned"),
+            Map.entry("db_pool_timeouts_total", "Connection requests that timed out waiting for the pool"),
+            Map.entry("db_pool_leaks_total", "Connections held past the leak detection threshold"),
+            Map.entry("db_pool_saturation_alarms_total", "Episodes of too many threads waiting for a connection for too long"),
+            Map.entry("db_pool_connections", "Pool connections by state"),
+            Map.entry("db_pool_max_connections", "Configured maximum pool size"),
+            Map.entry("user_update_conflicts_total", "User updates that lost to a concurrent one, by whether they were retried"));
+
+    public static final Timer PASSWORD_ENCODE = timer("password_hash_seconds", "operation=\"encode\"");
+    public static final Timer PASSWORD_MATCH = timer("password_hash_seconds", "operation=\"matches\"");
+    public static final Timer JWT_SIGN = timer("jwt_seconds", "operation=\"sign\"");
+    public static final Timer JWT_VERIFY = timer("jwt_seconds", "operation=\"verify\"");
+
+    private Metrics() {
+    }
+
+    // Registration is rare (startup, pool creation); asking again for the same series returns the existing one
+    public static synchronized Timer timer(String name, String labels) {
+        for (Timer timer : TIMERS) {
+            if (timer.getName().equals(name) && timer.getLabels().equals(labels)) {
+                return timer;
+            }
+        }
+        Timer timer = new Timer(name, labels);
+        TIMERS.add(timer);
+        return timer;
+    }
+
+    public static synchronized Counter counter(String name, String labels) {
+        for (Counter counter : COUNTERS) {
+            if (counter.getName().equals(name) && counter.getLabels().equals(labels)) {
+                return counter;
+            }
+        }
+        Counter counter = new Counter(name, labels);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    // Connection gauges are read from Hikari at scrape time
+    static void registerPool(String poolName, PoolStats stats) {
+        POOLS.put(poolName, stats);
+    }
+
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+
+        Map<String, List<Timer>> timers = new LinkedHashMap<>();
+        for (Timer timer : TIMERS) {
+            timers.computeIfAbsent(timer.getName(), name -> new ArrayList<>()).add(timer);
+        }
+        for (Map.Entry<String, List<Timer>> entry : timers.entrySet()) {
+            header(out, entry.getKey(), "summary");
+            for (Timer timer : entry.getValue()) {
+                writeTimer(out, timer);
+            }
+        }
+
+        Map<String, List<Counter>> counters = new LinkedHashMap<>();
+        for (Counter counter : COUNTERS) {
+            counters.computeIfAbsent(counter.getName(), name -> new ArrayList<>()).add(counter);
+        }
+        for (Map.Entry<String, List<Counter>> entry : counters.entrySet()) {
+            header(out, entry.getKey(), "counter");
+            for (Counter counter : entry.getValue()) {
+                sample(out, entry.getKey(), counter.getLabels(), counter.get());
+            }
+        }
+
+        if (!POOLS.isEmpty()) {
+            header(out, "db_pool_connections", "gauge");
+            for (Map.Entry<String, PoolStats> pool : POOLS.entrySet()) {
+                PoolStats stats = pool.getValue();
+                String labels = "pool=\"" + pool.getKey() + "\",state=";
+                sample(out, "db_pool_connections", labels + "\"active\"", stats.getActiveConnections());
+                sample(out, "db_pool_connections", labels + "\"idle\"", stats.getIdleConnections());
+                sample(out, "db_pool_connections", labels + "\"pending\"", stats.getPendingThreads());
+            }
+            header(out, "db_pool_max_connections", "gauge");
+            for (Map.Entry<String, PoolStats> pool : POOLS.entrySet()) {
+                sample(out, "db_pool_max_connections", "pool=\"" + pool.getKey() + "\"",
+                        pool.getValue().getMaxConnections());
+            }
+        }
+        return out.toString();
+    }
+
+    private static void writeTimer(StringBuilder out, Timer timer) {
+        String name = timer.getName();
+        String labels = timer.getLabels();
+        synchronized (timer) {
+            Histogram histogram = timer.snapshot();
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                return;
+            }
+            for (double quantile : QUANTILES) {
+                sample(out, name, labels + ",quantile=\"" + quantile + "\"",
+                        seconds(histogram.getValueAtPercentile(quantile * 100.0)));
+            }
+            sample(out, name + "_count", labels, count);
+        }
+        sample(out, name + "_sum", labels, seconds(timer.getSumNanos()));
+    }
+
+    private static void header(StringBuilder out, String name, String type) {
+        String help = HELP.get(name);
+        if (help != null) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        }
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.metrics;
+
+// Request outcome as seen by the client, derived from the response status
+public enum Outcome {
+    SUCCESS("success"),
+    BAD_REQUEST("bad_request"),
+    UNAUTHORIZED("unauthorized"),
+    UNAVAILABLE("unavailable"),
+    ERROR("error");
+
+    private final String label;
+
+    Outcome(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    public static Outcome of(int status) {
+        if (status < 400) {
+            return SUCCESS;
+        }
+        if (status == 401 || status == 403) {
+            return UNAUTHORIZED;
+        }
+        if (status == 503) {
+            return UNAVAILABLE;
+        }
+        return status < 500 ? BAD_REQUEST : ERROR;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+
+// Plugged into HikariConfig; Hikari calls the tracker on every borrow, return and timeout
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Metrics.registerPool(poolName, poolStats);
+        String labels = "pool=\"" + poolName + "\"";
+        Timer acquire = Metrics.timer("db_pool_acquire_seconds", labels);
+        Timer usage = Metrics.timer("db_pool_usage_seconds", labels);
+        Counter timeouts = Metrics.counter("db_pool_timeouts_total", labels);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.metrics;
+
+import org.example.jfr.PasswordHashEvent;
+import org.example.tracing.Tracing;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Records BCrypt cost separately from the request it belongs to, as a span of that request's trace and as a JFR event
+public class TimedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        int span = Tracing.begin("bcrypt.encode");
+        PasswordHashEvent event = PasswordHashEvent.start("encode");
+        long start = System.nanoTime();
+        String encoded = null;
+        try {
+            encoded = delegate.encode(rawPassword);
+            return encoded;
+        } finally {
+            Metrics.PASSWORD_ENCODE.recordSince(start);
+            event.finish(encoded, false);
+            Tracing.end(span);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        int span = Tracing.begin("bcrypt.matches");
+        PasswordHashEvent event = PasswordHashEvent.start("matches");
+        long start = System.nanoTime();
+        boolean matched = false;
+        try {
+            matched = delegate.matches(rawPassword, encodedPassword);
+            return matched;
+        } finally {
+            Metrics.PASSWORD_MATCH.recordSince(start);
+            event.finish(encodedPassword, matched);
+            Tracing.end(span);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
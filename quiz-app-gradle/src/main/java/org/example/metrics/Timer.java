@@ -0,0 +1,74 @@
+package org.example.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution for one labelled series. Recording goes into an HdrHistogram {@link Recorder},
+ * which is wait-free and allocation-free for writers; the scrape thread swaps out the interval
+ * histogram and folds it into the cumulative one, so readers never block the request path.
+ */
+public final class Timer {
+    private static final long LOWEST_NANOS = 1_000L;
+    private static final long HIGHEST_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String name;
+    private final String labels;
+    private final Recorder recorder = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private final LongAdder sumNanos = new LongAdder();
+
+    // Guarded by this; only touched while scraping
+    private final Histogram cumulative = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    Timer(String name, String labels) {
+        this.name = name;
+        this.labels = labels;
+    }
+
+    public void record(long nanos) {
+        recorder.recordValue(Math.max(0L, Math.min(nanos, HIGHEST_NANOS)));
+        sumNanos.add(nanos);
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getLabels() {
+        return labels;
+    }
+
+    long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    public synchronized long count() {
+        return snapshot().getTotalCount();
+    }
+
+    // Cumulative values in nanoseconds at the given percentiles (0-100), for readers other than the scrape
+    public synchronized long[] percentiles(double... percentiles) {
+        Histogram histogram = snapshot();
+        long[] values = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            values[i] = histogram.getValueAtPercentile(percentiles[i]);
+        }
+        return values;
+    }
+
+    // Everything recorded since startup; the returned histogram must only be read while holding this
+    synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        cumulative.add(interval);
+        return cumulative;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+    private Long id;
+    private Long userId;
+
+    // All tokens rotated from the same login share a family, so a replayed one can revoke the whole chain
+    private String familyId;
+
+    // SHA-256 of the opaque token; the token itself is never stored
+    private String tokenHash;
+
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime usedAt;
+    private boolean revoked;
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt.isBefore(now);
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.util.Locale;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,6 +36,12 @@ public class Role {
             }
             throw new IllegalArgumentException("Unknown role: " + value);
         }
+
+        // As the admin API takes it: any case, with or without the ROLE_ prefix
+        public static RoleType parse(String name) {
+            String value = name.trim().toUpperCase(Locale.ROOT);
+            return fromValue(value.startsWith("ROLE_") ? value : "ROLE_" + value);
+        }
     }
 
     // Constructor for new roles using RoleType
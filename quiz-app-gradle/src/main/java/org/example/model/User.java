@@ -35,6 +35,9 @@ public class User implements Cloneable {
     @Builder.Default
     private boolean accountNonLocked = true;
 
+    // Row version as read; an update only applies if the row still has it, and bumps it
+    private long version;
+
     // Role management methods
     public void addRole(Role role) {
         roles.add(role);
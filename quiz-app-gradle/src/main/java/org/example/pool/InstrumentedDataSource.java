@@ -0,0 +1,93 @@
+package org.example.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.jfr.PoolCheckoutEvent;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * The DataSource the repositories get: the Hikari pool, with every checkout recorded as a JFR
+ * PoolCheckoutEvent (free when no recording is running) and, with a monitor, tracked until it is closed.
+ */
+public class InstrumentedDataSource implements DataSource {
+    private final HikariDataSource pool;
+    private final PoolMonitor monitor;
+
+    public InstrumentedDataSource(HikariDataSource pool) {
+        this(pool, null);
+    }
+
+    public InstrumentedDataSource(HikariDataSource pool, PoolMonitor monitor) {
+        this.pool = pool;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        PoolCheckoutEvent event = PoolCheckoutEvent.start(pool.getPoolName());
+        boolean succeeded = false;
+        try {
+            Connection connection = pool.getConnection();
+            succeeded = true;
+            return monitor != null ? monitor.track(connection) : connection;
+        } finally {
+            event.finish(succeeded, pool.getHikariPoolMXBean());
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return pool.getConnection(username, password);
+    }
+
+    public HikariDataSource getPool() {
+        return pool;
+    }
+
+    public PoolMonitor getMonitor() {
+        return monitor;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return pool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        pool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        pool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return pool.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return pool.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(pool)) {
+            return iface.cast(pool);
+        }
+        return pool.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(pool) || pool.isWrapperFor(iface);
+    }
+}
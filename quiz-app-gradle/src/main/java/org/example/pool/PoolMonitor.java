@@ -0,0 +1,294 @@
+package org.example.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.example.config.PropertyLoader;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches the connection pool from the borrower's side. Every checkout records the borrowing thread and, with
+ * a leak threshold set, the call site (the first frame outside the pool and JDBC layers), and a background
+ * check then
+ * <ul>
+ * <li>reports connections held longer than the leak threshold, once each, aggregated by call site;</li>
+ * <li>raises a saturation alarm when more than {@code pendingThreshold} threads have been waiting for a
+ * connection for {@code saturationMillis}, logging the stacks of the threads holding connections, so
+ * an exhausted pool can be told apart from a slow database.</li>
+ * </ul>
+ * Replaces Hikari's own leak detection, which captures a full stack trace on every checkout. The call site
+ * is a single lazily walked frame, and is skipped entirely when leaks are not reported; the alarm's stacks
+ * are taken from the holding threads when it fires, so it works either way.
+ */
+public class PoolMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(PoolMonitor.class);
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final double[] ACQUIRE_PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+    private static final String[] ACQUIRE_FIELDS = {"p50Ms", "p90Ms", "p99Ms", "p999Ms"};
+
+    private final HikariDataSource pool;
+    private final long leakThresholdNanos;
+    private final int pendingThreshold;
+    private final long saturationNanos;
+
+    private final Set<Holder> holders = ConcurrentHashMap.newKeySet();
+    private final Map<String, LeakSite> leakSites = new ConcurrentHashMap<>();
+    private final Timer acquireTimer;
+    private final Counter timeouts;
+    private final Counter leaks;
+    private final Counter alarms;
+
+    // Only touched by the check thread
+    private long saturatedSinceNanos = -1;
+    private boolean alarmRaised;
+    private volatile Map<String, Object> lastAlarm;
+
+    private ScheduledExecutorService checker;
+
+    public PoolMonitor(HikariDataSource pool, long leakThresholdMillis, int pendingThreshold, long saturationMillis) {
+        this.pool = pool;
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+        this.pendingThreshold = pendingThreshold;
+        this.saturationNanos = TimeUnit.MILLISECONDS.toNanos(saturationMillis);
+
+        String labels = "pool=\"" + pool.getPoolName() + "\"";
+        // The same series PoolMetricsTrackerFactory records into
+        this.acquireTimer = Metrics.timer("db_pool_acquire_seconds", labels);
+        this.timeouts = Metrics.counter("db_pool_timeouts_total", labels);
+        this.leaks = Metrics.counter("db_pool_leaks_total", labels);
+        this.alarms = Metrics.counter("db_pool_saturation_alarms_total", labels);
+    }
+
+    public static PoolMonitor fromConfiguration(HikariDataSource pool) {
+        PoolMonitor monitor = new PoolMonitor(pool,
+                Long.parseLong(PropertyLoader.getProperty("db.hikari.leak-detection-threshold", "0")),
+                Integer.parseInt(PropertyLoader.getProperty("db.pool.alarm.pending-threshold", "5")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(PropertyLoader.getProperty("db.pool.alarm.duration-seconds", "10"))));
+        monitor.start(Long.parseLong(PropertyLoader.getProperty("db.pool.monitor.interval-ms", "1000")));
+        return monitor;
+    }
+
+    public void start(long intervalMillis) {
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-monitor-" + pool.getPoolName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+    }
+
+    // Wraps a freshly borrowed connection so that closing it ends the hold
+    Connection track(Connection connection) {
+        Holder holder = new Holder(Thread.currentThread(), System.nanoTime(),
+                leakThresholdNanos > 0 ? callSite() : null);
+        holders.add(holder);
+        return new TrackedConnection(connection, this, holder);
+    }
+
+    void release(Holder holder) {
+        holders.remove(holder);
+    }
+
+    private void checkSafely() {
+        try {
+            check(System.nanoTime());
+        } catch (RuntimeException e) {
+            logger.warn("Pool check failed", e);
+        }
+    }
+
+    void check(long now) {
+        if (leakThresholdNanos > 0) {
+            for (Holder holder : holders) {
+                long heldNanos = now - holder.borrowedNanos;
+                if (heldNanos >= leakThresholdNanos && holder.reported.compareAndSet(false, true)) {
+                    reportLeak(holder, heldNanos);
+                }
+            }
+        }
+
+        HikariPoolMXBean stats = pool.getHikariPoolMXBean();
+        int pending = stats != null ? stats.getThreadsAwaitingConnection() : 0;
+        if (pendingThreshold < 0 || pending <= pendingThreshold) {
+            saturatedSinceNanos = -1;
+            alarmRaised = false;
+            return;
+        }
+        if (saturatedSinceNanos < 0) {
+            saturatedSinceNanos = now;
+        }
+        // One alarm per episode; it re-arms once the waiting threads drop back under the threshold
+        if (!alarmRaised && now - saturatedSinceNanos >= saturationNanos) {
+            alarmRaised = true;
+            raiseAlarm(stats, now);
+        }
+    }
+
+    private void reportLeak(Holder holder, long heldNanos) {
+        String site = holder.site();
+        leakSites.computeIfAbsent(site, s -> new LeakSite()).record(TimeUnit.NANOSECONDS.toMillis(heldNanos));
+        leaks.increment();
+        logger.warn("Connection held for {} ms by thread {}, borrowed at {} (possible leak)",
+                TimeUnit.NANOSECONDS.toMillis(heldNanos), holder.thread.getName(), site);
+    }
+
+    private void raiseAlarm(HikariPoolMXBean stats, long now) {
+        alarms.increment();
+        List<Holder> current = new ArrayList<>(holders);
+        current.sort(Comparator.comparingLong(holder -> holder.borrowedNanos));
+
+        StringBuilder dump = new StringBuilder(4096);
+        List<Map<String, Object>> holderReports = new ArrayList<>(current.size());
+        for (Holder holder : current) {
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - holder.borrowedNanos);
+            StackTraceElement[] stack = holder.thread.getStackTrace();
+            dump.append("\n\"").append(holder.thread.getName()).append("\" ").append(holder.thread.getState())
+                    .append(", holding for ").append(heldMillis).append(" ms, borrowed at ").append(holder.site());
+            List<String> frames = new ArrayList<>(stack.length);
+            for (StackTraceElement frame : stack) {
+                dump.append("\n\tat ").append(frame);
+                frames.add(frame.toString());
+            }
+
+            Map<String, Object> report = holderReport(holder, heldMillis);
+            report.put("stack", frames);
+            holderReports.add(report);
+        }
+
+        Map<String, Object> alarm = new LinkedHashMap<>();
+        alarm.put("time", Instant.now().toString());
+        alarm.put("pending", stats.getThreadsAwaitingConnection());
+        alarm.put("active", stats.getActiveConnections());
+        alarm.put("saturatedForMs", TimeUnit.NANOSECONDS.toMillis(now - saturatedSinceNanos));
+        alarm.put("holders", holderReports);
+        lastAlarm = alarm;
+
+        logger.warn("Connection pool {} saturated: {} threads waiting for {} ms, {} connections held by:{}",
+                pool.getPoolName(), alarm.get("pending"), alarm.get("saturatedForMs"), current.size(), dump);
+    }
+
+    /**
+     * Pool state for the admin endpoint: occupancy, acquisition latency, timeouts, leaks by call site,
+     * the current holders and the last saturation alarm.
+     */
+    public Map<String, Object> report() {
+        long now = System.nanoTime();
+        HikariPoolMXBean stats = pool.getHikariPoolMXBean();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("pool", pool.getPoolName());
+        if (stats != null) {
+            report.put("active", stats.getActiveConnections());
+            report.put("idle", stats.getIdleConnections());
+            report.put("pending", stats.getThreadsAwaitingConnection());
+            report.put("total", stats.getTotalConnections());
+        }
+        report.put("max", pool.getMaximumPoolSize());
+
+        Map<String, Object> acquire = new LinkedHashMap<>();
+        long[] percentiles = acquireTimer.percentiles(ACQUIRE_PERCENTILES);
+        acquire.put("count", acquireTimer.count());
+        for (int i = 0; i < ACQUIRE_PERCENTILES.length; i++) {
+            acquire.put(ACQUIRE_FIELDS[i], percentiles[i] / 1e6);
+        }
+        report.put("acquire", acquire);
+        report.put("timeouts", timeouts.get());
+
+        List<Map<String, Object>> sites = new ArrayList<>();
+        leakSites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LeakSite> site) -> site.getValue().count.sum()).reversed())
+                .forEach(site -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("callSite", site.getKey());
+                    entry.put("count", site.getValue().count.sum());
+                    entry.put("maxHeldMs", site.getValue().maxHeldMillis.get());
+                    sites.add(entry);
+                });
+        report.put("leaks", sites);
+
+        List<Map<String, Object>> holding = new ArrayList<>();
+        for (Holder holder : holders) {
+            holding.add(holderReport(holder, TimeUnit.NANOSECONDS.toMillis(now - holder.borrowedNanos)));
+        }
+        holding.sort(Comparator.comparingLong((Map<String, Object> holder) -> (Long) holder.get("heldMs")).reversed());
+        report.put("holders", holding);
+        report.put("lastAlarm", lastAlarm);
+        return report;
+    }
+
+    private static Map<String, Object> holderReport(Holder holder, long heldMillis) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("thread", holder.thread.getName());
+        report.put("state", holder.thread.getState().name());
+        report.put("heldMs", heldMillis);
+        report.put("callSite", holder.site());
+        return report;
+    }
+
+    private static StackWalker.StackFrame callSite() {
+        return WALKER.walk(frames -> frames
+                .filter(frame -> !isPoolInfrastructure(frame.getClassName()))
+                .findFirst()
+                .orElse(null));
+    }
+
+    private static boolean isPoolInfrastructure(String className) {
+        return className.startsWith("org.example.pool.") || className.startsWith("org.example.jfr.")
+                || className.startsWith("com.zaxxer.") || className.startsWith("java.")
+                || className.startsWith("javax.") || className.startsWith("jdk.");
+    }
+
+    static final class Holder {
+        final Thread thread;
+        final long borrowedNanos;
+        final StackWalker.StackFrame callSite;
+        final AtomicBoolean reported = new AtomicBoolean();
+
+        Holder(Thread thread, long borrowedNanos, StackWalker.StackFrame callSite) {
+            this.thread = thread;
+            this.borrowedNanos = borrowedNanos;
+            this.callSite = callSite;
+        }
+
+        // Formatted only when reported; not recorded at all without a leak threshold
+        String site() {
+            return callSite != null ? callSite.toStackTraceElement().toString() : "unknown";
+        }
+    }
+
+    private static final class LeakSite {
+        final LongAdder count = new LongAdder();
+        final AtomicLong maxHeldMillis = new AtomicLong();
+
+        void record(long heldMillis) {
+            count.increment();
+            maxHeldMillis.accumulateAndGet(heldMillis, Math::max);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Profile;
+
+// Reactive deployment mode: same /api/auth contract as Application, served by WebFlux on Netty over R2DBC.
+// Only org.example.reactive is scanned, so none of the servlet components are started.
+@SpringBootApplication
+@Profile("reactive")
+public class ReactiveApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(args);
+    }
+}
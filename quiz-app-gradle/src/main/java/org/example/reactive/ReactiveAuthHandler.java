@@ -0,0 +1,163 @@
+package org.example.reactive;
+
+import org.example.dto.*;
+import org.example.exception.AuthException;
+import org.example.exception.OptimisticLockException;
+import org.example.service.ReactiveAuthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Functional WebFlux endpoints with the same paths, status codes and bodies as AuthController.
+ */
+public class ReactiveAuthHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveAuthHandler.class);
+
+    private final ReactiveAuthService authService;
+    private final Duration requestTimeout;
+
+    public ReactiveAuthHandler(ReactiveAuthService authService, Duration requestTimeout) {
+        this.authService = authService;
+        this.requestTimeout = requestTimeout;
+    }
+
+    public Mono<ServerResponse> login(ServerRequest request) {
+        return request.bodyToMono(LoginRequest.class)
+                .flatMap(loginRequest -> {
+                    try {
+                        loginRequest.validate();
+                    } catch (IllegalArgumentException e) {
+                        return respond(HttpStatus.BAD_REQUEST, LoginResponse.error(e.getMessage()));
+                    }
+                    return authService.login(loginRequest)
+                            .flatMap(tokens -> respond(HttpStatus.OK, new LoginResponse(tokens.getAccessToken(),
+                                    tokens.getRefreshToken(), loginRequest.getUsername(), tokens.getExpiresIn())))
+                            .onErrorResume(AuthException.class,
+                                    e -> respond(HttpStatus.UNAUTHORIZED, LoginResponse.error(e.getMessage())));
+                })
+                .switchIfEmpty(Mono.defer(() -> missingBody(request)))
+                .timeout(requestTimeout)
+                .onErrorResume(e -> handleException(request, e));
+    }
+
+    public Mono<ServerResponse> register(ServerRequest request) {
+        return request.bodyToMono(SignupRequest.class)
+                .flatMap(signupRequest -> {
+                    try {
+                        signupRequest.validate();
+                    } catch (IllegalArgumentException e) {
+                        return respond(HttpStatus.BAD_REQUEST, SignupResponse.error(e.getMessage()));
+                    }
+                    return authService.register(signupRequest)
+                            .then(respond(HttpStatus.OK, SignupResponse.success(signupRequest.getUsername())))
+                            .onErrorResume(AuthException.class,
+                                    e -> error(request, HttpStatus.BAD_REQUEST, e.getMessage()));
+                })
+                .switchIfEmpty(Mono.defer(() -> missingBody(request)))
+                .timeout(requestTimeout)
+                .onErrorResume(e -> handleException(request, e));
+    }
+
+    public Mono<ServerResponse> refresh(ServerRequest request) {
+        String token = extractToken(request);
+        if (token == null) {
+            return error(request, HttpStatus.UNAUTHORIZED, "No token provided");
+        }
+
+        // The bearer here is the opaque refresh token; it is single-use and replaced by the one returned
+        return authService.refreshToken(token)
+                .flatMap(tokens -> respond(HttpStatus.OK, Map.of("token", tokens.getAccessToken(),
+                        "refreshToken", tokens.getRefreshToken(),
+                        "expiresIn", tokens.getExpiresIn())))
+                .onErrorResume(AuthException.class, e -> error(request, HttpStatus.UNAUTHORIZED, e.getMessage()))
+                .timeout(requestTimeout)
+                .onErrorResume(e -> handleException(request, e));
+    }
+
+    public Mono<ServerResponse> changePassword(ServerRequest request) {
+        String token = extractToken(request);
+
+        return request.bodyToMono(ChangePasswordRequest.class)
+                .flatMap(changePasswordRequest -> {
+                    try {
+                        changePasswordRequest.validate();
+                    } catch (IllegalArgumentException e) {
+                        return error(request, HttpStatus.BAD_REQUEST, e.getMessage());
+                    }
+                    return authService.validateToken(token)
+                            .flatMap(claims -> authService.changePassword(claims.getUserId(),
+                                    changePasswordRequest.getOldPassword(), changePasswordRequest.getNewPassword()))
+                            .then(respond(HttpStatus.OK, Map.of("message", "Password changed successfully")))
+                            .onErrorResume(AuthException.class,
+                                    e -> error(request, HttpStatus.UNAUTHORIZED, e.getMessage()));
+                })
+                .switchIfEmpty(Mono.defer(() -> missingBody(request)))
+                .timeout(requestTimeout)
+                .onErrorResume(e -> handleException(request, e));
+    }
+
+    public Mono<ServerResponse> validate(ServerRequest request) {
+        String token = extractToken(request);
+        if (token == null) {
+            return error(request, HttpStatus.UNAUTHORIZED, "No token provided");
+        }
+
+        return authService.validateToken(token)
+                .flatMap(claims -> respond(HttpStatus.OK, Map.of("valid", true,
+                        "username", claims.getSubject(),
+                        "userId", claims.getUserId())))
+                .onErrorResume(AuthException.class, e -> error(request, HttpStatus.UNAUTHORIZED, e.getMessage()))
+                .onErrorResume(e -> handleException(request, e));
+    }
+
+    private String extractToken(ServerRequest request) {
+        String bearerToken = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+
+    private Mono<ServerResponse> respond(HttpStatus status, Object body) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body);
+    }
+
+    private Mono<ServerResponse> error(ServerRequest request, HttpStatus status, String message) {
+        return respond(status, new ErrorResponse(message, request.path(), status.value()));
+    }
+
+    private Mono<ServerResponse> missingBody(ServerRequest request) {
+        return error(request, HttpStatus.BAD_REQUEST, "Request body is required");
+    }
+
+    private Mono<ServerResponse> handleException(ServerRequest request, Throwable e) {
+        if (e instanceof ServerWebInputException) {
+            return error(request, HttpStatus.BAD_REQUEST, "Malformed request body");
+        }
+        if (e instanceof TimeoutException) {
+            return error(request, HttpStatus.SERVICE_UNAVAILABLE, "Request timed out");
+        }
+        if (e instanceof RejectedExecutionException) {
+            return error(request, HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please retry");
+        }
+        if (e instanceof OptimisticLockException) {
+            return error(request, HttpStatus.CONFLICT, "The account was modified concurrently, please retry");
+        }
+        logger.error("Unexpected error in ReactiveAuthHandler", e);
+        return error(request, HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred");
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.reactive;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.example.config.AuthExecutors;
+import org.example.config.PropertyLoader;
+import org.example.metrics.AuthOperation;
+import org.example.metrics.Metrics;
+import org.example.metrics.TimedPasswordEncoder;
+import org.example.repository.impl.R2dbcRefreshTokenRepository;
+import org.example.repository.impl.R2dbcUserRepository;
+import org.example.security.JwtUtil;
+import org.example.service.ReactiveAuthService;
+import org.example.service.ReactiveRefreshTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Wiring for the reactive mode, the counterpart of WebAppInitializer. Settings come from the same
+ * application.properties; the database is configured under reactive.r2dbc.* (H2 in memory by default).
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveConfig.class);
+
+    // Netty rather than Tomcat's reactive adapter, which would be picked since both are on the classpath
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    // Boot registers Module beans with the ObjectMapper behind WebFlux's codecs, as Json does for the servlets
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(PropertyLoader.getProperty("reactive.r2dbc.url"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, PropertyLoader.getProperty("reactive.r2dbc.username", ""))
+                .option(ConnectionFactoryOptions.PASSWORD, PropertyLoader.getProperty("reactive.r2dbc.password", ""))
+                .build();
+
+        int maxSize = Integer.parseInt(PropertyLoader.getProperty("reactive.r2dbc.pool.max-size",
+                PropertyLoader.getProperty("db.hikari.maximum-pool-size", "10")));
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("QuizAppReactivePool")
+                .initialSize(Math.min(maxSize, Integer.parseInt(PropertyLoader.getProperty("db.hikari.minimum-idle", "5"))))
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMillis(Long.parseLong(PropertyLoader.getProperty("db.hikari.idle-timeout", "300000"))))
+                .maxAcquireTime(Duration.ofMillis(Long.parseLong(PropertyLoader.getProperty("db.hikari.connection-timeout", "20000"))))
+                .build();
+        return new ConnectionPool(configuration);
+    }
+
+    // Creates the tables on startup for the local H2 setup; MySQL schemas are managed outside the app
+    @Bean
+    public ConnectionFactoryInitializer schemaInitializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("db/reactive-h2-schema.sql")));
+        initializer.setEnabled(Boolean.parseBoolean(PropertyLoader.getProperty("reactive.r2dbc.init-schema", "false")));
+        return initializer;
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean
+    public JwtUtil jwtUtil() {
+        return new JwtUtil();
+    }
+
+    // Same bounded CPU pool and queue as the servlet async pipeline; only its cpu side is used here
+    @Bean(destroyMethod = "shutdown")
+    public AuthExecutors authExecutors() {
+        return AuthExecutors.fromConfiguration();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler hashingScheduler(AuthExecutors authExecutors) {
+        return Schedulers.fromExecutor(authExecutors.cpu());
+    }
+
+    @Bean
+    public ReactiveRefreshTokenService reactiveRefreshTokenService(DatabaseClient databaseClient) {
+        return new ReactiveRefreshTokenService(new R2dbcRefreshTokenRepository(databaseClient));
+    }
+
+    @Bean
+    public ReactiveAuthService reactiveAuthService(DatabaseClient databaseClient,
+                                                   ReactiveRefreshTokenService refreshTokenService,
+                                                   JwtUtil jwtUtil,
+                                                   Scheduler hashingScheduler) {
+        return new ReactiveAuthService(new R2dbcUserRepository(databaseClient), refreshTokenService,
+                new TimedPasswordEncoder(new BCryptPasswordEncoder()), jwtUtil, hashingScheduler);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Disposable refreshTokenCleanup(ReactiveRefreshTokenService refreshTokenService) {
+        Duration interval = Duration.ofMinutes(Long.parseLong(
+                PropertyLoader.getProperty("jwt.refresh-token-cleanup-interval-minutes", "60")));
+        return Flux.interval(interval, interval)
+                .concatMap(tick -> refreshTokenService.purgeExpired()
+                        .doOnError(e -> logger.error("Refresh token cleanup failed", e))
+                        .onErrorComplete())
+                .subscribe();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> authRoutes(ReactiveAuthService authService,
+                                                     AuthExecutors authExecutors,
+                                                     JwtUtil jwtUtil) {
+        ReactiveAuthHandler handler = new ReactiveAuthHandler(authService,
+                Duration.ofMillis(authExecutors.getRequestTimeoutMillis()));
+        Map<String, Object> jwks = Map.of("keys", jwtUtil.getPublicJwks());
+
+        return RouterFunctions.route()
+                .path("/api/auth", builder -> builder
+                        .POST("/login", handler::login)
+                        .POST("/register", handler::register)
+                        .POST("/refresh", handler::refresh)
+                        .POST("/change-password", handler::changePassword)
+                        .GET("/validate", handler::validate)
+                        .filter(ReactiveConfig::timed))
+                .GET("/.well-known/jwks.json", request -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Cache-Control", "public, max-age=300")
+                        .bodyValue(jwks))
+                .GET("/metrics", request -> ServerResponse.ok()
+                        .contentType(MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8"))
+                        .header("Cache-Control", "no-store")
+                        .bodyValue(Metrics.scrape()))
+                .build();
+    }
+
+    // Same auth_request_seconds series as the servlet AuthController
+    private static Mono<ServerResponse> timed(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        AuthOperation operation = AuthOperation.forPath(request.path().substring("/api/auth".length()));
+        if (operation == null) {
+            return next.handle(request);
+        }
+        long start = System.nanoTime();
+        return next.handle(request)
+                .doOnSuccess(response -> operation.record(response != null ? response.statusCode().value() : 500, start))
+                .doOnError(e -> operation.record(500, start));
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.repository;
+
+import org.example.model.RefreshToken;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// Non-blocking counterpart of RefreshTokenRepository for the reactive deployment mode
+public interface ReactiveRefreshTokenRepository {
+    // Create
+    Mono<RefreshToken> save(RefreshToken token);
+
+    // Read
+    Mono<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Update
+    // Emits false if the token was already consumed
+    Mono<Boolean> markUsed(Long id, LocalDateTime usedAt);
+    Mono<Integer> revokeFamily(String familyId);
+    Mono<Integer> revokeAllForUser(Long userId);
+
+    // Delete
+    Mono<Integer> deleteExpired(LocalDateTime cutoff, int batchSize);
+}
@@ -0,0 +1,16 @@
+package org.example.repository;
+
+import org.example.model.User;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of UserRepository for the reactive deployment mode
+public interface ReactiveUserRepository {
+    // Create or update
+    Mono<User> save(User user);
+
+    // Read
+    Mono<User> findById(Long id);
+    Mono<User> findByUsername(String username);
+    Mono<Boolean> existsByUsername(String username);
+    Mono<Boolean> existsByEmail(String email);
+}
@@ -0,0 +1,23 @@
+package org.example.repository;
+
+import org.example.model.RefreshToken;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository {
+    // Create
+    RefreshToken save(RefreshToken token);
+
+    // Read
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Update
+    // Marks the token used only if nobody else has; false means it was already consumed
+    boolean markUsed(Long id, LocalDateTime usedAt);
+    int revokeFamily(String familyId);
+    int revokeAllForUser(Long userId);
+
+    // Delete
+    int deleteExpired(LocalDateTime cutoff, int batchSize);
+}
@@ -0,0 +1,32 @@
+package org.example.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.example.model.User;
+
+// Which users a bulk operation or search applies to. Unset (null) fields match everyone; set ones must all hold.
+@Getter
+@ToString
+@Builder(toBuilder = true)
+public class UserCriteria {
+    private final String usernamePrefix;
+    private final String emailPrefix;
+    // A role name such as ROLE_ADMIN the user must have
+    private final String role;
+    private final Boolean enabled;
+    private final Boolean locked;
+
+    public boolean isEmpty() {
+        return usernamePrefix == null && emailPrefix == null && role == null && enabled == null && locked == null;
+    }
+
+    // The same test in memory, for repositories without SQL
+    public boolean matches(User user) {
+        return (usernamePrefix == null || (user.getUsername() != null && user.getUsername().startsWith(usernamePrefix)))
+                && (emailPrefix == null || (user.getEmail() != null && user.getEmail().startsWith(emailPrefix)))
+                && (role == null || user.getRoles().stream().anyMatch(r -> role.equals(r.getName())))
+                && (enabled == null || user.isEnabled() == enabled)
+                && (locked == null || user.isAccountNonLocked() != locked);
+    }
+}
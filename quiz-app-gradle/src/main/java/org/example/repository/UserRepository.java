@@ -1,9 +1,13 @@
 package org.example.repository;
 
+import org.example.model.Role;
 import org.example.model.User;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 public interface UserRepository {
     // Create
@@ -13,11 +17,108 @@ public interface UserRepository {
     Optional<User> findById(Long id);
     Optional<User> findByUsername(String username);
     List<User> findAll();
+    // One query for many ids; roles are not loaded
+    List<User> findAllById(Collection<Long> ids);
     boolean existsById(Long id);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
 
+    // Ids of matching users above afterId, ascending, at most limit: one page of a keyset walk
+    default List<Long> findIds(UserCriteria criteria, long afterId, int limit) {
+        return findAll().stream()
+                .filter(criteria::matches)
+                .map(User::getId)
+                .filter(id -> id > afterId)
+                .sorted()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * One page of matching users in sort order, starting after the row whose sort column is after (null for
+     * the first page): seek instead of OFFSET, so a page deep into the table costs the same as the first.
+     */
+    default List<UserSummary> search(UserCriteria criteria, UserSort sort, String after, int limit) {
+        Comparator<User> order = switch (sort) {
+            case ID -> Comparator.comparing(User::getId);
+            case USERNAME -> Comparator.comparing(User::getUsername);
+            case EMAIL -> Comparator.comparing(User::getEmail);
+        };
+        return findAll().stream()
+                .filter(criteria::matches)
+                .filter(user -> after == null || switch (sort) {
+                    case ID -> user.getId() > Long.parseLong(after);
+                    case USERNAME -> user.getUsername().compareTo(after) > 0;
+                    case EMAIL -> user.getEmail().compareTo(after) > 0;
+                })
+                .sorted(order)
+                .limit(limit)
+                .map(user -> new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.isEnabled(),
+                        !user.isAccountNonLocked(), user.getRoles().stream().map(Role::getName).sorted().toList(), null))
+                .toList();
+    }
+
     // Delete
     void deleteById(Long id);
     void delete(User user);
+
+    // Bulk updates of one chunk of ids, each in one transaction. They return how many users actually changed
+    // and bump the version of exactly those. JdbcUserRepository runs each as set-based SQL; the defaults go
+    // through findById and save one user at a time.
+    default int setEnabled(Collection<Long> ids, boolean enabled) {
+        return modifyEach(ids, user -> {
+            if (user.isEnabled() == enabled) {
+                return false;
+            }
+            user.setEnabled(enabled);
+            return true;
+        });
+    }
+
+    default int setAccountNonLocked(Collection<Long> ids, boolean accountNonLocked) {
+        return modifyEach(ids, user -> {
+            if (user.isAccountNonLocked() == accountNonLocked) {
+                return false;
+            }
+            user.setAccountNonLocked(accountNonLocked);
+            return true;
+        });
+    }
+
+    default int addRole(Collection<Long> ids, String role) {
+        return modifyEach(ids, user -> {
+            if (user.getRoles().stream().anyMatch(r -> role.equals(r.getName()))) {
+                return false;
+            }
+            user.addRole(new Role(null, role));
+            return true;
+        });
+    }
+
+    default int removeRole(Collection<Long> ids, String role) {
+        return modifyEach(ids, user -> user.getRoles().removeIf(r -> role.equals(r.getName())));
+    }
+
+    default int deleteAllById(Collection<Long> ids) {
+        int deleted = 0;
+        for (Long id : ids) {
+            if (existsById(id)) {
+                deleteById(id);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private int modifyEach(Collection<Long> ids, Predicate<User> change) {
+        int changed = 0;
+        for (Long id : ids) {
+            Optional<User> user = findById(id);
+            if (user.isPresent() && change.test(user.get())) {
+                save(user.get());
+                changed++;
+            }
+        }
+        return changed;
+    }
 }
@@ -0,0 +1,36 @@
+package org.example.repository;
+
+import java.util.Locale;
+
+// Orders of a user search; each is a unique column, so its last value alone is a keyset cursor
+public enum UserSort {
+    ID("id"),
+    USERNAME("username"),
+    EMAIL("email");
+
+    private final String column;
+
+    UserSort(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    // Prefix filters only stay index range scans when the results are ordered by that column
+    public static UserSort defaultFor(UserCriteria criteria) {
+        if (criteria.getUsernamePrefix() != null) {
+            return USERNAME;
+        }
+        return criteria.getEmailPrefix() != null ? EMAIL : ID;
+    }
+
+    public static UserSort parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort: " + value);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+// One row of a user search: what an admin list shows, without the password hash or the other columns
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserSummary {
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final boolean enabled;
+    private final boolean locked;
+    private final List<String> roles;
+    // ISO-8601 local time
+    private final String createdAt;
+}
@@ -0,0 +1,170 @@
+package org.example.repository.impl;
+
+import org.example.jfr.RepositoryQueryEvent;
+import org.example.config.DatabaseConfig;
+import org.example.model.RefreshToken;
+import org.example.repository.RefreshTokenRepository;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public class JdbcRefreshTokenRepository implements RefreshTokenRepository {
+    private final DataSource dataSource;
+
+    public JdbcRefreshTokenRepository() {
+        this(DatabaseConfig.getDataSource());
+    }
+
+    public JdbcRefreshTokenRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public RefreshToken save(RefreshToken token) {
+        String sql = "INSERT INTO refresh_tokens (user_id, family_id, token_hash, expires_at, created_at, revoked) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("RefreshTokenRepository.save", sql);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            ps.setLong(1, token.getUserId());
+            ps.setString(2, token.getFamilyId());
+            ps.setString(3, token.getTokenHash());
+            ps.setTimestamp(4, Timestamp.valueOf(token.getExpiresAt()));
+            ps.setTimestamp(5, Timestamp.valueOf(token.getCreatedAt()));
+            ps.setBoolean(6, token.isRevoked());
+
+            if (query.rows(ps.executeUpdate()) == 0) {
+                throw new SQLException("Creating refresh token failed, no rows affected.");
+            }
+
+            try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    token.setId(generatedKeys.getLong(1));
+                    return token;
+                }
+                throw new SQLException("Creating refresh token failed, no ID obtained.");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving refresh token", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    @Override
+    public Optional<RefreshToken> findByTokenHash(String tokenHash) {
+        String sql = "SELECT id, user_id, family_id, token_hash, expires_at, created_at, used_at, revoked " +
+                "FROM refresh_tokens WHERE token_hash = ?";
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("RefreshTokenRepository.findByTokenHash", sql);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, tokenHash);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    query.rows(1);
+                    return Optional.of(mapRefreshToken(rs));
+                }
+                return Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding refresh token", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    @Override
+    public boolean markUsed(Long id, LocalDateTime usedAt) {
+        String sql = "UPDATE refresh_tokens SET used_at = ? WHERE id = ? AND used_at IS NULL AND revoked = FALSE";
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("RefreshTokenRepository.markUsed", sql);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setTimestamp(1, Timestamp.valueOf(usedAt));
+            ps.setLong(2, id);
+            return query.rows(ps.executeUpdate()) == 1;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error marking refresh token as used", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    @Override
+    public int revokeFamily(String familyId) {
+        String sql = "UPDATE refresh_tokens SET revoked = TRUE WHERE family_id = ? AND revoked = FALSE";
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("RefreshTokenRepository.revokeFamily", sql);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, familyId);
+            return query.rows(ps.executeUpdate());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error revoking refresh token family", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    @Override
+    public int revokeAllForUser(Long userId) {
+        String sql = "UPDATE refresh_tokens SET revoked = TRUE WHERE user_id = ? AND revoked = FALSE";
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("RefreshTokenRepository.revokeAllForUser", sql);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setLong(1, userId);
+            return query.rows(ps.executeUpdate());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error revoking refresh tokens for user", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    @Override
+    public int deleteExpired(LocalDateTime cutoff, int batchSize) {
+        // Bounded batches keep each delete short so it never holds locks against live refreshes
+        String sql = "DELETE FROM refresh_tokens WHERE expires_at < ? LIMIT ?";
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("RefreshTokenRepository.deleteExpired", sql);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+            ps.setInt(2, batchSize);
+            return query.rows(ps.executeUpdate());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting expired refresh tokens", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    private RefreshToken mapRefreshToken(ResultSet rs) throws SQLException {
+        RefreshToken token = new RefreshToken();
+        token.setId(rs.getLong("id"));
+        token.setUserId(rs.getLong("user_id"));
+        token.setFamilyId(rs.getString("family_id"));
+        token.setTokenHash(rs.getString("token_hash"));
+        token.setExpiresAt(rs.getTimestamp("expires_at").toLocalDateTime());
+        token.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        token.setRevoked(rs.getBoolean("revoked"));
+
+        Timestamp usedAt = rs.getTimestamp("used_at");
+        if (usedAt != null) {
+            token.setUsedAt(usedAt.toLocalDateTime());
+        }
+        return token;
+    }
+}
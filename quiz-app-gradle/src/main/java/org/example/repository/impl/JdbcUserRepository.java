@@ -1,9 +1,14 @@
 package org.example.repository.impl;
 
+import org.example.jfr.RepositoryQueryEvent;
 import org.example.config.DatabaseConfig;
+import org.example.exception.OptimisticLockException;
 import org.example.model.Role;
 import org.example.model.User;
+import org.example.repository.UserCriteria;
 import org.example.repository.UserRepository;
+import org.example.repository.UserSort;
+import org.example.repository.UserSummary;
 
 import javax.sql.DataSource;
 import java.sql.*;
@@ -11,10 +16,56 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 public class JdbcUserRepository implements UserRepository {
+    private static final String INSERT_SQL = "INSERT INTO users (username, password, email, enabled, account_non_expired, " +
+            "credentials_non_expired, account_non_locked, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Compare-and-set on version, see update()
+    private static final String UPDATE_SQL = "UPDATE users SET username = ?, password = ?, email = ?, enabled = ?, " +
+            "account_non_expired = ?, credentials_non_expired = ?, account_non_locked = ?, updated_at = ?, " +
+            "version = version + 1 WHERE id = ? AND version = ?";
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM users WHERE id = ?";
+    private static final String FIND_BY_USERNAME_SQL = "SELECT * FROM users WHERE username = ?";
+    private static final String FIND_ALL_SQL = "SELECT * FROM users";
+    private static final String EXISTS_BY_ID_SQL = "SELECT COUNT(*) FROM users WHERE id = ?";
+    private static final String EXISTS_BY_USERNAME_SQL = "SELECT COUNT(*) FROM users WHERE username = ?";
+    private static final String EXISTS_BY_EMAIL_SQL = "SELECT COUNT(*) FROM users WHERE email = ?";
+    private static final String DELETE_BY_ID_SQL = "DELETE FROM users WHERE id = ?";
+    private static final String DELETE_ROLES_SQL = "DELETE FROM user_roles WHERE user_id = ?";
+    // By name: roles built with Role.user() and friends carry no id
+    private static final String INSERT_ROLE_SQL = "INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = ?";
+    private static final String FIND_ROLES_SQL = "SELECT r.* FROM roles r " +
+            "JOIN user_roles ur ON r.id = ur.role_id " +
+            "WHERE ur.user_id = ?";
+    private static final String SUMMARY_COLUMNS = "u.id, u.username, u.email, u.enabled, u.account_non_locked, u.created_at";
+    // Correlated on the users row being updated; takes the role name
+    private static final String HAS_ROLE_SQL = "SELECT 1 FROM user_roles ur JOIN roles r ON r.id = ur.role_id " +
+            "WHERE ur.user_id = users.id AND r.name = ?";
+
+    // Every statement with fixed text (findAllById's depends on the number of ids)
+    private static final List<String> STATEMENTS = List.of(UPDATE_SQL, FIND_BY_ID_SQL, FIND_BY_USERNAME_SQL,
+            FIND_ALL_SQL, EXISTS_BY_ID_SQL, EXISTS_BY_USERNAME_SQL, EXISTS_BY_EMAIL_SQL, DELETE_BY_ID_SQL,
+            DELETE_ROLES_SQL, INSERT_ROLE_SQL, FIND_ROLES_SQL);
+
     private final DataSource dataSource;
 
     public JdbcUserRepository(){
-        this.dataSource = DatabaseConfig.getDataSource();
+        this(DatabaseConfig.getDataSource());
+    }
+
+    public JdbcUserRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Prepares each of this repository's statements on the given connection and closes it again, as the
+     * methods do; with the driver's statement cache on, later calls on that connection reuse the prepared
+     * form. Returns how many were prepared.
+     */
+    public int prepareStatements(Connection conn) throws SQLException {
+        conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS).close();
+        for (String sql : STATEMENTS) {
+            conn.prepareStatement(sql).close();
+        }
+        return STATEMENTS.size() + 1;
     }
 
     @Override
@@ -25,81 +76,120 @@ public class JdbcUserRepository implements UserRepository {
         return update(user);
     }
 
+    // The row and its roles in one transaction, on one connection
     private User insert(User user) {
-        String sql = "INSERT INTO users (username, password, email, created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setString(1, user.getUsername());
-            ps.setString(2, user.getPassword());
-            ps.setString(3, user.getEmail());
-            ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setBoolean(5, user.isEnabled());
-            ps.setBoolean(6, user.isAccountNonExpired());
-            ps.setBoolean(7, user.isCredentialsNonExpired());
-            ps.setBoolean(8, user.isAccountNonLocked());
-
-            int affectedRows = ps.executeUpdate();
-
-            if (affectedRows == 0) {
-                throw new SQLException("Creating user failed, no rows affected.");
-            }
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.insert", INSERT_SQL);
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+                ps.setString(1, user.getUsername());
+                ps.setString(2, user.getPassword());
+                ps.setString(3, user.getEmail());
+                ps.setBoolean(4, user.isEnabled());
+                ps.setBoolean(5, user.isAccountNonExpired());
+                ps.setBoolean(6, user.isCredentialsNonExpired());
+                ps.setBoolean(7, user.isAccountNonLocked());
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                ps.setTimestamp(8, now);
+                ps.setTimestamp(9, now);
+
+                int affectedRows = query.rows(ps.executeUpdate());
+
+                if (affectedRows == 0) {
+                    throw new SQLException("Creating user failed, no rows affected.");
+                }
 
-            try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Creating user failed, no ID obtained.");
+                    }
                     user.setId(generatedKeys.getLong(1));
-                    saveRoles(user);
-                    return user;
-                } else {
-                    throw new SQLException("Creating user failed, no ID obtained.");
                 }
+                saveRoles(conn, user);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
             }
+            user.setVersion(0);
+            return user;
         } catch (SQLException e) {
             throw new RuntimeException("Error saving user", e);
+        } finally {
+            query.finish();
         }
     }
 
+    /**
+     * Compare-and-set on the version the user was read at: the row and its roles are only written if nobody
+     * has updated it since, and its version goes up by one. Otherwise nothing is written and
+     * OptimisticLockException is thrown; the caller reads the user again and redoes its change.
+     */
     private User update(User user) {
-        String sql = "UPDATE users SET username = ?, email = ?, created_at = ?, " +
-                "updated_at = ?, credentials_non_expired = ?, " +
-                "account_non_locked = ? WHERE id = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, user.getUsername());
-            ps.setString(2, user.getEmail());
-            ps.setBoolean(3, user.isEnabled());
-            ps.setBoolean(4, user.isAccountNonExpired());
-            ps.setBoolean(5, user.isCredentialsNonExpired());
-            ps.setBoolean(6, user.isAccountNonLocked());
-            ps.setLong(7, user.getId());
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.update", UPDATE_SQL);
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int affectedRows;
+                try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+                    ps.setString(1, user.getUsername());
+                    ps.setString(2, user.getPassword());
+                    ps.setString(3, user.getEmail());
+                    ps.setBoolean(4, user.isEnabled());
+                    ps.setBoolean(5, user.isAccountNonExpired());
+                    ps.setBoolean(6, user.isCredentialsNonExpired());
+                    ps.setBoolean(7, user.isAccountNonLocked());
+                    ps.setTimestamp(8, Timestamp.valueOf(LocalDateTime.now()));
+                    ps.setLong(9, user.getId());
+                    ps.setLong(10, user.getVersion());
+
+                    affectedRows = query.rows(ps.executeUpdate());
+                }
 
-            int affectedRows = ps.executeUpdate();
+                if (affectedRows == 0) {
+                    if (!exists(conn, user.getId())) {
+                        throw new SQLException("Updating user failed, no rows affected.");
+                    }
+                    throw new OptimisticLockException("User", user.getId(), user.getVersion());
+                }
 
-            if (affectedRows == 0) {
-                throw new SQLException("Updating user failed, no rows affected.");
+                saveRoles(conn, user);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
             }
-
-            saveRoles(user);
+            user.setVersion(user.getVersion() + 1);
             return user;
         } catch (SQLException e) {
             throw new RuntimeException("Error updating user", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    // Tells a vanished row from a stale version after an update matched nothing
+    private static boolean exists(Connection conn, Long id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(EXISTS_BY_ID_SQL)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
         }
     }
 
     @Override
     public Optional<User> findById(Long id) {
-        String sql = "SELECT * FROM users WHERE id = ?";
-
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findById", FIND_BY_ID_SQL);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
             ps.setLong(1, id);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    query.rows(1);
                     User user = mapUser(rs);
                     user.setRoles(findUserRoles(user.getId()));
                     return Optional.of(user);
@@ -108,20 +198,22 @@ public class JdbcUserRepository implements UserRepository {
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error finding user by id", e);
+        } finally {
+            query.finish();
         }
     }
 
     @Override
     public Optional<User> findByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
-
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findByUsername", FIND_BY_USERNAME_SQL);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(FIND_BY_USERNAME_SQL)) {
 
             ps.setString(1, username);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    query.rows(1);
                     User user = mapUser(rs);
                     user.setRoles(findUserRoles(user.getId()));
                     return Optional.of(user);
@@ -130,16 +222,18 @@ public class JdbcUserRepository implements UserRepository {
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error finding user by username", e);
+        } finally {
+            query.finish();
         }
     }
 
     @Override
     public List<User> findAll() {
-        String sql = "SELECT * FROM users";
         List<User> users = new ArrayList<>();
 
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findAll", FIND_ALL_SQL);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
+             PreparedStatement ps = conn.prepareStatement(FIND_ALL_SQL);
              ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
@@ -147,83 +241,126 @@ public class JdbcUserRepository implements UserRepository {
                 user.setRoles(findUserRoles(user.getId()));
                 users.add(user);
             }
+            query.rows(users.size());
             return users;
         } catch (SQLException e) {
             throw new RuntimeException("Error finding all users", e);
+        } finally {
+            query.finish();
         }
     }
 
     @Override
-    public boolean existsById(Long id) {
-        String sql = "SELECT COUNT(*) FROM users WHERE id = ?";
+    public List<User> findAllById(Collection<Long> ids) {
+        List<User> users = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return users;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT * FROM users WHERE id IN (" + placeholders + ")";
 
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findAllById", sql);
         try (Connection conn = dataSource.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
+            int index = 1;
+            for (Long id : ids) {
+                ps.setLong(index++, id);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapUser(rs));
+                }
+            }
+            query.rows(users.size());
+            return users;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding users by ids", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.existsById", EXISTS_BY_ID_SQL);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(EXISTS_BY_ID_SQL)) {
+
             ps.setLong(1, id);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    query.rows(1);
                     return rs.getInt(1) > 0;
                 }
                 return false;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error checking if user exists", e);
+        } finally {
+            query.finish();
         }
     }
 
     @Override
     public boolean existsByUsername(String username) {
-        String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
-
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.existsByUsername", EXISTS_BY_USERNAME_SQL);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(EXISTS_BY_USERNAME_SQL)) {
 
             ps.setString(1, username);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    query.rows(1);
                     return rs.getInt(1) > 0;
                 }
                 return false;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error checking if username exists", e);
+        } finally {
+            query.finish();
         }
     }
 
     @Override
     public boolean existsByEmail(String email) {
-        String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
-
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.existsByEmail", EXISTS_BY_EMAIL_SQL);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(EXISTS_BY_EMAIL_SQL)) {
 
             ps.setString(1, email);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    query.rows(1);
                     return rs.getInt(1) > 0;
                 }
                 return false;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error checking if email exists", e);
+        } finally {
+            query.finish();
         }
     }
 
     @Override
     public void deleteById(Long id) {
-        String sql = "DELETE FROM users WHERE id = ?";
-
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.deleteById", DELETE_BY_ID_SQL);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(DELETE_BY_ID_SQL)) {
 
             ps.setLong(1, id);
-            ps.executeUpdate();
+            query.rows(ps.executeUpdate());
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting user", e);
+        } finally {
+            query.finish();
         }
     }
 
@@ -234,40 +371,304 @@ public class JdbcUserRepository implements UserRepository {
         }
     }
 
-    private void saveRoles(User user) throws SQLException {
-        String deleteSql = "DELETE FROM user_roles WHERE user_id = ?";
-        String insertSql = "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    @Override
+    public List<Long> findIds(UserCriteria criteria, long afterId, int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(afterId);
+        String sql = "SELECT u.id FROM users u WHERE u.id > ?" + conditions(criteria, params) + " ORDER BY u.id LIMIT ?";
+        params.add(limit);
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findIds", sql);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            List<Long> ids = new ArrayList<>(limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+            query.rows(ids.size());
+            return ids;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding user ids", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    /**
+     * Seeks on the sort column (unique, so the last value is the whole cursor) and reads only the listed
+     * columns, then the page's roles in one more query. With a role filter the walk is driven from
+     * user_roles (role_id, user_id) when sorting by id, so a rare role doesn't scan users for its page.
+     * Index requirements are in db/users_search_indexes.sql.
+     */
+    @Override
+    public List<UserSummary> search(UserCriteria criteria, UserSort sort, String after, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT " + SUMMARY_COLUMNS);
+        String seekColumn;
+        if (criteria.getRole() != null && sort == UserSort.ID) {
+            sql.append(" FROM user_roles ur JOIN users u ON u.id = ur.user_id " +
+                    "WHERE ur.role_id = (SELECT id FROM roles WHERE name = ?)");
+            params.add(criteria.getRole());
+            criteria = criteria.toBuilder().role(null).build();
+            seekColumn = "ur.user_id";
+        } else {
+            sql.append(" FROM users u WHERE 1 = 1");
+            seekColumn = "u." + sort.getColumn();
+        }
+        if (after != null) {
+            sql.append(" AND ").append(seekColumn).append(" > ?");
+            params.add(sort == UserSort.ID ? (Object) Long.parseLong(after) : after);
+        }
+        sql.append(conditions(criteria, params)).append(" ORDER BY ").append(seekColumn).append(" LIMIT ?");
+        params.add(limit);
+
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.search", sql.toString());
+        try (Connection conn = dataSource.getConnection()) {
+            List<UserSummary> page = new ArrayList<>(limit);
+            Map<Long, List<String>> roles = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong("id");
+                        List<String> userRoles = new ArrayList<>(2);
+                        roles.put(id, userRoles);
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        page.add(new UserSummary(id, rs.getString("username"), rs.getString("email"),
+                                rs.getBoolean("enabled"), !rs.getBoolean("account_non_locked"), userRoles,
+                                createdAt != null ? createdAt.toLocalDateTime().toString() : null));
+                    }
+                }
+            }
+            if (!page.isEmpty()) {
+                String rolesSql = "SELECT ur.user_id, r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id " +
+                        "WHERE ur.user_id IN (" + placeholders(page.size()) + ") ORDER BY r.name";
+                try (PreparedStatement ps = conn.prepareStatement(rolesSql)) {
+                    bindIds(ps, 1, roles.keySet());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            roles.get(rs.getLong(1)).add(rs.getString(2));
+                        }
+                    }
+                }
+            }
+            query.rows(page.size());
+            return page;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error searching users", e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    // The bulk updates below are one transaction per chunk. Only rows that change are written, and their
+    // version is bumped like update() does, so a single-user update that read them before fails its check.
+
+    @Override
+    public int setEnabled(Collection<Long> ids, boolean enabled) {
+        return updateFlag("UserRepository.setEnabled", "enabled", ids, enabled);
+    }
+
+    @Override
+    public int setAccountNonLocked(Collection<Long> ids, boolean accountNonLocked) {
+        return updateFlag("UserRepository.setAccountNonLocked", "account_non_locked", ids, accountNonLocked);
+    }
+
+    private int updateFlag(String operation, String column, Collection<Long> ids, boolean value) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE users SET " + column + " = ?, updated_at = ?, version = version + 1 " +
+                "WHERE id IN (" + placeholders(ids.size()) + ") AND " + column + " <> ?";
+        return inTransaction(operation, sql, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setBoolean(1, value);
+                ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                int index = bindIds(ps, 3, ids);
+                ps.setBoolean(index, value);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public int addRole(Collection<Long> ids, String role) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = placeholders(ids.size());
+        // Bump first: it locks the rows, so nobody adds or drops the role between the two statements
+        String bump = "UPDATE users SET updated_at = ?, version = version + 1 WHERE id IN (" + in + ") " +
+                "AND NOT EXISTS (" + HAS_ROLE_SQL + ")";
+        String insert = "INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u " +
+                "JOIN roles r ON r.name = ? WHERE u.id IN (" + in + ") AND NOT EXISTS " +
+                "(SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = r.id)";
+        return inTransaction("UserRepository.addRole", bump + "; " + insert, conn -> {
+            bumpVersions(conn, bump, ids, role);
+            try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                ps.setString(1, role);
+                bindIds(ps, 2, ids);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public int removeRole(Collection<Long> ids, String role) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = placeholders(ids.size());
+        String bump = "UPDATE users SET updated_at = ?, version = version + 1 WHERE id IN (" + in + ") " +
+                "AND EXISTS (" + HAS_ROLE_SQL + ")";
+        String delete = "DELETE FROM user_roles WHERE user_id IN (" + in + ") " +
+                "AND role_id = (SELECT id FROM roles WHERE name = ?)";
+        return inTransaction("UserRepository.removeRole", bump + "; " + delete, conn -> {
+            bumpVersions(conn, bump, ids, role);
+            try (PreparedStatement ps = conn.prepareStatement(delete)) {
+                int index = bindIds(ps, 1, ids);
+                ps.setString(index, role);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    // Roles and refresh tokens go with the rows (ON DELETE CASCADE)
+    @Override
+    public int deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "DELETE FROM users WHERE id IN (" + placeholders(ids.size()) + ")";
+        return inTransaction("UserRepository.deleteAllById", sql, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                bindIds(ps, 1, ids);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    private static void bumpVersions(Connection conn, String sql, Collection<Long> ids, String role)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            int index = bindIds(ps, 2, ids);
+            ps.setString(index, role);
+            ps.executeUpdate();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        int run(Connection conn) throws SQLException;
+    }
 
+    private int inTransaction(String operation, String sql, Work work) {
+        RepositoryQueryEvent query = RepositoryQueryEvent.start(operation, sql);
         try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int rows = work.run(conn);
+                conn.commit();
+                return query.rows(rows);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error in " + operation, e);
+        } finally {
+            query.finish();
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static int bindIds(PreparedStatement ps, int index, Collection<Long> ids) throws SQLException {
+        for (Long id : ids) {
+            ps.setLong(index++, id);
+        }
+        return index;
+    }
+
+    // AND-ed onto a query over users u; LIKE patterns are prefixes with the wildcards escaped
+    private static String conditions(UserCriteria criteria, List<Object> params) {
+        StringBuilder sql = new StringBuilder();
+        if (criteria.getUsernamePrefix() != null) {
+            sql.append(" AND u.username LIKE ?");
+            params.add(likePrefix(criteria.getUsernamePrefix()));
+        }
+        if (criteria.getEmailPrefix() != null) {
+            sql.append(" AND u.email LIKE ?");
+            params.add(likePrefix(criteria.getEmailPrefix()));
+        }
+        if (criteria.getEnabled() != null) {
+            sql.append(" AND u.enabled = ?");
+            params.add(criteria.getEnabled());
+        }
+        if (criteria.getLocked() != null) {
+            sql.append(" AND u.account_non_locked = ?");
+            params.add(!criteria.getLocked());
+        }
+        if (criteria.getRole() != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM user_roles ur JOIN roles r ON r.id = ur.role_id " +
+                    "WHERE ur.user_id = u.id AND r.name = ?)");
+            params.add(criteria.getRole());
+        }
+        return sql.toString();
+    }
+
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    // On the caller's connection, inside its transaction
+    private void saveRoles(Connection conn, User user) throws SQLException {
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.saveRoles", DELETE_ROLES_SQL + "; " + INSERT_ROLE_SQL);
+        try {
+            int rows;
             // Delete existing roles
-            try (PreparedStatement ps = conn.prepareStatement(deleteSql)) {
+            try (PreparedStatement ps = conn.prepareStatement(DELETE_ROLES_SQL)) {
                 ps.setLong(1, user.getId());
-                ps.executeUpdate();
+                rows = ps.executeUpdate();
             }
 
             // Insert new roles
             if (!user.getRoles().isEmpty()) {
-                try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_ROLE_SQL)) {
                     for (Role role : user.getRoles()) {
                         ps.setLong(1, user.getId());
-                        ps.setLong(2, role.getId());
+                        ps.setString(2, role.getName());
                         ps.addBatch();
                     }
-                    ps.executeBatch();
+                    for (int count : ps.executeBatch()) {
+                        // SUCCESS_NO_INFO (-2) when the driver rewrites the batch
+                        rows += Math.max(count, 0);
+                    }
                 }
             }
+            query.rows(rows);
+        } finally {
+            query.finish();
         }
     }
 
     private Set<Role> findUserRoles(Long userId) throws SQLException {
-        String sql = "SELECT r.* FROM roles r " +
-                "JOIN user_roles ur ON r.id = ur.role_id " +
-                "WHERE ur.user_id = ?";
-
         Set<Role> roles = new HashSet<>();
 
+        RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findUserRoles", FIND_ROLES_SQL);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(FIND_ROLES_SQL)) {
 
             ps.setLong(1, userId);
 
@@ -279,6 +680,9 @@ public class JdbcUserRepository implements UserRepository {
                     ));
                 }
             }
+            query.rows(roles.size());
+        } finally {
+            query.finish();
         }
 
         return roles;
@@ -294,6 +698,7 @@ public class JdbcUserRepository implements UserRepository {
         user.setAccountNonExpired(rs.getBoolean("account_non_expired"));
         user.setCredentialsNonExpired(rs.getBoolean("credentials_non_expired"));
         user.setAccountNonLocked(rs.getBoolean("account_non_locked"));
+        user.setVersion(rs.getLong("version"));
 
         Timestamp createdAt = rs.getTimestamp("created_at");
         if (createdAt != null) {
@@ -0,0 +1,103 @@
+package org.example.repository.impl;
+
+import io.r2dbc.spi.Readable;
+import org.example.model.RefreshToken;
+import org.example.repository.ReactiveRefreshTokenRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public class R2dbcRefreshTokenRepository implements ReactiveRefreshTokenRepository {
+    private final DatabaseClient databaseClient;
+
+    public R2dbcRefreshTokenRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<RefreshToken> save(RefreshToken token) {
+        String sql = "INSERT INTO refresh_tokens (user_id, family_id, token_hash, expires_at, created_at, revoked) " +
+                "VALUES (:userId, :familyId, :tokenHash, :expiresAt, :createdAt, :revoked)";
+
+        return databaseClient.sql(sql)
+                .bind("userId", token.getUserId())
+                .bind("familyId", token.getFamilyId())
+                .bind("tokenHash", token.getTokenHash())
+                .bind("expiresAt", token.getExpiresAt())
+                .bind("createdAt", token.getCreatedAt())
+                .bind("revoked", token.isRevoked())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Creating refresh token failed, no ID obtained.")))
+                .map(id -> {
+                    token.setId(id);
+                    return token;
+                });
+    }
+
+    @Override
+    public Mono<RefreshToken> findByTokenHash(String tokenHash) {
+        String sql = "SELECT id, user_id, family_id, token_hash, expires_at, created_at, used_at, revoked " +
+                "FROM refresh_tokens WHERE token_hash = :tokenHash";
+
+        return databaseClient.sql(sql)
+                .bind("tokenHash", tokenHash)
+                .map(this::mapRefreshToken)
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> markUsed(Long id, LocalDateTime usedAt) {
+        String sql = "UPDATE refresh_tokens SET used_at = :usedAt WHERE id = :id AND used_at IS NULL AND revoked = FALSE";
+
+        return databaseClient.sql(sql)
+                .bind("usedAt", usedAt)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows == 1);
+    }
+
+    @Override
+    public Mono<Integer> revokeFamily(String familyId) {
+        return databaseClient.sql("UPDATE refresh_tokens SET revoked = TRUE WHERE family_id = :familyId AND revoked = FALSE")
+                .bind("familyId", familyId)
+                .fetch()
+                .rowsUpdated()
+                .map(Long::intValue);
+    }
+
+    @Override
+    public Mono<Integer> revokeAllForUser(Long userId) {
+        return databaseClient.sql("UPDATE refresh_tokens SET revoked = TRUE WHERE user_id = :userId AND revoked = FALSE")
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated()
+                .map(Long::intValue);
+    }
+
+    @Override
+    public Mono<Integer> deleteExpired(LocalDateTime cutoff, int batchSize) {
+        return databaseClient.sql("DELETE FROM refresh_tokens WHERE expires_at < :cutoff LIMIT :batchSize")
+                .bind("cutoff", cutoff)
+                .bind("batchSize", batchSize)
+                .fetch()
+                .rowsUpdated()
+                .map(Long::intValue);
+    }
+
+    private RefreshToken mapRefreshToken(Readable row) {
+        RefreshToken token = new RefreshToken();
+        token.setId(row.get("id", Long.class));
+        token.setUserId(row.get("user_id", Long.class));
+        token.setFamilyId(row.get("family_id", String.class));
+        token.setTokenHash(row.get("token_hash", String.class));
+        token.setExpiresAt(row.get("expires_at", LocalDateTime.class));
+        token.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        token.setUsedAt(row.get("used_at", LocalDateTime.class));
+        token.setRevoked(Boolean.TRUE.equals(row.get("revoked", Boolean.class)));
+        return token;
+    }
+}
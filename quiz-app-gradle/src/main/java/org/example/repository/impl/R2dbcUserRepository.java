@@ -0,0 +1,176 @@
+package org.example.repository.impl;
+
+import io.r2dbc.spi.Readable;
+import org.example.exception.OptimisticLockException;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.ReactiveUserRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+public class R2dbcUserRepository implements ReactiveUserRepository {
+    private final DatabaseClient databaseClient;
+
+    public R2dbcUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<User> save(User user) {
+        if (user.getId() == null) {
+            return insert(user);
+        }
+        return update(user);
+    }
+
+    private Mono<User> insert(User user) {
+        String sql = "INSERT INTO users (username, password, email, enabled, account_non_expired, " +
+                "credentials_non_expired, account_non_locked, created_at, updated_at) " +
+                "VALUES (:username, :password, :email, :enabled, :accountNonExpired, " +
+                ":credentialsNonExpired, :accountNonLocked, :now, :now)";
+
+        return databaseClient.sql(sql)
+                .bind("username", user.getUsername())
+                .bind("password", user.getPassword())
+                .bind("email", user.getEmail())
+                .bind("enabled", user.isEnabled())
+                .bind("accountNonExpired", user.isAccountNonExpired())
+                .bind("credentialsNonExpired", user.isCredentialsNonExpired())
+                .bind("accountNonLocked", user.isAccountNonLocked())
+                .bind("now", LocalDateTime.now())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Creating user failed, no ID obtained.")))
+                .flatMap(id -> {
+                    user.setId(id);
+                    return saveRoles(user);
+                })
+                .thenReturn(user);
+    }
+
+    private Mono<User> update(User user) {
+        String sql = "UPDATE users SET username = :username, password = :password, email = :email, " +
+                "enabled = :enabled, account_non_expired = :accountNonExpired, " +
+                "credentials_non_expired = :credentialsNonExpired, account_non_locked = :accountNonLocked, " +
+                "updated_at = :now, version = version + 1 WHERE id = :id AND version = :version";
+
+        return databaseClient.sql(sql)
+                .bind("username", user.getUsername())
+                .bind("password", user.getPassword())
+                .bind("email", user.getEmail())
+                .bind("enabled", user.isEnabled())
+                .bind("accountNonExpired", user.isAccountNonExpired())
+                .bind("credentialsNonExpired", user.isCredentialsNonExpired())
+                .bind("accountNonLocked", user.isAccountNonLocked())
+                .bind("now", LocalDateTime.now())
+                .bind("id", user.getId())
+                .bind("version", user.getVersion())
+                .fetch()
+                .rowsUpdated()
+                // Roles are rewritten only once the version check has passed, as in JdbcUserRepository.update
+                .flatMap(rows -> rows == 0 ? staleOrMissing(user) : saveRoles(user).then(Mono.fromSupplier(() -> {
+                    user.setVersion(user.getVersion() + 1);
+                    return user;
+                })));
+    }
+
+    // As JdbcUserRepository.update: the row is still there, so it was updated since it was read
+    private Mono<User> staleOrMissing(User user) {
+        return databaseClient.sql("SELECT COUNT(*) AS total FROM users WHERE id = :id")
+                .bind("id", user.getId())
+                .map(row -> row.get("total", Long.class) > 0)
+                .one()
+                .flatMap(exists -> Mono.<User>error(exists
+                        ? new OptimisticLockException("User", user.getId(), user.getVersion())
+                        : new IllegalStateException("Updating user failed, no rows affected.")));
+    }
+
+    @Override
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql("SELECT * FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(this::mapUser)
+                .one()
+                .flatMap(this::withRoles);
+    }
+
+    @Override
+    public Mono<User> findByUsername(String username) {
+        return databaseClient.sql("SELECT * FROM users WHERE username = :username")
+                .bind("username", username)
+                .map(this::mapUser)
+                .one()
+                .flatMap(this::withRoles);
+    }
+
+    @Override
+    public Mono<Boolean> existsByUsername(String username) {
+        return databaseClient.sql("SELECT COUNT(*) AS total FROM users WHERE username = :username")
+                .bind("username", username)
+                .map(row -> row.get("total", Long.class) > 0)
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> existsByEmail(String email) {
+        return databaseClient.sql("SELECT COUNT(*) AS total FROM users WHERE email = :email")
+                .bind("email", email)
+                .map(row -> row.get("total", Long.class) > 0)
+                .one();
+    }
+
+    // Roles are linked by name, so new users can be given Role.user() without knowing its id
+    private Mono<Void> saveRoles(User user) {
+        Mono<Long> deleted = databaseClient.sql("DELETE FROM user_roles WHERE user_id = :userId")
+                .bind("userId", user.getId())
+                .fetch()
+                .rowsUpdated();
+
+        Flux<Long> inserted = Flux.fromIterable(user.getRoles())
+                .concatMap(role -> databaseClient.sql("INSERT INTO user_roles (user_id, role_id) " +
+                                "SELECT :userId, id FROM roles WHERE name = :name")
+                        .bind("userId", user.getId())
+                        .bind("name", role.getName())
+                        .fetch()
+                        .rowsUpdated());
+
+        return deleted.thenMany(inserted).then();
+    }
+
+    private Mono<User> withRoles(User user) {
+        String sql = "SELECT r.id, r.name FROM roles r " +
+                "JOIN user_roles ur ON r.id = ur.role_id " +
+                "WHERE ur.user_id = :userId";
+
+        return databaseClient.sql(sql)
+                .bind("userId", user.getId())
+                .map(row -> new Role(row.get("id", Long.class), row.get("name", String.class)))
+                .all()
+                .collect(HashSet<Role>::new, HashSet::add)
+                .map(roles -> {
+                    user.setRoles(roles);
+                    return user;
+                });
+    }
+
+    private User mapUser(Readable row) {
+        User user = new User();
+        user.setId(row.get("id", Long.class));
+        user.setUsername(row.get("username", String.class));
+        user.setPassword(row.get("password", String.class));
+        user.setEmail(row.get("email", String.class));
+        user.setEnabled(Boolean.TRUE.equals(row.get("enabled", Boolean.class)));
+        user.setAccountNonExpired(Boolean.TRUE.equals(row.get("account_non_expired", Boolean.class)));
+        user.setCredentialsNonExpired(Boolean.TRUE.equals(row.get("credentials_non_expired", Boolean.class)));
+        user.setAccountNonLocked(Boolean.TRUE.equals(row.get("account_non_locked", Boolean.class)));
+        Long version = row.get("version", Long.class);
+        user.setVersion(version != null ? version : 0);
+        user.setLastLogin(row.get("created_at", LocalDateTime.class));
+        return user;
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Result of a login or refresh: a short-lived access JWT plus the opaque refresh token that replaces it
+@Getter
+@AllArgsConstructor
+public class AuthTokens {
+    private final String accessToken;
+    private final String refreshToken;
+    private final long expiresIn; // access token lifetime in seconds
+}
@@ -0,0 +1,170 @@
+package org.example.security;
+
+import org.example.config.PropertyLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ed25519 keys for asymmetric token signing. The current key pair signs; its public key and any
+ * previous public keys (kept during rotation) are published as a JWK set so other services can verify
+ * tokens locally instead of calling /validate.
+ */
+public class EdDsaKeySet {
+    private static final Logger logger = LoggerFactory.getLogger(EdDsaKeySet.class);
+
+    // DER prefix of an X.509 SubjectPublicKeyInfo for Ed25519; the raw 32-byte key follows it
+    private static final int X509_PREFIX_LENGTH = 12;
+    private static final byte[] PAIR_CHECK = "ed25519-key-pair-check".getBytes(StandardCharsets.US_ASCII);
+
+    private final String currentKeyId;
+    private final PrivateKey signingKey;
+    private final Map<String, PublicKey> verificationKeys;
+
+    public EdDsaKeySet(KeyPair current, List<PublicKey> previousKeys) {
+        checkPair(current);
+        this.signingKey = current.getPrivate();
+        this.currentKeyId = keyId(current.getPublic());
+
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        keys.put(currentKeyId, current.getPublic());
+        for (PublicKey previous : previousKeys) {
+            keys.put(keyId(previous), previous);
+        }
+        this.verificationKeys = Collections.unmodifiableMap(keys);
+    }
+
+    // Returns null unless jwt.signing-algorithm=eddsa; HMAC stays the default
+    public static EdDsaKeySet fromConfiguration() {
+        if (!"eddsa".equalsIgnoreCase(PropertyLoader.getProperty("jwt.signing-algorithm", "hmac"))) {
+            return null;
+        }
+        return fromEncoded(System.getenv("JWT_EDDSA_PRIVATE_KEY"), System.getenv("JWT_EDDSA_PUBLIC_KEY"),
+                System.getenv("JWT_EDDSA_PREVIOUS_PUBLIC_KEYS"),
+                Boolean.parseBoolean(PropertyLoader.getProperty("jwt.eddsa.allow-ephemeral-key", "false")));
+    }
+
+    /**
+     * Keys as configured: base64 PKCS#8 private and X.509 public key, and a comma-separated list of previous
+     * public keys. Missing keys fail like a missing JWT_SECRET does, unless an ephemeral key is allowed (for
+     * local development only: each instance would sign with a key of its own).
+     */
+    public static EdDsaKeySet fromEncoded(String privateKey, String publicKey, String previousPublicKeys,
+                                          boolean allowEphemeralKey) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("Ed25519");
+
+            KeyPair current;
+            if (privateKey == null || privateKey.isBlank() || publicKey == null || publicKey.isBlank()) {
+                if (!allowEphemeralKey) {
+                    throw new IllegalStateException("JWT_EDDSA_PRIVATE_KEY and JWT_EDDSA_PUBLIC_KEY must be set " +
+                            "when jwt.signing-algorithm=eddsa");
+                }
+                logger.warn("JWT_EDDSA_PRIVATE_KEY/JWT_EDDSA_PUBLIC_KEY not set, using an ephemeral Ed25519 key " +
+                        "(jwt.eddsa.allow-ephemeral-key); tokens will not survive a restart or verify across instances");
+                current = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            } else {
+                current = new KeyPair(
+                        keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey.trim()))),
+                        keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey.trim()))));
+            }
+
+            List<PublicKey> previousKeys = new ArrayList<>();
+            if (previousPublicKeys != null && !previousPublicKeys.isBlank()) {
+                for (String encoded : previousPublicKeys.split(",")) {
+                    previousKeys.add(keyFactory.generatePublic(
+                            new X509EncodedKeySpec(Base64.getDecoder().decode(encoded.trim()))));
+                }
+            }
+            return new EdDsaKeySet(current, previousKeys);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid Ed25519 signing key configuration", e);
+        }
+    }
+
+    public String getCurrentKeyId() {
+        return currentKeyId;
+    }
+
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    public PublicKey getVerificationKey(String keyId) {
+        return keyId == null ? null : verificationKeys.get(keyId);
+    }
+
+    // RFC 8037 OKP keys, as served from /.well-known/jwks.json
+    public List<Map<String, String>> toJwks() {
+        List<Map<String, String>> jwks = new ArrayList<>(verificationKeys.size());
+        for (Map.Entry<String, PublicKey> entry : verificationKeys.entrySet()) {
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "OKP");
+            jwk.put("crv", "Ed25519");
+            jwk.put("use", "sig");
+            jwk.put("alg", "EdDSA");
+            jwk.put("kid", entry.getKey());
+            jwk.put("x", base64Url(rawPublicKey(entry.getValue())));
+            jwks.add(jwk);
+        }
+        return jwks;
+    }
+
+    // A swapped or mismatched key would publish a kid and JWK that reject every token signed with the private key
+    private static void checkPair(KeyPair pair) {
+        try {
+            Signature signer = Signature.getInstance("Ed25519");
+            signer.initSign(pair.getPrivate());
+            signer.update(PAIR_CHECK);
+            byte[] signature = signer.sign();
+
+            Signature verifier = Signature.getInstance("Ed25519");
+            verifier.initVerify(pair.getPublic());
+            verifier.update(PAIR_CHECK);
+            if (!verifier.verify(signature)) {
+                throw new IllegalStateException("Ed25519 public key does not match the private key");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ed25519 key pair cannot sign and verify", e);
+        }
+    }
+
+    // Thumbprint-style id: stable for a given key, so every instance sharing the key agrees on it
+    private static String keyId(PublicKey publicKey) {
+        try {
+            String canonical = "{\"crv\":\"Ed25519\",\"kty\":\"OKP\",\"x\":\"" + base64Url(rawPublicKey(publicKey)) + "\"}";
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.US_ASCII));
+            return base64Url(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] rawPublicKey(PublicKey publicKey) {
+        byte[] encoded = publicKey.getEncoded();
+        return Arrays.copyOfRange(encoded, X509_PREFIX_LENGTH, encoded.length);
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
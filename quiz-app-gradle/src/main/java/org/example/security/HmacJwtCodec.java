@@ -0,0 +1,862 @@
+package org.example.security;
+
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Encoder/decoder for the fixed claim shape issued by {@link JwtUtil} (sub, roles, userId, iat, exp).
+ * <p>
+ * Tokens are the same compact HMAC-signed JWS that jjwt produces for our keys, so either side can
+ * read what the other wrote. JSON and Base64URL are written into pooled scratch buffers instead of
+ * going through claim maps, Jackson and temporary arrays; the only allocations on encode are the final
+ * token string, and on decode the claim strings themselves.
+ */
+public final class HmacJwtCodec {
+    // Anything bigger than this is not one of ours; refusing it also keeps the scratch buffers small.
+    static final int MAX_TOKEN_LENGTH = 8192;
+
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64URL_INVERSE = new byte[128];
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[][] HEADER_FIELDS = names("alg", "crit", "zip");
+    private static final int H_ALG = 0, H_CRIT = 1, H_ZIP = 2;
+
+    private static final byte[][] PAYLOAD_FIELDS = names("sub", "roles", "userId", "iat", "exp", "nbf");
+    private static final int P_SUB = 0, P_ROLES = 1, P_USER_ID = 2, P_IAT = 3, P_EXP = 4, P_NBF = 5;
+
+    static {
+        Arrays.fill(BASE64URL_INVERSE, (byte) -1);
+        for (int i = 0; i < BASE64URL.length; i++) {
+            BASE64URL_INVERSE[BASE64URL[i]] = (byte) i;
+        }
+    }
+
+    private final SecretKey key;
+    private final String algorithm;
+    private final byte[] algorithmBytes;
+    private final byte[] encodedHeader;
+    private final int macLength;
+
+    // Scratch buffers and initialised Macs are borrowed from a small lock-free pool rather than held in
+    // ThreadLocals, so they are reused across virtual threads too (those are created per request)
+    private final AtomicReferenceArray<Scratch> pool;
+
+    public HmacJwtCodec(SecretKey key) {
+        this.key = key;
+        // Same choice jjwt makes in signWith(key): the JCA name of the key decides HS256/384/512
+        this.algorithm = switch (key.getAlgorithm()) {
+            case "HmacSHA256" -> "HS256";
+            case "HmacSHA384" -> "HS384";
+            case "HmacSHA512" -> "HS512";
+            default -> throw new IllegalArgumentException("Unsupported HMAC key algorithm: " + key.getAlgorithm());
+        };
+        this.algorithmBytes = algorithm.getBytes(StandardCharsets.US_ASCII);
+
+        byte[] header = ("{\"alg\":\"" + algorithm + "\"}").getBytes(StandardCharsets.US_ASCII);
+        ByteSink sink = new ByteSink(32);
+        base64UrlEncode(header, 0, header.length, sink);
+        this.encodedHeader = Arrays.copyOf(sink.buf, sink.len);
+
+        this.pool = new AtomicReferenceArray<>(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4));
+        Scratch first = new Scratch(newMac());
+        this.macLength = first.mac.getMacLength();
+        release(first);
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String encode(String subject, Collection<String> roles, Long userId,
+                         long issuedAtMillis, long expirationMillis) {
+        Scratch s = acquire();
+        try {
+            return encode(s, subject, roles, userId, issuedAtMillis, expirationMillis);
+        } finally {
+            release(s);
+        }
+    }
+
+    private String encode(Scratch s, String subject, Collection<String> roles, Long userId,
+                          long issuedAtMillis, long expirationMillis) {
+        // Claim order and omissions mirror what jjwt writes for JwtUtil's builder chain
+        ByteSink json = s.json.reset();
+        json.put('{');
+        boolean first = true;
+        if (subject != null) {
+            json.putAscii("\"sub\":");
+            json.putJsonString(subject);
+            first = false;
+        }
+        if (roles != null && !roles.isEmpty()) {
+            json.putAscii(first ? "\"roles\":[" : ",\"roles\":[");
+            boolean firstRole = true;
+            for (String role : roles) {
+                if (!firstRole) {
+                    json.put(',');
+                }
+                json.putJsonString(role);
+                firstRole = false;
+            }
+            json.put(']');
+            first = false;
+        }
+        if (userId != null) {
+            json.putAscii(first ? "\"userId\":" : ",\"userId\":");
+            json.putLong(userId);
+            first = false;
+        }
+        json.putAscii(first ? "\"iat\":" : ",\"iat\":");
+        json.putLong(issuedAtMillis / 1000);
+        json.putAscii(",\"exp\":");
+        json.putLong(expirationMillis / 1000);
+        json.put('}');
+
+        ByteSink token = s.token.reset();
+        token.put(encodedHeader, 0, encodedHeader.length);
+        token.put('.');
+        base64UrlEncode(json.buf, 0, json.len, token);
+
+        s.mac.update(token.buf, 0, token.len);
+        doFinal(s.mac, s.macOut);
+
+        token.put('.');
+        base64UrlEncode(s.macOut, 0, macLength, token);
+        return new String(token.buf, 0, token.len, StandardCharsets.ISO_8859_1);
+    }
+
+    public TokenClaims decode(String token, long nowMillis) throws AuthException {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+
+        Scratch s = acquire();
+        try {
+            return decode(s, token, nowMillis);
+        } finally {
+            release(s);
+        }
+    }
+
+    private TokenClaims decode(Scratch s, String token, long nowMillis) throws AuthException {
+        int n = token.length();
+        ByteSink raw = s.token.reset();
+        raw.ensure(n);
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < n; i++) {
+            char c = token.charAt(i);
+            if (c >= 0x80) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    throw AuthFailures.INVALID_TOKEN;
+                }
+            }
+            raw.buf[i] = (byte) c;
+        }
+        raw.len = n;
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == n - 1) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+
+        // Signature first: nothing in the header or payload is trusted before it checks out
+        s.mac.update(raw.buf, 0, secondDot);
+        doFinal(s.mac, s.macOut);
+        ByteSink signature = s.signature.reset();
+        if (!base64UrlDecode(raw.buf, secondDot + 1, n, signature)
+                || !constantTimeEquals(s.macOut, macLength, signature.buf, signature.len)) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+
+        ByteSink json = s.json.reset();
+        if (!base64UrlDecode(raw.buf, 0, firstDot, json)) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+        checkHeader(s.reader.reset(json.buf, json.len));
+
+        json.reset();
+        if (!base64UrlDecode(raw.buf, firstDot + 1, secondDot, json)) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+        return readClaims(s.reader.reset(json.buf, json.len), nowMillis);
+    }
+
+    private void checkHeader(JsonReader r) throws AuthException {
+        boolean algorithmMatches = false;
+        r.beginObject();
+        while (r.hasNextField()) {
+            switch (r.nextField(HEADER_FIELDS)) {
+                case H_ALG -> algorithmMatches = r.nextStringEquals(algorithmBytes);
+                // We never issue critical extensions or compressed payloads
+                case H_CRIT, H_ZIP -> throw AuthFailures.INVALID_TOKEN;
+                default -> r.skipValue();
+            }
+        }
+        r.endDocument();
+        if (!algorithmMatches) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+    }
+
+    private static TokenClaims readClaims(JsonReader r, long nowMillis) throws AuthException {
+        String subject = null;
+        List<String> roles = Collections.emptyList();
+        Long userId = null;
+        long issuedAt = 0;
+        long expiresAt = 0;
+        long notBefore = 0;
+
+        r.beginObject();
+        while (r.hasNextField()) {
+            switch (r.nextField(PAYLOAD_FIELDS)) {
+                case P_SUB -> subject = r.nextNullableString();
+                case P_ROLES -> roles = r.nextStringList();
+                case P_USER_ID -> userId = r.nextNullableLong();
+                case P_IAT -> issuedAt = r.nextLong();
+                case P_EXP -> expiresAt = r.nextLong();
+                case P_NBF -> notBefore = r.nextLong();
+                default -> r.skipValue();
+            }
+        }
+        r.endDocument();
+
+        // Same semantics as jjwt with zero clock skew
+        if (expiresAt != 0 && nowMillis > expiresAt * 1000) {
+            throw AuthFailures.TOKEN_EXPIRED;
+        }
+        if (notBefore != 0 && nowMillis < notBefore * 1000) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+        return new TokenClaims(subject, roles, userId, issuedAt, expiresAt);
+    }
+
+    private Scratch acquire() {
+        int mask = pool.length() - 1;
+        int start = System.identityHashCode(Thread.currentThread());
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            Scratch s = pool.get(slot);
+            if (s != null && pool.compareAndSet(slot, s, null)) {
+                return s;
+            }
+        }
+        return new Scratch(newMac());
+    }
+
+    private void release(Scratch s) {
+        int mask = pool.length() - 1;
+        int start = System.identityHashCode(Thread.currentThread());
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            if (pool.get(slot) == null && pool.compareAndSet(slot, null, s)) {
+                return;
+            }
+        }
+        // Pool full: let this one go
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialise " + key.getAlgorithm(), e);
+        }
+    }
+
+    private static void doFinal(Mac mac, byte[] out) {
+        try {
+            mac.doFinal(out, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException("MAC output buffer too small", e);
+        }
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, int expectedLength, byte[] actual, int actualLength) {
+        if (expectedLength != actualLength) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < expectedLength; i++) {
+            diff |= expected[i] ^ actual[i];
+        }
+        return diff == 0;
+    }
+
+    private static void base64UrlEncode(byte[] src, int off, int len, ByteSink dst) {
+        dst.ensure(dst.len + (len * 4 + 2) / 3);
+        byte[] out = dst.buf;
+        int p = dst.len;
+        int end = off + len - len % 3;
+        int i = off;
+        while (i < end) {
+            int bits = (src[i++] & 0xff) << 16 | (src[i++] & 0xff) << 8 | (src[i++] & 0xff);
+            out[p++] = BASE64URL[bits >>> 18 & 0x3f];
+            out[p++] = BASE64URL[bits >>> 12 & 0x3f];
+            out[p++] = BASE64URL[bits >>> 6 & 0x3f];
+            out[p++] = BASE64URL[bits & 0x3f];
+        }
+        int remaining = off + len - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            out[p++] = BASE64URL[bits >>> 18 & 0x3f];
+            out[p++] = BASE64URL[bits >>> 12 & 0x3f];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            out[p++] = BASE64URL[bits >>> 18 & 0x3f];
+            out[p++] = BASE64URL[bits >>> 12 & 0x3f];
+            out[p++] = BASE64URL[bits >>> 6 & 0x3f];
+        }
+        dst.len = p;
+    }
+
+    // Decodes unpadded Base64URL in src[from, to) and appends to dst; false on any invalid input
+    private static boolean base64UrlDecode(byte[] src, int from, int to, ByteSink dst) {
+        int len = to - from;
+        if (len % 4 == 1) {
+            return false;
+        }
+        dst.ensure(dst.len + len * 3 / 4);
+        byte[] out = dst.buf;
+        int p = dst.len;
+        int bits = 0;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int c = src[i];
+            int v = c >= 0 ? BASE64URL_INVERSE[c] : -1;
+            if (v < 0) {
+                return false;
+            }
+            bits = bits << 6 | v;
+            if (++count == 4) {
+                out[p++] = (byte) (bits >> 16);
+                out[p++] = (byte) (bits >> 8);
+                out[p++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 2) {
+            out[p++] = (byte) (bits >> 4);
+        } else if (count == 3) {
+            out[p++] = (byte) (bits >> 10);
+            out[p++] = (byte) (bits >> 2);
+        }
+        dst.len = p;
+        return true;
+    }
+
+    private static byte[][] names(String... names) {
+        byte[][] result = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return result;
+    }
+
+    private static final class Scratch {
+        final Mac mac;
+        final byte[] macOut = new byte[64];
+        final ByteSink json = new ByteSink(256);
+        final ByteSink token = new ByteSink(512);
+        final ByteSink signature = new ByteSink(96);
+        final JsonReader reader = new JsonReader();
+
+        Scratch(Mac mac) {
+            this.mac = mac;
+        }
+    }
+
+    private static final class ByteSink {
+        byte[] buf;
+        int len;
+
+        ByteSink(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        ByteSink reset() {
+            len = 0;
+            return this;
+        }
+
+        void ensure(int capacity) {
+            if (capacity > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+            }
+        }
+
+        void put(char c) {
+            ensure(len + 1);
+            buf[len++] = (byte) c;
+        }
+
+        void put(byte[] src, int off, int count) {
+            ensure(len + count);
+            System.arraycopy(src, off, buf, len, count);
+            len += count;
+        }
+
+        void putAscii(String s) {
+            int n = s.length();
+            ensure(len + n);
+            for (int i = 0; i < n; i++) {
+                buf[len++] = (byte) s.charAt(i);
+            }
+        }
+
+        void putLong(long v) {
+            if (v == Long.MIN_VALUE) {
+                putAscii("-9223372036854775808");
+                return;
+            }
+            ensure(len + 20);
+            if (v < 0) {
+                buf[len++] = '-';
+                v = -v;
+            }
+            int start = len;
+            do {
+                buf[len++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            for (int i = start, j = len - 1; i < j; i++, j--) {
+                byte tmp = buf[i];
+                buf[i] = buf[j];
+                buf[j] = tmp;
+            }
+        }
+
+        void putJsonString(String s) {
+            int n = s.length();
+            ensure(len + n * 6 + 2);
+            buf[len++] = '"';
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') {
+                    buf[len++] = '\\';
+                    buf[len++] = (byte) c;
+                } else if (c < 0x20) {
+                    buf[len++] = '\\';
+                    buf[len++] = 'u';
+                    buf[len++] = '0';
+                    buf[len++] = '0';
+                    buf[len++] = HEX[c >> 4];
+                    buf[len++] = HEX[c & 0xf];
+                } else if (c < 0x80) {
+                    buf[len++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[len++] = (byte) (0xc0 | c >> 6);
+                    buf[len++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[len++] = (byte) (0xf0 | cp >> 18);
+                    buf[len++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                    buf[len++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                    buf[len++] = (byte) (0x80 | cp & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    buf[len++] = '?';
+                } else {
+                    buf[len++] = (byte) (0xe0 | c >> 12);
+                    buf[len++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    buf[len++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+            buf[len++] = '"';
+        }
+    }
+
+    /**
+     * Just enough of a JSON reader for JWS headers and our claim set: field names are matched against
+     * known byte sequences without creating strings, and anything unrecognised is skipped.
+     */
+    private static final class JsonReader {
+        private static final int MAX_DEPTH = 16;
+
+        private byte[] buf;
+        private int pos;
+        private int end;
+        private boolean firstField;
+        private char[] chars = new char[64];
+
+        JsonReader reset(byte[] buf, int len) {
+            this.buf = buf;
+            this.pos = 0;
+            this.end = len;
+            return this;
+        }
+
+        void beginObject() throws AuthException {
+            expect('{');
+            firstField = true;
+        }
+
+        boolean hasNextField() throws AuthException {
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return false;
+            }
+            if (!firstField) {
+                expect(',');
+            }
+            firstField = false;
+            return true;
+        }
+
+        // Reads "name": and returns its index in names, or -1 for an unknown field
+        int nextField(byte[][] names) throws AuthException {
+            skipWhitespace();
+            int match = -1;
+            int start = pos + 1;
+            if (rawStringEnd() < 0) {
+                match = indexOf(names, nextString());
+            } else {
+                int length = pos - start - 1;
+                for (int i = 0; i < names.length && match < 0; i++) {
+                    if (names[i].length == length && regionEquals(names[i], start)) {
+                        match = i;
+                    }
+                }
+            }
+            expect(':');
+            return match;
+        }
+
+        boolean nextStringEquals(byte[] expected) throws AuthException {
+            skipWhitespace();
+            int start = pos + 1;
+            if (rawStringEnd() < 0) {
+                String value = nextString();
+                return value.equals(new String(expected, StandardCharsets.US_ASCII));
+            }
+            return pos - start - 1 == expected.length && regionEquals(expected, start);
+        }
+
+        String nextNullableString() throws AuthException {
+            skipWhitespace();
+            if (peek() == 'n') {
+                expectLiteral("null");
+                return null;
+            }
+            return nextString();
+        }
+
+        List<String> nextStringList() throws AuthException {
+            skipWhitespace();
+            if (peek() == 'n') {
+                expectLiteral("null");
+                return Collections.emptyList();
+            }
+            expect('[');
+            List<String> values = new ArrayList<>(2);
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return values;
+            }
+            while (true) {
+                values.add(nextString());
+                skipWhitespace();
+                byte c = next();
+                if (c == ']') {
+                    return values;
+                }
+                if (c != ',') {
+                    throw AuthFailures.INVALID_TOKEN;
+                }
+            }
+        }
+
+        Long nextNullableLong() throws AuthException {
+            skipWhitespace();
+            if (peek() == 'n') {
+                expectLiteral("null");
+                return null;
+            }
+            return nextLong();
+        }
+
+        long nextLong() throws AuthException {
+            skipWhitespace();
+            int start = pos;
+            boolean negative = false;
+            if (peek() == '-') {
+                negative = true;
+                pos++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+                if (digits++ == 18) {
+                    throw AuthFailures.INVALID_TOKEN;
+                }
+                value = value * 10 + (buf[pos++] - '0');
+            }
+            if (digits == 0) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            if (pos < end && (buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E')) {
+                // Other issuers may write NumericDate with a fraction; not on our hot path
+                while (pos < end && "0123456789.eE+-".indexOf(buf[pos]) >= 0) {
+                    pos++;
+                }
+                try {
+                    return (long) Double.parseDouble(new String(buf, start, pos - start, StandardCharsets.US_ASCII));
+                } catch (NumberFormatException e) {
+                    throw AuthFailures.INVALID_TOKEN;
+                }
+            }
+            return negative ? -value : value;
+        }
+
+        void skipValue() throws AuthException {
+            skipValue(0);
+        }
+
+        void endDocument() throws AuthException {
+            skipWhitespace();
+            if (pos != end) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+        }
+
+        private void skipValue(int depth) throws AuthException {
+            if (depth > MAX_DEPTH) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            skipWhitespace();
+            switch (peek()) {
+                case '"' -> {
+                    if (rawStringEnd() < 0) {
+                        nextString();
+                    }
+                }
+                case '{' -> {
+                    pos++;
+                    skipWhitespace();
+                    if (peek() == '}') {
+                        pos++;
+                        return;
+                    }
+                    do {
+                        skipWhitespace();
+                        if (rawStringEnd() < 0) {
+                            nextString();
+                        }
+                        expect(':');
+                        skipValue(depth + 1);
+                        skipWhitespace();
+                    } while (next() == ',');
+                    if (buf[pos - 1] != '}') {
+                        throw AuthFailures.INVALID_TOKEN;
+                    }
+                }
+                case '[' -> {
+                    pos++;
+                    skipWhitespace();
+                    if (peek() == ']') {
+                        pos++;
+                        return;
+                    }
+                    do {
+                        skipValue(depth + 1);
+                        skipWhitespace();
+                    } while (next() == ',');
+                    if (buf[pos - 1] != ']') {
+                        throw AuthFailures.INVALID_TOKEN;
+                    }
+                }
+                case 't' -> expectLiteral("true");
+                case 'f' -> expectLiteral("false");
+                case 'n' -> expectLiteral("null");
+                default -> nextLong();
+            }
+        }
+
+        // Moves past a string without escapes and returns the position after its closing quote.
+        // If the string contains an escape, returns -1 and leaves pos at the opening quote.
+        private int rawStringEnd() throws AuthException {
+            int start = pos;
+            expect('"');
+            while (pos < end) {
+                byte c = buf[pos++];
+                if (c == '"') {
+                    return pos;
+                }
+                if (c == '\\') {
+                    pos = start;
+                    return -1;
+                }
+                if (c >= 0 && c < 0x20) {
+                    break;
+                }
+            }
+            throw AuthFailures.INVALID_TOKEN;
+        }
+
+        private String nextString() throws AuthException {
+            skipWhitespace();
+            expect('"');
+            int n = 0;
+            while (pos < end) {
+                int c = buf[pos++] & 0xff;
+                if (c == '"') {
+                    return new String(chars, 0, n);
+                }
+                if (n + 2 > chars.length) {
+                    chars = Arrays.copyOf(chars, chars.length * 2);
+                }
+                if (c == '\\') {
+                    chars[n++] = unescape();
+                } else if (c < 0x20) {
+                    break;
+                } else if (c < 0x80) {
+                    chars[n++] = (char) c;
+                } else {
+                    int cp = decodeUtf8(c);
+                    n += Character.toChars(cp, chars, n);
+                }
+            }
+            throw AuthFailures.INVALID_TOKEN;
+        }
+
+        private char unescape() throws AuthException {
+            byte c = next();
+            switch (c) {
+                case '"': return '"';
+                case '\\': return '\\';
+                case '/': return '/';
+                case 'b': return '\b';
+                case 'f': return '\f';
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 't': return '\t';
+                case 'u':
+                    if (pos + 4 > end) {
+                        throw AuthFailures.INVALID_TOKEN;
+                    }
+                    int v = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int d = Character.digit(buf[pos++], 16);
+                        if (d < 0) {
+                            throw AuthFailures.INVALID_TOKEN;
+                        }
+                        v = v << 4 | d;
+                    }
+                    return (char) v;
+                default:
+                    throw AuthFailures.INVALID_TOKEN;
+            }
+        }
+
+        private int decodeUtf8(int lead) throws AuthException {
+            int extra;
+            int cp;
+            if ((lead & 0xe0) == 0xc0) {
+                extra = 1;
+                cp = lead & 0x1f;
+            } else if ((lead & 0xf0) == 0xe0) {
+                extra = 2;
+                cp = lead & 0x0f;
+            } else if ((lead & 0xf8) == 0xf0) {
+                extra = 3;
+                cp = lead & 0x07;
+            } else {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            if (pos + extra > end) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            for (int i = 0; i < extra; i++) {
+                int c = buf[pos++] & 0xff;
+                if ((c & 0xc0) != 0x80) {
+                    throw AuthFailures.INVALID_TOKEN;
+                }
+                cp = cp << 6 | c & 0x3f;
+            }
+            if (cp > Character.MAX_CODE_POINT) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            return cp;
+        }
+
+        private boolean regionEquals(byte[] expected, int start) {
+            for (int i = 0; i < expected.length; i++) {
+                if (buf[start + i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int indexOf(byte[][] names, String value) {
+            for (int i = 0; i < names.length; i++) {
+                if (value.equals(new String(names[i], StandardCharsets.US_ASCII))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void expectLiteral(String literal) throws AuthException {
+            for (int i = 0; i < literal.length(); i++) {
+                if (next() != literal.charAt(i)) {
+                    throw AuthFailures.INVALID_TOKEN;
+                }
+            }
+        }
+
+        private void expect(char c) throws AuthException {
+            skipWhitespace();
+            if (next() != c) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+        }
+
+        private byte peek() throws AuthException {
+            if (pos >= end) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            return buf[pos];
+        }
+
+        private byte next() throws AuthException {
+            if (pos >= end) {
+                throw AuthFailures.INVALID_TOKEN;
+            }
+            return buf[pos++];
+        }
+
+        private void skipWhitespace() {
+            while (pos < end) {
+                byte c = buf[pos];
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+    }
+}
@@ -2,77 +2,209 @@ package org.example.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
+import org.example.config.PropertyLoader;
 import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.jfr.TokenVerificationEvent;
+import org.example.metrics.Metrics;
 import org.example.model.Role;
 import org.example.model.User;
+import org.example.tracing.Tracing;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 public class JwtUtil {
     private static final String JWT_SECRET = System.getenv("JWT_SECRET");
 
-    private static final long ONE_DAY_IN_MILLISECONDS = 24L * 60L * 60L * 1000L; // 86,400,000 milliseconds
-    private static final long EXPIRATION_TIME = 10L * ONE_DAY_IN_MILLISECONDS; // 10 days
-    //private static final long REFRESH_EXPIRATION_TIME = 70L * ONE_DAY_IN_MILLISECONDS; // 70 days
+    // Access tokens are verified statelessly, so they are kept short; long-lived sessions use refresh tokens
+    private static final long DEFAULT_ACCESS_TOKEN_TTL_SECONDS = 15L * 60L; // 15 minutes
 
     private final Key key;
+    private final HmacJwtCodec codec;
+    // Set when jwt.signing-algorithm=eddsa; tokens are then signed with Ed25519 instead of the shared secret
+    private final EdDsaKeySet edDsaKeys;
+    private final JwtParser parser;
+    private final long accessTokenTtlMillis;
+    // A copy for StartupWarmup: same keys and code path, kept out of jwt_seconds and tagged in JFR events
+    private final boolean warmup;
 
     public JwtUtil() {
-        if (JWT_SECRET == null || JWT_SECRET.trim().isEmpty()) {
+        this(JWT_SECRET, configuredAccessTokenTtlSeconds(), EdDsaKeySet.fromConfiguration());
+    }
+
+    public JwtUtil(String secret) {
+        this(secret, configuredAccessTokenTtlSeconds());
+    }
+
+    public JwtUtil(String secret, long accessTokenTtlSeconds) {
+        this(secret, accessTokenTtlSeconds, null);
+    }
+
+    public JwtUtil(String secret, long accessTokenTtlSeconds, EdDsaKeySet edDsaKeys) {
+        this.edDsaKeys = edDsaKeys;
+        this.accessTokenTtlMillis = accessTokenTtlSeconds * 1000L;
+        this.warmup = false;
+
+        if (edDsaKeys != null) {
+            this.key = null;
+            this.codec = null;
+            this.parser = Jwts.parser()
+                    .keyLocator(new LocatorAdapter<Key>() {
+                        @Override
+                        protected Key locate(JwsHeader header) {
+                            return edDsaKeys.getVerificationKey(header.getKeyId());
+                        }
+                    })
+                    .build();
+            return;
+        }
+
+        if (secret == null || secret.trim().isEmpty()) {
             throw new IllegalStateException("JWT_SECRET environment variable is not set");
         }
-        if (JWT_SECRET.length() < 32) {
+        if (secret.length() < 32) {
             throw new IllegalStateException("JWT_SECRET must be at least 32 characters long");
         }
-        this.key = Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8));
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.codec = new HmacJwtCodec((SecretKey) key);
+        this.parser = Jwts.parser().verifyWith((SecretKey) key).build();
     }
 
-    public String generateToken(User user) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + EXPIRATION_TIME);
+    private JwtUtil(JwtUtil source) {
+        this.key = source.key;
+        this.codec = source.codec;
+        this.edDsaKeys = source.edDsaKeys;
+        this.parser = source.parser;
+        this.accessTokenTtlMillis = source.accessTokenTtlMillis;
+        this.warmup = true;
+    }
 
-        List<String> roles = user.getRoles().stream()
-                .map(Role::getName)
-                .collect(Collectors.toList());
+    // Signs and verifies exactly like this instance, without counting as application traffic
+    public JwtUtil forWarmup() {
+        return warmup ? this : new JwtUtil(this);
+    }
 
-        return Jwts.builder()
-                .subject(user.getUsername())
-                .claim("roles", roles)
-                .claim("userId", user.getId())
-                .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(key)
-                .compact();
+    public boolean isWarmup() {
+        return warmup;
     }
 
-    /*public String generateRefreshToken(User user) {
-        return generateToken(user, REFRESH_EXPIRATION_TIME);
+    private static long configuredAccessTokenTtlSeconds() {
+        return Long.parseLong(PropertyLoader.getProperty("jwt.access-token-ttl-seconds",
+                String.valueOf(DEFAULT_ACCESS_TOKEN_TTL_SECONDS)));
+    }
+
+    // Public keys other services use to verify our tokens; empty when signing with the shared secret
+    public List<Map<String, String>> getPublicJwks() {
+        return edDsaKeys == null ? List.of() : edDsaKeys.toJwks();
+    }
+
+    // Checked by the readiness probe (see HealthMonitor)
+    public boolean hasSigningKey() {
+        return edDsaKeys != null ? edDsaKeys.getSigningKey() != null : key != null;
+    }
+
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtlMillis / 1000L;
+    }
+
+    public String generateToken(User user) {
+        int span = Tracing.begin("jwt.sign");
+        long start = System.nanoTime();
+        try {
+            return sign(user);
+        } finally {
+            if (!warmup) {
+                Metrics.JWT_SIGN.recordSince(start);
+            }
+            Tracing.end(span);
+        }
+    }
+
+    private String sign(User user) {
+        long now = System.currentTimeMillis();
+
+        List<String> roles = new ArrayList<>(user.getRoles().size());
+        for (Role role : user.getRoles()) {
+            roles.add(role.getName());
+        }
+
+        if (edDsaKeys != null) {
+            return Jwts.builder()
+                    .header().keyId(edDsaKeys.getCurrentKeyId()).and()
+                    .subject(user.getUsername())
+                    .claim("roles", roles)
+                    .claim("userId", user.getId())
+                    .issuedAt(new Date(now))
+                    .expiration(new Date(now + accessTokenTtlMillis))
+                    .signWith(edDsaKeys.getSigningKey(), Jwts.SIG.EdDSA)
+                    .compact();
+        }
+
+        // Same wire format as the jjwt builder (sub, roles, userId, iat, exp), without the claim map and Jackson
+        return codec.encode(user.getUsername(), roles, user.getId(), now, now + accessTokenTtlMillis);
     }
-    */
 
 
 
     public boolean validateToken(String token) throws AuthException {
+        parseToken(token);
+        return true;
+    }
+
+    // Verifies signature and expiry and returns our claim set; tokens issued by the jjwt builder parse the same way
+    public TokenClaims parseToken(String token) throws AuthException {
+        int span = Tracing.begin("jwt.verify");
+        TokenVerificationEvent event = TokenVerificationEvent.start(codec != null ? codec.getAlgorithm() : "EdDSA", warmup);
+        long start = System.nanoTime();
+        AuthException failure = null;
         try {
-            Jwts.parser()
-                    .verifyWith((SecretKey) key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (SignatureException e) {
-            throw new AuthException.InvalidTokenException();
+            return verify(token);
+        } catch (AuthException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (!warmup) {
+                Metrics.JWT_VERIFY.recordSince(start);
+            }
+            event.finish(failure);
+            Tracing.end(span);
+        }
+    }
+
+    private TokenClaims verify(String token) throws AuthException {
+        if (edDsaKeys == null) {
+            return codec.decode(token, System.currentTimeMillis());
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
-            throw new AuthException.TokenExpiredException();
-        } catch (Exception e) {
-            throw new AuthException("Invalid token: " + e.getMessage());
+            throw AuthFailures.TOKEN_EXPIRED;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw AuthFailures.INVALID_TOKEN;
         }
 
+        List<String> roles = new ArrayList<>();
+        Object rawRoles = claims.get("roles");
+        if (rawRoles instanceof List<?> list) {
+            for (Object role : list) {
+                roles.add(String.valueOf(role));
+            }
+        }
+        Number userId = claims.get("userId", Number.class);
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        return new TokenClaims(claims.getSubject(), roles,
+                userId == null ? null : userId.longValue(),
+                issuedAt == null ? 0 : issuedAt.getTime() / 1000,
+                expiration == null ? 0 : expiration.getTime() / 1000);
     }
 
     /*
@@ -88,18 +220,14 @@ public class JwtUtil {
 
     public Claims getAllClaimsFromToken(String token) throws AuthException {
         try {
-            return Jwts.parser()
-                    .verifyWith((SecretKey) key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
             throw new AuthException("Could not parse token claims");
         }
     }
 
     public String getUsernameFromToken(String token) throws AuthException {
-        return getAllClaimsFromToken(token).getSubject();
+        return parseToken(token).getSubject();
     }
 
     /*
@@ -142,7 +270,7 @@ public class JwtUtil {
         return Jwts.builder()
                 .claims(claims)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .expiration(new Date(System.currentTimeMillis() + accessTokenTtlMillis))
                 .signWith(key)
                 .compact();
     }
@@ -0,0 +1,20 @@
+package org.example.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+// Claims carried by the tokens we issue: sub, roles, userId, iat, exp.
+// Timestamps are epoch seconds as they appear on the wire (0 when the claim is absent).
+@Getter
+@ToString
+@AllArgsConstructor
+public class TokenClaims {
+    private final String subject;
+    private final List<String> roles;
+    private final Long userId;
+    private final long issuedAt;
+    private final long expiresAt;
+}
@@ -0,0 +1,159 @@
+package org.example.service;
+
+import org.example.config.AuthExecutors;
+import org.example.dto.LoginRequest;
+import org.example.dto.SignupRequest;
+import org.example.jfr.LoginEvent;
+import org.example.model.User;
+import org.example.security.AuthTokens;
+import org.example.tracing.RequestTrace;
+import org.example.tracing.Tracing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs the AuthService stages on purpose-sized executors: JDBC on the I/O pool, BCrypt on the CPU pool.
+ * Every stage checks first that the request is still wanted, i.e. neither past its deadline nor cancelled
+ * through the returned future (the controller cancels it when the container times out or the client goes
+ * away), so work for a dead request is skipped instead of holding a connection or a core. Failures complete
+ * the future exceptionally with the original AuthException (or a TimeoutException) as the cause.
+ */
+public class AsyncAuthService {
+    private final AuthService authService;
+    private final Executor cpu;
+    private final Executor io;
+
+    public AsyncAuthService(AuthService authService, AuthExecutors executors) {
+        this.authService = authService;
+        this.cpu = executors.cpu();
+        this.io = executors.io();
+    }
+
+    public CompletableFuture<AuthTokens> login(LoginRequest request, long deadlineNanos) {
+        Pipeline<AuthTokens> pipeline = new Pipeline<>(deadlineNanos);
+        LoginEvent event = LoginEvent.start(request.getUsername(), true);
+        pipeline.result.whenComplete((tokens, failure) -> event.finish(failure));
+        return pipeline.run(pipeline.onIo(() -> authService.findLoginCandidate(request))
+                .thenCompose(user -> pipeline.onCpu(() -> authService.checkLoginPassword(user, request.getPassword())))
+                .thenCompose(user -> pipeline.onIo(() -> authService.completeLogin(user))));
+    }
+
+    public CompletableFuture<Void> register(SignupRequest request, long deadlineNanos) {
+        Pipeline<Void> pipeline = new Pipeline<>(deadlineNanos);
+        return pipeline.run(pipeline.onIo(() -> {
+                    authService.checkRegistration(request);
+                    return request;
+                })
+                .thenCompose(checked -> pipeline.onCpu(() -> authService.encodePassword(request.getPassword())))
+                .thenCompose(encoded -> pipeline.onIo(() -> {
+                    authService.createUser(request, encoded);
+                    return (Void) null;
+                })));
+    }
+
+    public CompletableFuture<Void> changePassword(Long userId, String oldPassword, String newPassword,
+                                                  long deadlineNanos) {
+        Pipeline<Void> pipeline = new Pipeline<>(deadlineNanos);
+        return pipeline.run(pipeline.onIo(() -> authService.loadUser(userId))
+                .thenCompose(user -> pipeline.onCpu(() -> new PreparedPassword(user,
+                        authService.prepareNewPassword(user, oldPassword, newPassword))))
+                .thenCompose(prepared -> pipeline.onIo(() -> {
+                    authService.storeNewPassword(prepared.user(), prepared.encodedPassword());
+                    return (Void) null;
+                })));
+    }
+
+    // A full queue rejects on the submitting thread; surface that through the future like any other failure
+    private static <T> CompletableFuture<T> async(Supplier<T> work, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * One request's way through the pools. The caller gets {@code result}, not the stage chain: it times
+     * out at the deadline, and once it is done for any reason (timeout, cancel, or the chain finishing)
+     * stages that have not started yet are skipped.
+     */
+    private final class Pipeline<R> {
+        private final long deadlineNanos;
+        private final RequestTrace trace = Tracing.current();
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+
+        Pipeline(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        CompletableFuture<R> run(CompletableFuture<R> stages) {
+            stages.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            });
+            return result.orTimeout(remainingMillis(deadlineNanos), TimeUnit.MILLISECONDS);
+        }
+
+        <T> CompletableFuture<T> onIo(Callable<T> work) {
+            return async(stage("queue.io", work), io);
+        }
+
+        <T> CompletableFuture<T> onCpu(Callable<T> work) {
+            return async(stage("queue.cpu", work), cpu);
+        }
+
+        // The request's trace follows it onto the pool thread; the time spent queued becomes a span of its own
+        private <T> Supplier<T> stage(String queueSpan, Callable<T> work) {
+            long submitted = System.nanoTime();
+            return () -> {
+                RequestTrace previous = Tracing.attach(trace);
+                try {
+                    Tracing.record(queueSpan, submitted, System.nanoTime());
+                    if (System.nanoTime() - deadlineNanos >= 0) {
+                        throw new StagedFailure(new TimeoutException("Request deadline exceeded"));
+                    }
+                    if (result.isDone()) {
+                        throw new StagedFailure(new CancellationException("Request is no longer pending"));
+                    }
+                    return work.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new StagedFailure(e);
+                } finally {
+                    Tracing.detach(previous);
+                }
+            };
+        }
+    }
+
+    private record PreparedPassword(User user, String encodedPassword) {
+    }
+
+    // Only carries the cause through the future; its own trace would just be the pool thread's stack
+    private static final class StagedFailure extends CompletionException {
+        StagedFailure(Throwable cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
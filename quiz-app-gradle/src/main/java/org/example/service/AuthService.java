@@ -1,25 +1,45 @@
 package org.example.service;
 
 import com.jetbrains.exported.JBRApi;
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.JwtException;
 import org.example.dto.LoginRequest;
 import org.example.dto.SignupRequest;
+import org.example.dto.TokenValidationResult;
 import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.jfr.LoginEvent;
+import org.example.model.RefreshToken;
 import org.example.model.Role;
 import org.example.model.User;
+import org.example.repository.RefreshTokenRepository;
 import org.example.repository.UserRepository;
+import org.example.security.AuthTokens;
 import org.example.security.JwtUtil;
+import org.example.security.TokenClaims;
+import org.example.tracing.Tracing;
+import org.example.validation.EmailPolicy;
+import org.example.validation.PasswordPolicy;
+import org.example.validation.Rule;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.IntStream;
 
 @JBRApi.Service
 public class AuthService {
+    // Below this, handing work to the common pool costs more than verifying the HMACs inline
+    private static final int PARALLEL_VALIDATION_THRESHOLD = 32;
+
+    private static final PasswordPolicy PASSWORD_POLICY = PasswordPolicy.builder()
+            .message(Rule.REQUIRED, "Password must be at least 8 characters long")
+            .build();
+    private static final EmailPolicy EMAIL_POLICY = EmailPolicy.builder().build();
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
+    private final ConflictRetry conflictRetry = ConflictRetry.fromConfiguration();
 
     public AuthService(){
         this.userRepository = new UserRepository() {
@@ -28,6 +48,10 @@ public class AuthService {
                 return List.of();
             }
             @Override
+            public List<User> findAllById(Collection<Long> ids) {
+                return List.of();
+            }
+            @Override
             public boolean existsById(Long id) {
                 return false;
             }
@@ -71,74 +95,174 @@ public class AuthService {
             }
         };
         this.jwtUtil = new JwtUtil();
+        this.refreshTokenService = new RefreshTokenService(new RefreshTokenRepository() {
+            @Override
+            public RefreshToken save(RefreshToken token) {
+                return token;
+            }
+            @Override
+            public Optional<RefreshToken> findByTokenHash(String tokenHash) {
+                return Optional.empty();
+            }
+            @Override
+            public boolean markUsed(Long id, LocalDateTime usedAt) {
+                return false;
+            }
+            @Override
+            public int revokeFamily(String familyId) {
+                return 0;
+            }
+            @Override
+            public int revokeAllForUser(Long userId) {
+                return 0;
+            }
+            @Override
+            public int deleteExpired(LocalDateTime cutoff, int batchSize) {
+                return 0;
+            }
+        });
     }
 
     public AuthService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
-                       JwtUtil jwtUtil) {
+                       JwtUtil jwtUtil,
+                       RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
     }
 
-    public String login(LoginRequest loginRequest) throws AuthException {
-        // Validate request
-        if (loginRequest.getUsername() == null || loginRequest.getPassword() == null) {
-            throw new AuthException("Username and password are required");
+    public AuthTokens login(LoginRequest loginRequest) throws AuthException {
+        // StartupWarmup logs in through a warm-up JwtUtil; its logins are tagged as such
+        LoginEvent event = LoginEvent.start(loginRequest.getUsername(), false, jwtUtil.isWarmup());
+        Exception failure = null;
+        try {
+            User user = findLoginCandidate(loginRequest);
+            checkLoginPassword(user, loginRequest.getPassword());
+            return completeLogin(user);
+        } catch (AuthException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            event.finish(failure);
         }
+    }
 
-        // Find user
-        User user = userRepository.findByUsername(loginRequest.getUsername())
-                .orElseThrow(AuthException.InvalidCredentialsException::new);
+    // Login, register and change-password are split into I/O and CPU (hashing) stages so that
+    // AsyncAuthService can run each stage on the matching executor; the methods above just chain them.
 
-        //Verificarea parolei cu PasswordEncoding
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            throw new AuthException.InvalidCredentialsException();
+    // I/O stage
+    User findLoginCandidate(LoginRequest loginRequest) throws AuthException {
+        int span = Tracing.begin("AuthService.findLoginCandidate");
+        try {
+            // Validate request
+            if (loginRequest.getUsername() == null || loginRequest.getPassword() == null) {
+                throw new AuthException("Username and password are required");
+            }
+
+            // Find user
+            return userRepository.findByUsername(loginRequest.getUsername())
+                    .orElseThrow(() -> AuthFailures.INVALID_CREDENTIALS);
+        } finally {
+            Tracing.end(span);
         }
+    }
 
-        // Update last login
-        user.updateLastLogin();
-        userRepository.save(user);
+    // CPU stage
+    User checkLoginPassword(User user, String password) throws AuthException {
+        int span = Tracing.begin("AuthService.checkLoginPassword");
+        try {
+            //Verificarea parolei cu PasswordEncoding
+            if (!passwordEncoder.matches(password, user.getPassword())) {
+                throw AuthFailures.INVALID_CREDENTIALS;
+            }
 
-        // Generate token
-        return jwtUtil.generateToken(user);
+            // Checked here and on refresh, since access tokens are no longer checked against the database
+            if (!user.isEnabled()) {
+                throw AuthFailures.ACCOUNT_DISABLED;
+            }
+            if (!user.isAccountNonLocked()) {
+                throw AuthFailures.ACCOUNT_LOCKED;
+            }
+            return user;
+        } finally {
+            Tracing.end(span);
+        }
     }
 
-    public void register(SignupRequest signupRequest) throws AuthException {
-        // Validate request
-        if (!isValidEmail(signupRequest.getEmail())) {
-            throw new AuthException("Invalid email format");
+    // I/O stage. Nothing is written to users here: there is no last-login column, and a versioned save on
+    // every login would make concurrent admin updates fail for no stored change.
+    AuthTokens completeLogin(User user) {
+        int span = Tracing.begin("AuthService.completeLogin");
+        try {
+            // Generate tokens
+            return issueTokens(user, refreshTokenService.issue(user.getId()));
+        } finally {
+            Tracing.end(span);
         }
-        validateSignupRequest(signupRequest);
+    }
 
-        // Check if username exists
-        if (userRepository.existsByUsername(signupRequest.getUsername())) {
-            throw new AuthException.UserAlreadyExistsException("Username already registered");
-        }
+    public void register(SignupRequest signupRequest) throws AuthException {
+        checkRegistration(signupRequest);
+        createUser(signupRequest, encodePassword(signupRequest.getPassword()));
+    }
 
-        if (userRepository.existsByEmail(signupRequest.getEmail())) {
-            throw new AuthException.UserAlreadyExistsException("Email already registered");
+    // I/O stage
+    void checkRegistration(SignupRequest signupRequest) throws AuthException {
+        int span = Tracing.begin("AuthService.checkRegistration");
+        try {
+            validateSignupRequest(signupRequest);
+
+            // Check if username exists
+            if (userRepository.existsByUsername(signupRequest.getUsername())) {
+                throw new AuthException.UserAlreadyExistsException("Username already registered");
+            }
+
+            if (userRepository.existsByEmail(signupRequest.getEmail())) {
+                throw new AuthException.UserAlreadyExistsException("Email already registered");
+            }
+        } finally {
+            Tracing.end(span);
         }
+    }
 
+    // CPU stage
+    String encodePassword(String rawPassword) {
+        int span = Tracing.begin("AuthService.encodePassword");
         try {
-            // Create new user
-            User user = User.builder()
-                    .username(signupRequest.getUsername())
-                    .password(passwordEncoder.encode(signupRequest.getPassword()))
-                    .email(signupRequest.getEmail())
-                    .enabled(true)
-                    .accountNonExpired(true)
-                    .credentialsNonExpired(true)
-                    .accountNonLocked(true)
-                    .build();
-
-            // Add default role
-            user.addRole(Role.user());
+            return passwordEncoder.encode(rawPassword);
+        } finally {
+            Tracing.end(span);
+        }
+    }
 
-            // Save user
-            userRepository.save(user);
-        } catch (Exception e) {
-            throw new AuthException("Error during user registration", e);
+    // I/O stage
+    void createUser(SignupRequest signupRequest, String encodedPassword) throws AuthException {
+        int span = Tracing.begin("AuthService.createUser");
+        try {
+            try {
+                // Create new user
+                User user = User.builder()
+                        .username(signupRequest.getUsername())
+                        .password(encodedPassword)
+                        .email(signupRequest.getEmail())
+                        .enabled(true)
+                        .accountNonExpired(true)
+                        .credentialsNonExpired(true)
+                        .accountNonLocked(true)
+                        .build();
+
+                // Add default role
+                user.addRole(Role.user());
+
+                // Save user
+                userRepository.save(user);
+            } catch (Exception e) {
+                throw new AuthException("Error during user registration", e);
+            }
+        } finally {
+            Tracing.end(span);
         }
     }
 
@@ -146,67 +270,169 @@ public class AuthService {
         return validateToken(token);  // Now using the validateToken method
     }
 
-    public String refreshToken(String refreshToken) throws AuthException {
-        if (jwtUtil.validateToken(refreshToken)) {
-            throw new AuthException.InvalidTokenException();
-        }
+    // The only path that goes back to the database: access tokens are trusted until they expire
+    public AuthTokens refreshToken(String refreshToken) throws AuthException {
+        int span = Tracing.begin("AuthService.refreshToken");
+        try {
+            RefreshToken current = refreshTokenService.consume(refreshToken);
 
-        String username = jwtUtil.getUsernameFromToken(refreshToken);
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new AuthException.UserNotFoundException(username));
+            User user = userRepository.findById(current.getUserId())
+                    .orElseThrow(() -> new AuthException.UserNotFoundException(String.valueOf(current.getUserId())));
 
-        return jwtUtil.generateToken(user);
+            if (!user.isEnabled() || !user.isAccountNonLocked()) {
+                refreshTokenService.revokeFamily(current, "account disabled or locked");
+                throw !user.isEnabled() ? AuthFailures.ACCOUNT_DISABLED : AuthFailures.ACCOUNT_LOCKED;
+            }
+
+            return issueTokens(user, refreshTokenService.rotate(current));
+        } finally {
+            Tracing.end(span);
+        }
     }
 
+    // Stateless: signature and expiry only. Disabled or locked accounts are cut off at the next refresh,
+    // i.e. within one access-token lifetime.
     public User validateToken(String token) throws AuthException {
         if (token == null || token.isEmpty()) {
-            throw new AuthException.UnauthorizedException("Token-ul nu poate fi gol");
+            throw AuthFailures.EMPTY_TOKEN;
+        }
+
+        TokenClaims claims = jwtUtil.parseToken(token);
+        User user = User.builder()
+                .id(claims.getUserId())
+                .username(claims.getSubject())
+                .build();
+        for (String role : claims.getRoles()) {
+            user.addRole(new Role(null, role));
         }
+        return user;
+    }
 
+    /**
+     * Validates many tokens for a gateway in one call. Signatures are checked in parallel; unlike the
+     * single-token path, account state is also checked, with one query for all distinct users.
+     * Results are returned in the order of the input tokens.
+     */
+    public List<TokenValidationResult> validateTokens(List<String> tokens) {
+        int count = tokens.size();
+        TokenClaims[] claims = new TokenClaims[count];
+        TokenValidationResult[] results = new TokenValidationResult[count];
+
+        IntStream indexes = IntStream.range(0, count);
+        if (count >= PARALLEL_VALIDATION_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> {
             try {
-                if (jwtUtil.validateToken(token)) {
-                    throw new AuthException.InvalidTokenException();
+                TokenClaims parsed = jwtUtil.parseToken(tokens.get(i));
+                if (parsed.getUserId() == null) {
+                    throw AuthFailures.INVALID_TOKEN;
                 }
+                claims[i] = parsed;
+            } catch (AuthException e) {
+                results[i] = TokenValidationResult.invalid(e.getMessage());
+            }
+        });
 
-                String username = jwtUtil.getUsernameFromToken(token);
-                User user = userRepository.findByUsername(username)
-                        .orElseThrow(() -> new AuthException.UserNotFoundException(username));
-
-                if (!user.isEnabled()) {
-                    throw new AuthException.UnauthorizedException("Account is disabled");
-                }
+        Set<Long> userIds = new HashSet<>();
+        for (TokenClaims parsed : claims) {
+            if (parsed != null) {
+                userIds.add(parsed.getUserId());
+            }
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
 
-                if (!user.isAccountNonLocked()) {
-                    throw new AuthException.UnauthorizedException("Account is locked");
-                }
-                return user;
-            } catch (ExpiredJwtException e) {
-                throw new AuthException.TokenExpiredException();
-            } catch (JwtException e) {
-                throw new AuthException.UnauthorizedException("Invalid token format");
+        for (int i = 0; i < count; i++) {
+            if (claims[i] == null) {
+                continue;
             }
+            User user = users.get(claims[i].getUserId());
+            if (user == null) {
+                results[i] = TokenValidationResult.invalid("User not found");
+            } else if (!user.isEnabled()) {
+                results[i] = TokenValidationResult.invalid("Account is disabled");
+            } else if (!user.isAccountNonLocked()) {
+                results[i] = TokenValidationResult.invalid("Account is locked");
+            } else {
+                results[i] = TokenValidationResult.valid(claims[i].getSubject(), claims[i].getUserId(),
+                        claims[i].getRoles());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private AuthTokens issueTokens(User user, String refreshToken) {
+        return new AuthTokens(jwtUtil.generateToken(user), refreshToken, jwtUtil.getAccessTokenTtlSeconds());
     }
 
     public void changePassword(Long userId, String oldPassword, String newPassword) throws AuthException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new AuthException.UserNotFoundException("User not found"));
+        User user = loadUser(userId);
+        String encodedPassword = prepareNewPassword(user, oldPassword, newPassword);
+        storeNewPassword(user, encodedPassword);
+    }
 
-        //verificarea parolei vechi
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
-            throw new AuthException("Current password is incorrect");
+    // I/O stage
+    User loadUser(Long userId) throws AuthException {
+        int span = Tracing.begin("AuthService.loadUser");
+        try {
+            return userRepository.findById(userId)
+                    .orElseThrow(() -> new AuthException.UserNotFoundException("User not found"));
+        } finally {
+            Tracing.end(span);
+        }
+    }
+
+    // CPU stage: verifies the old password and returns the encoded new one
+    String prepareNewPassword(User user, String oldPassword, String newPassword) throws AuthException {
+        int span = Tracing.begin("AuthService.prepareNewPassword");
+        try {
+            //verificarea parolei vechi
+            if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+                throw new AuthException("Current password is incorrect");
+            }
+
+            //validarea parolei noi
+            validatePassword(newPassword);
+            if (passwordEncoder.matches(newPassword, user.getPassword())) {
+                throw new AuthException("Parola noua trebuie sa fie diferita de cea veche");
+            }
+            return passwordEncoder.encode(newPassword);
+        } finally {
+            Tracing.end(span);
         }
+    }
 
-        //validarea parolei noi
-        validatePassword(newPassword);
-        if (passwordEncoder.matches(newPassword, user.getPassword())) {
-            throw new AuthException("Parola noua trebuie sa fie diferita de cea veche");
+    // I/O stage. On a conflicting update the user is read again and the new password reapplied, as long as
+    // the stored one is still the one prepareNewPassword verified against.
+    void storeNewPassword(User user, String encodedPassword) throws AuthException {
+        int span = Tracing.begin("AuthService.storeNewPassword");
+        try {
+            String verifiedHash = user.getPassword();
+            conflictRetry.run(attempt -> {
+                User current = attempt == 0 ? user : loadUser(user.getId());
+                if (!current.getPassword().equals(verifiedHash)) {
+                    throw new AuthException("Password was changed concurrently");
+                }
+                current.setPassword(encodedPassword);
+                current.setCredentialsNonExpired(true);
+                return userRepository.save(current);
+            });
+
+            // Sessions started with the old password must log in again
+            refreshTokenService.revokeAll(user.getId());
+        } finally {
+            Tracing.end(span);
         }
-        user.setPassword(passwordEncoder.encode(newPassword));
-        user.setCredentialsNonExpired(true);
-        userRepository.save(user);
     }
 
-    private void validateSignupRequest(SignupRequest request) throws AuthException {
+    // Shared with ReactiveAuthService
+    static void validateSignupRequest(SignupRequest request) throws AuthException {
+        if (!isValidEmail(request.getEmail())) {
+            throw new AuthException("Invalid email format");
+        }
         try {
             request.validate();
         } catch (IllegalArgumentException e) {
@@ -214,30 +440,14 @@ public class AuthService {
         }
     }
 
-    private void validatePassword(String password) throws AuthException {
-
-        if (password == null || password.trim().isEmpty() || password.length() < 8) {
-            throw new AuthException("Password must be at least 8 characters long");
-        }
-        if (!password.matches(".*[A-Z].*")) {
-            throw new AuthException("Password must contain at least one uppercase letter");
-        }
-        if (!password.matches(".*[a-z].*")) {
-            throw new AuthException("Password must contain at least one lowercase letter");
-        }
-        if (!password.matches(".*\\d.*")) {
-            throw new AuthException("Password must contain at least one number");
-        }
-        if (!password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*")) {
-            throw new AuthException("Password must contain at least one special character");
+    static void validatePassword(String password) throws AuthException {
+        String error = PASSWORD_POLICY.firstMessage(password);
+        if (error != null) {
+            throw new AuthException(error);
         }
     }
 
-    private boolean isValidEmail(String email) {
-        if (email == null) {
-            return false;
-        }
-        String emailRegex = "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$";
-        return email.matches(emailRegex);
+    private static boolean isValidEmail(String email) {
+        return EMAIL_POLICY.isValid(email);
     }
 }
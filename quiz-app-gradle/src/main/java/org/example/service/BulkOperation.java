@@ -0,0 +1,99 @@
+package org.example.service;
+
+import org.example.model.Role;
+import org.example.repository.UserRepository;
+
+import java.util.List;
+import java.util.Locale;
+
+// An account change UserService.bulk applies to many users, a chunk of ids at a time
+public final class BulkOperation {
+    @FunctionalInterface
+    interface Chunk {
+        // Returns how many of the ids changed
+        int apply(UserRepository repository, List<Long> ids);
+    }
+
+    private final String name;
+    private final Chunk chunk;
+
+    private BulkOperation(String name, Chunk chunk) {
+        this.name = name;
+        this.chunk = chunk;
+    }
+
+    public static BulkOperation lock() {
+        return new BulkOperation("lock", (repository, ids) -> repository.setAccountNonLocked(ids, false));
+    }
+
+    public static BulkOperation unlock() {
+        return new BulkOperation("unlock", (repository, ids) -> repository.setAccountNonLocked(ids, true));
+    }
+
+    public static BulkOperation enable() {
+        return new BulkOperation("enable", (repository, ids) -> repository.setEnabled(ids, true));
+    }
+
+    public static BulkOperation disable() {
+        return new BulkOperation("disable", (repository, ids) -> repository.setEnabled(ids, false));
+    }
+
+    public static BulkOperation addRole(Role.RoleType role) {
+        return new BulkOperation("add-role " + role.getValue(),
+                (repository, ids) -> repository.addRole(ids, role.getValue()));
+    }
+
+    public static BulkOperation removeRole(Role.RoleType role) {
+        return new BulkOperation("remove-role " + role.getValue(),
+                (repository, ids) -> repository.removeRole(ids, role.getValue()));
+    }
+
+    public static BulkOperation delete() {
+        return new BulkOperation("delete", UserRepository::deleteAllById);
+    }
+
+    // By the names the admin API takes; role is only read for add-role and remove-role
+    public static BulkOperation parse(String name, String role) {
+        if (name == null) {
+            throw new IllegalArgumentException("Operation is required");
+        }
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "lock":
+                return lock();
+            case "unlock":
+                return unlock();
+            case "enable":
+                return enable();
+            case "disable":
+                return disable();
+            case "add-role":
+                return addRole(roleType(role));
+            case "remove-role":
+                return removeRole(roleType(role));
+            case "delete":
+                return delete();
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+    }
+
+    private static Role.RoleType roleType(String role) {
+        if (role == null) {
+            throw new IllegalArgumentException("Role is required");
+        }
+        return Role.RoleType.parse(role);
+    }
+
+    int apply(UserRepository repository, List<Long> ids) {
+        return chunk.apply(repository, ids);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
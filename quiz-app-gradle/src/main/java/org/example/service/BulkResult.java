@@ -0,0 +1,21 @@
+package org.example.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Progress of a bulk operation after a chunk, and its outcome after the last one
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkResult {
+    private final String operation;
+    // Ids requested, or -1 when selected by criteria (not known until the walk ends)
+    private final long requested;
+    // Ids gone through so far, and how many of those users actually changed
+    private final long processed;
+    private final long changed;
+    private final int chunks;
+    private final long elapsedMillis;
+    private final boolean done;
+}
@@ -0,0 +1,99 @@
+package org.example.service;
+
+import org.example.config.PropertyLoader;
+import org.example.exception.AuthException;
+import org.example.exception.OptimisticLockException;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reruns a read-modify-write of a user when its compare-and-set update loses to a concurrent one. Each
+ * attempt must read the row again, so the change is reapplied on top of the other writer's. Between
+ * attempts it sleeps a random time below an exponentially growing cap (full jitter), so writers that
+ * collided once don't collide again in lockstep; after maxAttempts the OptimisticLockException is thrown.
+ */
+public class ConflictRetry {
+    private static final Logger logger = LoggerFactory.getLogger(ConflictRetry.class);
+
+    private static final Counter RETRIED = Metrics.counter("user_update_conflicts_total", "outcome=\"retried\"");
+    private static final Counter EXHAUSTED = Metrics.counter("user_update_conflicts_total", "outcome=\"exhausted\"");
+
+    @FunctionalInterface
+    public interface Attempt<T> {
+        // attempt is 0 for the first run
+        T run(int attempt) throws AuthException;
+    }
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public ConflictRetry(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static ConflictRetry fromConfiguration() {
+        int maxAttempts = Integer.parseInt(PropertyLoader.getProperty("users.optimistic.max-attempts", "5"));
+        long backoff = Long.parseLong(PropertyLoader.getProperty("users.optimistic.backoff-ms", "5"));
+        long maxBackoff = Long.parseLong(PropertyLoader.getProperty("users.optimistic.max-backoff-ms", "100"));
+        return new ConflictRetry(maxAttempts, backoff, maxBackoff);
+    }
+
+    public <T> T run(Attempt<T> work) throws AuthException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return work.run(attempt);
+            } catch (OptimisticLockException e) {
+                if (attempt + 1 >= maxAttempts) {
+                    EXHAUSTED.increment();
+                    logger.warn("Giving up on user {} after {} conflicting updates", e.getId(), maxAttempts);
+                    throw e;
+                }
+                RETRIED.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    // The same policy for a reactive chain that re-reads the user when resubscribed
+    public Retry reactive() {
+        return Retry.backoff(maxAttempts - 1, Duration.ofMillis(Math.max(1, baseBackoffMillis)))
+                .maxBackoff(Duration.ofMillis(Math.max(1, maxBackoffMillis)))
+                .jitter(1.0)
+                .filter(OptimisticLockException.class::isInstance)
+                .doBeforeRetry(signal -> RETRIED.increment())
+                .onRetryExhaustedThrow((spec, signal) -> {
+                    EXHAUSTED.increment();
+                    return signal.failure();
+                });
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        if (cap <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a conflicting update", e);
+        }
+    }
+}
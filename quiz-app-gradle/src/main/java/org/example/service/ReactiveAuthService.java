@@ -0,0 +1,158 @@
+package org.example.service;
+
+import org.example.dto.LoginRequest;
+import org.example.dto.SignupRequest;
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.ReactiveUserRepository;
+import org.example.security.AuthTokens;
+import org.example.security.JwtUtil;
+import org.example.security.TokenClaims;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+
+/**
+ * AuthService for the reactive deployment mode. Database calls never block a thread; BCrypt is the only
+ * blocking work and runs on the bounded {@code hashing} scheduler, so it cannot starve the event loop.
+ * Business rules and error messages match AuthService.
+ */
+public class ReactiveAuthService {
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveRefreshTokenService refreshTokenService;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtUtil jwtUtil;
+    private final Scheduler hashing;
+    private final ConflictRetry conflictRetry = ConflictRetry.fromConfiguration();
+
+    public ReactiveAuthService(ReactiveUserRepository userRepository,
+                               ReactiveRefreshTokenService refreshTokenService,
+                               PasswordEncoder passwordEncoder,
+                               JwtUtil jwtUtil,
+                               Scheduler hashing) {
+        this.userRepository = userRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtUtil = jwtUtil;
+        this.hashing = hashing;
+    }
+
+    public Mono<AuthTokens> login(LoginRequest loginRequest) {
+        if (loginRequest.getUsername() == null || loginRequest.getPassword() == null) {
+            return Mono.error(new AuthException("Username and password are required"));
+        }
+
+        return userRepository.findByUsername(loginRequest.getUsername())
+                .switchIfEmpty(Mono.error(AuthFailures.INVALID_CREDENTIALS))
+                .flatMap(user -> hash(() -> checkLoginPassword(user, loginRequest.getPassword())))
+                // Like AuthService.completeLogin, login writes nothing to users
+                .flatMap(user -> refreshTokenService.issue(user.getId())
+                        .map(refreshToken -> issueTokens(user, refreshToken)));
+    }
+
+    public Mono<Void> register(SignupRequest signupRequest) {
+        return Mono.fromCallable(() -> {
+                    AuthService.validateSignupRequest(signupRequest);
+                    return signupRequest;
+                })
+                .flatMap(request -> userRepository.existsByUsername(request.getUsername()))
+                .flatMap(usernameTaken -> usernameTaken
+                        ? Mono.<Boolean>error(new AuthException.UserAlreadyExistsException("Username already registered"))
+                        : userRepository.existsByEmail(signupRequest.getEmail()))
+                .flatMap(emailTaken -> emailTaken
+                        ? Mono.<String>error(new AuthException.UserAlreadyExistsException("Email already registered"))
+                        : hash(() -> passwordEncoder.encode(signupRequest.getPassword())))
+                .flatMap(encodedPassword -> {
+                    User user = User.builder()
+                            .username(signupRequest.getUsername())
+                            .password(encodedPassword)
+                            .email(signupRequest.getEmail())
+                            .enabled(true)
+                            .accountNonExpired(true)
+                            .credentialsNonExpired(true)
+                            .accountNonLocked(true)
+                            .build();
+                    user.addRole(Role.user());
+                    return userRepository.save(user)
+                            .onErrorMap(e -> !(e instanceof AuthException),
+                                    e -> new AuthException("Error during user registration", e));
+                })
+                .then();
+    }
+
+    public Mono<AuthTokens> refreshToken(String refreshToken) {
+        return refreshTokenService.consume(refreshToken)
+                .flatMap(current -> userRepository.findById(current.getUserId())
+                        .switchIfEmpty(Mono.error(() ->
+                                new AuthException.UserNotFoundException(String.valueOf(current.getUserId()))))
+                        .flatMap(user -> {
+                            if (!user.isEnabled() || !user.isAccountNonLocked()) {
+                                return refreshTokenService.revokeFamily(current, "account disabled or locked")
+                                        .then(Mono.<AuthTokens>error(!user.isEnabled()
+                                                ? AuthFailures.ACCOUNT_DISABLED : AuthFailures.ACCOUNT_LOCKED));
+                            }
+                            return refreshTokenService.rotate(current)
+                                    .map(rotated -> issueTokens(user, rotated));
+                        }));
+    }
+
+    // Stateless, like AuthService.validateToken: signature and expiry only
+    public Mono<TokenClaims> validateToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Mono.error(AuthFailures.EMPTY_TOKEN);
+        }
+        return Mono.fromCallable(() -> jwtUtil.parseToken(token));
+    }
+
+    // A conflicting update resubscribes from findById, so the old password is checked against the row as
+    // it is now
+    public Mono<Void> changePassword(Long userId, String oldPassword, String newPassword) {
+        return userRepository.findById(userId)
+                .switchIfEmpty(Mono.error(() -> new AuthException.UserNotFoundException("User not found")))
+                .flatMap(user -> hash(() -> prepareNewPassword(user, oldPassword, newPassword))
+                        .flatMap(encodedPassword -> {
+                            user.setPassword(encodedPassword);
+                            user.setCredentialsNonExpired(true);
+                            return userRepository.save(user);
+                        }))
+                .retryWhen(conflictRetry.reactive())
+                // Sessions started with the old password must log in again
+                .flatMap(user -> refreshTokenService.revokeAll(user.getId()));
+    }
+
+    private User checkLoginPassword(User user, String password) throws AuthException {
+        if (!passwordEncoder.matches(password, user.getPassword())) {
+            throw AuthFailures.INVALID_CREDENTIALS;
+        }
+        if (!user.isEnabled()) {
+            throw AuthFailures.ACCOUNT_DISABLED;
+        }
+        if (!user.isAccountNonLocked()) {
+            throw AuthFailures.ACCOUNT_LOCKED;
+        }
+        return user;
+    }
+
+    private String prepareNewPassword(User user, String oldPassword, String newPassword) throws AuthException {
+        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+            throw new AuthException("Current password is incorrect");
+        }
+        AuthService.validatePassword(newPassword);
+        if (passwordEncoder.matches(newPassword, user.getPassword())) {
+            throw new AuthException("Parola noua trebuie sa fie diferita de cea veche");
+        }
+        return passwordEncoder.encode(newPassword);
+    }
+
+    private <T> Mono<T> hash(Callable<T> work) {
+        return Mono.fromCallable(work).subscribeOn(hashing);
+    }
+
+    private AuthTokens issueTokens(User user, String refreshToken) {
+        return new AuthTokens(jwtUtil.generateToken(user), refreshToken, jwtUtil.getAccessTokenTtlSeconds());
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.service;
+
+import org.example.config.PropertyLoader;
+import org.example.exception.AuthFailures;
+import org.example.model.RefreshToken;
+import org.example.repository.ReactiveRefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Same rotation and reuse-detection rules as RefreshTokenService, over the reactive repository
+public class ReactiveRefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRefreshTokenService.class);
+
+    private final ReactiveRefreshTokenRepository refreshTokenRepository;
+    private final Duration ttl;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public ReactiveRefreshTokenService(ReactiveRefreshTokenRepository refreshTokenRepository) {
+        this(refreshTokenRepository, Duration.ofDays(Long.parseLong(PropertyLoader.getProperty(
+                "jwt.refresh-token-ttl-days", String.valueOf(RefreshTokenService.DEFAULT_TTL_DAYS)))));
+    }
+
+    public ReactiveRefreshTokenService(ReactiveRefreshTokenRepository refreshTokenRepository, Duration ttl) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = ttl;
+    }
+
+    public Mono<String> issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    public Mono<String> rotate(RefreshToken consumed) {
+        return issue(consumed.getUserId(), consumed.getFamilyId());
+    }
+
+    public Mono<RefreshToken> consume(String presentedToken) {
+        if (presentedToken == null || presentedToken.isEmpty()) {
+            return Mono.error(AuthFailures.INVALID_TOKEN);
+        }
+
+        return refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(presentedToken))
+                .switchIfEmpty(Mono.error(AuthFailures.INVALID_TOKEN))
+                .flatMap(token -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    if (token.isRevoked() || token.getUsedAt() != null) {
+                        return revokeFamily(token, "reuse detected")
+                                .then(Mono.<RefreshToken>error(AuthFailures.INVALID_TOKEN));
+                    }
+                    if (token.isExpired(now)) {
+                        return Mono.<RefreshToken>error(AuthFailures.TOKEN_EXPIRED);
+                    }
+                    return refreshTokenRepository.markUsed(token.getId(), now)
+                            .flatMap(marked -> marked
+                                    ? Mono.just(token)
+                                    : revokeFamily(token, "concurrent reuse detected")
+                                            .then(Mono.<RefreshToken>error(AuthFailures.INVALID_TOKEN)));
+                });
+    }
+
+    public Mono<Void> revokeFamily(RefreshToken token, String reason) {
+        return refreshTokenRepository.revokeFamily(token.getFamilyId())
+                .doOnNext(revoked -> logger.warn("Revoked {} refresh tokens of user {} ({})",
+                        revoked, token.getUserId(), reason))
+                .then();
+    }
+
+    public Mono<Void> revokeAll(Long userId) {
+        return refreshTokenRepository.revokeAllForUser(userId).then();
+    }
+
+    public Mono<Integer> purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        return refreshTokenRepository.deleteExpired(cutoff, RefreshTokenService.CLEANUP_BATCH_SIZE)
+                .expand(deleted -> deleted == RefreshTokenService.CLEANUP_BATCH_SIZE
+                        ? refreshTokenRepository.deleteExpired(cutoff, RefreshTokenService.CLEANUP_BATCH_SIZE)
+                        : Mono.<Integer>empty())
+                .reduce(0, Integer::sum)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        logger.info("Purged {} expired refresh tokens", total);
+                    }
+                });
+    }
+
+    private Mono<String> issue(Long userId, String familyId) {
+        String token = RefreshTokenService.newToken(secureRandom);
+        LocalDateTime now = LocalDateTime.now();
+        return refreshTokenRepository.save(RefreshToken.builder()
+                        .userId(userId)
+                        .familyId(familyId)
+                        .tokenHash(RefreshTokenService.hash(token))
+                        .createdAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build())
+                .thenReturn(token);
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.service;
+
+import org.example.config.PropertyLoader;
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.model.RefreshToken;
+import org.example.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+    static final int CLEANUP_BATCH_SIZE = 1000;
+    static final long DEFAULT_TTL_DAYS = 30L;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration ttl;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+        this(refreshTokenRepository, Duration.ofDays(Long.parseLong(
+                PropertyLoader.getProperty("jwt.refresh-token-ttl-days", String.valueOf(DEFAULT_TTL_DAYS)))));
+    }
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, Duration ttl) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = ttl;
+    }
+
+    // Starts a new rotation chain, e.g. on login
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    // Replaces a consumed token with a new one in the same chain
+    public String rotate(RefreshToken consumed) {
+        return issue(consumed.getUserId(), consumed.getFamilyId());
+    }
+
+    /**
+     * Validates a presented refresh token and marks it used. A token that was already used or revoked
+     * means a copy is in someone else's hands, so the whole chain is revoked.
+     */
+    public RefreshToken consume(String presentedToken) throws AuthException {
+        if (presentedToken == null || presentedToken.isEmpty()) {
+            throw AuthFailures.INVALID_TOKEN;
+        }
+
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(presentedToken))
+                .orElseThrow(() -> AuthFailures.INVALID_TOKEN);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (token.isRevoked() || token.getUsedAt() != null) {
+            revokeFamily(token, "reuse detected");
+            throw AuthFailures.INVALID_TOKEN;
+        }
+        if (token.isExpired(now)) {
+            throw AuthFailures.TOKEN_EXPIRED;
+        }
+        // Two concurrent refreshes with the same token: only one may win
+        if (!refreshTokenRepository.markUsed(token.getId(), now)) {
+            revokeFamily(token, "concurrent reuse detected");
+            throw AuthFailures.INVALID_TOKEN;
+        }
+        return token;
+    }
+
+    public void revokeFamily(RefreshToken token, String reason) {
+        int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId());
+        logger.warn("Revoked {} refresh tokens of user {} ({})", revoked, token.getUserId(), reason);
+    }
+
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId);
+    }
+
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpired(cutoff, CLEANUP_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == CLEANUP_BATCH_SIZE);
+
+        if (total > 0) {
+            logger.info("Purged {} expired refresh tokens", total);
+        }
+        return total;
+    }
+
+    private String issue(Long userId, String familyId) {
+        String token = newToken(secureRandom);
+
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .userId(userId)
+                .familyId(familyId)
+                .tokenHash(hash(token))
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+        return token;
+    }
+
+    static String newToken(SecureRandom random) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // 256 random bits need no salt or slow hash; a plain digest keeps the lookup indexable
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
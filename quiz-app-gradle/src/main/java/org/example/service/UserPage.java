@@ -0,0 +1,17 @@
+package org.example.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.example.repository.UserSummary;
+
+import java.util.List;
+
+// A page of UserService.searchUsers; nextCursor fetches the following one and is null on the last page
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserPage {
+    private final List<UserSummary> users;
+    private final String nextCursor;
+}
@@ -1,19 +1,64 @@
 package org.example.service;
 
+import org.example.config.PropertyLoader;
 import org.example.exception.AuthException;
 import org.example.model.Role;
 import org.example.model.User;
+import org.example.repository.UserCriteria;
 import org.example.repository.UserRepository;
+import org.example.repository.UserSort;
+import org.example.repository.UserSummary;
+import org.example.validation.EmailPolicy;
+import org.example.validation.PasswordPolicy;
+import org.example.validation.Rule;
+import org.example.validation.UsernamePolicy;
 import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class UserService {
+    private static final UsernamePolicy USERNAME_POLICY = UsernamePolicy.builder()
+            .message(Rule.REQUIRED, "Username cannot be empty")
+            .build();
+    private static final EmailPolicy EMAIL_POLICY = EmailPolicy.builder()
+            .syntax(EmailPolicy.Syntax.LENIENT)
+            .message(Rule.REQUIRED, "Invalid email format")
+            .build();
+    private static final PasswordPolicy PASSWORD_POLICY = PasswordPolicy.builder()
+            .message(Rule.REQUIRED, "Password cannot be empty")
+            .build();
+
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
+    private final ConflictRetry conflictRetry;
+    private final int bulkChunkSize;
 
     public UserService(UserRepository userRepository) {
+        this(userRepository, ConflictRetry.fromConfiguration());
+    }
+
+    public UserService(UserRepository userRepository, ConflictRetry conflictRetry) {
+        this(userRepository, conflictRetry,
+                Integer.parseInt(PropertyLoader.getProperty("users.bulk.chunk-size", "1000")));
+    }
+
+    // Each update below reads the user afresh on every attempt, so a retried one applies on top of the
+    // concurrent write it lost to instead of overwriting it
+    public UserService(UserRepository userRepository, ConflictRetry conflictRetry, int bulkChunkSize) {
         this.userRepository = userRepository;
+        this.conflictRetry = conflictRetry;
+        this.bulkChunkSize = bulkChunkSize;
     }
 
     public User getUserById(Long id) throws AuthException {
@@ -31,11 +76,9 @@ public class UserService {
     }
 
     private void validateUsername(String username, Long excludeUserId) throws AuthException {
-        if (username == null || username.trim().isEmpty()) {
-            throw new AuthException("Username cannot be empty");
-        }
-        if (username.length() < 3 || username.length() > 50) {
-            throw new AuthException("Username must be between 3 and 50 characters");
+        String error = USERNAME_POLICY.firstMessage(username);
+        if (error != null) {
+            throw new AuthException(error);
         }
 
         Optional<User> existingUser = userRepository.findByUsername(username);
@@ -46,29 +89,15 @@ public class UserService {
     }
 
     private void validateEmail(String email) throws AuthException {
-        if (email != null && !email.matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
+        if (email != null && !EMAIL_POLICY.isValid(email)) {
             throw new AuthException("Invalid email format");
         }
     }
 
     private void validatePassword(String password) throws AuthException {
-        if (password == null || password.trim().isEmpty()) {
-            throw new AuthException("Password cannot be empty");
-        }
-        if (password.length() < 8) {
-            throw new AuthException("Password must be at least 8 characters long");
-        }
-        if (!password.matches(".*[A-Z].*")) {
-            throw new AuthException("Password must contain at least one uppercase letter");
-        }
-        if (!password.matches(".*[a-z].*")) {
-            throw new AuthException("Password must contain at least one lowercase letter");
-        }
-        if (!password.matches(".*\\d.*")) {
-            throw new AuthException("Password must contain at least one number");
-        }
-        if (!password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*")) {
-            throw new AuthException("Password must contain at least one special character");
+        String error = PASSWORD_POLICY.firstMessage(password);
+        if (error != null) {
+            throw new AuthException(error);
         }
     }
 
@@ -97,6 +126,55 @@ public class UserService {
     }
 
 
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Keyset pagination over the users matching criteria. The cursor is opaque to callers: the sort it was
+     * made for and the last row's value of that column, so a cursor is only accepted with the same sort.
+     */
+    public UserPage searchUsers(UserCriteria criteria, UserSort sort, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String after = cursor != null ? decodeCursor(cursor, sort) : null;
+        // One extra row tells whether there is a next page
+        List<UserSummary> users = userRepository.search(criteria, sort, after, limit + 1);
+        if (users.size() <= limit) {
+            return new UserPage(users, null);
+        }
+        List<UserSummary> page = users.subList(0, limit);
+        UserSummary last = page.get(limit - 1);
+        String key = switch (sort) {
+            case ID -> String.valueOf(last.getId());
+            case USERNAME -> last.getUsername();
+            case EMAIL -> last.getEmail();
+        };
+        return new UserPage(List.copyOf(page), encodeCursor(sort, key));
+    }
+
+    private static String encodeCursor(UserSort sort, String key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sort.name() + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor, UserSort sort) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String prefix = sort.name() + ":";
+        if (!decoded.startsWith(prefix)) {
+            throw new IllegalArgumentException("Cursor does not match sort " + sort.name().toLowerCase(Locale.ROOT));
+        }
+        String key = decoded.substring(prefix.length());
+        if (sort == UserSort.ID && !key.matches("\\d{1,18}")) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return key;
+    }
+
     public User getUserByUsername(String username) throws AuthException {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new AuthException("User not found with username: " + username));
@@ -104,19 +182,21 @@ public class UserService {
 
     // Update operations
     public User updateUser(Long id, User userDetails) throws AuthException {
-        User user = getUserById(id);
+        return conflictRetry.run(attempt -> {
+            User user = getUserById(id);
 
-        if (userDetails.getUsername() != null && !userDetails.getUsername().isEmpty()) {
-            validateUsername(userDetails.getUsername(), id);
-            user.setUsername(userDetails.getUsername());
-        }
+            if (userDetails.getUsername() != null && !userDetails.getUsername().isEmpty()) {
+                validateUsername(userDetails.getUsername(), id);
+                user.setUsername(userDetails.getUsername());
+            }
 
-        if (userDetails.getEmail() != null) {
-            validateEmail(userDetails.getEmail());
-            user.setEmail(userDetails.getEmail());
-        }
+            if (userDetails.getEmail() != null) {
+                validateEmail(userDetails.getEmail());
+                user.setEmail(userDetails.getEmail());
+            }
 
-        return userRepository.save(user);
+            return userRepository.save(user);
+        });
     }
 
     // Delete operations
@@ -129,61 +209,146 @@ public class UserService {
 
     // Role management
     public User addRoleToUser(Long userId, Role.RoleType roleType) throws AuthException {
-        User user = getUserById(userId);
-        Role role = new Role(roleType);
-        user.addRole(role);
-        return userRepository.save(user);
+        return modify(userId, user -> user.addRole(new Role(roleType)));
     }
 
     public User removeRoleFromUser(Long userId, Role.RoleType roleType) throws AuthException {
-        User user = getUserById(userId);
-        Role role = new Role(roleType);
-        user.removeRole(role);
-        return userRepository.save(user);
+        return modify(userId, user -> user.removeRole(new Role(roleType)));
     }
 
     // Account status management
     public User enableUser(Long id) throws AuthException {
-        User user = getUserById(id);
-        user.setEnabled(true);
-        return userRepository.save(user);
+        return modify(id, user -> user.setEnabled(true));
     }
 
     public User disableUser(Long id) throws AuthException {
-        User user = getUserById(id);
-        user.setEnabled(false);
-        return userRepository.save(user);
+        return modify(id, user -> user.setEnabled(false));
     }
 
     public User lockUser(Long id) throws AuthException {
-        User user = getUserById(id);
-        user.setAccountNonLocked(false);
-        return userRepository.save(user);
+        return modify(id, user -> user.setAccountNonLocked(false));
     }
 
     public User unlockUser(Long id) throws AuthException {
-        User user = getUserById(id);
-        user.setAccountNonLocked(true);
-        return userRepository.save(user);
+        return modify(id, user -> user.setAccountNonLocked(true));
+    }
+
+    // Bulk operations: set-based, bulkChunkSize users per statement and transaction, so a chunk holds its
+    // row locks briefly and a failure leaves the chunks before it applied. progress gets a BulkResult after
+    // every chunk (done on the last).
+
+    // Ids are deduplicated and sorted, so concurrent bulk runs lock rows in the same order
+    public BulkResult bulk(BulkOperation operation, Collection<Long> ids, Consumer<BulkResult> progress) {
+        List<Long> sorted = List.copyOf(new TreeSet<>(ids));
+        BulkRun run = new BulkRun(operation, sorted.size(), progress);
+        for (int from = 0; from < sorted.size(); from += bulkChunkSize) {
+            List<Long> chunk = sorted.subList(from, Math.min(sorted.size(), from + bulkChunkSize));
+            run.chunk(chunk, from + chunk.size() >= sorted.size());
+        }
+        return run.finish();
+    }
+
+    // Walks the matching ids in keyset order (id > last one seen), one chunk per page
+    public BulkResult bulk(BulkOperation operation, UserCriteria criteria, Consumer<BulkResult> progress) {
+        if (criteria.isEmpty()) {
+            throw new IllegalArgumentException("Criteria must select something; pass ids to change everyone");
+        }
+        BulkRun run = new BulkRun(operation, -1, progress);
+        long afterId = 0;
+        List<Long> chunk;
+        do {
+            chunk = userRepository.findIds(criteria, afterId, bulkChunkSize);
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1);
+                run.chunk(chunk, chunk.size() < bulkChunkSize);
+            }
+        } while (chunk.size() == bulkChunkSize);
+        return run.finish();
+    }
+
+    private final class BulkRun {
+        final BulkOperation operation;
+        final long requested;
+        final Consumer<BulkResult> progress;
+        final long start = System.nanoTime();
+        long processed;
+        long changed;
+        int chunks;
+        BulkResult last;
+
+        BulkRun(BulkOperation operation, long requested, Consumer<BulkResult> progress) {
+            this.operation = operation;
+            this.requested = requested;
+            this.progress = progress;
+        }
+
+        void chunk(List<Long> ids, boolean lastChunk) {
+            try {
+                changed += operation.apply(userRepository, ids);
+            } catch (RuntimeException e) {
+                logger.error("Bulk {} failed after {} of {} users ({} changed)", operation, processed,
+                        requested < 0 ? "matching" : requested, changed, e);
+                throw e;
+            }
+            processed += ids.size();
+            chunks++;
+            report(lastChunk);
+        }
+
+        BulkResult finish() {
+            if (last == null || !last.isDone()) {
+                report(true);
+            }
+            logger.info("Bulk {}: {} users, {} changed, {} chunks in {} ms", operation, processed, changed,
+                    chunks, last.getElapsedMillis());
+            return last;
+        }
+
+        private void report(boolean done) {
+            last = new BulkResult(operation.getName(), requested, processed, changed, chunks,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), done);
+            if (progress != null) {
+                progress.accept(last);
+            }
+        }
     }
 
     // Password management
+    // The old password is checked on the first read only; a retry still requires the hash it was checked
+    // against, so a password changed in between is not overwritten
     public void changePassword(Long userId, String oldPassword, String newPassword) throws AuthException {
-        User user = getUserById(userId);
-        if (!verifyPassword(oldPassword, user.getPassword())) {
+        User current = getUserById(userId);
+        if (!verifyPassword(oldPassword, current.getPassword())) {
             throw new AuthException("Current password is incorrect");
         }
         validatePassword(newPassword);
-        user.setPassword(hashPassword(newPassword));
-        userRepository.save(user);
+        String verifiedHash = current.getPassword();
+        String newHash = hashPassword(newPassword);
+        conflictRetry.run(attempt -> {
+            User user = attempt == 0 ? current : getUserById(userId);
+            if (!user.getPassword().equals(verifiedHash)) {
+                throw new AuthException("Password was changed concurrently");
+            }
+            user.setPassword(newHash);
+            return userRepository.save(user);
+        });
     }
 
     public void resetPassword(Long userId, String newPassword) throws AuthException {
-        User user = getUserById(userId);
         validatePassword(newPassword);
-        user.setPassword(hashPassword(newPassword));
-        user.setCredentialsNonExpired(true);
-        userRepository.save(user);
+        String newHash = hashPassword(newPassword);
+        modify(userId, user -> {
+            user.setPassword(newHash);
+            user.setCredentialsNonExpired(true);
+        });
+    }
+
+    private User modify(Long id, Consumer<User> change) throws AuthException {
+        return conflictRetry.run(attempt -> {
+            User user = getUserById(id);
+            change.accept(user);
+            return userRepository.save(user);
+        });
     }
 }
 
@@ -0,0 +1,216 @@
+package org.example.tracing;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.config.Json;
+import org.example.config.PropertyLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends finished traces to a file as OTLP/JSON, one ExportTraceServiceRequest per line (the format of
+ * the OpenTelemetry collector's file exporter and otlpjsonfile receiver), so traces can be loaded into
+ * Jaeger or Tempo without running an agent next to the app. Writing happens on a background thread;
+ * when it falls behind, traces are dropped and counted rather than slowing requests down. A write
+ * failure does not end the export: the file is reopened with backoff and the drop count keeps being logged.
+ */
+final class OtlpFileExporter {
+    private static final Logger logger = LoggerFactory.getLogger(OtlpFileExporter.class);
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final long MIN_RETRY_MILLIS = 1_000;
+    private static final long MAX_RETRY_MILLIS = 60_000;
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int SPAN_KIND_SERVER = 2;
+
+    private final Path file;
+    private final String serviceName;
+    private final BlockingQueue<RequestTrace> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LongAdder dropped = new LongAdder();
+    // Writer thread only: whether anything was written since the file was last (re)opened
+    private boolean lastWriteOk;
+
+    OtlpFileExporter(Path file, String serviceName) {
+        this.file = file;
+        this.serviceName = serviceName;
+    }
+
+    // Null unless tracing.otlp.file is set
+    static OtlpFileExporter fromConfiguration() {
+        String file = PropertyLoader.getProperty("tracing.otlp.file", "");
+        if (file.isBlank()) {
+            return null;
+        }
+        OtlpFileExporter exporter = new OtlpFileExporter(Path.of(file),
+                PropertyLoader.getProperty("tracing.otlp.service-name", "quiz-auth"));
+        Thread writer = new Thread(exporter::run, "otlp-file-exporter");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Exporting request traces to {}", file);
+        return exporter;
+    }
+
+    void export(RequestTrace trace) {
+        if (!queue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    // The writer thread reopens the file after a failure, backing off up to a minute between attempts
+    private void run() {
+        long backoffMillis = MIN_RETRY_MILLIS;
+        while (true) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                drain(out);
+            } catch (IOException e) {
+                // Backoff grows only while reopening keeps failing
+                if (lastWriteOk) {
+                    backoffMillis = MIN_RETRY_MILLIS;
+                    lastWriteOk = false;
+                }
+                logger.error("Trace export to {} failed, reopening in {} ms", file, backoffMillis, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                // Traces keep queueing meanwhile; what overflows is still counted and reported
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            reportDropped();
+            backoffMillis = Math.min(backoffMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    private void drain(OutputStream out) throws IOException, InterruptedException {
+        while (true) {
+            RequestTrace trace = queue.poll(1, TimeUnit.SECONDS);
+            if (trace == null) {
+                out.flush();
+                continue;
+            }
+            try {
+                write(out, trace);
+            } catch (IOException e) {
+                dropped.increment();
+                throw e;
+            }
+            lastWriteOk = true;
+            reportDropped();
+        }
+    }
+
+    private void reportDropped() {
+        long lost = dropped.sumThenReset();
+        if (lost > 0) {
+            logger.warn("Trace export to {} is behind or failing, dropped {} traces", file, lost);
+        }
+    }
+
+    void write(OutputStream out, RequestTrace trace) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String traceId = trace.getTraceId();
+        String rootId = spanId(random);
+        String[] spanIds = new String[trace.getSpanCount()];
+        for (int span = 0; span < spanIds.length; span++) {
+            spanIds[span] = spanId(random);
+        }
+        long start = trace.getStartEpochNanos();
+
+        try (JsonGenerator json = Json.mapper().getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("resourceSpans");
+            json.writeStartObject();
+            json.writeObjectFieldStart("resource");
+            json.writeArrayFieldStart("attributes");
+            writeAttribute(json, "service.name", serviceName);
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeArrayFieldStart("scopeSpans");
+            json.writeStartObject();
+            json.writeObjectFieldStart("scope");
+            json.writeStringField("name", "org.example.tracing");
+            json.writeEndObject();
+            json.writeArrayFieldStart("spans");
+
+            writeSpan(json, traceId, rootId, null, trace.getOperation(), SPAN_KIND_SERVER,
+                    start, start + trace.getDurationNanos(), trace.getStatus());
+            for (int span = 0; span < spanIds.length; span++) {
+                int parent = trace.getSpanParent(span);
+                long spanStart = start + trace.getSpanStartNanos(span);
+                writeSpan(json, traceId, spanIds[span], parent >= 0 ? spanIds[parent] : rootId,
+                        trace.getSpanName(span), SPAN_KIND_INTERNAL,
+                        spanStart, spanStart + trace.getSpanDurationNanos(span), -1);
+            }
+
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        out.write('\n');
+    }
+
+    // OTLP/JSON encodes 64-bit integers as strings; status is only set on the server span
+    private static void writeSpan(JsonGenerator json, String traceId, String spanId, String parentSpanId, String name,
+                                  int kind, long startNanos, long endNanos, int httpStatus) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("traceId", traceId);
+        json.writeStringField("spanId", spanId);
+        if (parentSpanId != null) {
+            json.writeStringField("parentSpanId", parentSpanId);
+        }
+        json.writeStringField("name", name);
+        json.writeNumberField("kind", kind);
+        json.writeStringField("startTimeUnixNano", Long.toString(startNanos));
+        json.writeStringField("endTimeUnixNano", Long.toString(endNanos));
+        if (httpStatus >= 0) {
+            json.writeArrayFieldStart("attributes");
+            json.writeStartObject();
+            json.writeStringField("key", "http.response.status_code");
+            json.writeObjectFieldStart("value");
+            json.writeStringField("intValue", Integer.toString(httpStatus));
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeObjectFieldStart("status");
+            // STATUS_CODE_ERROR for server errors, otherwise unset
+            if (httpStatus >= 500) {
+                json.writeNumberField("code", 2);
+            }
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeAttribute(JsonGenerator json, String key, String value) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("key", key);
+        json.writeObjectFieldStart("value");
+        json.writeStringField("stringValue", value);
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private static String spanId(ThreadLocalRandom random) {
+        return String.format("%016x", random.nextLong());
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.tracing;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The spans of one request, kept in parallel arrays so that opening a span is a few array stores.
+ * Spans nest by call order: a span opened while another is open becomes its child. A request may move
+ * between threads (the async pipeline), but only one thread works on it at a time, and each hand-off
+ * goes through a CompletableFuture, which orders the writes.
+ */
+public final class RequestTrace {
+    static final int MAX_SPANS = 32;
+
+    private final String operation;
+    private final long startNanos;
+    private final long startEpochNanos;
+
+    private final String[] names = new String[MAX_SPANS];
+    private final long[] starts = new long[MAX_SPANS];
+    private final long[] ends = new long[MAX_SPANS];
+    private final int[] parents = new int[MAX_SPANS];
+    private int count;
+    private int open = -1;
+
+    // Set once the response is out; a stage still running after a timeout stops recording
+    private volatile boolean finished;
+    private long endNanos;
+    private int status;
+    private String traceId;
+
+    RequestTrace(String operation) {
+        Instant now = Instant.now();
+        this.operation = operation;
+        this.startNanos = System.nanoTime();
+        this.startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    int begin(String name) {
+        if (finished || count == MAX_SPANS) {
+            return -1;
+        }
+        int span = count++;
+        names[span] = name;
+        starts[span] = System.nanoTime();
+        ends[span] = 0;
+        parents[span] = open;
+        open = span;
+        return span;
+    }
+
+    void end(int span) {
+        if (span < 0 || finished) {
+            return;
+        }
+        ends[span] = System.nanoTime();
+        open = parents[span];
+    }
+
+    // An interval measured elsewhere, e.g. the time a stage sat in an executor queue
+    void record(String name, long spanStartNanos, long spanEndNanos) {
+        if (finished || count == MAX_SPANS) {
+            return;
+        }
+        int span = count++;
+        names[span] = name;
+        starts[span] = spanStartNanos;
+        ends[span] = spanEndNanos;
+        parents[span] = open;
+    }
+
+    boolean finish(int status) {
+        if (finished) {
+            return false;
+        }
+        this.endNanos = System.nanoTime();
+        this.status = status;
+        this.finished = true;
+        return true;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+
+    public int getSpanCount() {
+        return count;
+    }
+
+    public String getSpanName(int span) {
+        return names[span];
+    }
+
+    // Offset from the start of the request
+    public long getSpanStartNanos(int span) {
+        return starts[span] - startNanos;
+    }
+
+    // Spans still open when the request finished (timed out) are cut at the request end
+    public long getSpanDurationNanos(int span) {
+        return (ends[span] != 0 ? ends[span] : endNanos) - starts[span];
+    }
+
+    public int getSpanParent(int span) {
+        return parents[span];
+    }
+
+    long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    // Generated on first use: only slow or exported requests need one
+    synchronized String getTraceId() {
+        if (traceId == null) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            traceId = String.format("%016x%016x", random.nextLong(), random.nextLong());
+        }
+        return traceId;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.tracing;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.config.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Logs the span breakdown of a slow request as one JSON line, so a single log search shows where the
+ * time went (queue wait, bcrypt, which query). Its own logger name lets the line be routed or silenced
+ * separately from the application log.
+ */
+final class SlowRequestLog {
+    private static final Logger logger = LoggerFactory.getLogger("org.example.tracing.slow-requests");
+
+    private SlowRequestLog() {
+    }
+
+    static void log(RequestTrace trace) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        try {
+            logger.warn(toJson(trace));
+        } catch (IOException e) {
+            logger.warn("Could not format slow request trace for {}", trace.getOperation(), e);
+        }
+    }
+
+    static String toJson(RequestTrace trace) throws IOException {
+        StringWriter out = new StringWriter(512);
+        try (JsonGenerator json = Json.mapper().getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("event", "slow_request");
+            json.writeStringField("operation", trace.getOperation());
+            json.writeNumberField("status", trace.getStatus());
+            json.writeNumberField("totalMs", millis(trace.getDurationNanos()));
+            json.writeStringField("traceId", trace.getTraceId());
+            json.writeArrayFieldStart("spans");
+            for (int span = 0; span < trace.getSpanCount(); span++) {
+                json.writeStartObject();
+                json.writeStringField("name", trace.getSpanName(span));
+                json.writeNumberField("depth", depth(trace, span));
+                json.writeNumberField("startMs", millis(trace.getSpanStartNanos(span)));
+                json.writeNumberField("durationMs", millis(trace.getSpanDurationNanos(span)));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    private static int depth(RequestTrace trace, int span) {
+        int depth = 0;
+        for (int parent = trace.getSpanParent(span); parent >= 0; parent = trace.getSpanParent(parent)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    // Microsecond precision is plenty next to bcrypt and JDBC times
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.tracing;
+
+import org.example.config.PropertyLoader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-scoped span recording. A request entry point calls {@link #start}, code on the request path
+ * brackets its stages with {@link #begin}/{@link #end}, and whoever sends the response calls
+ * {@link #finish}. Work handed to another thread carries the trace with {@link #attach}/{@link #detach}.
+ * Without a current trace (tracing off, background jobs) begin/end do nothing and cost a ThreadLocal read.
+ * <pre>
+ * int span = Tracing.begin("UserRepository.findByUsername");
+ * try { ... } finally { Tracing.end(span); }
+ * </pre>
+ */
+public final class Tracing {
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(PropertyLoader.getProperty("tracing.enabled", "true"));
+    // Negative turns the slow-request log off
+    private static final long SLOW_REQUEST_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.parseLong(PropertyLoader.getProperty("tracing.slow-request-ms", "500")));
+    private static final OtlpFileExporter EXPORTER = OtlpFileExporter.fromConfiguration();
+
+    private Tracing() {
+    }
+
+    // Starts a trace for the request on this thread; null when tracing is off
+    public static RequestTrace start(String operation) {
+        if (!ENABLED) {
+            return null;
+        }
+        RequestTrace trace = new RequestTrace(operation);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public static int begin(String name) {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? -1 : trace.begin(name);
+    }
+
+    public static void end(int span) {
+        if (span >= 0) {
+            RequestTrace trace = CURRENT.get();
+            if (trace != null) {
+                trace.end(span);
+            }
+        }
+    }
+
+    public static void record(String name, long startNanos, long endNanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.record(name, startNanos, endNanos);
+        }
+    }
+
+    // Makes trace current on this thread and returns what was current before, for detach
+    public static RequestTrace attach(RequestTrace trace) {
+        RequestTrace previous = CURRENT.get();
+        set(trace);
+        return previous;
+    }
+
+    public static void detach(RequestTrace previous) {
+        set(previous);
+    }
+
+    /**
+     * Closes the trace once the response status is known. Requests slower than tracing.slow-request-ms
+     * log their breakdown, and every trace goes to the OTLP file when one is configured. Only the first
+     * call for a trace counts.
+     */
+    public static void finish(RequestTrace trace, int status) {
+        if (trace == null || !trace.finish(status)) {
+            return;
+        }
+        if (SLOW_REQUEST_NANOS >= 0 && trace.getDurationNanos() >= SLOW_REQUEST_NANOS) {
+            SlowRequestLog.log(trace);
+        }
+        if (EXPORTER != null) {
+            EXPORTER.export(trace);
+        }
+    }
+
+    private static void set(RequestTrace trace) {
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.validation;
+
+// ASCII character classes as one table lookup, replacing the bracket expressions of the old regexes
+final class CharClasses {
+    static final int UPPER = 1;          // [A-Z]
+    static final int LOWER = 1 << 1;     // [a-z]
+    static final int DIGIT = 1 << 2;     // [0-9]
+    static final int SYMBOL = 1 << 3;    // [!@#$%^&*()_+\-=\[\]{};':"\\|,.<>/?]
+    static final int WORD = 1 << 4;      // [a-zA-Z0-9_]
+    static final int EMAIL_ATOM = 1 << 5;      // [a-zA-Z0-9_+&*-]
+    static final int EMAIL_LOCAL = 1 << 6;     // [A-Za-z0-9+_.-]
+    static final int DOMAIN_LABEL = 1 << 7;    // [a-zA-Z0-9-]
+
+    private static final int[] TABLE = new int[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            TABLE[c] = UPPER | WORD | EMAIL_ATOM | EMAIL_LOCAL | DOMAIN_LABEL;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            TABLE[c] = LOWER | WORD | EMAIL_ATOM | EMAIL_LOCAL | DOMAIN_LABEL;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            TABLE[c] = DIGIT | WORD | EMAIL_ATOM | EMAIL_LOCAL | DOMAIN_LABEL;
+        }
+        for (char c : "!@#$%^&*()_+-=[]{};':\"\\|,.<>/?".toCharArray()) {
+            TABLE[c] |= SYMBOL;
+        }
+        TABLE['_'] |= WORD | EMAIL_ATOM | EMAIL_LOCAL;
+        TABLE['+'] |= EMAIL_ATOM | EMAIL_LOCAL;
+        TABLE['-'] |= EMAIL_ATOM | EMAIL_LOCAL | DOMAIN_LABEL;
+        TABLE['&'] |= EMAIL_ATOM;
+        TABLE['*'] |= EMAIL_ATOM;
+        TABLE['.'] |= EMAIL_LOCAL;
+    }
+
+    private CharClasses() {
+    }
+
+    static int of(char c) {
+        return c < 128 ? TABLE[c] : 0;
+    }
+
+    static boolean is(char c, int charClass) {
+        return c < 128 && (TABLE[c] & charClass) != 0;
+    }
+
+    // Same test as value.trim().isEmpty(), without the copy
+    static boolean isBlank(CharSequence value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.validation;
+
+/**
+ * Email address syntax, checked by a small state machine instead of a regex.
+ * <p>
+ * {@link Syntax#STRICT} accepts what {@code ^[a-zA-Z0-9_+&*-]+(?:\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\.)+[a-zA-Z]{2,7}$}
+ * accepts; {@link Syntax#LENIENT} accepts what {@code ^[A-Za-z0-9+_.-]+@(.+)$} accepts.
+ */
+public class EmailPolicy extends FieldPolicy {
+
+    public enum Syntax { STRICT, LENIENT }
+
+    private final Syntax syntax;
+    private final int maxLength;
+
+    private EmailPolicy(Builder builder) {
+        super(builder);
+        this.syntax = builder.syntax;
+        this.maxLength = builder.maxLength;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int check(CharSequence email) {
+        if (email == null || CharClasses.isBlank(email)) {
+            return Rule.REQUIRED.bit();
+        }
+        if (email.length() > maxLength) {
+            return Rule.TOO_LONG.bit();
+        }
+        boolean valid = syntax == Syntax.STRICT ? isStrict(email) : isLenient(email);
+        return valid ? 0 : Rule.INVALID_FORMAT.bit();
+    }
+
+    // Dot-separated atoms, '@', then at least two dot-separated labels ending in a 2-7 letter TLD
+    private static boolean isStrict(CharSequence email) {
+        int length = email.length();
+        int i = 0;
+        boolean atomStarted = false;
+        for (; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                break;
+            } else if (c == '.') {
+                if (!atomStarted) {
+                    return false;
+                }
+                atomStarted = false;
+            } else if (CharClasses.is(c, CharClasses.EMAIL_ATOM)) {
+                atomStarted = true;
+            } else {
+                return false;
+            }
+        }
+        if (i == length || !atomStarted) {
+            return false;
+        }
+
+        int labels = 0;
+        int labelLength = 0;
+        boolean lettersOnly = true;
+        for (i++; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0) {
+                    return false;
+                }
+                labels++;
+                labelLength = 0;
+                lettersOnly = true;
+            } else if (CharClasses.is(c, CharClasses.DOMAIN_LABEL)) {
+                labelLength++;
+                lettersOnly &= CharClasses.is(c, CharClasses.UPPER | CharClasses.LOWER);
+            } else {
+                return false;
+            }
+        }
+        return labels > 0 && lettersOnly && labelLength >= 2 && labelLength <= 7;
+    }
+
+    // Non-empty local part of [A-Za-z0-9+_.-], '@', then anything that is not a line terminator
+    private static boolean isLenient(CharSequence email) {
+        int length = email.length();
+        int i = 0;
+        for (; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                break;
+            }
+            if (!CharClasses.is(c, CharClasses.EMAIL_LOCAL)) {
+                return false;
+            }
+        }
+        if (i == 0 || i >= length - 1) {
+            return false;
+        }
+        for (i++; i < length; i++) {
+            if (isLineTerminator(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The characters a regex '.' does not match
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    public static class Builder extends FieldPolicy.Builder<Builder> {
+        private Syntax syntax = Syntax.STRICT;
+        private int maxLength = Integer.MAX_VALUE;
+
+        private Builder() {
+            message(Rule.REQUIRED, "Email is required");
+            message(Rule.TOO_LONG, "Invalid email format");
+            message(Rule.INVALID_FORMAT, "Invalid email format");
+        }
+
+        public Builder syntax(Syntax syntax) {
+            this.syntax = syntax;
+            return this;
+        }
+
+        public Builder maxLength(int maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public EmailPolicy build() {
+            return new EmailPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.validation;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of rules for one kind of field. {@link #check} scans the value once and returns the failed
+ * rules as a bit set (see {@link Rule#bit()}), allocating nothing; messages and {@link Violation}s are
+ * only built when something failed. Each rule's message is set per policy, so call sites keep their
+ * own wording.
+ */
+public abstract class FieldPolicy {
+    private final String[] messages;
+
+    protected FieldPolicy(Builder<?> builder) {
+        this.messages = new String[Rule.values().length];
+        for (Map.Entry<Rule, String> entry : builder.messages.entrySet()) {
+            messages[entry.getKey().ordinal()] = entry.getValue();
+        }
+    }
+
+    // Failed rules as a bit set; 0 means valid
+    public abstract int check(CharSequence value);
+
+    public boolean isValid(CharSequence value) {
+        return check(value) == 0;
+    }
+
+    // Message of the first failed rule, or null if the value is valid
+    public String firstMessage(CharSequence value) {
+        int failures = check(value);
+        return failures == 0 ? null : messages[Rule.first(failures).ordinal()];
+    }
+
+    public List<Violation> validate(String field, CharSequence value) {
+        int failures = check(value);
+        if (failures == 0) {
+            return List.of();
+        }
+        List<Violation> violations = new ArrayList<>(Integer.bitCount(failures));
+        for (Rule rule : Rule.values()) {
+            if (rule.isIn(failures)) {
+                violations.add(new Violation(field, rule, messages[rule.ordinal()]));
+            }
+        }
+        return violations;
+    }
+
+    public abstract static class Builder<B extends Builder<B>> {
+        private final Map<Rule, String> messages = new EnumMap<>(Rule.class);
+
+        public B message(Rule rule, String message) {
+            messages.put(rule, message);
+            return self();
+        }
+
+        // Several rules reported with one message, e.g. a combined complexity message
+        public B message(String message, Rule... rules) {
+            for (Rule rule : rules) {
+                messages.put(rule, message);
+            }
+            return self();
+        }
+
+        // For defaults worded from other settings, such as length limits; an explicit message() wins
+        protected void defaultMessage(Rule rule, String message) {
+            messages.putIfAbsent(rule, message);
+        }
+
+        @SuppressWarnings("unchecked")
+        protected B self() {
+            return (B) this;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.validation;
+
+/**
+ * Password length and character-class requirements, checked in one pass over the characters.
+ * <p>
+ * {@link Classes#ASCII} counts [A-Z], [a-z], [0-9] and the symbols {@code !@#$%^&*()_+-=[]{};':"\|,.<>/?},
+ * exactly like the regexes it replaces; any other character is allowed but counts for nothing.
+ * {@link Classes#UNICODE} uses {@link Character#isUpperCase(char)}, {@link Character#isLowerCase(char)}
+ * and {@link Character#isDigit(char)}, and counts every other character as special.
+ */
+public class PasswordPolicy extends FieldPolicy {
+
+    public enum Classes { ASCII, UNICODE }
+
+    private final int minLength;
+    private final int maxLength;
+    private final Classes classes;
+    private final int requiredClasses;
+
+    private PasswordPolicy(Builder builder) {
+        super(builder);
+        this.minLength = builder.minLength;
+        this.maxLength = builder.maxLength;
+        this.classes = builder.classes;
+        this.requiredClasses = builder.requiredClasses;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int check(CharSequence password) {
+        if (password == null || CharClasses.isBlank(password)) {
+            return Rule.REQUIRED.bit();
+        }
+        int length = password.length();
+        int failures = 0;
+        if (length < minLength) {
+            failures |= Rule.TOO_SHORT.bit();
+        }
+        if (length > maxLength) {
+            failures |= Rule.TOO_LONG.bit();
+        }
+
+        int seen = classes == Classes.ASCII ? asciiClasses(password, length) : unicodeClasses(password, length);
+        int missing = requiredClasses & ~seen;
+        if ((missing & CharClasses.UPPER) != 0) {
+            failures |= Rule.MISSING_UPPERCASE.bit();
+        }
+        if ((missing & CharClasses.LOWER) != 0) {
+            failures |= Rule.MISSING_LOWERCASE.bit();
+        }
+        if ((missing & CharClasses.DIGIT) != 0) {
+            failures |= Rule.MISSING_DIGIT.bit();
+        }
+        if ((missing & CharClasses.SYMBOL) != 0) {
+            failures |= Rule.MISSING_SPECIAL.bit();
+        }
+        return failures;
+    }
+
+    private int asciiClasses(CharSequence password, int length) {
+        int seen = 0;
+        for (int i = 0; i < length && seen != requiredClasses; i++) {
+            seen |= CharClasses.of(password.charAt(i)) & requiredClasses;
+        }
+        return seen;
+    }
+
+    private int unicodeClasses(CharSequence password, int length) {
+        int seen = 0;
+        for (int i = 0; i < length && seen != requiredClasses; i++) {
+            char c = password.charAt(i);
+            if (Character.isUpperCase(c)) {
+                seen |= CharClasses.UPPER;
+            } else if (Character.isLowerCase(c)) {
+                seen |= CharClasses.LOWER;
+            } else if (Character.isDigit(c)) {
+                seen |= CharClasses.DIGIT;
+            } else {
+                seen |= CharClasses.SYMBOL;
+            }
+        }
+        return seen & requiredClasses;
+    }
+
+    public static class Builder extends FieldPolicy.Builder<Builder> {
+        private int minLength = 8;
+        private int maxLength = Integer.MAX_VALUE;
+        private Classes classes = Classes.ASCII;
+        private int requiredClasses = CharClasses.UPPER | CharClasses.LOWER | CharClasses.DIGIT | CharClasses.SYMBOL;
+
+        private Builder() {
+            message(Rule.REQUIRED, "Password is required");
+            message(Rule.MISSING_UPPERCASE, "Password must contain at least one uppercase letter");
+            message(Rule.MISSING_LOWERCASE, "Password must contain at least one lowercase letter");
+            message(Rule.MISSING_DIGIT, "Password must contain at least one number");
+            message(Rule.MISSING_SPECIAL, "Password must contain at least one special character");
+        }
+
+        public Builder minLength(int minLength) {
+            this.minLength = minLength;
+            return this;
+        }
+
+        public Builder maxLength(int maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public Builder classes(Classes classes) {
+            this.classes = classes;
+            return this;
+        }
+
+        public Builder requireUppercase(boolean required) {
+            return require(CharClasses.UPPER, required);
+        }
+
+        public Builder requireLowercase(boolean required) {
+            return require(CharClasses.LOWER, required);
+        }
+
+        public Builder requireDigit(boolean required) {
+            return require(CharClasses.DIGIT, required);
+        }
+
+        public Builder requireSpecial(boolean required) {
+            return require(CharClasses.SYMBOL, required);
+        }
+
+        private Builder require(int charClass, boolean required) {
+            requiredClasses = required ? requiredClasses | charClass : requiredClasses & ~charClass;
+            return this;
+        }
+
+        public PasswordPolicy build() {
+            if (minLength < 0 || maxLength < minLength) {
+                throw new IllegalArgumentException("Invalid password length bounds: " + minLength + ".." + maxLength);
+            }
+            defaultMessage(Rule.TOO_SHORT, "Password must be at least " + minLength + " characters long");
+            defaultMessage(Rule.TOO_LONG, maxLength == Integer.MAX_VALUE
+                    ? "Password is too long"
+                    : "Password must not exceed " + maxLength + " characters");
+            return new PasswordPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.validation;
+
+// Rules a field can fail. The declaration order is the order in which failures are reported.
+public enum Rule {
+    REQUIRED,
+    TOO_SHORT,
+    TOO_LONG,
+    INVALID_CHARACTER,
+    MISSING_UPPERCASE,
+    MISSING_LOWERCASE,
+    MISSING_DIGIT,
+    MISSING_SPECIAL,
+    INVALID_FORMAT;
+
+    private static final Rule[] VALUES = values();
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean isIn(int failures) {
+        return (failures & bit()) != 0;
+    }
+
+    static Rule first(int failures) {
+        return VALUES[Integer.numberOfTrailingZeros(failures)];
+    }
+}
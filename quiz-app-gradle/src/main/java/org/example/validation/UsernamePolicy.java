@@ -0,0 +1,82 @@
+package org.example.validation;
+
+/**
+ * Username length bounds and, optionally, the [a-zA-Z0-9_] character set. Blank (null, empty or
+ * whitespace only) usernames fail {@link Rule#REQUIRED} and nothing else.
+ */
+public class UsernamePolicy extends FieldPolicy {
+    private final int minLength;
+    private final int maxLength;
+    private final boolean wordCharactersOnly;
+
+    private UsernamePolicy(Builder builder) {
+        super(builder);
+        this.minLength = builder.minLength;
+        this.maxLength = builder.maxLength;
+        this.wordCharactersOnly = builder.wordCharactersOnly;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int check(CharSequence username) {
+        if (username == null || CharClasses.isBlank(username)) {
+            return Rule.REQUIRED.bit();
+        }
+        int length = username.length();
+        int failures = 0;
+        if (length < minLength) {
+            failures |= Rule.TOO_SHORT.bit();
+        }
+        if (length > maxLength) {
+            failures |= Rule.TOO_LONG.bit();
+        }
+        if (wordCharactersOnly) {
+            for (int i = 0; i < length; i++) {
+                if (!CharClasses.is(username.charAt(i), CharClasses.WORD)) {
+                    failures |= Rule.INVALID_CHARACTER.bit();
+                    break;
+                }
+            }
+        }
+        return failures;
+    }
+
+    public static class Builder extends FieldPolicy.Builder<Builder> {
+        private int minLength = 3;
+        private int maxLength = 50;
+        private boolean wordCharactersOnly;
+
+        private Builder() {
+            message(Rule.REQUIRED, "Username is required");
+            message(Rule.INVALID_CHARACTER, "Username may only contain letters, numbers, and underscores");
+        }
+
+        public Builder minLength(int minLength) {
+            this.minLength = minLength;
+            return this;
+        }
+
+        public Builder maxLength(int maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public Builder wordCharactersOnly(boolean wordCharactersOnly) {
+            this.wordCharactersOnly = wordCharactersOnly;
+            return this;
+        }
+
+        public UsernamePolicy build() {
+            if (minLength < 0 || maxLength < minLength) {
+                throw new IllegalArgumentException("Invalid username length bounds: " + minLength + ".." + maxLength);
+            }
+            String length = "Username must be between " + minLength + " and " + maxLength + " characters";
+            defaultMessage(Rule.TOO_SHORT, length);
+            defaultMessage(Rule.TOO_LONG, length);
+            return new UsernamePolicy(this);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.validation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class Violation {
+    private final String field;
+    private final Rule rule;
+    private final String message;
+}
@@ -0,0 +1,56 @@
+-- Schema for running the reactive mode against in-memory H2 (reactive.r2dbc.init-schema=true),
+-- also loaded by the load harness (org.example.loadtest.AuthLoadHarness).
+-- Mirrors the MySQL tables the JDBC repositories use.
+CREATE TABLE IF NOT EXISTS users (
+    id                      BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username                VARCHAR(50)  NOT NULL,
+    password                VARCHAR(255) NOT NULL,
+    email                   VARCHAR(255) NOT NULL,
+    enabled                 BOOLEAN      NOT NULL DEFAULT TRUE,
+    account_non_expired     BOOLEAN      NOT NULL DEFAULT TRUE,
+    credentials_non_expired BOOLEAN      NOT NULL DEFAULT TRUE,
+    account_non_locked      BOOLEAN      NOT NULL DEFAULT TRUE,
+    created_at              TIMESTAMP    NOT NULL,
+    updated_at              TIMESTAMP    NOT NULL,
+    version                 BIGINT       NOT NULL DEFAULT 0,
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS roles (
+    id   BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    CONSTRAINT uk_roles_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+-- Keyset search (db/users_search_indexes.sql)
+CREATE INDEX IF NOT EXISTS idx_users_enabled_id ON users (enabled, id);
+CREATE INDEX IF NOT EXISTS idx_users_locked_id ON users (account_non_locked, id);
+CREATE INDEX IF NOT EXISTS idx_user_roles_role_user ON user_roles (role_id, user_id);
+
+MERGE INTO roles (name) KEY (name) VALUES ('ROLE_USER'), ('ROLE_ADMIN'), ('ROLE_MODERATOR');
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id     BIGINT      NOT NULL,
+    family_id   CHAR(36)    NOT NULL,
+    token_hash  CHAR(64)    NOT NULL,
+    expires_at  TIMESTAMP   NOT NULL,
+    created_at  TIMESTAMP   NOT NULL,
+    used_at     TIMESTAMP   NULL,
+    revoked     BOOLEAN     NOT NULL DEFAULT FALSE,
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires ON refresh_tokens (expires_at);
@@ -0,0 +1,18 @@
+-- Refresh tokens are looked up by hash on every /refresh, so token_hash carries a unique index.
+-- user_id and family_id are indexed for revocation, expires_at for the cleanup job.
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id     BIGINT      NOT NULL,
+    family_id   CHAR(36)    NOT NULL,
+    token_hash  CHAR(64)    NOT NULL,
+    expires_at  TIMESTAMP   NOT NULL,
+    created_at  TIMESTAMP   NOT NULL,
+    used_at     TIMESTAMP   NULL,
+    revoked     BOOLEAN     NOT NULL DEFAULT FALSE,
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX idx_refresh_tokens_expires ON refresh_tokens (expires_at);
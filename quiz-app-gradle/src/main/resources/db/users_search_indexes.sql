@@ -0,0 +1,11 @@
+-- Indexes behind GET /admin/users (JdbcUserRepository.search), which seeks on a unique column instead of
+-- using OFFSET, so every page is an index range read of `limit` rows:
+--   sort id                 PRIMARY KEY (id)
+--   sort username / email   uk_users_username / uk_users_email, which also serve the prefix filters
+--   enabled / locked        the indexes below: equality on the flag, then id in order
+--   role, sort id           driven from user_roles on (role_id, user_id), which also covers the role_id
+--                           foreign key
+-- Filters without an index of their own (e.g. a role with sort username) are checked per row along the sort.
+CREATE INDEX idx_users_enabled_id ON users (enabled, id);
+CREATE INDEX idx_users_locked_id ON users (account_non_locked, id);
+CREATE INDEX idx_user_roles_role_user ON user_roles (role_id, user_id);
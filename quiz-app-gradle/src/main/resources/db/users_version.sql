@@ -0,0 +1,3 @@
+-- Row version for optimistic concurrency: an update only applies WHERE version matches the one read, and
+-- bumps it. Existing rows start at 0.
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,193 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.config.AuthExecutors;
+import org.example.dto.LoginRequest;
+import org.example.model.User;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.security.AuthTokens;
+import org.example.security.JwtUtil;
+import org.example.service.AsyncAuthService;
+import org.example.service.AuthService;
+import org.example.service.RefreshTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncAuthServiceTest {
+    private static final String PASSWORD = "correct-horse-battery";
+
+    private HikariDataSource pool;
+    private AuthExecutors executors;
+    private AsyncAuthService service;
+    private InMemoryRefreshTokenRepository refreshTokens;
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger hashes = new AtomicInteger();
+    // Holds the single CPU thread until released, so a stage can be parked in its queue
+    private final CountDownLatch cpuBlocked = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabases.h2("async");
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        JdbcUserRepository users = new JdbcUserRepository(pool) {
+            @Override
+            public Optional<User> findByUsername(String username) {
+                lookups.incrementAndGet();
+                return super.findByUsername(username);
+            }
+        };
+        User alice = TestDatabases.user("alice");
+        alice.setPassword(bcrypt.encode(PASSWORD));
+        users.save(alice);
+
+        PasswordEncoder countingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashes.incrementAndGet();
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                hashes.incrementAndGet();
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        refreshTokens = new InMemoryRefreshTokenRepository();
+        AuthService authService = new AuthService(users, countingEncoder,
+                new JwtUtil("async-auth-service-test-secret-at-least-32-chars", 900),
+                new RefreshTokenService(refreshTokens, Duration.ofDays(1)));
+        executors = new AuthExecutors(1, 1, 1, 5000);
+        service = new AsyncAuthService(authService, executors);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cpuBlocked.countDown();
+        executors.shutdown();
+        pool.close();
+    }
+
+    private static long deadlineIn(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private void blockCpu() {
+        executors.cpu().execute(() -> {
+            try {
+                cpuBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    // Waits for tasks to finish rather than submitting one: with a queue of one, a probe task could be rejected
+    private static void awaitCompleted(Executor executor, long tasks) throws InterruptedException {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        long deadline = deadlineIn(5000);
+        while (pool.getCompletedTaskCount() < tasks) {
+            assertTrue(System.nanoTime() - deadline < 0, "Only " + pool.getCompletedTaskCount() + " of " + tasks
+                    + " tasks completed");
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitCpuQueueDepth(int depth) throws InterruptedException {
+        long deadline = deadlineIn(5000);
+        while (executors.getCpuQueueDepth() != depth) {
+            assertTrue(System.nanoTime() - deadline < 0, "CPU queue never reached " + depth);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void loginRunsThroughBothPools() throws Exception {
+        AuthTokens tokens = service.login(new LoginRequest("alice", PASSWORD), deadlineIn(5000)).get(5, TimeUnit.SECONDS);
+
+        assertNotNull(tokens.getAccessToken());
+        assertNotNull(tokens.getRefreshToken());
+        assertEquals(1, refreshTokens.all().size());
+    }
+
+    @Test
+    void expiredDeadlineSkipsEveryStage() throws Exception {
+        CompletableFuture<AuthTokens> login = service.login(new LoginRequest("alice", PASSWORD), deadlineIn(-1));
+
+        assertInstanceOf(TimeoutException.class, causeOf(login));
+        // The lookup stage ran and gave up, so nothing was handed on to the CPU pool
+        awaitCompleted(executors.io(), 1);
+        assertEquals(0, ((ThreadPoolExecutor) executors.cpu()).getTaskCount());
+        assertEquals(0, lookups.get());
+        assertEquals(0, hashes.get());
+    }
+
+    @Test
+    void deadlinePassingInAQueueSkipsTheRemainingStages() throws Exception {
+        blockCpu();
+        CompletableFuture<AuthTokens> login = service.login(new LoginRequest("alice", PASSWORD), deadlineIn(200));
+        awaitCpuQueueDepth(1);
+
+        // Times out while the password check is still queued behind the blocker
+        assertInstanceOf(TimeoutException.class, causeOf(login));
+        cpuBlocked.countDown();
+        // The blocker and the parked password check
+        awaitCompleted(executors.cpu(), 2);
+
+        assertEquals(1, lookups.get());
+        assertEquals(0, hashes.get());
+        assertTrue(refreshTokens.all().isEmpty());
+    }
+
+    @Test
+    void saturatedPoolRejectsInsteadOfQueueing() throws Exception {
+        // One thread busy and a queue of one already full
+        blockCpu();
+        blockCpu();
+
+        CompletableFuture<AuthTokens> login = service.login(new LoginRequest("alice", PASSWORD), deadlineIn(5000));
+
+        assertInstanceOf(RejectedExecutionException.class, causeOf(login));
+        assertEquals(1, lookups.get());
+        assertEquals(0, hashes.get());
+    }
+
+    @Test
+    void cancellingSkipsStagesThatHaveNotStarted() throws Exception {
+        blockCpu();
+        CompletableFuture<AuthTokens> login = service.login(new LoginRequest("alice", PASSWORD), deadlineIn(5000));
+        awaitCpuQueueDepth(1);
+
+        // What the controller does when the container times out or the client goes away
+        assertTrue(login.cancel(false));
+        cpuBlocked.countDown();
+        // The blocker and the parked password check
+        awaitCompleted(executors.cpu(), 2);
+
+        assertThrows(CancellationException.class, login::join);
+        assertEquals(0, hashes.get());
+        assertTrue(refreshTokens.all().isEmpty());
+    }
+}
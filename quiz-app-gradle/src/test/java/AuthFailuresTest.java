@@ -0,0 +1,33 @@
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthFailuresTest {
+
+    @Test
+    void sharedFailuresCarryNoStackTrace() {
+        AuthException e = AuthFailures.INVALID_TOKEN;
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals("Invalid authentication token", e.getMessage());
+        assertInstanceOf(AuthException.InvalidTokenException.class, e);
+    }
+
+    @Test
+    void sharedFailuresCannotBeModified() {
+        AuthException e = AuthFailures.INVALID_CREDENTIALS;
+        e.setStackTrace(new Throwable().getStackTrace());
+        e.addSuppressed(new IllegalStateException("suppressed"));
+        assertThrows(IllegalStateException.class, () -> e.initCause(new RuntimeException("cause")));
+
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals(0, e.getSuppressed().length);
+        assertNull(e.getCause());
+    }
+
+    @Test
+    void newExceptionsKeepTheirStackTrace() {
+        assertTrue(new AuthException.InvalidTokenException().getStackTrace().length > 0);
+    }
+}
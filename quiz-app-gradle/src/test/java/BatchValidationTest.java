@@ -0,0 +1,125 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.dto.BatchValidateRequest;
+import org.example.dto.TokenValidationResult;
+import org.example.exception.AuthFailures;
+import org.example.model.User;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.security.JwtUtil;
+import org.example.service.AuthService;
+import org.example.service.RefreshTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchValidationTest {
+    private static final String SECRET = "batch-validation-test-secret-at-least-32-chars";
+    private static final JwtUtil JWT = new JwtUtil(SECRET, 900);
+
+    private HikariDataSource pool;
+    private AuthService authService;
+    private User active;
+    private User locked;
+    private User disabled;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabases.h2("batch");
+        JdbcUserRepository users = new JdbcUserRepository(pool);
+        active = users.save(user("active", true, true));
+        locked = users.save(user("locked", true, false));
+        disabled = users.save(user("disabled", false, true));
+        authService = new AuthService(users, new BCryptPasswordEncoder(4), JWT,
+                new RefreshTokenService(new InMemoryRefreshTokenRepository(), Duration.ofDays(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private static User user(String username, boolean enabled, boolean accountNonLocked) {
+        User user = TestDatabases.user(username);
+        user.setEnabled(enabled);
+        user.setAccountNonLocked(accountNonLocked);
+        return user;
+    }
+
+    @Test
+    void eachTokenGetsItsOwnResult() {
+        User deleted = User.builder().id(987654L).username("ghost").build();
+        String expired = new JwtUtil(SECRET, -60).generateToken(active);
+        String foreign = new JwtUtil("some-other-secret-that-is-32-chars-long", 900).generateToken(active);
+
+        List<TokenValidationResult> results = authService.validateTokens(List.of(
+                JWT.generateToken(active),
+                "not-a-jwt",
+                JWT.generateToken(locked),
+                JWT.generateToken(disabled),
+                JWT.generateToken(deleted),
+                expired,
+                foreign));
+
+        assertEquals(7, results.size());
+        assertTrue(results.get(0).isValid());
+        assertEquals("active", results.get(0).getUsername());
+        assertEquals(active.getId(), results.get(0).getUserId());
+        assertEquals(List.of("ROLE_USER"), results.get(0).getRoles());
+        assertEquals(AuthFailures.INVALID_TOKEN.getMessage(), results.get(1).getMessage());
+        assertEquals("Account is locked", results.get(2).getMessage());
+        assertEquals("Account is disabled", results.get(3).getMessage());
+        assertEquals("User not found", results.get(4).getMessage());
+        assertEquals(AuthFailures.TOKEN_EXPIRED.getMessage(), results.get(5).getMessage());
+        assertEquals(AuthFailures.INVALID_TOKEN.getMessage(), results.get(6).getMessage());
+        for (TokenValidationResult result : results.subList(1, 7)) {
+            assertFalse(result.isValid());
+            assertNull(result.getUserId());
+        }
+    }
+
+    @Test
+    void largeBatchesKeepRequestOrder() {
+        // Above the parallel threshold, so signatures are checked out of order
+        List<String> tokens = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        User[] owners = {active, locked, disabled};
+        String[] outcomes = {null, "Account is locked", "Account is disabled"};
+        for (int i = 0; i < 300; i++) {
+            if (i % 7 == 0) {
+                tokens.add("garbage-" + i);
+                expected.add(AuthFailures.INVALID_TOKEN.getMessage());
+            } else {
+                tokens.add(JWT.generateToken(owners[i % owners.length]));
+                expected.add(outcomes[i % owners.length]);
+            }
+        }
+
+        List<TokenValidationResult> results = authService.validateTokens(tokens);
+
+        assertEquals(tokens.size(), results.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(expected.get(i), results.get(i).getMessage(), "token " + i);
+            assertEquals(expected.get(i) == null, results.get(i).isValid(), "token " + i);
+        }
+    }
+
+    @Test
+    void batchSizeIsLimited() {
+        assertDoesNotThrow(() -> new BatchValidateRequest(
+                Collections.nCopies(BatchValidateRequest.MAX_TOKENS, "t")).validate());
+
+        IllegalArgumentException tooMany = assertThrows(IllegalArgumentException.class, () ->
+                new BatchValidateRequest(Collections.nCopies(BatchValidateRequest.MAX_TOKENS + 1, "t")).validate());
+        assertTrue(tooMany.getMessage().contains(String.valueOf(BatchValidateRequest.MAX_TOKENS)));
+
+        assertThrows(IllegalArgumentException.class, () -> new BatchValidateRequest(List.of()).validate());
+        assertThrows(IllegalArgumentException.class, () -> new BatchValidateRequest(null).validate());
+    }
+}
@@ -0,0 +1,104 @@
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.config.BoundedBodyReader;
+import org.example.config.Json;
+import org.example.dto.LoginRequest;
+import org.example.exception.RequestBodyException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedBodyReaderTest {
+
+    private static final BoundedBodyReader<LoginRequest> READER = BoundedBodyReader.builder(LoginRequest::new)
+            .field("username", 50, LoginRequest::setUsername)
+            .field("password", 128, LoginRequest::setPassword)
+            .validator(LoginRequest::validate)
+            .maxBodyBytes(512)
+            .build();
+
+    private static LoginRequest read(String body) throws IOException {
+        return READER.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static int rejected(String body) {
+        return assertThrows(RequestBodyException.class, () -> read(body)).getStatus();
+    }
+
+    @Test
+    void readsAndValidates() throws IOException {
+        LoginRequest request = read("{\"username\":\"jane_doe\",\"password\":\"s3cret\\\"pw\"}");
+        assertEquals("jane_doe", request.getUsername());
+        assertEquals("s3cret\"pw", request.getPassword());
+
+        // validate() still runs on the parsed DTO
+        assertThrows(IllegalArgumentException.class, () -> read("{\"username\":\"jo\",\"password\":\"secret1\"}"));
+    }
+
+    @Test
+    void rejectsStructureViolations() {
+        assertEquals(400, rejected("{\"username\":\"jane_doe\",\"password\":\"secret1\",\"admin\":\"true\"}"));
+        assertEquals(400, rejected("{\"username\":\"jane_doe\",\"username\":\"john\",\"password\":\"secret1\"}"));
+        assertEquals(400, rejected("{\"username\":{\"a\":\"b\"},\"password\":\"secret1\"}"));
+        assertEquals(400, rejected("{\"username\":42,\"password\":\"secret1\"}"));
+        assertEquals(400, rejected("[\"jane_doe\"]"));
+        assertEquals(400, rejected("{\"username\":\"jane_doe\",\"password\":\"secret1\"} {}"));
+        assertEquals(400, rejected("{\"username\":\"jane_doe\",\"password\":"));
+    }
+
+    @Test
+    void rejectsOversizedInput() {
+        assertEquals(400, rejected("{\"username\":\"" + "a".repeat(51) + "\",\"password\":\"secret1\"}"));
+        assertEquals(413, rejected("{\"username\":\"jane_doe\",\"password\":\"" + "a".repeat(600) + "\"}"));
+    }
+
+    // A chunked request has no Content-Length, so only the stream limit catches it
+    private static HttpServletRequest chunked(String body) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getContentLengthLong()).thenReturn(-1L);
+        when(req.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                return in.read(buffer, offset, length);
+            }
+        });
+        return req;
+    }
+
+    @Test
+    void oversizedChunkedBatchIsTooLargeNotMalformed() throws IOException {
+        String token = "\"" + "a".repeat(1000) + "\"";
+        String oversized = "{\"tokens\":[" + String.join(",", Collections.nCopies(1100, token)) + "]}";
+
+        assertEquals(413, assertThrows(RequestBodyException.class, () -> Json.readBatch(chunked(oversized))).getStatus());
+        assertEquals(400, assertThrows(RequestBodyException.class, () -> Json.readBatch(chunked("{\"tokens\":"))).getStatus());
+        assertEquals(2, Json.readBatch(chunked("{\"tokens\":[\"a\",\"b\"]}")).getTokens().size());
+    }
+}
@@ -0,0 +1,116 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.exception.OptimisticLockException;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.UserCriteria;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.service.BulkOperation;
+import org.example.service.BulkResult;
+import org.example.service.ConflictRetry;
+import org.example.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkUserOperationsTest {
+    private HikariDataSource pool;
+    private JdbcUserRepository repository;
+    private UserService service;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabases.h2("bulk");
+        repository = new JdbcUserRepository(pool);
+        // Chunks of 4 over 10 users: two full chunks and a partial one
+        service = new UserService(repository, new ConflictRetry(1, 0, 0), 4);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(TestDatabases.user((i % 2 == 0 ? "even_" : "odd_") + i));
+        }
+        ids.addAll(TestDatabases.seed(repository, users));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void locksByIdsInChunksAndReportsProgress() {
+        List<BulkResult> progress = new ArrayList<>();
+        List<Long> requested = new ArrayList<>(ids);
+        requested.add(ids.get(0));
+        requested.add(-1L);
+
+        BulkResult result = service.bulk(BulkOperation.lock(), requested, progress::add);
+
+        assertEquals(3, progress.size());
+        assertEquals(List.of(4L, 8L, 11L), progress.stream().map(BulkResult::getProcessed).toList());
+        assertTrue(result.isDone());
+        assertEquals(11, result.getRequested());
+        assertEquals(10, result.getChanged());
+        for (Long id : ids) {
+            assertFalse(repository.findById(id).orElseThrow().isAccountNonLocked());
+        }
+
+        // Already locked: nothing changes, no version is bumped
+        assertEquals(0, service.bulk(BulkOperation.lock(), ids, null).getChanged());
+        assertEquals(1, repository.findById(ids.get(0)).orElseThrow().getVersion());
+    }
+
+    @Test
+    void addsAndRemovesRolesByCriteria() {
+        UserCriteria even = UserCriteria.builder().usernamePrefix("even_").build();
+
+        BulkResult added = service.bulk(BulkOperation.addRole(Role.RoleType.MODERATOR), even, null);
+        assertEquals(5, added.getProcessed());
+        assertEquals(5, added.getChanged());
+        assertEquals(-1, added.getRequested());
+        // Adding again is a no-op
+        assertEquals(0, service.bulk(BulkOperation.addRole(Role.RoleType.MODERATOR), even, null).getChanged());
+
+        UserCriteria moderators = UserCriteria.builder().role("ROLE_MODERATOR").build();
+        assertEquals(5, repository.findIds(moderators, 0, 100).size());
+        assertEquals(2, repository.findById(ids.get(0)).orElseThrow().getRoles().size());
+        assertEquals(1, repository.findById(ids.get(1)).orElseThrow().getRoles().size());
+
+        assertEquals(5, service.bulk(BulkOperation.removeRole(Role.RoleType.MODERATOR), moderators, null).getChanged());
+        assertTrue(repository.findIds(moderators, 0, 100).isEmpty());
+    }
+
+    @Test
+    void bulkChangeFailsAStaleSingleUpdate() {
+        User stale = repository.findById(ids.get(3)).orElseThrow();
+        service.bulk(BulkOperation.disable(), List.of(ids.get(3)), null);
+
+        stale.setEmail("changed@example.com");
+        assertThrows(OptimisticLockException.class, () -> repository.save(stale));
+        assertFalse(repository.findById(ids.get(3)).orElseThrow().isEnabled());
+    }
+
+    @Test
+    void deletesMatchingUsers() {
+        service.bulk(BulkOperation.disable(), ids.subList(0, 3), null);
+        UserCriteria disabled = UserCriteria.builder().enabled(false).build();
+
+        BulkResult result = service.bulk(BulkOperation.delete(), disabled, null);
+
+        assertEquals(3, result.getChanged());
+        assertEquals(7, repository.findAll().size());
+        assertFalse(repository.existsById(ids.get(0)));
+    }
+
+    @Test
+    void rejectsAnEmptyCriteria() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.bulk(BulkOperation.lock(), UserCriteria.builder().build(), null));
+        assertThrows(IllegalArgumentException.class, () -> BulkOperation.parse("add-role", "ROLE_ROOT"));
+        assertEquals("add-role ROLE_ADMIN", BulkOperation.parse("add-role", "admin").getName());
+    }
+}
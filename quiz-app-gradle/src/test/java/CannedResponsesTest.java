@@ -0,0 +1,48 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.config.Json;
+import org.example.controller.CannedResponses;
+import org.example.dto.ErrorResponse;
+import org.example.dto.LoginResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CannedResponsesTest {
+
+    @Test
+    void cannedErrorMatchesJackson() throws Exception {
+        for (String path : new String[]{"/api/auth/validate", "/api/auth/\"odd\\path\"", "/api/auth/é", null}) {
+            byte[] canned = CannedResponses.error(401, "Invalid authentication token", path);
+            assertNotNull(canned);
+
+            ErrorResponse decoded = Json.mapper().readValue(canned, ErrorResponse.class);
+            assertEquals("Invalid authentication token", decoded.getMessage());
+            assertEquals(path, decoded.getPath());
+            assertEquals(401, decoded.getStatus());
+
+            // Same bytes as Jackson once the timestamp is the same
+            ErrorResponse expected = new ErrorResponse("Invalid authentication token", path, 401);
+            expected.setTimestamp(decoded.getTimestamp());
+            assertEquals(new String(Json.toBytes(expected), StandardCharsets.UTF_8),
+                    new String(canned, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void cannedErrorRequiresMatchingStatusAndMessage() {
+        assertNull(CannedResponses.error(400, "Invalid authentication token", "/api/auth/validate"));
+        assertNull(CannedResponses.error(401, "Something else", "/api/auth/validate"));
+    }
+
+    @Test
+    void cannedLoginFailureMatchesJackson() throws Exception {
+        byte[] canned = CannedResponses.loginFailure("Invalid username or password");
+        assertArrayEquals(Json.toBytes(LoginResponse.error("Invalid username or password")), canned);
+
+        JsonNode tree = Json.mapper().readTree(canned);
+        assertFalse(tree.path("success").asBoolean());
+        assertNull(CannedResponses.loginFailure("Username and password are required"));
+    }
+}
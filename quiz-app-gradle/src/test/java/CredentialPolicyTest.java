@@ -0,0 +1,228 @@
+import org.example.dto.ChangePasswordRequest;
+import org.example.dto.SignupRequest;
+import org.example.validation.EmailPolicy;
+import org.example.validation.PasswordPolicy;
+import org.example.validation.Rule;
+import org.example.validation.UsernamePolicy;
+import org.example.validation.Violation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The policies replace regex and toCharArray checks; these compare them against the old rules on
+ * random inputs, so any difference in accepted values or reported message shows up here.
+ */
+class CredentialPolicyTest {
+    private static final int SAMPLES = 50_000;
+
+    // Regex '.' stops at line terminators, so the old password checks spuriously failed on them; keep them out
+    private static final String PASSWORD_ALPHABET = "aAzZmM09 5_!@#$%^&*()+-=[]{};':\"\\|,.<>/?`~\tÉßé٣Ⅻ中";
+    private static final String USERNAME_ALPHABET = "aZ09_ -.é\t";
+    private static final String EMAIL_ALPHABET = "aZ09_+&*-.@@..é #\n\u2028";
+
+    private static final Pattern STRICT_EMAIL = Pattern.compile(
+            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
+    private static final Pattern LENIENT_EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+    private static final Pattern SIGNUP_USERNAME = Pattern.compile("^[a-zA-Z0-9_]{3,30}$");
+
+    private final Random random = new Random(42);
+
+    @Test
+    void passwordPolicyMatchesRegexRules() {
+        for (int i = 0; i < SAMPLES; i++) {
+            String password = randomString(PASSWORD_ALPHABET, 14);
+            ChangePasswordRequest request = new ChangePasswordRequest();
+            request.setOldPassword("unrelated old password");
+            request.setNewPassword(password);
+            assertEquals(regexPasswordError(password), errorOf(request::validate), password);
+        }
+    }
+
+    @Test
+    void signupRulesMatchPreviousChecks() {
+        for (int i = 0; i < SAMPLES; i++) {
+            String username = random.nextInt(10) == 0 ? null : randomString(USERNAME_ALPHABET, 34);
+            String password = random.nextInt(4) == 0 ? "Valid_Pass1" : randomString(PASSWORD_ALPHABET, 14);
+            String email = random.nextBoolean() ? "user@example.com" : randomString(EMAIL_ALPHABET, 12);
+            SignupRequest request = new SignupRequest(username, password, email, password);
+            assertEquals(previousSignupError(request), errorOf(request::validate),
+                    username + " / " + email + " / " + password);
+        }
+    }
+
+    @Test
+    void validSignupIsAccepted() {
+        new SignupRequest("new_user", "Str0ng!Pass", "new.user@example.com", "Str0ng!Pass").validate();
+    }
+
+    @Test
+    void strictEmailMatchesRegex() {
+        EmailPolicy policy = EmailPolicy.builder().build();
+        for (int i = 0; i < SAMPLES; i++) {
+            String email = random.nextBoolean() ? randomString(EMAIL_ALPHABET, 16) : randomAddress();
+            assertEquals(STRICT_EMAIL.matcher(email).matches(), policy.isValid(email), email);
+        }
+        assertFalse(policy.isValid(null));
+    }
+
+    @Test
+    void lenientEmailMatchesRegex() {
+        EmailPolicy policy = EmailPolicy.builder().syntax(EmailPolicy.Syntax.LENIENT).build();
+        for (int i = 0; i < SAMPLES; i++) {
+            String email = random.nextBoolean() ? randomString(EMAIL_ALPHABET, 16) : randomAddress();
+            boolean expected = !email.trim().isEmpty() && LENIENT_EMAIL.matcher(email).matches();
+            assertEquals(expected, policy.isValid(email), email);
+        }
+    }
+
+    @Test
+    void usernamePolicyMatchesLengthRule() {
+        UsernamePolicy policy = UsernamePolicy.builder().build();
+        for (int i = 0; i < SAMPLES; i++) {
+            String username = randomString(USERNAME_ALPHABET, 55);
+            boolean expected = !username.trim().isEmpty() && username.length() >= 3 && username.length() <= 50;
+            assertEquals(expected, policy.isValid(username), username);
+        }
+    }
+
+    @Test
+    void violationsListEveryFailedRuleInOrder() {
+        PasswordPolicy policy = PasswordPolicy.builder().build();
+        List<Violation> violations = policy.validate("password", "abc");
+
+        assertEquals(List.of(Rule.TOO_SHORT, Rule.MISSING_UPPERCASE, Rule.MISSING_DIGIT, Rule.MISSING_SPECIAL),
+                violations.stream().map(Violation::getRule).toList());
+        assertEquals("password", violations.get(0).getField());
+        assertEquals("Password must be at least 8 characters long", violations.get(0).getMessage());
+        assertEquals(List.of(Rule.REQUIRED), policy.validate("password", "   ").stream().map(Violation::getRule).toList());
+        assertTrue(policy.validate("password", "Valid_Pass1").isEmpty());
+    }
+
+    @Test
+    void policiesAreConfigurable() {
+        PasswordPolicy digitsOnly = PasswordPolicy.builder()
+                .minLength(4)
+                .maxLength(6)
+                .requireUppercase(false)
+                .requireLowercase(false)
+                .requireSpecial(false)
+                .message(Rule.TOO_LONG, "PIN is too long")
+                .build();
+
+        assertTrue(digitsOnly.isValid("1234"));
+        assertEquals("PIN is too long", digitsOnly.firstMessage("1234567"));
+        assertTrue(Rule.MISSING_DIGIT.isIn(digitsOnly.check("abcd")));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.builder().minLength(9).maxLength(8).build());
+    }
+
+    @Test
+    void defaultLengthMessagesFollowTheConfiguredLimits() {
+        PasswordPolicy password = PasswordPolicy.builder().minLength(12).maxLength(64).build();
+        assertEquals("Password must be at least 12 characters long", password.firstMessage("Sh0rt!"));
+        assertEquals("Password must not exceed 64 characters", password.firstMessage("Aa1!" + "x".repeat(61)));
+
+        UsernamePolicy username = UsernamePolicy.builder().minLength(5).maxLength(20).build();
+        assertEquals("Username must be between 5 and 20 characters", username.firstMessage("abc"));
+        assertEquals("Username must be between 5 and 20 characters", username.firstMessage("a".repeat(21)));
+        assertEquals("Username must be between 3 and 50 characters", UsernamePolicy.builder().build().firstMessage("ab"));
+
+        // An explicit message still wins over the generated one
+        assertEquals("Too short", UsernamePolicy.builder().minLength(5).message(Rule.TOO_SHORT, "Too short").build()
+                .firstMessage("abc"));
+    }
+
+    private String randomString(String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return value.toString();
+    }
+
+    // Mostly well-formed addresses with occasional damage, to exercise the accepting paths
+    private String randomAddress() {
+        StringBuilder address = new StringBuilder(randomString("ab9_+&*-.", 6)).append('@');
+        int labels = random.nextInt(3);
+        for (int i = 0; i < labels; i++) {
+            address.append(randomString("ab9-", 5)).append('.');
+        }
+        return address.append(randomString("abcXYZ9", 9)).toString();
+    }
+
+    private static String errorOf(Runnable validation) {
+        try {
+            validation.run();
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String regexPasswordError(String password) {
+        if (password.trim().isEmpty()) {
+            return "New password is required";
+        }
+        if (password.length() < 8) {
+            return "New password must be at least 8 characters long";
+        }
+        if (!password.matches(".*[A-Z].*")) {
+            return "New password must contain at least one uppercase letter";
+        }
+        if (!password.matches(".*[a-z].*")) {
+            return "New password must contain at least one lowercase letter";
+        }
+        if (!password.matches(".*\\d.*")) {
+            return "New password must contain at least one number";
+        }
+        if (!password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*")) {
+            return "New password must contain at least one special character";
+        }
+        return null;
+    }
+
+    // SignupRequest's checks before the policies, minus the unconditional throw at the end
+    private static String previousSignupError(SignupRequest request) {
+        String username = request.getUsername();
+        String email = request.getEmail();
+        String password = request.getPassword();
+        if (username == null || username.trim().isEmpty()) {
+            return "Username is required";
+        }
+        if (!SIGNUP_USERNAME.matcher(username).matches()) {
+            return "Username must be 3-30 characters long and contain only letters, numbers, and underscores";
+        }
+        if (email == null || email.trim().isEmpty()) {
+            return "Email is required";
+        }
+        if (!LENIENT_EMAIL.matcher(email).matches()) {
+            return "Invalid email format";
+        }
+        if (password == null || password.trim().isEmpty()) {
+            return "Password is required";
+        }
+        if (password.length() < 8) {
+            return "Password must be at least 8 characters long";
+        }
+        if (password.length() > 100) {
+            return "Password must not exceed 100 characters";
+        }
+        boolean hasUpper = false, hasLower = false, hasDigit = false, hasSpecial = false;
+        for (char c : password.toCharArray()) {
+            if (Character.isUpperCase(c)) hasUpper = true;
+            else if (Character.isLowerCase(c)) hasLower = true;
+            else if (Character.isDigit(c)) hasDigit = true;
+            else hasSpecial = true;
+        }
+        if (!hasUpper || !hasLower || !hasDigit || !hasSpecial) {
+            return "Password must contain at least one uppercase letter, " +
+                    "one lowercase letter, one number, and one special character";
+        }
+        return null;
+    }
+}
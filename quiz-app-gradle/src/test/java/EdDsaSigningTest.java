@@ -0,0 +1,216 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.controller.JwksController;
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.security.EdDsaKeySet;
+import org.example.security.JwtUtil;
+import org.example.security.TokenClaims;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EdDsaSigningTest {
+
+    private static KeyPair newKey() throws Exception {
+        return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    }
+
+    private static User alice() {
+        User user = User.builder().id(7L).username("alice").build();
+        user.addRole(Role.user());
+        return user;
+    }
+
+    private static String keyIdOf(String token) throws Exception {
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        return new ObjectMapper().readTree(header).path("kid").asText();
+    }
+
+    @Test
+    void keyIdsAreStablePerKey() throws Exception {
+        KeyPair key = newKey();
+
+        EdDsaKeySet first = new EdDsaKeySet(key, List.of());
+        EdDsaKeySet second = new EdDsaKeySet(key, List.of());
+
+        assertEquals(first.getCurrentKeyId(), second.getCurrentKeyId());
+        assertNotEquals(first.getCurrentKeyId(), new EdDsaKeySet(newKey(), List.of()).getCurrentKeyId());
+    }
+
+    @Test
+    void jwkSetPublishesCurrentAndPreviousKeys() throws Exception {
+        KeyPair current = newKey();
+        KeyPair previous = newKey();
+        String previousKeyId = new EdDsaKeySet(previous, List.of()).getCurrentKeyId();
+
+        EdDsaKeySet keys = new EdDsaKeySet(current, List.of(previous.getPublic()));
+        List<Map<String, String>> jwks = keys.toJwks();
+
+        assertEquals(2, jwks.size());
+        assertEquals(keys.getCurrentKeyId(), jwks.get(0).get("kid"));
+        assertEquals(previousKeyId, jwks.get(1).get("kid"));
+        for (Map<String, String> jwk : jwks) {
+            assertEquals("OKP", jwk.get("kty"));
+            assertEquals("Ed25519", jwk.get("crv"));
+            assertEquals("EdDSA", jwk.get("alg"));
+            assertEquals(32, Base64.getUrlDecoder().decode(jwk.get("x")).length);
+        }
+        byte[] encoded = current.getPublic().getEncoded();
+        assertArrayEquals(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length),
+                Base64.getUrlDecoder().decode(jwks.get(0).get("x")));
+
+        assertEquals(previous.getPublic(), keys.getVerificationKey(previousKeyId));
+        assertNull(keys.getVerificationKey("unknown"));
+        assertNull(keys.getVerificationKey(null));
+    }
+
+    @Test
+    void tokensSignedBeforeARotationStillVerify() throws Exception {
+        KeyPair oldKey = newKey();
+        KeyPair newKey = newKey();
+        JwtUtil beforeRotation = new JwtUtil(null, 900, new EdDsaKeySet(oldKey, List.of()));
+        String oldToken = beforeRotation.generateToken(alice());
+
+        JwtUtil afterRotation = new JwtUtil(null, 900, new EdDsaKeySet(newKey, List.of(oldKey.getPublic())));
+        String newToken = afterRotation.generateToken(alice());
+
+        assertNotEquals(keyIdOf(oldToken), keyIdOf(newToken));
+        TokenClaims claims = afterRotation.parseToken(oldToken);
+        assertEquals("alice", claims.getSubject());
+        assertEquals(7L, claims.getUserId());
+        assertEquals(List.of("ROLE_USER"), claims.getRoles());
+        assertEquals("alice", afterRotation.parseToken(newToken).getSubject());
+        // The old instance never learned the new key
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> beforeRotation.parseToken(newToken)));
+    }
+
+    @Test
+    void unpublishedKeysAndExpiredTokensAreRejected() throws Exception {
+        EdDsaKeySet keys = new EdDsaKeySet(newKey(), List.of());
+        JwtUtil ours = new JwtUtil(null, 900, keys);
+        String forged = new JwtUtil(null, 900, new EdDsaKeySet(newKey(), List.of())).generateToken(alice());
+        String expired = new JwtUtil(null, -60, keys).generateToken(alice());
+
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> ours.parseToken(forged)));
+        assertSame(AuthFailures.TOKEN_EXPIRED, assertThrows(AuthException.class, () -> ours.parseToken(expired)));
+        assertTrue(ours.hasSigningKey());
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    @Test
+    void configuredKeysAreLoaded() throws Exception {
+        KeyPair key = newKey();
+        KeyPair previous = newKey();
+
+        EdDsaKeySet keys = EdDsaKeySet.fromEncoded(base64(key.getPrivate().getEncoded()),
+                base64(key.getPublic().getEncoded()), base64(previous.getPublic().getEncoded()), false);
+
+        assertEquals(new EdDsaKeySet(key, List.of()).getCurrentKeyId(), keys.getCurrentKeyId());
+        assertEquals(2, keys.toJwks().size());
+    }
+
+    @Test
+    void missingKeysFailUnlessEphemeralKeysAreAllowed() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> EdDsaKeySet.fromEncoded(null, null, null, false));
+        assertTrue(e.getMessage().contains("JWT_EDDSA_PRIVATE_KEY"));
+        assertThrows(IllegalStateException.class, () -> EdDsaKeySet.fromEncoded("", " ", null, false));
+
+        // Development only: a fresh key per start
+        assertNotEquals(EdDsaKeySet.fromEncoded(null, null, null, true).getCurrentKeyId(),
+                EdDsaKeySet.fromEncoded(null, null, null, true).getCurrentKeyId());
+    }
+
+    @Test
+    void mismatchedKeysAreRejected() throws Exception {
+        KeyPair key = newKey();
+        KeyPair other = newKey();
+
+        assertThrows(IllegalStateException.class, () -> EdDsaKeySet.fromEncoded(base64(key.getPrivate().getEncoded()),
+                base64(other.getPublic().getEncoded()), null, false));
+        assertThrows(IllegalStateException.class,
+                () -> new EdDsaKeySet(new KeyPair(other.getPublic(), key.getPrivate()), List.of()));
+        // Swapped variables do not even decode as the expected key types
+        assertThrows(IllegalStateException.class, () -> EdDsaKeySet.fromEncoded(base64(key.getPublic().getEncoded()),
+                base64(key.getPrivate().getEncoded()), null, false));
+    }
+
+    @Test
+    void jwksControllerServesThePublicKeys() throws Exception {
+        EdDsaKeySet keys = new EdDsaKeySet(newKey(), List.of(newKey().getPublic()));
+        JsonNode document = new ObjectMapper().readTree(serveJwks(new JwtUtil(null, 900, keys)));
+
+        assertEquals(2, document.path("keys").size());
+        assertEquals(keys.getCurrentKeyId(), document.path("keys").get(0).path("kid").asText());
+        for (JsonNode jwk : document.path("keys")) {
+            // Public halves only
+            assertFalse(jwk.has("d"));
+        }
+    }
+
+    @Test
+    void jwksControllerServesAnEmptySetForHmac() throws Exception {
+        JsonNode document = new ObjectMapper().readTree(
+                serveJwks(new JwtUtil("eddsa-signing-test-secret-at-least-32-chars", 900)));
+
+        assertTrue(document.path("keys").isArray());
+        assertEquals(0, document.path("keys").size());
+    }
+
+    private static byte[] serveJwks(JwtUtil jwtUtil) throws Exception {
+        ServletContext context = mock(ServletContext.class);
+        when(context.getAttribute("jwtUtil")).thenReturn(jwtUtil);
+        ServletConfig config = mock(ServletConfig.class);
+        when(config.getServletContext()).thenReturn(context);
+        JwksController controller = new JwksController();
+        controller.init(config);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        when(resp.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getMethod()).thenReturn("GET");
+        controller.service(req, resp);
+
+        verify(resp).setContentType("application/json");
+        verify(resp).setContentLength(body.size());
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,143 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.config.AuthExecutors;
+import org.example.config.Json;
+import org.example.health.HealthMonitor;
+import org.example.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HealthMonitorTest {
+    private static final JwtUtil JWT = new JwtUtil("health-monitor-test-secret-at-least-32-chars", 900);
+
+    private static HikariDataSource pool(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        config.setPoolName(name);
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(2000);
+        return new HikariDataSource(config);
+    }
+
+    private static JsonNode body(byte[] bytes) throws Exception {
+        return Json.mapper().readTree(bytes);
+    }
+
+    @Test
+    void notReadyUntilFirstRefresh() throws Exception {
+        try (HikariDataSource hikari = pool("health-starting")) {
+            HealthMonitor monitor = new HealthMonitor(hikari, JWT, null, 1, 0, 10);
+            assertTrue(monitor.isLive());
+            assertFalse(monitor.isReady());
+            assertEquals("starting", body(monitor.readyBody()).get("reason").asText());
+        }
+    }
+
+    @Test
+    void readyWhenAllChecksPass() throws Exception {
+        AuthExecutors executors = new AuthExecutors(1, 1, 10, 1000);
+        try (HikariDataSource hikari = pool("health-ready")) {
+            HealthMonitor monitor = new HealthMonitor(hikari, JWT, executors, 1, 0, 10);
+            monitor.refresh();
+
+            assertTrue(monitor.isReady());
+            JsonNode checks = body(monitor.readyBody()).get("checks");
+            assertEquals("UP", checks.get("database").get("status").asText());
+            assertEquals("UP", checks.get("jwtKey").get("status").asText());
+            assertEquals(0, checks.get("hashingQueue").get("depth").asInt());
+            assertEquals(1, checks.get("pool").get("max").asInt());
+        } finally {
+            executors.shutdown();
+        }
+    }
+
+    @Test
+    void saturatedPoolSkipsTheDatabaseCheck() throws Exception {
+        try (HikariDataSource hikari = pool("health-saturated")) {
+            // A negative limit makes the pool count as saturated with nobody waiting
+            HealthMonitor monitor = new HealthMonitor(hikari, JWT, null, 1, -1, 10);
+            monitor.refresh();
+
+            assertFalse(monitor.isReady());
+            assertTrue(monitor.isLive());
+            JsonNode checks = body(monitor.readyBody()).get("checks");
+            assertEquals("DOWN", checks.get("pool").get("status").asText());
+            assertEquals("no free connection", checks.get("database").get("skipped").asText());
+        }
+    }
+
+    @Test
+    void busyPoolSkipsTheDatabaseCheck() throws Exception {
+        try (HikariDataSource hikari = pool("health-busy")) {
+            HealthMonitor monitor = new HealthMonitor(hikari, JWT, null, 1, 0, 10);
+            monitor.refresh();
+            try (Connection held = hikari.getConnection()) {
+                monitor.refresh();
+            }
+
+            // Nobody is waiting yet, so still ready on the last database result
+            assertTrue(monitor.isReady());
+            JsonNode checks = body(monitor.readyBody()).get("checks");
+            assertEquals(0, checks.get("pool").get("headroom").asInt());
+            assertEquals("no free connection", checks.get("database").get("skipped").asText());
+        }
+    }
+
+    @Test
+    void notLiveWhenRefreshStalls() throws Exception {
+        try (HikariDataSource hikari = pool("health-stalled")) {
+            HealthMonitor monitor = new HealthMonitor(hikari, JWT, null, 0, 0, 10);
+            monitor.start(10);
+            Thread.sleep(50);
+            assertTrue(monitor.isLive());
+
+            monitor.stop();
+            Thread.sleep(100);
+            assertFalse(monitor.isLive());
+            assertFalse(monitor.isReady());
+            assertEquals("DOWN", body(monitor.liveBody()).get("status").asText());
+        }
+    }
+
+    @Test
+    void unreachableDatabaseMakesTheAppUnreadyButNotDead() throws Exception {
+        // Production pool settings: getConnection() would wait out the whole 20 s connection timeout
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:tcp://127.0.0.1:1/mem:unreachable");
+        config.setPoolName("health-unreachable");
+        config.setMaximumPoolSize(10);
+        config.setMinimumIdle(5);
+        config.setConnectionTimeout(20_000);
+        config.setInitializationFailTimeout(-1);
+        try (HikariDataSource hikari = new HikariDataSource(config)) {
+            HealthMonitor monitor = new HealthMonitor(hikari, JWT, null, 1, 5, 10);
+            long start = System.nanoTime();
+            monitor.refresh();
+
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3), "refresh waited on the pool");
+            assertFalse(monitor.isReady());
+            assertEquals("DOWN", body(monitor.readyBody()).get("checks").get("database").get("status").asText());
+
+            // Stale after 3 x 100 ms + 1 s; the check left waiting on the pool must not hold refreshes past that
+            monitor.start(100);
+            try {
+                long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(4);
+                while (System.nanoTime() - until < 0) {
+                    assertTrue(monitor.isLive());
+                    Thread.sleep(50);
+                }
+                assertFalse(monitor.isReady());
+                assertEquals("previous check still waiting for a connection",
+                        body(monitor.readyBody()).get("checks").get("database").get("error").asText());
+            } finally {
+                monitor.stop();
+            }
+        }
+    }
+}
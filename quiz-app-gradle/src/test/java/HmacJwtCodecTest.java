@@ -0,0 +1,77 @@
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.exception.AuthException;
+import org.example.security.HmacJwtCodec;
+import org.example.security.TokenClaims;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HmacJwtCodecTest {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    private static SecretKey key(int length) {
+        return Keys.hmacShaKeyFor("k".repeat(length).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void codecTokensParseWithJjwt() {
+        for (int length : new int[]{32, 48, 64}) {
+            SecretKey key = key(length);
+            long now = System.currentTimeMillis();
+            String token = new HmacJwtCodec(key).encode("jörg \"q\"", List.of("ROLE_USER", "ROLE_ADMIN"), 7L, now, now + HOUR);
+
+            Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+            assertEquals("jörg \"q\"", claims.getSubject());
+            assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), claims.get("roles", List.class));
+            assertEquals(7L, ((Number) claims.get("userId")).longValue());
+            assertEquals((now + HOUR) / 1000, claims.getExpiration().getTime() / 1000);
+        }
+    }
+
+    @Test
+    void jjwtTokensDecodeWithCodec() throws AuthException {
+        for (int length : new int[]{32, 48, 64}) {
+            SecretKey key = key(length);
+            Date now = new Date();
+            String token = Jwts.builder()
+                    .subject("alice")
+                    .claim("roles", List.of("ROLE_USER"))
+                    .claim("userId", 12345678901L)
+                    .issuedAt(now)
+                    .expiration(new Date(now.getTime() + HOUR))
+                    .signWith(key)
+                    .compact();
+
+            TokenClaims claims = new HmacJwtCodec(key).decode(token, now.getTime());
+            assertEquals("alice", claims.getSubject());
+            assertEquals(List.of("ROLE_USER"), claims.getRoles());
+            assertEquals(12345678901L, claims.getUserId());
+            assertEquals(now.getTime() / 1000, claims.getIssuedAt());
+        }
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        SecretKey key = key(32);
+        HmacJwtCodec codec = new HmacJwtCodec(key);
+        long now = System.currentTimeMillis();
+        String token = codec.encode("alice", List.of(), 1L, now, now + HOUR);
+
+        String otherKey = new HmacJwtCodec(key(33)).encode("alice", List.of(), 1L, now, now + HOUR);
+        String tampered = token.substring(0, token.lastIndexOf('.')) + otherKey.substring(otherKey.lastIndexOf('.'));
+
+        assertThrows(AuthException.InvalidTokenException.class, () -> codec.decode(tampered, now));
+        assertThrows(AuthException.InvalidTokenException.class, () -> codec.decode("a.b", now));
+        assertThrows(AuthException.InvalidTokenException.class, () -> codec.decode(token + "x", now));
+        assertThrows(AuthException.TokenExpiredException.class, () -> codec.decode(token, now + 2 * HOUR));
+    }
+}
@@ -0,0 +1,86 @@
+import org.example.model.RefreshToken;
+import org.example.repository.RefreshTokenRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// RefreshTokenRepository for service tests, with the same compare-and-set and revocation rules as the JDBC one.
+// Reads return copies, as a database would, so a caller only sees changes it reads again.
+class InMemoryRefreshTokenRepository implements RefreshTokenRepository {
+    private final Map<Long, RefreshToken> tokens = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    final List<Integer> deleteBatches = new ArrayList<>();
+
+    @Override
+    public RefreshToken save(RefreshToken token) {
+        token.setId(ids.incrementAndGet());
+        tokens.put(token.getId(), copy(token));
+        return token;
+    }
+
+    @Override
+    public Optional<RefreshToken> findByTokenHash(String tokenHash) {
+        return tokens.values().stream()
+                .filter(token -> token.getTokenHash().equals(tokenHash))
+                .findFirst()
+                .map(InMemoryRefreshTokenRepository::copy);
+    }
+
+    @Override
+    public synchronized boolean markUsed(Long id, LocalDateTime usedAt) {
+        RefreshToken token = tokens.get(id);
+        if (token == null || token.getUsedAt() != null || token.isRevoked()) {
+            return false;
+        }
+        token.setUsedAt(usedAt);
+        return true;
+    }
+
+    @Override
+    public synchronized int revokeFamily(String familyId) {
+        return revokeWhere(token -> token.getFamilyId().equals(familyId));
+    }
+
+    @Override
+    public synchronized int revokeAllForUser(Long userId) {
+        return revokeWhere(token -> token.getUserId().equals(userId));
+    }
+
+    @Override
+    public synchronized int deleteExpired(LocalDateTime cutoff, int batchSize) {
+        List<Long> expired = tokens.values().stream()
+                .filter(token -> token.getExpiresAt().isBefore(cutoff))
+                .map(RefreshToken::getId)
+                .limit(batchSize)
+                .toList();
+        expired.forEach(tokens::remove);
+        deleteBatches.add(expired.size());
+        return expired.size();
+    }
+
+    List<RefreshToken> all() {
+        return tokens.values().stream().map(InMemoryRefreshTokenRepository::copy).toList();
+    }
+
+    private int revokeWhere(Predicate<RefreshToken> filter) {
+        int revoked = 0;
+        for (RefreshToken token : tokens.values()) {
+            if (!token.isRevoked() && filter.test(token)) {
+                token.setRevoked(true);
+                revoked++;
+            }
+        }
+        return revoked;
+    }
+
+    private static RefreshToken copy(RefreshToken token) {
+        return new RefreshToken(token.getId(), token.getUserId(), token.getFamilyId(), token.getTokenHash(),
+                token.getExpiresAt(), token.getCreatedAt(), token.getUsedAt(), token.isRevoked());
+    }
+}
@@ -0,0 +1,134 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.model.RefreshToken;
+import org.example.repository.impl.JdbcRefreshTokenRepository;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.service.RefreshTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRefreshTokenRepositoryTest {
+    private HikariDataSource pool;
+    private JdbcRefreshTokenRepository repository;
+    private Long userId;
+    private Long otherUserId;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabases.h2("refresh");
+        repository = new JdbcRefreshTokenRepository(pool);
+        JdbcUserRepository users = new JdbcUserRepository(pool);
+        List<Long> ids = TestDatabases.seed(users, List.of(TestDatabases.user("alice"), TestDatabases.user("bob")));
+        userId = ids.get(0);
+        otherUserId = ids.get(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private RefreshToken save(Long user, String family, LocalDateTime expiresAt) {
+        // Database timestamps keep microseconds at most
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return repository.save(RefreshToken.builder()
+                .userId(user)
+                .familyId(family)
+                .tokenHash(UUID.randomUUID().toString().replace("-", "").repeat(2))
+                .createdAt(now)
+                .expiresAt(expiresAt.truncatedTo(ChronoUnit.MILLIS))
+                .build());
+    }
+
+    @Test
+    void saveAndFindByHash() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        RefreshToken saved = save(userId, "family-1", expiresAt);
+
+        RefreshToken found = repository.findByTokenHash(saved.getTokenHash()).orElseThrow();
+        assertNotNull(saved.getId());
+        assertEquals(saved.getId(), found.getId());
+        assertEquals(userId, found.getUserId());
+        assertEquals("family-1", found.getFamilyId());
+        assertEquals(saved.getExpiresAt(), found.getExpiresAt());
+        assertNull(found.getUsedAt());
+        assertFalse(found.isRevoked());
+        assertTrue(repository.findByTokenHash("0".repeat(64)).isEmpty());
+    }
+
+    @Test
+    void markUsedSucceedsOnlyOnce() {
+        RefreshToken token = save(userId, "family-1", LocalDateTime.now().plusDays(1));
+
+        assertTrue(repository.markUsed(token.getId(), LocalDateTime.now()));
+        assertFalse(repository.markUsed(token.getId(), LocalDateTime.now()));
+        assertNotNull(repository.findByTokenHash(token.getTokenHash()).orElseThrow().getUsedAt());
+    }
+
+    @Test
+    void revokedTokenCannotBeMarkedUsed() {
+        RefreshToken token = save(userId, "family-1", LocalDateTime.now().plusDays(1));
+        repository.revokeFamily("family-1");
+
+        assertFalse(repository.markUsed(token.getId(), LocalDateTime.now()));
+    }
+
+    @Test
+    void revokeFamilyTouchesOnlyThatFamily() {
+        RefreshToken first = save(userId, "family-1", LocalDateTime.now().plusDays(1));
+        RefreshToken second = save(userId, "family-1", LocalDateTime.now().plusDays(1));
+        RefreshToken other = save(userId, "family-2", LocalDateTime.now().plusDays(1));
+
+        assertEquals(2, repository.revokeFamily("family-1"));
+        // Already revoked rows are not counted again
+        assertEquals(0, repository.revokeFamily("family-1"));
+
+        assertTrue(repository.findByTokenHash(first.getTokenHash()).orElseThrow().isRevoked());
+        assertTrue(repository.findByTokenHash(second.getTokenHash()).orElseThrow().isRevoked());
+        assertFalse(repository.findByTokenHash(other.getTokenHash()).orElseThrow().isRevoked());
+    }
+
+    @Test
+    void revokeAllForUserTouchesOnlyThatUser() {
+        save(userId, "family-1", LocalDateTime.now().plusDays(1));
+        save(userId, "family-2", LocalDateTime.now().plusDays(1));
+        RefreshToken other = save(otherUserId, "family-3", LocalDateTime.now().plusDays(1));
+
+        assertEquals(2, repository.revokeAllForUser(userId));
+        assertFalse(repository.findByTokenHash(other.getTokenHash()).orElseThrow().isRevoked());
+    }
+
+    @Test
+    void deleteExpiredHonoursCutoffAndBatchSize() {
+        for (int i = 0; i < 5; i++) {
+            save(userId, "expired", LocalDateTime.now().minusHours(1));
+        }
+        RefreshToken live = save(userId, "live", LocalDateTime.now().plusDays(1));
+        LocalDateTime cutoff = LocalDateTime.now();
+
+        assertEquals(3, repository.deleteExpired(cutoff, 3));
+        assertEquals(2, repository.deleteExpired(cutoff, 3));
+        assertEquals(0, repository.deleteExpired(cutoff, 3));
+        assertTrue(repository.findByTokenHash(live.getTokenHash()).isPresent());
+    }
+
+    @Test
+    void serviceDetectsReuseAgainstTheDatabase() throws Exception {
+        RefreshTokenService service = new RefreshTokenService(repository, Duration.ofDays(1));
+        String first = service.issue(userId);
+        String second = service.rotate(service.consume(first));
+
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> service.consume(first)));
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> service.consume(second)));
+    }
+}
@@ -0,0 +1,67 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.exception.AuthFailures;
+import org.example.jfr.LoginEvent;
+import org.example.jfr.PasswordHashEvent;
+import org.example.jfr.RepositoryQueryEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    @Test
+    void eventsCarryTheirFields() throws Exception {
+        Path file = Files.createTempFile("auth-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.example.db.RepositoryQuery");
+            recording.enable("org.example.auth.PasswordHash");
+            recording.enable("org.example.auth.Login");
+            recording.start();
+
+            RepositoryQueryEvent query = RepositoryQueryEvent.start("UserRepository.findAllById",
+                    "SELECT * FROM users WHERE id IN (?, ?)");
+            query.rows(2);
+            query.finish();
+
+            PasswordHashEvent hash = PasswordHashEvent.start("matches");
+            hash.finish("$2a$12$abcdefghijklmnopqrstuv", true);
+
+            LoginEvent login = LoginEvent.start("alice", false);
+            login.finish(AuthFailures.INVALID_CREDENTIALS);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        RecordedEvent query = only(events, "org.example.db.RepositoryQuery");
+        assertEquals("UserRepository.findAllById", query.getString("operation"));
+        assertEquals("SELECT * FROM users WHERE id IN (?, ?)", query.getString("sql"));
+        assertEquals(2, query.getInt("rowCount"));
+        assertFalse(query.hasField("span"));
+
+        RecordedEvent hash = only(events, "org.example.auth.PasswordHash");
+        assertEquals(12, hash.getInt("cost"));
+        assertTrue(hash.getBoolean("matched"));
+
+        RecordedEvent login = only(events, "org.example.auth.Login");
+        assertEquals("alice", login.getString("username"));
+        assertEquals("invalid_credentials", login.getString("outcome"));
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String type) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(type))
+                .toList();
+        assertEquals(1, matching.size(), type);
+        return matching.get(0);
+    }
+}
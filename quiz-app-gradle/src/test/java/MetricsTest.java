@@ -0,0 +1,44 @@
+import org.example.metrics.AuthOperation;
+import org.example.metrics.Metrics;
+import org.example.metrics.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    void recordedTimersAppearInPrometheusText() {
+        AuthOperation.REFRESH.record(401, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+        Metrics.JWT_VERIFY.record(TimeUnit.MICROSECONDS.toNanos(40));
+
+        String text = Metrics.scrape();
+        assertTrue(text.contains("# TYPE auth_request_seconds summary\n"), text);
+        assertTrue(text.contains("auth_request_seconds_count{operation=\"refresh\",outcome=\"unauthorized\"} "), text);
+        assertTrue(text.contains("auth_request_seconds{operation=\"refresh\",outcome=\"unauthorized\",quantile=\"0.99\"} 0.00"), text);
+        assertTrue(text.contains("jwt_seconds_count{operation=\"verify\"} "), text);
+        // Series with no samples are left out
+        assertFalse(text.contains("operation=\"refresh\",outcome=\"unavailable\""), text);
+    }
+
+    @Test
+    void countsAccumulateAcrossScrapes() {
+        AuthOperation.VALIDATE_BATCH.record(200, System.nanoTime());
+        Metrics.scrape();
+        AuthOperation.VALIDATE_BATCH.record(200, System.nanoTime());
+
+        assertTrue(Metrics.scrape().contains(
+                "auth_request_seconds_count{operation=\"validate_batch\",outcome=\"success\"} 2\n"));
+    }
+
+    @Test
+    void outcomeFollowsStatus() {
+        assertEquals(Outcome.SUCCESS, Outcome.of(200));
+        assertEquals(Outcome.BAD_REQUEST, Outcome.of(413));
+        assertEquals(Outcome.UNAUTHORIZED, Outcome.of(401));
+        assertEquals(Outcome.UNAVAILABLE, Outcome.of(503));
+        assertEquals(Outcome.ERROR, Outcome.of(500));
+    }
+}
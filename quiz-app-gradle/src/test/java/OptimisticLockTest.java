@@ -0,0 +1,240 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.dto.LoginRequest;
+import org.example.exception.OptimisticLockException;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.security.JwtUtil;
+import org.example.service.AuthService;
+import org.example.service.ConflictRetry;
+import org.example.service.RefreshTokenService;
+import org.example.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticLockTest {
+    private HikariDataSource pool;
+    private JdbcUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabases.h2("optimistic", 8);
+        repository = new JdbcUserRepository(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private User newUser(String username) {
+        return repository.save(TestDatabases.user(username));
+    }
+
+    @Test
+    void updateBumpsTheVersion() {
+        User user = newUser("versioned");
+        assertEquals(0, repository.findById(user.getId()).orElseThrow().getVersion());
+
+        user.setPassword("new-hash");
+        repository.save(user);
+
+        User stored = repository.findById(user.getId()).orElseThrow();
+        assertEquals(1, user.getVersion());
+        assertEquals(1, stored.getVersion());
+        assertEquals("new-hash", stored.getPassword());
+    }
+
+    @Test
+    void staleUpdateIsRejectedAndWritesNothing() {
+        Long id = newUser("stale").getId();
+        User first = repository.findById(id).orElseThrow();
+        User second = repository.findById(id).orElseThrow();
+
+        first.setAccountNonLocked(false);
+        repository.save(first);
+
+        second.setEmail("other@example.com");
+        second.addRole(Role.admin());
+        OptimisticLockException e = assertThrows(OptimisticLockException.class, () -> repository.save(second));
+        assertEquals(id, e.getId());
+        assertEquals(0, e.getExpectedVersion());
+
+        User stored = repository.findById(id).orElseThrow();
+        assertFalse(stored.isAccountNonLocked());
+        assertEquals("stale@example.com", stored.getEmail());
+        assertEquals(1, stored.getRoles().size());
+    }
+
+    @Test
+    void missingRowIsNotAConflict() {
+        User user = newUser("deleted");
+        repository.deleteById(user.getId());
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> repository.save(user));
+        assertFalse(e instanceof OptimisticLockException);
+    }
+
+    @Test
+    void serviceRetriesOnAFreshRead() throws Exception {
+        Long id = newUser("retried").getId();
+        AtomicInteger saves = new AtomicInteger();
+        // The first save loses to a lock that lands between its read and its write
+        UserRepository racing = new DelegatingRepository(repository) {
+            @Override
+            public User save(User user) {
+                if (saves.getAndIncrement() == 0) {
+                    User admin = repository.findById(user.getId()).orElseThrow();
+                    admin.setAccountNonLocked(false);
+                    repository.save(admin);
+                }
+                return repository.save(user);
+            }
+        };
+        UserService service = new UserService(racing, new ConflictRetry(3, 0, 0));
+
+        service.disableUser(id);
+
+        User stored = repository.findById(id).orElseThrow();
+        assertEquals(2, saves.get());
+        assertFalse(stored.isEnabled());
+        assertFalse(stored.isAccountNonLocked());
+        assertEquals(2, stored.getVersion());
+    }
+
+    @Test
+    void retriesAreBounded() {
+        Long id = newUser("exhausted").getId();
+        UserRepository alwaysStale = new DelegatingRepository(repository) {
+            @Override
+            public User save(User user) {
+                User other = repository.findById(user.getId()).orElseThrow();
+                repository.save(other);
+                return repository.save(user);
+            }
+        };
+        UserService service = new UserService(alwaysStale, new ConflictRetry(3, 0, 0));
+
+        assertThrows(OptimisticLockException.class, () -> service.lockUser(id));
+        assertEquals(3, repository.findById(id).orElseThrow().getVersion());
+    }
+
+    @Test
+    void concurrentUpdatesAreAllApplied() throws Exception {
+        Long id = newUser("concurrent").getId();
+        UserService service = new UserService(repository, new ConflictRetry(50, 1, 10));
+        Role.RoleType[] roles = {Role.RoleType.ADMIN, Role.RoleType.MODERATOR};
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<User>> results = new ArrayList<>();
+            results.add(executor.submit(() -> { start.await(); return service.addRoleToUser(id, roles[0]); }));
+            results.add(executor.submit(() -> { start.await(); return service.addRoleToUser(id, roles[1]); }));
+            results.add(executor.submit(() -> { start.await(); return service.lockUser(id); }));
+            results.add(executor.submit(() -> { start.await(); return service.disableUser(id); }));
+            start.countDown();
+            for (Future<User> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        User stored = repository.findById(id).orElseThrow();
+        assertEquals(3, stored.getRoles().size());
+        assertFalse(stored.isAccountNonLocked());
+        assertFalse(stored.isEnabled());
+        assertEquals(threads, stored.getVersion());
+    }
+
+    // Overrides save only; everything else goes to the real repository
+    private abstract static class DelegatingRepository implements UserRepository {
+        final UserRepository repository;
+
+        DelegatingRepository(UserRepository repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Optional<User> findById(Long id) {
+            return repository.findById(id);
+        }
+
+        @Override
+        public Optional<User> findByUsername(String username) {
+            return repository.findByUsername(username);
+        }
+
+        @Override
+        public List<User> findAll() {
+            return repository.findAll();
+        }
+
+        @Override
+        public List<User> findAllById(Collection<Long> ids) {
+            return repository.findAllById(ids);
+        }
+
+        @Override
+        public boolean existsById(Long id) {
+            return repository.existsById(id);
+        }
+
+        @Override
+        public boolean existsByUsername(String username) {
+            return repository.existsByUsername(username);
+        }
+
+        @Override
+        public boolean existsByEmail(String email) {
+            return repository.existsByEmail(email);
+        }
+
+        @Override
+        public void deleteById(Long id) {
+            repository.deleteById(id);
+        }
+
+        @Override
+        public void delete(User user) {
+            repository.delete(user);
+        }
+    }
+
+    @Test
+    void loginDoesNotWriteTheUserRow() throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        User user = newUser("logs-in");
+        user.setPassword(encoder.encode("Correct#Passw0rd"));
+        repository.save(user);
+        AuthService authService = new AuthService(repository, encoder,
+                new JwtUtil("optimistic-lock-test-secret-at-least-32-chars", 900),
+                new RefreshTokenService(new InMemoryRefreshTokenRepository(), Duration.ofDays(1)));
+        // An admin edit in progress, read before the user logs in
+        User adminCopy = repository.findById(user.getId()).orElseThrow();
+
+        authService.login(new LoginRequest("logs-in", "Correct#Passw0rd"));
+        authService.login(new LoginRequest("logs-in", "Correct#Passw0rd"));
+
+        assertEquals(1, repository.findById(user.getId()).orElseThrow().getVersion());
+        adminCopy.setAccountNonLocked(false);
+        assertDoesNotThrow(() -> repository.save(adminCopy));
+    }
+}
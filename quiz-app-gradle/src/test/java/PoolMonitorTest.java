@@ -0,0 +1,92 @@
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.pool.InstrumentedDataSource;
+import org.example.pool.PoolMonitor;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolMonitorTest {
+
+    private static HikariDataSource pool(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        config.setPoolName(name);
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(2000);
+        return new HikariDataSource(config);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportsLongHoldsByCallSite() throws Exception {
+        try (HikariDataSource hikari = pool("leaks")) {
+            PoolMonitor monitor = new PoolMonitor(hikari, 20, -1, 0);
+            InstrumentedDataSource dataSource = new InstrumentedDataSource(hikari, monitor);
+            monitor.start(10);
+            try (Connection connection = dataSource.getConnection()) {
+                List<Map<String, Object>> leaks = await(() -> (List<Map<String, Object>>) monitor.report().get("leaks"));
+                assertEquals(1, leaks.size());
+                assertTrue(((String) leaks.get(0).get("callSite")).contains("PoolMonitorTest.reportsLongHoldsByCallSite"),
+                        leaks.toString());
+                assertEquals(1, ((List<?>) monitor.report().get("holders")).size());
+            } finally {
+                monitor.stop();
+            }
+            assertTrue(((List<?>) monitor.report().get("holders")).isEmpty());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void alarmsWhenThreadsKeepWaiting() throws Exception {
+        try (HikariDataSource hikari = pool("saturation")) {
+            PoolMonitor monitor = new PoolMonitor(hikari, 0, 0, 50);
+            InstrumentedDataSource dataSource = new InstrumentedDataSource(hikari, monitor);
+            monitor.start(10);
+            CountDownLatch waiterDone = new CountDownLatch(1);
+            try (Connection held = dataSource.getConnection()) {
+                Thread waiter = new Thread(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        assertNotNull(connection);
+                    } catch (SQLException ignored) {
+                        // timed out; the alarm is what is under test
+                    } finally {
+                        waiterDone.countDown();
+                    }
+                });
+                waiter.start();
+
+                Map<String, Object> alarm = await(() -> (Map<String, Object>) monitor.report().get("lastAlarm"));
+                List<Map<String, Object>> holders = (List<Map<String, Object>>) alarm.get("holders");
+                assertEquals(Thread.currentThread().getName(), holders.get(0).get("thread"));
+                // No leak threshold, so the checkout skipped the call-site walk
+                assertEquals("unknown", holders.get(0).get("callSite"));
+                assertFalse(((List<?>) holders.get(0).get("stack")).isEmpty());
+            } finally {
+                waiterDone.await();
+                monitor.stop();
+            }
+        }
+    }
+
+    private static <T> T await(Supplier<T> value) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            T current = value.get();
+            if (current != null && !(current instanceof List<?> list && list.isEmpty())) {
+                return current;
+            }
+            Thread.sleep(10);
+        }
+        fail("condition not reached");
+        return null;
+    }
+}
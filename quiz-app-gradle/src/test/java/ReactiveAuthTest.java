@@ -0,0 +1,203 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.example.config.AuthExecutors;
+import org.example.exception.OptimisticLockException;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.reactive.ReactiveConfig;
+import org.example.repository.impl.R2dbcRefreshTokenRepository;
+import org.example.repository.impl.R2dbcUserRepository;
+import org.example.security.JwtUtil;
+import org.example.service.ReactiveAuthService;
+import org.example.service.ReactiveRefreshTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The reactive deployment mode end to end: R2DBC repositories on the H2 schema, and the WebFlux routes on Netty
+class ReactiveAuthTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PASSWORD = "Sup3r-secret!";
+
+    private ConnectionPool connectionFactory;
+    private R2dbcUserRepository users;
+    private AuthExecutors executors;
+    private DisposableServer server;
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        // Same options as reactive.r2dbc.url in application.properties
+        connectionFactory = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(
+                "r2dbc:h2:mem:///reactive-" + System.nanoTime() + "?options=DB_CLOSE_DELAY=-1;MODE=MySQL")).build());
+        new ResourceDatabasePopulator(new ClassPathResource("db/reactive-h2-schema.sql"))
+                .populate(connectionFactory).block();
+        DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+        users = new R2dbcUserRepository(databaseClient);
+
+        JwtUtil jwtUtil = new JwtUtil("reactive-auth-test-secret-at-least-32-chars", 900);
+        executors = new AuthExecutors(2, 2, 100, 5000);
+        ReactiveAuthService authService = new ReactiveAuthService(users,
+                new ReactiveRefreshTokenService(new R2dbcRefreshTokenRepository(databaseClient)),
+                new BCryptPasswordEncoder(4), jwtUtil, Schedulers.fromExecutor(executors.cpu()));
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle(new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(
+                        new ReactiveConfig().authRoutes(authService, executors, jwtUtil))))
+                .bindNow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.disposeNow();
+        executors.shutdown();
+        connectionFactory.dispose();
+    }
+
+    private User newUser(String username) {
+        return users.save(TestDatabases.user(username)).block();
+    }
+
+    private static Set<String> roleNames(User user) {
+        return user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
+    }
+
+    @Test
+    void insertStoresRoles() {
+        User stored = users.findById(newUser("inserted").getId()).block();
+
+        assertEquals("inserted", stored.getUsername());
+        assertEquals(0, stored.getVersion());
+        assertEquals(Set.of("ROLE_USER"), roleNames(stored));
+    }
+
+    @Test
+    void updateStoresRoleChanges() {
+        User user = users.findById(newUser("promoted").getId()).block();
+        user.addRole(Role.admin());
+        user.setAccountNonLocked(false);
+
+        users.save(user).block();
+
+        User stored = users.findById(user.getId()).block();
+        assertEquals(1, user.getVersion());
+        assertEquals(1, stored.getVersion());
+        assertFalse(stored.isAccountNonLocked());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), roleNames(stored));
+
+        stored.getRoles().removeIf(role -> role.getName().equals("ROLE_USER"));
+        users.save(stored).block();
+        assertEquals(Set.of("ROLE_ADMIN"), roleNames(users.findById(user.getId()).block()));
+    }
+
+    @Test
+    void staleUpdateWritesNeitherRowNorRoles() {
+        Long id = newUser("stale").getId();
+        User first = users.findById(id).block();
+        User second = users.findById(id).block();
+        first.setEmail("first@example.com");
+        users.save(first).block();
+
+        second.addRole(Role.admin());
+        OptimisticLockException e = assertThrows(OptimisticLockException.class, () -> users.save(second).block());
+        assertEquals(id, e.getId());
+
+        User stored = users.findById(id).block();
+        assertEquals("first@example.com", stored.getEmail());
+        assertEquals(Set.of("ROLE_USER"), roleNames(stored));
+    }
+
+    @Test
+    void updateOfAMissingUserIsNotAConflict() {
+        User ghost = User.builder().id(987654L).username("ghost").password("hash").email("ghost@example.com").build();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> users.save(ghost).block());
+        assertFalse(e instanceof OptimisticLockException);
+    }
+
+    private HttpResponse<String> post(String path, String bearer, Object body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                        URI.create("http://127.0.0.1:" + server.port() + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body == null ? "" : MAPPER.writeValueAsString(body)));
+        if (bearer != null) {
+            request.header("Authorization", "Bearer " + bearer);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode json(HttpResponse<String> response) throws Exception {
+        return MAPPER.readTree(response.body());
+    }
+
+    @Test
+    void registerLoginChangePasswordAndRefreshOverHttp() throws Exception {
+        HttpResponse<String> registered = post("/api/auth/register", null, Map.of("username", "carol",
+                "password", PASSWORD, "confirmPassword", PASSWORD, "email", "carol@example.com"));
+        assertEquals(200, registered.statusCode(), registered.body());
+        // Taken usernames are a 400, as on the servlet path
+        assertEquals(400, post("/api/auth/register", null, Map.of("username", "carol",
+                "password", PASSWORD, "confirmPassword", PASSWORD, "email", "carol2@example.com")).statusCode());
+
+        assertEquals(401, post("/api/auth/login", null, Map.of("username", "carol", "password", "Wr0ng-pass!")).statusCode());
+        HttpResponse<String> login = post("/api/auth/login", null, Map.of("username", "carol", "password", PASSWORD));
+        assertEquals(200, login.statusCode(), login.body());
+        String accessToken = json(login).path("token").asText();
+        String refreshToken = json(login).path("refreshToken").asText();
+        assertFalse(accessToken.isEmpty());
+        assertFalse(refreshToken.isEmpty());
+
+        String newPassword = "N3w-secret!!";
+        HttpResponse<String> changed = post("/api/auth/change-password", accessToken,
+                Map.of("oldPassword", PASSWORD, "newPassword", newPassword));
+        assertEquals(200, changed.statusCode(), changed.body());
+        assertEquals(401, post("/api/auth/login", null, Map.of("username", "carol", "password", PASSWORD)).statusCode());
+        HttpResponse<String> relogin = post("/api/auth/login", null, Map.of("username", "carol", "password", newPassword));
+        assertEquals(200, relogin.statusCode(), relogin.body());
+
+        // The password change revoked the first session's refresh token
+        assertEquals(401, post("/api/auth/refresh", refreshToken, null).statusCode());
+        String current = json(relogin).path("refreshToken").asText();
+        HttpResponse<String> refreshed = post("/api/auth/refresh", current, null);
+        assertEquals(200, refreshed.statusCode(), refreshed.body());
+        // Single use: presenting it again fails
+        assertEquals(401, post("/api/auth/refresh", current, null).statusCode());
+    }
+
+    @Test
+    void malformedBodyIsABadRequest() throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                        URI.create("http://127.0.0.1:" + server.port() + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{not json"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+        assertEquals("/api/auth/login", json(response).path("path").asText());
+    }
+}
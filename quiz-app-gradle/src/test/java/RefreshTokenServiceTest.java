@@ -0,0 +1,146 @@
+import org.example.exception.AuthException;
+import org.example.exception.AuthFailures;
+import org.example.model.RefreshToken;
+import org.example.service.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenServiceTest {
+    private InMemoryRefreshTokenRepository repository;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryRefreshTokenRepository();
+        service = new RefreshTokenService(repository, Duration.ofDays(30));
+    }
+
+    private static String sha256(String token) throws Exception {
+        return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void storesOnlyTheHash() throws Exception {
+        String token = service.issue(7L);
+
+        RefreshToken stored = repository.all().get(0);
+        assertNotEquals(token, stored.getTokenHash());
+        assertEquals(sha256(token), stored.getTokenHash());
+        assertEquals(7L, stored.getUserId());
+        assertNull(stored.getUsedAt());
+        assertFalse(stored.isRevoked());
+    }
+
+    @Test
+    void consumeMarksTheTokenUsed() throws Exception {
+        String token = service.issue(7L);
+
+        RefreshToken consumed = service.consume(token);
+
+        assertEquals(7L, consumed.getUserId());
+        assertNotNull(repository.findByTokenHash(sha256(token)).orElseThrow().getUsedAt());
+    }
+
+    @Test
+    void rotationKeepsTheFamily() throws Exception {
+        String first = service.issue(7L);
+        RefreshToken consumed = service.consume(first);
+
+        String second = service.rotate(consumed);
+
+        assertNotEquals(first, second);
+        RefreshToken next = service.consume(second);
+        assertEquals(consumed.getFamilyId(), next.getFamilyId());
+        assertEquals(7L, next.getUserId());
+    }
+
+    @Test
+    void reusedTokenRevokesTheWholeFamily() throws Exception {
+        String first = service.issue(7L);
+        String second = service.rotate(service.consume(first));
+        String otherLogin = service.issue(7L);
+
+        // The first token comes back after it was rotated: someone else holds a copy
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> service.consume(first)));
+
+        assertTrue(repository.findByTokenHash(sha256(second)).orElseThrow().isRevoked());
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> service.consume(second)));
+        // Other sessions of the same user are left alone
+        assertEquals(7L, service.consume(otherLogin).getUserId());
+    }
+
+    @Test
+    void losingAConcurrentRefreshRevokesTheFamily() throws Exception {
+        // Both requests read the token before either marked it used; the repository lets only one win
+        RefreshTokenService racing = new RefreshTokenService(new InMemoryRefreshTokenRepository() {
+            @Override
+            public Optional<RefreshToken> findByTokenHash(String tokenHash) {
+                Optional<RefreshToken> read = super.findByTokenHash(tokenHash);
+                read.ifPresent(token -> markUsed(token.getId(), LocalDateTime.now()));
+                return read;
+            }
+        }, Duration.ofDays(30));
+        String token = racing.issue(7L);
+
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> racing.consume(token)));
+    }
+
+    @Test
+    void expiredTokenIsRejectedWithoutRevokingTheFamily() throws Exception {
+        RefreshTokenService shortLived = new RefreshTokenService(repository, Duration.ofSeconds(-1));
+        String token = shortLived.issue(7L);
+
+        assertSame(AuthFailures.TOKEN_EXPIRED, assertThrows(AuthException.class, () -> shortLived.consume(token)));
+
+        RefreshToken stored = repository.findByTokenHash(sha256(token)).orElseThrow();
+        assertFalse(stored.isRevoked());
+        assertNull(stored.getUsedAt());
+    }
+
+    @Test
+    void unknownOrMissingTokensAreInvalid() {
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> service.consume("nope")));
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> service.consume("")));
+        assertSame(AuthFailures.INVALID_TOKEN, assertThrows(AuthException.class, () -> service.consume(null)));
+    }
+
+    @Test
+    void revokeAllEndsEverySessionOfTheUser() {
+        String first = service.issue(7L);
+        String second = service.issue(7L);
+        String otherUser = service.issue(8L);
+
+        service.revokeAll(7L);
+
+        assertThrows(AuthException.class, () -> service.consume(first));
+        assertThrows(AuthException.class, () -> service.consume(second));
+        assertDoesNotThrow(() -> service.consume(otherUser));
+    }
+
+    @Test
+    void purgeDeletesExpiredTokensInBatches() {
+        RefreshTokenService expired = new RefreshTokenService(repository, Duration.ofSeconds(-1));
+        for (int i = 0; i < 1500; i++) {
+            expired.issue((long) i);
+        }
+        service.issue(1L);
+
+        assertEquals(1500, service.purgeExpired());
+
+        // A full batch means there may be more; the short one ends the loop
+        assertEquals(List.of(1000, 500), repository.deleteBatches);
+        assertEquals(1, repository.all().size());
+        assertEquals(0, service.purgeExpired());
+    }
+}
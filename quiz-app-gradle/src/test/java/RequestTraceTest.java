@@ -0,0 +1,75 @@
+import org.example.tracing.RequestTrace;
+import org.example.tracing.Tracing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTraceTest {
+
+    @AfterEach
+    void clear() {
+        Tracing.detach(null);
+    }
+
+    @Test
+    void spansNestInCallOrder() {
+        RequestTrace trace = Tracing.start("login");
+        int stage = Tracing.begin("AuthService.findLoginCandidate");
+        int query = Tracing.begin("UserRepository.findByUsername");
+        Tracing.end(query);
+        Tracing.end(stage);
+        int hash = Tracing.begin("bcrypt.matches");
+        Tracing.end(hash);
+        Tracing.finish(trace, 200);
+
+        assertEquals(3, trace.getSpanCount());
+        assertEquals(-1, trace.getSpanParent(0));
+        assertEquals(0, trace.getSpanParent(1));
+        assertEquals(-1, trace.getSpanParent(2));
+        assertEquals("bcrypt.matches", trace.getSpanName(2));
+        assertEquals(200, trace.getStatus());
+        assertTrue(trace.getSpanDurationNanos(1) <= trace.getSpanDurationNanos(0));
+    }
+
+    @Test
+    void traceFollowsWorkOntoAnotherThread() {
+        RequestTrace trace = Tracing.start("register");
+
+        CompletableFuture.runAsync(() -> {
+            RequestTrace previous = Tracing.attach(trace);
+            try {
+                Tracing.end(Tracing.begin("bcrypt.encode"));
+            } finally {
+                Tracing.detach(previous);
+            }
+        }).join();
+
+        assertEquals(1, trace.getSpanCount());
+        assertEquals("bcrypt.encode", trace.getSpanName(0));
+    }
+
+    @Test
+    void nothingIsRecordedWithoutATraceOrAfterFinish() {
+        assertEquals(-1, Tracing.begin("UserRepository.findById"));
+
+        RequestTrace trace = Tracing.start("refresh");
+        Tracing.finish(trace, 401);
+        assertEquals(-1, Tracing.begin("jwt.sign"));
+        // A late second finish (timeout racing the pipeline) keeps the first status
+        Tracing.finish(trace, 503);
+        assertEquals(401, trace.getStatus());
+    }
+
+    @Test
+    void spansPastTheLimitAreDropped() {
+        RequestTrace trace = Tracing.start("validate_batch");
+        for (int i = 0; i < 100; i++) {
+            Tracing.end(Tracing.begin("jwt.verify"));
+        }
+        Tracing.finish(trace, 200);
+        assertTrue(trace.getSpanCount() < 100);
+    }
+}
@@ -0,0 +1,106 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.config.Json;
+import org.example.health.HealthMonitor;
+import org.example.health.StartupWarmup;
+import org.example.metrics.Metrics;
+import org.example.model.User;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupWarmupTest {
+    private static final JwtUtil JWT = new JwtUtil("startup-warmup-test-secret-at-least-32-chars", 900);
+
+    // The statements are prepared against the real schema, so it has to be there
+    private static HikariDataSource pool(String name, int size) {
+        HikariConfig config = TestDatabases.config(name);
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(2000);
+        return new HikariDataSource(config);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> phase(StartupWarmup warmup, String name) {
+        return (Map<String, Object>) warmup.getReport().get(name);
+    }
+
+    @Test
+    void opensThePoolAndRunsTheAuthPath() {
+        try (HikariDataSource hikari = pool("warmup-full", 3)) {
+            StartupWarmup warmup = new StartupWarmup(hikari, new JdbcUserRepository(hikari), JWT, 3, 1, 50, 20_000);
+            warmup.run();
+
+            assertTrue(warmup.isDone());
+            assertEquals(3, hikari.getHikariPoolMXBean().getTotalConnections());
+            Map<String, Object> pool = phase(warmup, "pool");
+            assertEquals(3, pool.get("connections"));
+            assertEquals(36, pool.get("statementsPrepared"));
+            assertNull(pool.get("error"));
+
+            Map<String, Object> jit = phase(warmup, "jit");
+            assertTrue((Long) jit.get("cycles") >= 50);
+            assertEquals(0L, jit.get("failures"));
+            assertEquals(false, warmup.getReport().get("budgetExceeded"));
+        }
+    }
+
+    @Test
+    void stopsWhenTheBudgetRunsOut() {
+        try (HikariDataSource hikari = pool("warmup-budget", 2)) {
+            StartupWarmup warmup = new StartupWarmup(hikari, new JdbcUserRepository(hikari), JWT, 2, 1, 1_000_000, 0);
+            warmup.run();
+
+            assertTrue(warmup.isDone());
+            assertEquals(true, warmup.getReport().get("budgetExceeded"));
+            assertEquals(0, phase(warmup, "pool").get("connections"));
+            assertEquals(false, phase(warmup, "jit").get("settled"));
+        }
+    }
+
+    @Test
+    void warmUpTrafficStaysOutOfTheJwtMetrics() {
+        try (HikariDataSource hikari = pool("warmup-metrics", 1)) {
+            long signed = Metrics.JWT_SIGN.count();
+            long verified = Metrics.JWT_VERIFY.count();
+
+            new StartupWarmup(hikari, new JdbcUserRepository(hikari), JWT, 1, 1, 50, 20_000).run();
+
+            assertEquals(signed, Metrics.JWT_SIGN.count());
+            assertEquals(verified, Metrics.JWT_VERIFY.count());
+            assertFalse(JWT.isWarmup());
+            // The app's own instance still records
+            JWT.generateToken(User.builder().id(1L).username("alice").build());
+            assertEquals(signed + 1, Metrics.JWT_SIGN.count());
+        }
+    }
+
+    @Test
+    void notReadyUntilWarmedUp() throws Exception {
+        try (HikariDataSource hikari = pool("warmup-health", 2)) {
+            StartupWarmup warmup = new StartupWarmup(hikari, new JdbcUserRepository(hikari), JWT, 2, 1, 10, 20_000);
+            HealthMonitor monitor = new HealthMonitor(hikari, JWT, null, 1, 0, 10);
+            monitor.setWarmup(warmup);
+            monitor.refresh();
+
+            assertFalse(monitor.isReady());
+            JsonNode check = Json.mapper().readTree(monitor.readyBody()).get("checks").get("warmup");
+            assertEquals("DOWN", check.get("status").asText());
+            assertEquals("pending", check.get("phase").asText());
+
+            warmup.run();
+            monitor.refresh();
+
+            assertTrue(monitor.isReady());
+            check = Json.mapper().readTree(monitor.readyBody()).get("checks").get("warmup");
+            assertEquals("UP", check.get("status").asText());
+            assertEquals(2, check.get("report").get("pool").get("connections").asInt());
+        }
+    }
+}
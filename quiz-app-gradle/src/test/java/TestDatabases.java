@@ -0,0 +1,59 @@
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fresh H2 databases with the application schema, in the same MySQL mode the JDBC repositories are written for,
+// and the users tests put in them. Each call gets its own database, so tests never see each other's rows.
+final class TestDatabases {
+    private TestDatabases() {
+    }
+
+    // For tests that tune the pool before opening it
+    static HikariConfig config(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+                "DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:/db/reactive-h2-schema.sql'");
+        config.setPoolName(name);
+        config.setMaximumPoolSize(4);
+        return config;
+    }
+
+    static HikariDataSource h2(String name) {
+        return new HikariDataSource(config(name));
+    }
+
+    static HikariDataSource h2(String name, int maximumPoolSize) {
+        HikariConfig config = config(name);
+        config.setMaximumPoolSize(maximumPoolSize);
+        return new HikariDataSource(config);
+    }
+
+    // Enabled, unlocked, with a placeholder password hash; not saved
+    static User user(String username) {
+        return user(username, Role.user());
+    }
+
+    static User user(String username, Role role) {
+        User user = User.builder()
+                .username(username)
+                .password("hash")
+                .email(username + "@example.com")
+                .build();
+        user.addRole(role);
+        return user;
+    }
+
+    // Saves in order and returns the generated ids in the same order
+    static List<Long> seed(UserRepository repository, List<User> users) {
+        List<Long> ids = new ArrayList<>(users.size());
+        for (User user : users) {
+            ids.add(repository.save(user).getId());
+        }
+        return ids;
+    }
+}
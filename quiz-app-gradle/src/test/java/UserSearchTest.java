@@ -0,0 +1,115 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.UserCriteria;
+import org.example.repository.UserSort;
+import org.example.repository.UserSummary;
+import org.example.repository.impl.JdbcUserRepository;
+import org.example.service.BulkOperation;
+import org.example.service.ConflictRetry;
+import org.example.service.UserPage;
+import org.example.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchTest {
+    private HikariDataSource pool;
+    private JdbcUserRepository repository;
+    private UserService service;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabases.h2("search");
+        repository = new JdbcUserRepository(pool);
+        service = new UserService(repository, new ConflictRetry(1, 0, 0), 100);
+        // Inserted out of username order, so id and username order differ
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String name = String.format("%s_%02d", i % 3 == 0 ? "admin" : "user", 24 - i);
+            users.add(TestDatabases.user(name, i % 3 == 0 ? Role.admin() : Role.user()));
+        }
+        ids.addAll(TestDatabases.seed(repository, users));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private List<UserSummary> walk(UserCriteria criteria, UserSort sort, int limit) {
+        List<UserSummary> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPage page = service.searchUsers(criteria, sort, cursor, limit);
+            assertTrue(page.getUsers().size() <= limit);
+            all.addAll(page.getUsers());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    @Test
+    void pagesThroughEveryUserOnceInIdOrder() {
+        List<UserSummary> all = walk(UserCriteria.builder().build(), UserSort.ID, 10);
+
+        assertEquals(ids, all.stream().map(UserSummary::getId).toList());
+        UserSummary first = all.get(0);
+        assertEquals("admin_24", first.getUsername());
+        assertEquals(List.of("ROLE_ADMIN"), first.getRoles());
+        assertTrue(first.isEnabled());
+        assertFalse(first.isLocked());
+        assertNotNull(first.getCreatedAt());
+    }
+
+    @Test
+    void exactMultipleOfTheLimitEndsWithoutAnEmptyPage() {
+        UserPage page = service.searchUsers(UserCriteria.builder().build(), UserSort.ID, null, 25);
+        assertEquals(25, page.getUsers().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void filtersByPrefixInUsernameOrder() {
+        UserCriteria criteria = UserCriteria.builder().usernamePrefix("user_1").build();
+        assertEquals(UserSort.USERNAME, UserSort.defaultFor(criteria));
+
+        List<String> names = walk(criteria, UserSort.USERNAME, 3).stream().map(UserSummary::getUsername).toList();
+
+        assertEquals(List.of("user_10", "user_11", "user_13", "user_14", "user_16", "user_17", "user_19"), names);
+    }
+
+    @Test
+    void filtersByRoleAndState() {
+        UserCriteria admins = UserCriteria.builder().role("ROLE_ADMIN").build();
+        assertEquals(9, walk(admins, UserSort.ID, 4).size());
+        assertEquals(9, walk(admins, UserSort.EMAIL, 4).size());
+
+        service.bulk(BulkOperation.lock(), ids.subList(0, 4), null);
+        UserCriteria lockedAdmins = UserCriteria.builder().role("ROLE_ADMIN").locked(true).build();
+        List<UserSummary> locked = walk(lockedAdmins, UserSort.ID, 1);
+        assertEquals(List.of(ids.get(0), ids.get(3)), locked.stream().map(UserSummary::getId).toList());
+        assertTrue(locked.get(0).isLocked());
+        // 16 users, two of them locked above
+        UserCriteria unlockedUsers = UserCriteria.builder().role("ROLE_USER").locked(false).enabled(true).build();
+        assertEquals(14, walk(unlockedUsers, UserSort.ID, 50).size());
+    }
+
+    @Test
+    void rejectsBadCursorsAndLimits() {
+        UserCriteria everyone = UserCriteria.builder().build();
+        String cursor = service.searchUsers(everyone, UserSort.ID, null, 5).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> service.searchUsers(everyone, UserSort.USERNAME, cursor, 5));
+        assertThrows(IllegalArgumentException.class, () -> service.searchUsers(everyone, UserSort.ID, "not a cursor", 5));
+        assertThrows(IllegalArgumentException.class, () -> service.searchUsers(everyone, UserSort.ID, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchUsers(everyone, UserSort.ID, null, UserService.MAX_PAGE_SIZE + 1));
+    }
+}